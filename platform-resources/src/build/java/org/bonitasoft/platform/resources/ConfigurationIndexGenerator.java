@@ -0,0 +1,92 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.resources;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Build-time tool that writes the index of configuration resources shipped in platform-resources.
+ * <p/>
+ * Each line of the index is: CONFIGURATION_TYPE, resource name, size in bytes and SHA-256 of the content, separated by tabs.
+ * Only files located directly under a configuration type folder are indexed, sql scripts and META-INF are ignored.
+ * <p/>
+ * usage: ConfigurationIndexGenerator indexFile resourceFolder [resourceFolder...]
+ * <p/>
+ * It does not write to the console: the calling antrun target reports the generated index through the Maven log.
+ *
+ * @author Laurent Leseigneur
+ */
+public class ConfigurationIndexGenerator {
+
+    private static final List<String> IGNORED_FOLDERS = Arrays.asList("sql", "META-INF");
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            throw new IllegalArgumentException("usage: ConfigurationIndexGenerator indexFile resourceFolder [resourceFolder...]");
+        }
+        final List<String> lines = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            lines.addAll(indexFolder(Paths.get(args[i])));
+        }
+        Collections.sort(lines);
+        lines.add(0, "# generated by ConfigurationIndexGenerator: CONFIGURATION_TYPE<TAB>resource name<TAB>size<TAB>sha-256");
+        final Path indexFile = Paths.get(args[0]);
+        Files.createDirectories(indexFile.getParent());
+        Files.write(indexFile, lines, StandardCharsets.UTF_8);
+    }
+
+    private static List<String> indexFolder(Path root) throws IOException, NoSuchAlgorithmException {
+        final List<String> lines = new ArrayList<>();
+        final File[] typeFolders = root.toFile().listFiles();
+        if (typeFolders == null) {
+            return lines;
+        }
+        for (File typeFolder : typeFolders) {
+            if (!typeFolder.isDirectory() || IGNORED_FOLDERS.contains(typeFolder.getName())) {
+                continue;
+            }
+            final File[] resources = typeFolder.listFiles();
+            if (resources == null) {
+                continue;
+            }
+            for (File resource : resources) {
+                if (resource.isFile()) {
+                    final byte[] content = Files.readAllBytes(resource.toPath());
+                    lines.add(typeFolder.getName().toUpperCase() + "\t" + resource.getName() + "\t" + content.length + "\t" + sha256(content));
+                }
+            }
+        }
+        return lines;
+    }
+
+    private static String sha256(byte[] content) throws NoSuchAlgorithmException {
+        final byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+        final StringBuilder hex = new StringBuilder(digest.length * 2);
+        for (byte b : digest) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}
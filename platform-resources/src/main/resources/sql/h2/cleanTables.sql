@@ -46,6 +46,7 @@ DELETE FROM role;
 DELETE FROM group_;
 DELETE FROM queriablelog_p;
 DELETE FROM queriable_log;
+DELETE FROM queriable_log_day;
 DELETE FROM page;
 DELETE FROM sequence WHERE tenantId <> -1;
 DELETE FROM profilemember;
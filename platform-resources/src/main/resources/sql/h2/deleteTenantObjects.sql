@@ -45,6 +45,7 @@ DELETE FROM role WHERE tenantid = ${tenantid};
 DELETE FROM group_ WHERE tenantid = ${tenantid};
 DELETE FROM queriablelog_p WHERE tenantid = ${tenantid};
 DELETE FROM queriable_log WHERE tenantid = ${tenantid};
+DELETE FROM queriable_log_day WHERE tenantid = ${tenantid};
 DELETE FROM page WHERE tenantid = ${tenantid};
 DELETE FROM sequence WHERE tenantid = ${tenantid};
 DELETE FROM profilemember WHERE tenantid = ${tenantid};
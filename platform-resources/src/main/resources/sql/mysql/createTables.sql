@@ -7,6 +7,45 @@ CREATE TABLE configuration (
 ALTER TABLE configuration ADD CONSTRAINT pk_configuration PRIMARY KEY (tenant_id, content_type, resource_name);
 CREATE INDEX idx_configuration ON configuration (tenant_id, content_type);
 
+CREATE TABLE configuration_content (
+  content_hash VARCHAR(64) NOT NULL,
+  resource_content BLOB NOT NULL
+) ENGINE = INNODB;
+ALTER TABLE configuration_content ADD CONSTRAINT pk_configuration_content PRIMARY KEY (content_hash);
+
+CREATE TABLE configuration_generation (
+  generation BIGINT NOT NULL,
+  created BIGINT NOT NULL,
+  activation BIGINT NOT NULL
+) ENGINE = INNODB;
+ALTER TABLE configuration_generation ADD CONSTRAINT pk_configuration_generation PRIMARY KEY (generation);
+
+CREATE TABLE configuration_change_mark (
+  id BIGINT NOT NULL,
+  mark BIGINT NOT NULL
+) ENGINE = INNODB;
+ALTER TABLE configuration_change_mark ADD CONSTRAINT pk_configuration_change_mark PRIMARY KEY (id);
+
+CREATE TABLE configuration_history (
+  generation BIGINT NOT NULL,
+  tenant_id BIGINT NOT NULL,
+  content_type VARCHAR(50) NOT NULL,
+  resource_name VARCHAR(120) NOT NULL,
+  content_hash VARCHAR(64) NOT NULL
+) ENGINE = INNODB;
+ALTER TABLE configuration_history ADD CONSTRAINT pk_configuration_history PRIMARY KEY (generation, tenant_id, content_type, resource_name);
+CREATE INDEX idx_configuration_history ON configuration_history (content_hash);
+
+CREATE TABLE configuration_property (
+  tenant_id BIGINT NOT NULL,
+  content_type VARCHAR(50) NOT NULL,
+  resource_name VARCHAR(120) NOT NULL,
+  property_key VARCHAR(200) NOT NULL,
+  property_value VARCHAR(1024)
+) ENGINE = INNODB;
+CREATE INDEX idx_configuration_property ON configuration_property (property_key, tenant_id);
+CREATE INDEX idx_configuration_property_file ON configuration_property (tenant_id, content_type, resource_name);
+
 CREATE TABLE contract_data (
   tenantid BIGINT NOT NULL,
   id BIGINT NOT NULL,
@@ -846,6 +885,18 @@ CREATE TABLE queriablelog_p (
 
 CREATE INDEX idx_queriablelog ON queriablelog_p (queriableLogId);
 ALTER TABLE queriablelog_p ADD CONSTRAINT fk_queriableLogId FOREIGN KEY (tenantid, queriableLogId) REFERENCES queriable_log(tenantid, id);
+
+CREATE TABLE queriable_log_day (
+  tenantid BIGINT NOT NULL,
+  whatYear SMALLINT NOT NULL,
+  dayOfYear SMALLINT NOT NULL,
+  severity VARCHAR(50) NOT NULL,
+  actionType VARCHAR(50) NOT NULL,
+  actionStatus TINYINT NOT NULL,
+  logCount BIGINT NOT NULL,
+  PRIMARY KEY (tenantid, whatYear, dayOfYear, severity, actionType, actionStatus)
+) ENGINE = INNODB;
+
 CREATE TABLE page (
   tenantId BIGINT NOT NULL,
   id BIGINT NOT NULL,
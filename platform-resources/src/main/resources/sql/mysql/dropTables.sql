@@ -1,3 +1,8 @@
+DROP TABLE configuration_property;
+DROP TABLE configuration_history;
+DROP TABLE configuration_change_mark;
+DROP TABLE configuration_generation;
+DROP TABLE configuration_content;
 DROP TABLE configuration;
 DROP TABLE arch_contract_data;
 DROP TABLE contract_data;
@@ -48,6 +53,7 @@ DROP TABLE role;
 DROP TABLE group_;
 DROP TABLE queriablelog_p;
 DROP TABLE queriable_log;
+DROP TABLE queriable_log_day;
 DROP TABLE page;
 DROP TABLE theme;
 DROP TABLE blob_;
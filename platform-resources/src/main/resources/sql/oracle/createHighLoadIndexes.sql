@@ -0,0 +1,25 @@
+-- ------------------------------------------------ High-load indexes -------------------------------------------------
+-- Run at the end of init when db.index.profile is high-load.
+-- Every index leads with tenantid and carries the columns the task-list, event matching and timer queries filter on,
+-- so that those queries are answered from the index instead of scanning the rows of all tenants.
+-- The default indexes of createTables.sql are kept: the engine still relies on them for its other queries.
+
+CREATE INDEX idx_hl_fni_rootcont ON flownode_instance (tenantid, rootContainerId, stateId, kind, id);
+CREATE INDEX idx_hl_fni_lg4 ON flownode_instance (tenantid, logicalGroup4, terminal, stable);
+CREATE INDEX idx_hl_fni_lg2_state ON flownode_instance (tenantid, logicalGroup2, stateName);
+CREATE INDEX idx_hl_fni_task_list ON flownode_instance (tenantid, assigneeId, stateName, kind, stable, terminal, id);
+
+CREATE INDEX idx_hl_pm_user ON pending_mapping (tenantid, userId, activityId);
+CREATE INDEX idx_hl_pm_actor ON pending_mapping (tenantid, actorId, activityId);
+
+CREATE INDEX idx_hl_pi_root ON process_instance (tenantid, rootProcessInstanceId, id);
+CREATE INDEX idx_hl_pi_caller ON process_instance (tenantid, callerId, id);
+
+CREATE INDEX idx_hl_we_message ON waiting_event (tenantid, kind, messageName, processName, progress, active);
+CREATE INDEX idx_hl_we_flownode ON waiting_event (tenantid, flowNodeInstanceId, kind);
+CREATE INDEX idx_hl_we_root ON waiting_event (tenantid, rootProcessInstanceId, id);
+
+CREATE INDEX idx_hl_eti_event ON event_trigger_instance (tenantid, eventInstanceId, kind);
+CREATE INDEX idx_hl_eti_timer ON event_trigger_instance (tenantid, kind, executionDate, id);
+
+CREATE INDEX idx_hl_datai_cover ON data_instance (tenantId, containerId, containerType, name, id);
@@ -7,6 +7,45 @@ CREATE TABLE configuration (
 ALTER TABLE configuration ADD CONSTRAINT pk_configuration PRIMARY KEY (tenant_id, content_type, resource_name);
 CREATE INDEX idx_configuration ON configuration (tenant_id, content_type);
 
+CREATE TABLE configuration_content (
+  content_hash VARCHAR2(64 CHAR) NOT NULL,
+  resource_content BLOB NOT NULL
+);
+ALTER TABLE configuration_content ADD CONSTRAINT pk_configuration_content PRIMARY KEY (content_hash);
+
+CREATE TABLE configuration_generation (
+  generation NUMBER(19, 0) NOT NULL,
+  created NUMBER(19, 0) NOT NULL,
+  activation NUMBER(19, 0) NOT NULL
+);
+ALTER TABLE configuration_generation ADD CONSTRAINT pk_configuration_generation PRIMARY KEY (generation);
+
+CREATE TABLE configuration_change_mark (
+  id NUMBER(19, 0) NOT NULL,
+  mark NUMBER(19, 0) NOT NULL
+);
+ALTER TABLE configuration_change_mark ADD CONSTRAINT pk_configuration_change_mark PRIMARY KEY (id);
+
+CREATE TABLE configuration_history (
+  generation NUMBER(19, 0) NOT NULL,
+  tenant_id NUMBER(19, 0) NOT NULL,
+  content_type VARCHAR2(50 CHAR) NOT NULL,
+  resource_name VARCHAR2(120 CHAR) NOT NULL,
+  content_hash VARCHAR2(64 CHAR) NOT NULL
+);
+ALTER TABLE configuration_history ADD CONSTRAINT pk_configuration_history PRIMARY KEY (generation, tenant_id, content_type, resource_name);
+CREATE INDEX idx_configuration_history ON configuration_history (content_hash);
+
+CREATE TABLE configuration_property (
+  tenant_id NUMBER(19, 0) NOT NULL,
+  content_type VARCHAR2(50 CHAR) NOT NULL,
+  resource_name VARCHAR2(120 CHAR) NOT NULL,
+  property_key VARCHAR2(200 CHAR) NOT NULL,
+  property_value VARCHAR2(1024 CHAR)
+);
+CREATE INDEX idx_configuration_property ON configuration_property (property_key, tenant_id);
+CREATE INDEX idx_configuration_property_file ON configuration_property (tenant_id, content_type, resource_name);
+
 CREATE TABLE contract_data (
   tenantid NUMBER(19, 0) NOT NULL,
   id NUMBER(19, 0) NOT NULL,
@@ -835,6 +874,17 @@ CREATE TABLE queriablelog_p (
 CREATE INDEX idx_queriablelog ON queriablelog_p (queriableLogId);
 ALTER TABLE queriablelog_p ADD CONSTRAINT fk_queriableLogId FOREIGN KEY (tenantid, queriableLogId) REFERENCES queriable_log(tenantid, id);
 
+CREATE TABLE queriable_log_day (
+  tenantid NUMBER(19, 0) NOT NULL,
+  whatYear SMALLINT NOT NULL,
+  dayOfYear SMALLINT NOT NULL,
+  severity VARCHAR2(50 CHAR) NOT NULL,
+  actionType VARCHAR2(50 CHAR) NOT NULL,
+  actionStatus SMALLINT NOT NULL,
+  logCount NUMBER(19, 0) NOT NULL,
+  PRIMARY KEY (tenantid, whatYear, dayOfYear, severity, actionType, actionStatus)
+);
+
 CREATE TABLE page (
   tenantId NUMBER(19, 0) NOT NULL,
   id NUMBER(19, 0) NOT NULL,
@@ -1,3 +1,8 @@
+DROP TABLE configuration_property cascade constraints purge;
+DROP TABLE configuration_history cascade constraints purge;
+DROP TABLE configuration_change_mark cascade constraints purge;
+DROP TABLE configuration_generation cascade constraints purge;
+DROP TABLE configuration_content cascade constraints purge;
 DROP TABLE configuration cascade constraints purge;
 DROP TABLE arch_contract_data cascade constraints purge;
 DROP TABLE contract_data cascade constraints purge;
@@ -48,6 +53,7 @@ DROP TABLE role cascade constraints purge;
 DROP TABLE group_ cascade constraints purge;
 DROP TABLE queriablelog_p cascade constraints purge;
 DROP TABLE queriable_log cascade constraints purge;
+DROP TABLE queriable_log_day cascade constraints purge;
 DROP TABLE page cascade constraints purge;
 DROP TABLE theme cascade constraints purge;
 DROP TABLE blob_ cascade constraints purge;
@@ -0,0 +1,212 @@
+-- ------------------------------------------------ Partitioned layout -----------------------------------------------
+-- Run right after createTables.sql when db.schema.profile is partitioned (PostgreSQL 11 or later).
+-- Archive and log tables are created again, partitioned by tenant: createTenantPartitions.sql adds one partition per tenant,
+-- rows of other tenants go to the default partition.
+-- queriablelog_p does not reference queriable_log, so that a tenant partition of each can be dropped on its own.
+
+DROP TABLE queriablelog_p;
+DROP TABLE queriable_log;
+DROP TABLE arch_contract_data;
+DROP TABLE arch_document_mapping;
+DROP TABLE arch_connector_instance;
+DROP TABLE arch_data_instance;
+DROP TABLE arch_flownode_instance;
+DROP TABLE arch_process_instance;
+
+CREATE TABLE arch_process_instance (
+  tenantid INT8 NOT NULL,
+  id INT8 NOT NULL,
+  name VARCHAR(75) NOT NULL,
+  processDefinitionId INT8 NOT NULL,
+  description VARCHAR(255),
+  startDate INT8 NOT NULL,
+  startedBy INT8 NOT NULL,
+  startedBySubstitute INT8 NOT NULL,
+  endDate INT8 NOT NULL,
+  archiveDate INT8 NOT NULL,
+  stateId INT NOT NULL,
+  lastUpdate INT8 NOT NULL,
+  rootProcessInstanceId INT8,
+  callerId INT8,
+  sourceObjectId INT8 NOT NULL,
+  stringIndex1 VARCHAR(255),
+  stringIndex2 VARCHAR(255),
+  stringIndex3 VARCHAR(255),
+  stringIndex4 VARCHAR(255),
+  stringIndex5 VARCHAR(255),
+  PRIMARY KEY (tenantid, id)
+) PARTITION BY LIST (tenantid);
+CREATE TABLE arch_process_instance_default PARTITION OF arch_process_instance DEFAULT;
+CREATE INDEX idx1_arch_process_instance ON arch_process_instance (tenantId, sourceObjectId, rootProcessInstanceId, callerId);
+CREATE INDEX idx2_arch_process_instance ON arch_process_instance (tenantId, processDefinitionId, archiveDate);
+CREATE INDEX idx3_arch_process_instance ON arch_process_instance (tenantId, sourceObjectId, callerId, stateId);
+
+CREATE TABLE arch_flownode_instance (
+  tenantid INT8 NOT NULL,
+  id INT8 NOT NULL,
+  flownodeDefinitionId INT8 NOT NULL,
+  kind VARCHAR(25) NOT NULL,
+  sourceObjectId INT8,
+  archiveDate INT8 NOT NULL,
+  rootContainerId INT8 NOT NULL,
+  parentContainerId INT8 NOT NULL,
+  name VARCHAR(255) NOT NULL,
+  displayName VARCHAR(255),
+  displayDescription VARCHAR(255),
+  stateId INT NOT NULL,
+  stateName VARCHAR(50),
+  terminal BOOLEAN NOT NULL,
+  stable BOOLEAN ,
+  actorId INT8 NULL,
+  assigneeId INT8 DEFAULT 0 NOT NULL,
+  reachedStateDate INT8,
+  lastUpdateDate INT8,
+  expectedEndDate INT8,
+  claimedDate INT8,
+  priority SMALLINT,
+  gatewayType VARCHAR(50),
+  hitBys VARCHAR(255),
+  logicalGroup1 INT8 NOT NULL,
+  logicalGroup2 INT8 NOT NULL,
+  logicalGroup3 INT8,
+  logicalGroup4 INT8 NOT NULL,
+  loop_counter INT,
+  loop_max INT,
+  loopCardinality INT,
+  loopDataInputRef VARCHAR(255),
+  loopDataOutputRef VARCHAR(255),
+  description VARCHAR(255),
+  sequential BOOLEAN,
+  dataInputItemRef VARCHAR(255),
+  dataOutputItemRef VARCHAR(255),
+  nbActiveInst INT,
+  nbCompletedInst INT,
+  nbTerminatedInst INT,
+  executedBy INT8,
+  executedBySubstitute INT8,
+  activityInstanceId INT8,
+  aborting BOOLEAN NOT NULL,
+  triggeredByEvent BOOLEAN,
+  interrupting BOOLEAN,
+  PRIMARY KEY (tenantid, id)
+) PARTITION BY LIST (tenantid);
+CREATE TABLE arch_flownode_instance_default PARTITION OF arch_flownode_instance DEFAULT;
+CREATE INDEX idx_afi_sourceId_tenantid_kind ON arch_flownode_instance (sourceObjectId, tenantid, kind);
+CREATE INDEX idx1_arch_flownode_instance ON arch_flownode_instance (tenantId, rootContainerId, parentContainerId);
+
+CREATE TABLE arch_data_instance (
+    tenantId INT8 NOT NULL,
+	id INT8 NOT NULL,
+	name VARCHAR(50),
+	description VARCHAR(50),
+	transientData BOOLEAN,
+	className VARCHAR(100),
+	containerId INT8,
+	containerType VARCHAR(60),
+	namespace VARCHAR(100),
+	element VARCHAR(60),
+	intValue INT,
+	longValue INT8,
+	shortTextValue VARCHAR(255),
+	booleanValue BOOLEAN,
+	doubleValue NUMERIC(19,5),
+	floatValue REAL,
+	blobValue BYTEA,
+	clobValue TEXT,
+	discriminant VARCHAR(50) NOT NULL,
+	archiveDate INT8 NOT NULL,
+	sourceObjectId INT8 NOT NULL,
+	PRIMARY KEY (tenantid, id)
+) PARTITION BY LIST (tenantid);
+CREATE TABLE arch_data_instance_default PARTITION OF arch_data_instance DEFAULT;
+CREATE INDEX idx1_arch_data_instance ON arch_data_instance (tenantId, containerId, containerType, archiveDate, name, sourceObjectId);
+CREATE INDEX idx2_arch_data_instance ON arch_data_instance (sourceObjectId, containerId, archiveDate, id, tenantId);
+
+CREATE TABLE arch_connector_instance (
+  tenantid INT8 NOT NULL,
+  id INT8 NOT NULL,
+  containerId INT8 NOT NULL,
+  containerType VARCHAR(10) NOT NULL,
+  connectorId VARCHAR(255) NOT NULL,
+  version VARCHAR(10) NOT NULL,
+  name VARCHAR(255) NOT NULL,
+  activationEvent VARCHAR(30),
+  state VARCHAR(50),
+  sourceObjectId INT8,
+  archiveDate INT8 NOT NULL,
+  PRIMARY KEY (tenantid, id)
+) PARTITION BY LIST (tenantid);
+CREATE TABLE arch_connector_instance_default PARTITION OF arch_connector_instance DEFAULT;
+CREATE INDEX idx1_arch_connector_instance ON arch_connector_instance (tenantId, containerId, containerType);
+
+CREATE TABLE arch_document_mapping (
+  tenantid INT8 NOT NULL,
+  id INT8 NOT NULL,
+  sourceObjectId INT8,
+  processinstanceid INT8 NOT NULL,
+  documentid INT8 NOT NULL,
+  name VARCHAR(50) NOT NULL,
+  description TEXT,
+  version VARCHAR(10) NOT NULL,
+  index_ INT NOT NULL,
+  archiveDate INT8 NOT NULL,
+  PRIMARY KEY (tenantid, ID)
+) PARTITION BY LIST (tenantid);
+CREATE TABLE arch_document_mapping_default PARTITION OF arch_document_mapping DEFAULT;
+CREATE INDEX idx_a_doc_mp_pr_id ON arch_document_mapping (processinstanceid, tenantid);
+
+CREATE TABLE arch_contract_data (
+  tenantid INT8 NOT NULL,
+  id INT8 NOT NULL,
+  kind VARCHAR(20) NOT NULL,
+  scopeId INT8 NOT NULL,
+  name VARCHAR(50) NOT NULL,
+  val BYTEA,
+  archiveDate INT8 NOT NULL,
+  sourceObjectId INT8 NOT NULL
+) PARTITION BY LIST (tenantid);
+CREATE TABLE arch_contract_data_default PARTITION OF arch_contract_data DEFAULT;
+ALTER TABLE arch_contract_data ADD CONSTRAINT pk_arch_contract_data PRIMARY KEY (tenantid, id, scopeId);
+ALTER TABLE arch_contract_data ADD CONSTRAINT uc_acd_scope_name UNIQUE (kind, scopeId, name, tenantid);
+CREATE INDEX idx_acd_scope_name ON arch_contract_data (kind, scopeId, name, tenantid);
+
+CREATE TABLE queriable_log (
+  tenantid INT8 NOT NULL,
+  id INT8 NOT NULL,
+  log_timestamp INT8 NOT NULL,
+  whatYear SMALLINT NOT NULL,
+  whatMonth SMALLINT NOT NULL,
+  dayOfYear SMALLINT NOT NULL,
+  weekOfYear SMALLINT NOT NULL,
+  userId VARCHAR(255) NOT NULL,
+  threadNumber INT8 NOT NULL,
+  clusterNode VARCHAR(50),
+  productVersion VARCHAR(50) NOT NULL,
+  severity VARCHAR(50) NOT NULL,
+  actionType VARCHAR(50) NOT NULL,
+  actionScope VARCHAR(100),
+  actionStatus SMALLINT NOT NULL,
+  rawMessage VARCHAR(255) NOT NULL,
+  callerClassName VARCHAR(200),
+  callerMethodName VARCHAR(80),
+  numericIndex1 INT8,
+  numericIndex2 INT8,
+  numericIndex3 INT8,
+  numericIndex4 INT8,
+  numericIndex5 INT8,
+  PRIMARY KEY (tenantid, id)
+) PARTITION BY LIST (tenantid);
+CREATE TABLE queriable_log_default PARTITION OF queriable_log DEFAULT;
+
+CREATE TABLE queriablelog_p (
+  tenantid INT8 NOT NULL,
+  id INT8 NOT NULL,
+  queriableLogId INT8 NOT NULL,
+  name VARCHAR(50) NOT NULL,
+  stringValue VARCHAR(255),
+  blobId INT8,
+  valueType VARCHAR(30),
+  PRIMARY KEY (tenantid, id)
+) PARTITION BY LIST (tenantid);
+CREATE TABLE queriablelog_p_default PARTITION OF queriablelog_p DEFAULT;
+CREATE INDEX idx_queriablelog ON queriablelog_p (queriableLogId);
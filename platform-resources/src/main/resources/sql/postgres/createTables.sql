@@ -7,6 +7,45 @@ CREATE TABLE configuration (
 ALTER TABLE configuration ADD CONSTRAINT pk_configuration PRIMARY KEY (tenant_id, content_type, resource_name);
 CREATE INDEX idx_configuration ON configuration (tenant_id, content_type);
 
+CREATE TABLE configuration_content (
+  content_hash VARCHAR(64) NOT NULL,
+  resource_content BYTEA NOT NULL
+);
+ALTER TABLE configuration_content ADD CONSTRAINT pk_configuration_content PRIMARY KEY (content_hash);
+
+CREATE TABLE configuration_generation (
+  generation INT8 NOT NULL,
+  created INT8 NOT NULL,
+  activation INT8 NOT NULL
+);
+ALTER TABLE configuration_generation ADD CONSTRAINT pk_configuration_generation PRIMARY KEY (generation);
+
+CREATE TABLE configuration_change_mark (
+  id INT8 NOT NULL,
+  mark INT8 NOT NULL
+);
+ALTER TABLE configuration_change_mark ADD CONSTRAINT pk_configuration_change_mark PRIMARY KEY (id);
+
+CREATE TABLE configuration_history (
+  generation INT8 NOT NULL,
+  tenant_id INT8 NOT NULL,
+  content_type VARCHAR(50) NOT NULL,
+  resource_name VARCHAR(120) NOT NULL,
+  content_hash VARCHAR(64) NOT NULL
+);
+ALTER TABLE configuration_history ADD CONSTRAINT pk_configuration_history PRIMARY KEY (generation, tenant_id, content_type, resource_name);
+CREATE INDEX idx_configuration_history ON configuration_history (content_hash);
+
+CREATE TABLE configuration_property (
+  tenant_id INT8 NOT NULL,
+  content_type VARCHAR(50) NOT NULL,
+  resource_name VARCHAR(120) NOT NULL,
+  property_key VARCHAR(200) NOT NULL,
+  property_value VARCHAR(1024)
+);
+CREATE INDEX idx_configuration_property ON configuration_property (property_key, tenant_id);
+CREATE INDEX idx_configuration_property_file ON configuration_property (tenant_id, content_type, resource_name);
+
 CREATE TABLE contract_data (
   tenantid INT8 NOT NULL,
   id INT8 NOT NULL,
@@ -846,6 +885,18 @@ CREATE TABLE queriablelog_p (
 
 CREATE INDEX idx_queriablelog ON queriablelog_p (queriableLogId);
 ALTER TABLE queriablelog_p ADD CONSTRAINT fk_queriableLogId FOREIGN KEY (tenantid, queriableLogId) REFERENCES queriable_log(tenantid, id);
+
+CREATE TABLE queriable_log_day (
+  tenantid INT8 NOT NULL,
+  whatYear SMALLINT NOT NULL,
+  dayOfYear SMALLINT NOT NULL,
+  severity VARCHAR(50) NOT NULL,
+  actionType VARCHAR(50) NOT NULL,
+  actionStatus SMALLINT NOT NULL,
+  logCount INT8 NOT NULL,
+  PRIMARY KEY (tenantid, whatYear, dayOfYear, severity, actionType, actionStatus)
+);
+
 CREATE TABLE page (
   tenantId INT8 NOT NULL,
   id INT8 NOT NULL,
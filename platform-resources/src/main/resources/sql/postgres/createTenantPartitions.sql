@@ -0,0 +1,10 @@
+-- ------------------------------------------------ Tenant partitions -----------------------------------------------
+-- Run for each new tenant when db.schema.profile is partitioned, ${tenantid} being replaced by the tenant id.
+CREATE TABLE IF NOT EXISTS arch_process_instance_t${tenantid} PARTITION OF arch_process_instance FOR VALUES IN (${tenantid});
+CREATE TABLE IF NOT EXISTS arch_flownode_instance_t${tenantid} PARTITION OF arch_flownode_instance FOR VALUES IN (${tenantid});
+CREATE TABLE IF NOT EXISTS arch_data_instance_t${tenantid} PARTITION OF arch_data_instance FOR VALUES IN (${tenantid});
+CREATE TABLE IF NOT EXISTS arch_connector_instance_t${tenantid} PARTITION OF arch_connector_instance FOR VALUES IN (${tenantid});
+CREATE TABLE IF NOT EXISTS arch_document_mapping_t${tenantid} PARTITION OF arch_document_mapping FOR VALUES IN (${tenantid});
+CREATE TABLE IF NOT EXISTS arch_contract_data_t${tenantid} PARTITION OF arch_contract_data FOR VALUES IN (${tenantid});
+CREATE TABLE IF NOT EXISTS queriable_log_t${tenantid} PARTITION OF queriable_log FOR VALUES IN (${tenantid});
+CREATE TABLE IF NOT EXISTS queriablelog_p_t${tenantid} PARTITION OF queriablelog_p FOR VALUES IN (${tenantid});
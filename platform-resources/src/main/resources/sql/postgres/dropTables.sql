@@ -1,3 +1,8 @@
+DROP TABLE IF EXISTS configuration_property;
+DROP TABLE IF EXISTS configuration_history;
+DROP TABLE IF EXISTS configuration_change_mark;
+DROP TABLE IF EXISTS configuration_generation;
+DROP TABLE IF EXISTS configuration_content;
 DROP TABLE IF EXISTS configuration;
 DROP TABLE IF EXISTS arch_contract_data;
 DROP TABLE IF EXISTS contract_data;
@@ -48,6 +53,7 @@ DROP TABLE IF EXISTS role;
 DROP TABLE IF EXISTS group_;
 DROP TABLE IF EXISTS queriablelog_p;
 DROP TABLE IF EXISTS queriable_log;
+DROP TABLE IF EXISTS queriable_log_day;
 DROP TABLE IF EXISTS page;
 DROP TABLE IF EXISTS theme;
 DROP TABLE IF EXISTS blob_;
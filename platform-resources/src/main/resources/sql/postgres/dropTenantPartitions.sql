@@ -0,0 +1,10 @@
+-- ------------------------------------------------ Tenant partitions -----------------------------------------------
+-- Run before purging a tenant when db.schema.profile is partitioned, ${tenantid} being replaced by the tenant id.
+DROP TABLE IF EXISTS queriablelog_p_t${tenantid};
+DROP TABLE IF EXISTS queriable_log_t${tenantid};
+DROP TABLE IF EXISTS arch_process_instance_t${tenantid};
+DROP TABLE IF EXISTS arch_flownode_instance_t${tenantid};
+DROP TABLE IF EXISTS arch_data_instance_t${tenantid};
+DROP TABLE IF EXISTS arch_connector_instance_t${tenantid};
+DROP TABLE IF EXISTS arch_document_mapping_t${tenantid};
+DROP TABLE IF EXISTS arch_contract_data_t${tenantid};
@@ -92,6 +92,8 @@ DELETE FROM queriablelog_p
 GO
 DELETE FROM queriable_log
 GO
+DELETE FROM queriable_log_day
+GO
 DELETE FROM page
 GO
 DELETE FROM sequence WHERE tenantId <> -1
@@ -10,6 +10,57 @@ GO
 CREATE INDEX idx_configuration ON configuration (tenant_id, content_type)
 GO
 
+CREATE TABLE configuration_content (
+  content_hash NVARCHAR(64) NOT NULL,
+  resource_content VARBINARY(MAX) NOT NULL
+)
+GO
+ALTER TABLE configuration_content ADD CONSTRAINT pk_configuration_content PRIMARY KEY (content_hash)
+GO
+
+CREATE TABLE configuration_generation (
+  generation NUMERIC(19, 0) NOT NULL,
+  created NUMERIC(19, 0) NOT NULL,
+  activation NUMERIC(19, 0) NOT NULL
+)
+GO
+ALTER TABLE configuration_generation ADD CONSTRAINT pk_configuration_generation PRIMARY KEY (generation)
+GO
+
+CREATE TABLE configuration_change_mark (
+  id NUMERIC(19, 0) NOT NULL,
+  mark NUMERIC(19, 0) NOT NULL
+)
+GO
+ALTER TABLE configuration_change_mark ADD CONSTRAINT pk_configuration_change_mark PRIMARY KEY (id)
+GO
+
+CREATE TABLE configuration_history (
+  generation NUMERIC(19, 0) NOT NULL,
+  tenant_id NUMERIC(19, 0) NOT NULL,
+  content_type NVARCHAR(50) NOT NULL,
+  resource_name NVARCHAR(120) NOT NULL,
+  content_hash NVARCHAR(64) NOT NULL
+)
+GO
+ALTER TABLE configuration_history ADD CONSTRAINT pk_configuration_history PRIMARY KEY (generation, tenant_id, content_type, resource_name)
+GO
+CREATE INDEX idx_configuration_history ON configuration_history (content_hash)
+GO
+
+CREATE TABLE configuration_property (
+  tenant_id NUMERIC(19, 0) NOT NULL,
+  content_type NVARCHAR(50) NOT NULL,
+  resource_name NVARCHAR(120) NOT NULL,
+  property_key NVARCHAR(200) NOT NULL,
+  property_value NVARCHAR(1024)
+)
+GO
+CREATE INDEX idx_configuration_property ON configuration_property (property_key, tenant_id)
+GO
+CREATE INDEX idx_configuration_property_file ON configuration_property (tenant_id, content_type, resource_name)
+GO
+
 CREATE TABLE contract_data (
   tenantid NUMERIC(19, 0) NOT NULL,
   id NUMERIC(19, 0) NOT NULL,
@@ -961,6 +1012,19 @@ CREATE INDEX idx_queriablelog ON queriablelog_p (queriableLogId, id)
 GO
 ALTER TABLE queriablelog_p ADD CONSTRAINT fk_queriableLogId FOREIGN KEY (tenantid, queriableLogId) REFERENCES queriable_log(tenantid, id)
 GO
+
+CREATE TABLE queriable_log_day (
+  tenantid NUMERIC(19, 0) NOT NULL,
+  whatYear SMALLINT NOT NULL,
+  dayOfYear SMALLINT NOT NULL,
+  severity NVARCHAR(50) NOT NULL,
+  actionType NVARCHAR(50) NOT NULL,
+  actionStatus TINYINT NOT NULL,
+  logCount NUMERIC(19, 0) NOT NULL,
+  PRIMARY KEY (tenantid, whatYear, dayOfYear, severity, actionType, actionStatus)
+)
+GO
+
 CREATE TABLE page (
   tenantId NUMERIC(19, 0) NOT NULL,
   id NUMERIC(19, 0) NOT NULL,
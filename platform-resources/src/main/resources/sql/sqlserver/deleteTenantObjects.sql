@@ -92,6 +92,8 @@ DELETE FROM queriablelog_p WHERE tenantid = ${tenantid}
 GO
 DELETE FROM queriable_log WHERE tenantid = ${tenantid}
 GO
+DELETE FROM queriable_log_day WHERE tenantid = ${tenantid}
+GO
 DELETE FROM page WHERE tenantid = ${tenantid}
 GO
 DELETE FROM sequence WHERE tenantid = ${tenantid}
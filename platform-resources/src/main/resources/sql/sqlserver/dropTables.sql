@@ -1,3 +1,13 @@
+DROP TABLE configuration_property
+GO
+DROP TABLE configuration_history
+GO
+DROP TABLE configuration_change_mark
+GO
+DROP TABLE configuration_generation
+GO
+DROP TABLE configuration_content
+GO
 DROP TABLE configuration
 GO
 DROP TABLE arch_contract_data
@@ -98,6 +108,8 @@ DROP TABLE queriablelog_p
 GO
 DROP TABLE queriable_log
 GO
+DROP TABLE queriable_log_day
+GO
 DROP TABLE page
 GO
 DROP TABLE theme
@@ -0,0 +1,73 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.configuration;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+
+import org.bonitasoft.platform.configuration.model.BonitaConfiguration;
+import org.bonitasoft.platform.configuration.type.ConfigurationType;
+
+/**
+ * Asynchronous companion of {@link ConfigurationService}, so that operations on many tenants overlap their database round trips.
+ * Each call runs in its own transaction on a bounded pool of threads, whose size should not exceed the connection pool one.
+ * Failures are reported by {@link Future#get()} as an {@link java.util.concurrent.ExecutionException} wrapping the original exception.
+ *
+ * @author Laurent Leseigneur
+ */
+public interface AsyncConfigurationService {
+
+    /**
+     * @see ConfigurationService#getTenantEngineConf(long)
+     */
+    Future<List<BonitaConfiguration>> getTenantEngineConf(long tenantId);
+
+    /**
+     * @see ConfigurationService#getTenantPortalConf(long)
+     */
+    Future<List<BonitaConfiguration>> getTenantPortalConf(long tenantId);
+
+    /**
+     * @see ConfigurationService#getTenantSecurityScripts(long)
+     */
+    Future<List<BonitaConfiguration>> getTenantSecurityScripts(long tenantId);
+
+    /**
+     * @see ConfigurationService#getEffectiveTenantConfiguration(ConfigurationType, long)
+     */
+    Future<List<BonitaConfiguration>> getEffectiveTenantConfiguration(ConfigurationType type, long tenantId);
+
+    /**
+     * Retrieves the effective configuration of several tenants concurrently
+     *
+     * @param type one of TENANT_ENGINE, TENANT_PORTAL or TENANT_SECURITY_SCRIPTS
+     * @param tenantIds tenant identifiers
+     * @return one pending result per tenant identifier, in given order
+     */
+    Map<Long, Future<List<BonitaConfiguration>>> getEffectiveTenantConfigurations(ConfigurationType type, Collection<Long> tenantIds);
+
+    /**
+     * @see ConfigurationService#storeTenantConfiguration(File, long)
+     */
+    Future<Void> storeTenantConfiguration(File configurationRootFolder, long tenantId);
+
+    /**
+     * @see ConfigurationService#deleteTenantConfiguration(long)
+     */
+    Future<Void> deleteTenantConfiguration(long tenantId);
+
+}
@@ -15,9 +15,16 @@
 package org.bonitasoft.platform.configuration;
 
 import java.io.File;
+import java.util.Iterator;
 import java.util.List;
 
 import org.bonitasoft.platform.configuration.model.BonitaConfiguration;
+import org.bonitasoft.platform.configuration.model.ConfigurationFilter;
+import org.bonitasoft.platform.configuration.model.ConfigurationGeneration;
+import org.bonitasoft.platform.configuration.model.ConfigurationProperty;
+import org.bonitasoft.platform.configuration.model.FullBonitaConfiguration;
+import org.bonitasoft.platform.configuration.model.TemplatePropagation;
+import org.bonitasoft.platform.configuration.type.ConfigurationType;
 import org.bonitasoft.platform.exception.PlatformException;
 
 /**
@@ -171,6 +178,94 @@ public interface ConfigurationService {
      */
     BonitaConfiguration getTenantPortalConfiguration(long tenantId, String file);
 
+    /**
+     * Retrieves a configuration file of any type
+     *
+     * @param type configuration type of the file
+     * @param tenantId the tenant id, or 0 for files that are not tenant specific
+     * @param resourceName name of the file
+     * @return file, or null if it does not exist
+     */
+    BonitaConfiguration getConfiguration(ConfigurationType type, long tenantId, String resourceName);
+
+    /**
+     * Retrieves the effective configuration of a tenant: tenant template files overlaid with tenant files, .properties files being merged key by key.
+     * Result is computed once and kept until configuration is written again, through this service or by any other node or process sharing the
+     * same database.
+     *
+     * @param type one of TENANT_ENGINE, TENANT_PORTAL or TENANT_SECURITY_SCRIPTS
+     * @param tenantId tenant identifier
+     * @return unmodifiable list of files, that must not be modified
+     * @throws IllegalArgumentException if type has no tenant template
+     */
+    List<BonitaConfiguration> getEffectiveTenantConfiguration(ConfigurationType type, long tenantId);
+
+    /**
+     * Cheap change signal for callers keeping values derived from configuration: it changes each time configuration is stored through this service,
+     * and when any other node or process sharing the same database writes configuration.
+     *
+     * @return current configuration version
+     */
+    long getConfigurationVersion();
+
+    /**
+     * Retrieves, across all tenants, the .properties files setting a property, using the property index
+     *
+     * @param key property key
+     * @return one entry per file setting the key, ordered by tenant, type and file
+     */
+    List<ConfigurationProperty> findConfigurationProperties(String key);
+
+    /**
+     * Retrieves, across all tenants, the .properties files setting a property to a value, using the property index.
+     * Values longer than 1024 characters are not indexed, and never match.
+     *
+     * @param key property key
+     * @param value property value
+     * @return one entry per file setting the key to the value, ordered by tenant, type and file
+     */
+    List<ConfigurationProperty> findConfigurationProperties(String key, String value);
+
+    /**
+     * Retrieves the properties that tenants set differently from the tenant template, in a .properties file
+     *
+     * @param type one of TENANT_ENGINE, TENANT_PORTAL or TENANT_SECURITY_SCRIPTS
+     * @param resourceName name of the file
+     * @return properties absent from template file or having another value, ordered by tenant and key
+     */
+    List<ConfigurationProperty> findTenantPropertyOverrides(ConfigurationType type, String resourceName);
+
+    /**
+     * Index again all .properties files. Only needed when configuration table was modified without this service.
+     */
+    void rebuildConfigurationPropertyIndex();
+
+    /**
+     * Set a property in a .properties file, for every tenant having this file (or in the template file, for a template type).
+     * Only the line of the property is changed, the rest of each file is kept byte for byte; the property is appended to files not setting it yet.
+     * Files are processed by chunks, each chunk in its own transaction.
+     *
+     * @param type configuration type of the file
+     * @param resourceName name of the .properties file
+     * @param key property key
+     * @param value new property value
+     * @return number of files changed, files already having the value being left untouched
+     * @throws IllegalArgumentException if file is not a .properties file
+     */
+    int setProperty(ConfigurationType type, String resourceName, String key, String value);
+
+    /**
+     * Store tenant template files, and roll out each changed one to existing tenants: tenants whose copy still has the content of the previous
+     * template get the new content, tenants having modified their copy are left as is and reported.
+     * Files added to the template are only stored in the template.
+     *
+     * @param templateType one of the tenant template types
+     * @param bonitaConfigurations new template files
+     * @return one propagation per template file whose content changed
+     * @throws IllegalArgumentException if type is not a tenant template type
+     */
+    List<TemplatePropagation> propagateTenantTemplate(ConfigurationType templateType, List<BonitaConfiguration> bonitaConfigurations);
+
     /**
      * Read configuration files located under configuration root folder
      * each file is stored in database
@@ -197,6 +292,14 @@ public interface ConfigurationService {
      */
     void storeAllConfiguration(File configurationRootFolder) throws PlatformException;
 
+    /**
+     * insert configuration files of any type and tenant in a single transaction, without deleting existing files first.
+     * Used to bootstrap an empty configuration.
+     *
+     * @param fullBonitaConfigurations list of files
+     */
+    void insertNewConfigurations(List<FullBonitaConfiguration> fullBonitaConfigurations);
+
     /**
      * write all configuration files
      * directory structure :
@@ -214,6 +317,115 @@ public interface ConfigurationService {
      */
     void writeAllConfigurationToFolder(File configurationFolder, File licenseFolder) throws PlatformException;
 
+    /**
+     * Retrieves all configuration and license files, of all tenants, in a single transaction
+     *
+     * @return list of files with their type and tenant
+     */
+    List<FullBonitaConfiguration> getAllConfiguration();
+
+    /**
+     * Iterates over all configuration and license files, of all tenants, ordered by tenant id, configuration type and resource name.
+     * Files are read by pages, each page in its own short transaction, so that only one page is held in memory and no transaction is kept open
+     * between pages. Unlike {@link #getAllConfiguration()}, the result is not a consistent view when configuration is written meanwhile.
+     *
+     * @param pageSize number of files read per page
+     * @return an iterator reading pages as it goes
+     * @throws IllegalArgumentException if page size is lower than 1
+     */
+    Iterator<FullBonitaConfiguration> iterateAllConfiguration(int pageSize);
+
+    /**
+     * Retrieves the configuration and license files matching a filter. Filtering is done by the database, only matching files are transferred.
+     *
+     * @param filter files to retrieve
+     * @return list of files with their type and tenant
+     */
+    List<FullBonitaConfiguration> getConfiguration(ConfigurationFilter filter);
+
+    /**
+     * write the configuration and license files matching a filter to folders, using the same layout as {@link #writeAllConfigurationToFolder(File, File)}.
+     * Other files already present in folders are left as is.
+     *
+     * @param configurationFolder
+     * @param licenseFolder
+     * @param filter files to write
+     * @throws PlatformException
+     */
+    void writeConfigurationToFolder(File configurationFolder, File licenseFolder, ConfigurationFilter filter) throws PlatformException;
+
+    /**
+     * replace the configuration files matching a filter by the files of a folder matching it, in a single transaction.
+     * Files not matching the filter, and licenses, are left untouched. The folder uses the layout of {@link #writeAllConfigurationToFolder(File, File)}.
+     *
+     * @param configurationRootFolder folder to read files from
+     * @param filter files to replace
+     * @return number of files stored
+     * @throws PlatformException
+     */
+    int replaceConfiguration(File configurationRootFolder, ConfigurationFilter filter) throws PlatformException;
+
+    /**
+     * write all configuration and license files to a single zip archive, using the same layout as {@link #writeAllConfigurationToFolder(File, File)}
+     * with licenses under a licenses/ folder. Files are streamed from database to archive, and the archive contains a SHA256SUMS manifest.
+     *
+     * @param archiveFile the zip file to create
+     * @return number of files written to archive
+     * @throws PlatformException
+     */
+    int exportAllConfigurationToArchive(File archiveFile) throws PlatformException;
+
+    /**
+     * replace all configuration and license files with the content of an archive created by {@link #exportAllConfigurationToArchive(File)}.
+     * Every entry is checked against the archive manifest before anything is written to database, then all files are replaced in a single transaction.
+     *
+     * @param archiveFile the zip file to import
+     * @return number of files imported
+     * @throws PlatformException if archive is unreadable, or does not match its manifest
+     */
+    int importAllConfigurationFromArchive(File archiveFile) throws PlatformException;
+
+    /**
+     * write all configuration and license files to a binary snapshot file, that can be served without database access
+     * by {@link org.bonitasoft.platform.configuration.impl.SnapshotConfigurationServiceImpl}.
+     * Files are streamed from database to snapshot.
+     *
+     * @param snapshotFile the snapshot file to create
+     * @return number of files written to snapshot
+     * @throws PlatformException
+     */
+    int writeAllConfigurationToSnapshot(File snapshotFile) throws PlatformException;
+
+    /**
+     * record the current configuration and license files as a new generation, and make it the active generation.
+     * Contents already recorded by a previous generation are shared, not stored again.
+     * Every file is read and hashed, one at a time, so that files written by another process are recorded with their actual content.
+     *
+     * @return the new generation number
+     */
+    long recordConfigurationGeneration();
+
+    /**
+     * @return all recorded configuration generations, from the oldest to the most recent one
+     */
+    List<ConfigurationGeneration> getConfigurationHistory();
+
+    /**
+     * make given generation the active one, and replace all configuration and license files with the files recorded by this generation.
+     *
+     * @param generation the generation to restore
+     * @throws PlatformException if generation does not exist
+     */
+    void rollbackToConfigurationGeneration(long generation) throws PlatformException;
+
+    /**
+     * delete old configuration generations. The active generation is never deleted.
+     *
+     * @param generationsToKeep number of most recent generations to keep
+     * @return number of deleted generations
+     */
+    int pruneConfigurationGenerations(int generationsToKeep);
+
     /**
      * read licensesFolder for license files
      * sub-folders are ignored
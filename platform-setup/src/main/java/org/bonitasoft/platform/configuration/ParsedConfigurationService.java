@@ -0,0 +1,54 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.configuration;
+
+import java.util.Map;
+
+import org.bonitasoft.platform.configuration.type.ConfigurationType;
+import org.bonitasoft.platform.exception.PlatformException;
+import org.w3c.dom.Document;
+
+/**
+ * Give access to configuration files already parsed, on top of {@link ConfigurationService}.
+ * Configuration is only read again when {@link ConfigurationService#getConfigurationVersion()} changes, and a file is parsed again only when its content
+ * changes.
+ *
+ * @author Laurent Leseigneur
+ */
+public interface ParsedConfigurationService {
+
+    /**
+     * Retrieves a .properties file as an immutable map, shared between callers
+     *
+     * @param type configuration type of the file
+     * @param tenantId the tenant id, or 0 for files that are not tenant specific
+     * @param resourceName name of the file
+     * @return the properties, or null if file does not exist
+     * @throws PlatformException if file can not be parsed
+     */
+    Map<String, String> getProperties(ConfigurationType type, long tenantId, String resourceName) throws PlatformException;
+
+    /**
+     * Retrieves a .xml file as a read-only DOM document, shared between callers.
+     * Methods modifying it throw a {@link org.w3c.dom.DOMException}: use cloneNode(true) on the document to get a modifiable copy.
+     *
+     * @param type configuration type of the file
+     * @param tenantId the tenant id, or 0 for files that are not tenant specific
+     * @param resourceName name of the file
+     * @return the document, or null if file does not exist
+     * @throws PlatformException if file can not be parsed
+     */
+    Document getXmlDocument(ConfigurationType type, long tenantId, String resourceName) throws PlatformException;
+
+}
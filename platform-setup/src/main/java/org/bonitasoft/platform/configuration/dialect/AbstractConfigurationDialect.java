@@ -0,0 +1,149 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.configuration.dialect;
+
+import java.io.InputStream;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+import org.bonitasoft.platform.configuration.impl.BonitaAllConfigurationPreparedStatementSetter;
+import org.bonitasoft.platform.configuration.impl.ConfigurationColumns;
+import org.bonitasoft.platform.configuration.model.FullBonitaConfiguration;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.support.lob.TemporaryLobCreator;
+
+/**
+ * behavior shared by dialects: BLOBs bound as temporary LOBs, inserts sent as one JDBC batch, upserts done as a delete then an insert.
+ * Subclasses override what their database does better.
+ *
+ * @author Laurent Leseigneur
+ */
+public abstract class AbstractConfigurationDialect implements ConfigurationDialect, ConfigurationColumns {
+
+    public static final String INSERT_CONFIGURATION_PREFIX = "INSERT INTO configuration (tenant_id, content_type, resource_name, resource_content) VALUES ";
+
+    public static final String DELETE_CONFIGURATION = "DELETE FROM configuration WHERE tenant_id = ? AND content_type = ? AND resource_name = ?";
+
+    static final String VALUES_ROW = "(?, ?, ?, ?)";
+
+    /**
+     * content size above which a multi-row INSERT statement is sent without adding more rows, to stay below packet size limits
+     */
+    static final int MULTI_ROW_INSERT_MAX_CONTENT_BYTES = 1024 * 1024;
+
+    static final int DEFAULT_FETCH_SIZE = 100;
+
+    @Override
+    public void setBlobAsBytes(PreparedStatement preparedStatement, int parameterIndex, byte[] content) throws SQLException {
+        new TemporaryLobCreator().setBlobAsBytes(preparedStatement, parameterIndex, content);
+    }
+
+    @Override
+    public void setBlobAsBinaryStream(PreparedStatement preparedStatement, int parameterIndex, InputStream content, int length) throws SQLException {
+        new TemporaryLobCreator().setBlobAsBinaryStream(preparedStatement, parameterIndex, content, length);
+    }
+
+    @Override
+    public int getFetchSize() {
+        return DEFAULT_FETCH_SIZE;
+    }
+
+    @Override
+    public int insertConfigurations(JdbcTemplate jdbcTemplate, List<FullBonitaConfiguration> fullBonitaConfigurations) {
+        if (fullBonitaConfigurations.isEmpty()) {
+            return 0;
+        }
+        jdbcTemplate.batchUpdate(BonitaAllConfigurationPreparedStatementSetter.INSERT_CONFIGURATION,
+                new BonitaAllConfigurationPreparedStatementSetter(fullBonitaConfigurations, getVendor()));
+        return 1;
+    }
+
+    @Override
+    public void upsertConfigurations(JdbcTemplate jdbcTemplate, final List<FullBonitaConfiguration> fullBonitaConfigurations) {
+        if (fullBonitaConfigurations.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(DELETE_CONFIGURATION, new BatchPreparedStatementSetter() {
+
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                final FullBonitaConfiguration fullBonitaConfiguration = fullBonitaConfigurations.get(i);
+                ps.setLong(1, fullBonitaConfiguration.getTenantId());
+                ps.setString(2, fullBonitaConfiguration.getConfigurationType());
+                ps.setString(3, fullBonitaConfiguration.getResourceName());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return fullBonitaConfigurations.size();
+            }
+        });
+        insertConfigurations(jdbcTemplate, fullBonitaConfigurations);
+    }
+
+    /**
+     * insert rows with multi-row INSERT ... VALUES statements, each having at most maxRowsPerStatement rows and about
+     * {@link #MULTI_ROW_INSERT_MAX_CONTENT_BYTES} of content
+     *
+     * @return number of statements executed
+     */
+    protected int insertByMultiRowValues(JdbcTemplate jdbcTemplate, List<FullBonitaConfiguration> fullBonitaConfigurations, int maxRowsPerStatement) {
+        int statements = 0;
+        int from = 0;
+        while (from < fullBonitaConfigurations.size()) {
+            int to = from;
+            long contentBytes = 0;
+            while (to < fullBonitaConfigurations.size() && to - from < maxRowsPerStatement
+                    && (to == from || contentBytes < MULTI_ROW_INSERT_MAX_CONTENT_BYTES)) {
+                contentBytes += fullBonitaConfigurations.get(to).getResourceContent().length;
+                to++;
+            }
+            final List<FullBonitaConfiguration> rows = fullBonitaConfigurations.subList(from, to);
+            jdbcTemplate.update(buildMultiRowInsert(rows.size()), new PreparedStatementSetter() {
+
+                @Override
+                public void setValues(PreparedStatement ps) throws SQLException {
+                    int offset = 0;
+                    for (FullBonitaConfiguration row : rows) {
+                        ps.setLong(offset + COLUMN_INDEX_TENANT_ID, row.getTenantId());
+                        ps.setString(offset + COLUMN_INDEX_TYPE, row.getConfigurationType());
+                        ps.setString(offset + COLUMN_INDEX_RESOURCE_NAME, row.getResourceName());
+                        setBlobAsBytes(ps, offset + COLUMN_INDEX_RESOURCE_CONTENT, row.getResourceContent());
+                        offset += COLUMN_INDEX_RESOURCE_CONTENT;
+                    }
+                }
+            });
+            statements++;
+            from = to;
+        }
+        return statements;
+    }
+
+    static String buildMultiRowInsert(int rows) {
+        final StringBuilder insert = new StringBuilder(INSERT_CONFIGURATION_PREFIX.length() + rows * (VALUES_ROW.length() + 2));
+        insert.append(INSERT_CONFIGURATION_PREFIX);
+        for (int i = 0; i < rows; i++) {
+            insert.append(i == 0 ? "" : ", ").append(VALUES_ROW);
+        }
+        return insert.toString();
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName();
+    }
+}
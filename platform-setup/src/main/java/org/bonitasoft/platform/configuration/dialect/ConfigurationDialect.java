@@ -0,0 +1,66 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.configuration.dialect;
+
+import java.io.InputStream;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+import org.bonitasoft.platform.configuration.model.FullBonitaConfiguration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * database specific ways to read and write configuration table. One implementation per supported db vendor, see {@link ConfigurationDialects}.
+ *
+ * @author Laurent Leseigneur
+ */
+public interface ConfigurationDialect {
+
+    /**
+     * @return db vendor name, as set in db.vendor property
+     */
+    String getVendor();
+
+    /**
+     * bind a BLOB parameter from bytes
+     */
+    void setBlobAsBytes(PreparedStatement preparedStatement, int parameterIndex, byte[] content) throws SQLException;
+
+    /**
+     * bind a BLOB parameter from a stream, whose length is known
+     */
+    void setBlobAsBinaryStream(PreparedStatement preparedStatement, int parameterIndex, InputStream content, int length) throws SQLException;
+
+    /**
+     * @return number of rows fetched per round trip when reading many configuration rows, or 0 to keep driver default
+     */
+    int getFetchSize();
+
+    /**
+     * insert new rows in configuration table, using the fastest bulk strategy of the database
+     *
+     * @param fullBonitaConfigurations rows to insert, none of them existing yet
+     * @return number of statements executed
+     */
+    int insertConfigurations(JdbcTemplate jdbcTemplate, List<FullBonitaConfiguration> fullBonitaConfigurations);
+
+    /**
+     * insert rows in configuration table, replacing the content of the ones already existing
+     *
+     * @param fullBonitaConfigurations rows to insert or update
+     */
+    void upsertConfigurations(JdbcTemplate jdbcTemplate, List<FullBonitaConfiguration> fullBonitaConfigurations);
+
+}
@@ -0,0 +1,61 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.configuration.dialect;
+
+/**
+ * gives the {@link ConfigurationDialect} of a db vendor
+ *
+ * @author Laurent Leseigneur
+ */
+public class ConfigurationDialects {
+
+    private static final ConfigurationDialect H2 = new H2ConfigurationDialect();
+
+    private static final ConfigurationDialect POSTGRES = new PostgresConfigurationDialect();
+
+    private static final ConfigurationDialect MYSQL = new MySQLConfigurationDialect();
+
+    private static final ConfigurationDialect ORACLE = new OracleConfigurationDialect();
+
+    private static final ConfigurationDialect SQLSERVER = new SQLServerConfigurationDialect();
+
+    private ConfigurationDialects() {
+    }
+
+    /**
+     * @param dbVendor value of db.vendor property, or null to use sysprop.bonita.db.vendor system property
+     * @return the dialect of the vendor
+     * @throws IllegalArgumentException if vendor is not supported
+     */
+    public static ConfigurationDialect forVendor(String dbVendor) {
+        final String vendor = dbVendor == null ? System.getProperty("sysprop.bonita.db.vendor") : dbVendor;
+        if (vendor == null) {
+            throw new IllegalArgumentException("unsupported db vendor:null");
+        }
+        switch (vendor) {
+            case "h2":
+                return H2;
+            case "postgres":
+                return POSTGRES;
+            case "mysql":
+                return MYSQL;
+            case "oracle":
+                return ORACLE;
+            case "sqlserver":
+                return SQLSERVER;
+            default:
+                throw new IllegalArgumentException(new StringBuilder("unsupported db vendor:").append(vendor).toString());
+        }
+    }
+}
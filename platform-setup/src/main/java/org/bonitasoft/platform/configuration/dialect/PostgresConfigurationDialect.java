@@ -0,0 +1,54 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.configuration.dialect;
+
+import java.io.InputStream;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+import org.bonitasoft.platform.configuration.model.FullBonitaConfiguration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * PostgreSQL: BYTEA bound as bytes, and multi-row inserts, which the driver does not rewrite batches into by default.
+ * Upserts keep the delete then insert of {@link AbstractConfigurationDialect}, as INSERT ... ON CONFLICT needs PostgreSQL 9.5.
+ * Fetch size matters: without it, the driver reads the whole result set in memory.
+ *
+ * @author Laurent Leseigneur
+ */
+public class PostgresConfigurationDialect extends AbstractConfigurationDialect {
+
+    static final int MAX_ROWS_PER_INSERT = 100;
+
+    @Override
+    public String getVendor() {
+        return "postgres";
+    }
+
+    @Override
+    public void setBlobAsBytes(PreparedStatement preparedStatement, int parameterIndex, byte[] content) throws SQLException {
+        preparedStatement.setBytes(parameterIndex, content);
+    }
+
+    @Override
+    public void setBlobAsBinaryStream(PreparedStatement preparedStatement, int parameterIndex, InputStream content, int length) throws SQLException {
+        preparedStatement.setBinaryStream(parameterIndex, content, length);
+    }
+
+    @Override
+    public int insertConfigurations(JdbcTemplate jdbcTemplate, List<FullBonitaConfiguration> fullBonitaConfigurations) {
+        return insertByMultiRowValues(jdbcTemplate, fullBonitaConfigurations, MAX_ROWS_PER_INSERT);
+    }
+}
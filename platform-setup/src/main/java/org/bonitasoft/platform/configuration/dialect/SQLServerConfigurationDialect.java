@@ -0,0 +1,74 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.configuration.dialect;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+import org.bonitasoft.platform.configuration.model.FullBonitaConfiguration;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * SQL Server: multi-row inserts, limited by the 2100 parameters of a statement, and upserts with MERGE, holding a key range lock so that
+ * concurrent upserts of the same row do not both insert it.
+ *
+ * @author Laurent Leseigneur
+ */
+public class SQLServerConfigurationDialect extends AbstractConfigurationDialect {
+
+    public static final String MERGE_CONFIGURATION = "MERGE INTO configuration WITH (HOLDLOCK) AS c"
+            + " USING (SELECT ? AS tenant_id, ? AS content_type, ? AS resource_name, ? AS resource_content) AS s"
+            + " ON (c.tenant_id = s.tenant_id AND c.content_type = s.content_type AND c.resource_name = s.resource_name)"
+            + " WHEN MATCHED THEN UPDATE SET resource_content = s.resource_content"
+            + " WHEN NOT MATCHED THEN INSERT (tenant_id, content_type, resource_name, resource_content)"
+            + " VALUES (s.tenant_id, s.content_type, s.resource_name, s.resource_content);";
+
+    // 4 parameters per row, below the 2100 parameters limit:
+    static final int MAX_ROWS_PER_INSERT = 500;
+
+    @Override
+    public String getVendor() {
+        return "sqlserver";
+    }
+
+    @Override
+    public int insertConfigurations(JdbcTemplate jdbcTemplate, List<FullBonitaConfiguration> fullBonitaConfigurations) {
+        return insertByMultiRowValues(jdbcTemplate, fullBonitaConfigurations, MAX_ROWS_PER_INSERT);
+    }
+
+    @Override
+    public void upsertConfigurations(JdbcTemplate jdbcTemplate, final List<FullBonitaConfiguration> fullBonitaConfigurations) {
+        if (fullBonitaConfigurations.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(MERGE_CONFIGURATION, new BatchPreparedStatementSetter() {
+
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                final FullBonitaConfiguration fullBonitaConfiguration = fullBonitaConfigurations.get(i);
+                ps.setLong(COLUMN_INDEX_TENANT_ID, fullBonitaConfiguration.getTenantId());
+                ps.setString(COLUMN_INDEX_TYPE, fullBonitaConfiguration.getConfigurationType());
+                ps.setString(COLUMN_INDEX_RESOURCE_NAME, fullBonitaConfiguration.getResourceName());
+                setBlobAsBytes(ps, COLUMN_INDEX_RESOURCE_CONTENT, fullBonitaConfiguration.getResourceContent());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return fullBonitaConfigurations.size();
+            }
+        });
+    }
+}
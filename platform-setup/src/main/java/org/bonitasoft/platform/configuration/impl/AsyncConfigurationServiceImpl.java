@@ -0,0 +1,172 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.configuration.impl;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.bonitasoft.platform.configuration.AsyncConfigurationService;
+import org.bonitasoft.platform.configuration.ConfigurationService;
+import org.bonitasoft.platform.configuration.model.BonitaConfiguration;
+import org.bonitasoft.platform.configuration.type.ConfigurationType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * runs {@link ConfigurationService} calls on a fixed number of daemon threads: org.bonitasoft.platform.setup.async.threads if set, else
+ * spring.datasource.max-active, else 10.
+ * Threads are only started when work is submitted, and stop after being idle for a minute.
+ * Pending calls wait in an unbounded queue, so that callers are never rejected.
+ *
+ * @author Laurent Leseigneur
+ */
+@Service
+public class AsyncConfigurationServiceImpl implements AsyncConfigurationService, DisposableBean {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(AsyncConfigurationServiceImpl.class);
+
+    private static final long IDLE_THREAD_TIMEOUT_SECONDS = 60;
+
+    private final ConfigurationService configurationService;
+
+    private final ThreadPoolExecutor executor;
+
+    @Autowired
+    public AsyncConfigurationServiceImpl(ConfigurationService configurationService,
+            @Value("${org.bonitasoft.platform.setup.async.threads:${spring.datasource.max-active:10}}") int maxConcurrency) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency value " + maxConcurrency + " is not allowed");
+        }
+        this.configurationService = configurationService;
+        executor = new ThreadPoolExecutor(maxConcurrency, maxConcurrency, IDLE_THREAD_TIMEOUT_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new ConfigurationServiceThreadFactory());
+        executor.allowCoreThreadTimeOut(true);
+        LOGGER.debug("asynchronous configuration service running at most " + maxConcurrency + " concurrent calls");
+    }
+
+    @Override
+    public Future<List<BonitaConfiguration>> getTenantEngineConf(final long tenantId) {
+        return executor.submit(new Callable<List<BonitaConfiguration>>() {
+
+            @Override
+            public List<BonitaConfiguration> call() {
+                return configurationService.getTenantEngineConf(tenantId);
+            }
+        });
+    }
+
+    @Override
+    public Future<List<BonitaConfiguration>> getTenantPortalConf(final long tenantId) {
+        return executor.submit(new Callable<List<BonitaConfiguration>>() {
+
+            @Override
+            public List<BonitaConfiguration> call() {
+                return configurationService.getTenantPortalConf(tenantId);
+            }
+        });
+    }
+
+    @Override
+    public Future<List<BonitaConfiguration>> getTenantSecurityScripts(final long tenantId) {
+        return executor.submit(new Callable<List<BonitaConfiguration>>() {
+
+            @Override
+            public List<BonitaConfiguration> call() {
+                return configurationService.getTenantSecurityScripts(tenantId);
+            }
+        });
+    }
+
+    @Override
+    public Future<List<BonitaConfiguration>> getEffectiveTenantConfiguration(final ConfigurationType type, final long tenantId) {
+        return executor.submit(new Callable<List<BonitaConfiguration>>() {
+
+            @Override
+            public List<BonitaConfiguration> call() {
+                return configurationService.getEffectiveTenantConfiguration(type, tenantId);
+            }
+        });
+    }
+
+    @Override
+    public Map<Long, Future<List<BonitaConfiguration>>> getEffectiveTenantConfigurations(ConfigurationType type, Collection<Long> tenantIds) {
+        final Map<Long, Future<List<BonitaConfiguration>>> effectiveConfigurations = new LinkedHashMap<>();
+        for (Long tenantId : tenantIds) {
+            effectiveConfigurations.put(tenantId, getEffectiveTenantConfiguration(type, tenantId));
+        }
+        return effectiveConfigurations;
+    }
+
+    @Override
+    public Future<Void> storeTenantConfiguration(final File configurationRootFolder, final long tenantId) {
+        return executor.submit(new Callable<Void>() {
+
+            @Override
+            public Void call() throws Exception {
+                configurationService.storeTenantConfiguration(configurationRootFolder, tenantId);
+                return null;
+            }
+        });
+    }
+
+    @Override
+    public Future<Void> deleteTenantConfiguration(final long tenantId) {
+        return executor.submit(new Callable<Void>() {
+
+            @Override
+            public Void call() {
+                configurationService.deleteTenantConfiguration(tenantId);
+                return null;
+            }
+        });
+    }
+
+    int getMaxConcurrency() {
+        return executor.getMaximumPoolSize();
+    }
+
+    /**
+     * let already submitted calls complete, but refuse new ones
+     */
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    private static class ConfigurationServiceThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger threadNumber = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            final Thread thread = new Thread(runnable, "configuration-service-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
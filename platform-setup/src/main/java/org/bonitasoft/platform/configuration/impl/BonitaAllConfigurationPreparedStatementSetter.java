@@ -17,9 +17,9 @@ import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.util.List;
 
+import org.bonitasoft.platform.configuration.dialect.ConfigurationDialects;
 import org.bonitasoft.platform.configuration.model.FullBonitaConfiguration;
 import org.springframework.jdbc.core.BatchPreparedStatementSetter;
-import org.springframework.jdbc.support.lob.TemporaryLobCreator;
 
 /**
  * @author Laurent Leseigneur
@@ -41,27 +41,11 @@ public class BonitaAllConfigurationPreparedStatementSetter implements BatchPrepa
 
     @Override
     public void setValues(PreparedStatement ps, int i) throws SQLException {
-        final TemporaryLobCreator temporaryLobCreator = new TemporaryLobCreator();
-
         final FullBonitaConfiguration bonitaConfiguration = bonitaConfigurations.get(i);
         ps.setLong(COLUMN_INDEX_TENANT_ID, bonitaConfiguration.getTenantId());
         ps.setString(COLUMN_INDEX_TYPE, bonitaConfiguration.getConfigurationType());
         ps.setString(COLUMN_INDEX_RESOURCE_NAME, bonitaConfiguration.getResourceName());
-        switch (dbVendor) {
-            case "h2":
-            case "postgres":
-                ps.setBytes(COLUMN_INDEX_RESOURCE_CONTENT, bonitaConfiguration.getResourceContent());
-                break;
-            case "oracle":
-            case "mysql":
-            case "sqlserver":
-                temporaryLobCreator.setBlobAsBytes(ps, COLUMN_INDEX_RESOURCE_CONTENT, bonitaConfiguration.getResourceContent());
-                break;
-            default:
-                throw new IllegalArgumentException(new StringBuilder("unsupported db vendor:").append(dbVendor).toString());
-
-        }
-
+        ConfigurationDialects.forVendor(dbVendor).setBlobAsBytes(ps, COLUMN_INDEX_RESOURCE_CONTENT, bonitaConfiguration.getResourceContent());
     }
 
     @Override
@@ -0,0 +1,107 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.configuration.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.apache.commons.io.IOUtils;
+import org.bonitasoft.platform.configuration.dialect.ConfigurationDialects;
+import org.bonitasoft.platform.configuration.model.FullBonitaConfiguration;
+import org.bonitasoft.platform.exception.PlatformException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+
+/**
+ * binds configuration archive entries as streams to the insert statement.
+ * Streams stay open until the batch is executed, call {@link #closeStreams()} afterwards.
+ * Indexed .properties entries are read once into memory, so that they can be indexed afterwards without being read back from database.
+ *
+ * @author Laurent Leseigneur
+ */
+public class ConfigurationArchiveEntryPreparedStatementSetter implements BatchPreparedStatementSetter, ConfigurationColumns {
+
+    public static final String INSERT_CONFIGURATION = "INSERT into configuration(tenant_id, content_type, resource_name, resource_content) values (?,?,?,?)";
+
+    private final ZipFile zipFile;
+    private final List<ZipEntry> entries;
+    private final ConfigurationArchiveLayout layout = new ConfigurationArchiveLayout();
+    private final List<InputStream> openedStreams = new ArrayList<>();
+    private final List<FullBonitaConfiguration> propertiesFiles = new ArrayList<>();
+
+    private String dbVendor;
+
+    public ConfigurationArchiveEntryPreparedStatementSetter(ZipFile zipFile, List<ZipEntry> entries, String dbVendor) {
+        this.zipFile = zipFile;
+        this.entries = entries;
+        this.dbVendor = dbVendor;
+        if (this.dbVendor == null) {
+            this.dbVendor = System.getProperty("sysprop.bonita.db.vendor");
+        }
+    }
+
+    @Override
+    public void setValues(PreparedStatement ps, int i) throws SQLException {
+        final ZipEntry entry = entries.get(i);
+        final FullBonitaConfiguration bonitaConfiguration;
+        InputStream content;
+        try {
+            bonitaConfiguration = layout.fromEntryName(entry.getName());
+            content = zipFile.getInputStream(entry);
+            if (ConfigurationPropertyIndexer.isIndexed(bonitaConfiguration.getConfigurationType(), bonitaConfiguration.getResourceName())) {
+                final byte[] bytes;
+                try {
+                    bytes = IOUtils.toByteArray(content);
+                } finally {
+                    IOUtils.closeQuietly(content);
+                }
+                propertiesFiles.add(new FullBonitaConfiguration(bonitaConfiguration.getResourceName(), bytes, bonitaConfiguration.getConfigurationType(),
+                        bonitaConfiguration.getTenantId()));
+                content = new ByteArrayInputStream(bytes);
+            }
+        } catch (PlatformException | IOException e) {
+            throw new SQLException("Unable to read entry " + entry.getName() + " of configuration archive", e);
+        }
+        openedStreams.add(content);
+        ps.setLong(COLUMN_INDEX_TENANT_ID, bonitaConfiguration.getTenantId());
+        ps.setString(COLUMN_INDEX_TYPE, bonitaConfiguration.getConfigurationType());
+        ps.setString(COLUMN_INDEX_RESOURCE_NAME, bonitaConfiguration.getResourceName());
+        ConfigurationDialects.forVendor(dbVendor).setBlobAsBinaryStream(ps, COLUMN_INDEX_RESOURCE_CONTENT, content, (int) entry.getSize());
+    }
+
+    @Override
+    public int getBatchSize() {
+        return entries.size();
+    }
+
+    /**
+     * @return the .properties files bound so far, with their content
+     */
+    public List<FullBonitaConfiguration> getPropertiesFiles() {
+        return propertiesFiles;
+    }
+
+    public void closeStreams() {
+        for (InputStream openedStream : openedStreams) {
+            IOUtils.closeQuietly(openedStream);
+        }
+        openedStreams.clear();
+    }
+}
@@ -0,0 +1,78 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.configuration.impl;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.bonitasoft.platform.configuration.model.FullBonitaConfiguration;
+import org.bonitasoft.platform.configuration.type.ConfigurationType;
+import org.bonitasoft.platform.exception.PlatformException;
+
+/**
+ * maps configuration files to entries of a configuration archive, using the same layout as {@link FolderResolver}:
+ * <ul>
+ * <li>license files are stored under licenses/</li>
+ * <li>tenant files are stored under tenants/TENANT_ID/CONFIGURATION_TYPE/</li>
+ * <li>other files under CONFIGURATION_TYPE/</li>
+ * </ul>
+ * The archive also contains a manifest entry listing the SHA-256 of each file, in sha256sum format.
+ *
+ * @author Laurent Leseigneur
+ */
+public class ConfigurationArchiveLayout {
+
+    public static final String MANIFEST_ENTRY = "SHA256SUMS";
+
+    public static final String LICENSES_FOLDER = "licenses";
+
+    private static final String TENANTS_FOLDER = "tenants";
+
+    private final FolderResolver folderResolver = new FolderResolver(Paths.get(""), Paths.get(LICENSES_FOLDER));
+
+    public String toEntryName(String configurationType, long tenantId, String resourceName) {
+        final Path path = folderResolver.resolvePath(new FullBonitaConfiguration(resourceName, null, configurationType, tenantId));
+        final StringBuilder entryName = new StringBuilder();
+        for (Path element : path) {
+            if (entryName.length() > 0) {
+                entryName.append('/');
+            }
+            entryName.append(element.toString());
+        }
+        return entryName.toString();
+    }
+
+    /**
+     * @return a configuration without content, describing the file stored under given entry name
+     * @throws PlatformException if entry name does not match archive layout
+     */
+    public FullBonitaConfiguration fromEntryName(String entryName) throws PlatformException {
+        final String[] segments = entryName.split("/");
+        try {
+            if (segments.length == 2) {
+                return new FullBonitaConfiguration(segments[1], null, ConfigurationType.valueOf(segments[0].toUpperCase()).name(), 0L);
+            }
+            if (segments.length == 4 && TENANTS_FOLDER.equals(segments[0])) {
+                final long tenantId = Long.parseLong(segments[1]);
+                if (tenantId > 0) {
+                    return new FullBonitaConfiguration(segments[3], null, ConfigurationType.valueOf(segments[2].toUpperCase()).name(), tenantId);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            throw new PlatformException("Unexpected entry in configuration archive: " + entryName, e);
+        }
+        throw new PlatformException("Unexpected entry in configuration archive: " + entryName);
+    }
+
+}
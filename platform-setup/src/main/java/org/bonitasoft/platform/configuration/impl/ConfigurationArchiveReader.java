@@ -0,0 +1,108 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.configuration.impl;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.bonitasoft.platform.configuration.util.ContentDigest;
+import org.bonitasoft.platform.exception.PlatformException;
+
+/**
+ * checks a configuration archive against its manifest before it is imported.
+ * Entries are read as streams, so that no file content is kept in memory.
+ *
+ * @author Laurent Leseigneur
+ */
+public class ConfigurationArchiveReader {
+
+    private final ZipFile zipFile;
+
+    private final ConfigurationArchiveLayout layout = new ConfigurationArchiveLayout();
+
+    public ConfigurationArchiveReader(ZipFile zipFile) {
+        this.zipFile = zipFile;
+    }
+
+    /**
+     * @return the configuration entries of the archive, in archive order
+     * @throws PlatformException if manifest is missing, if an entry does not match archive layout or manifest, or if an entry listed in manifest is missing
+     */
+    public List<ZipEntry> verify() throws PlatformException, IOException {
+        final Map<String, String> manifest = readManifest();
+        final List<ZipEntry> configurationEntries = new ArrayList<>();
+        final Enumeration<? extends ZipEntry> entries = zipFile.entries();
+        while (entries.hasMoreElements()) {
+            final ZipEntry entry = entries.nextElement();
+            if (entry.isDirectory() || ConfigurationArchiveLayout.MANIFEST_ENTRY.equals(entry.getName())) {
+                continue;
+            }
+            layout.fromEntryName(entry.getName());
+            final String expectedHash = manifest.remove(entry.getName());
+            if (expectedHash == null) {
+                throw new PlatformException("Entry " + entry.getName() + " of configuration archive is not listed in manifest");
+            }
+            if (!expectedHash.equals(sha256(entry))) {
+                throw new PlatformException("Entry " + entry.getName() + " of configuration archive does not match hash declared in manifest");
+            }
+            configurationEntries.add(entry);
+        }
+        if (!manifest.isEmpty()) {
+            throw new PlatformException("Configuration archive is missing entries listed in manifest: " + manifest.keySet());
+        }
+        return configurationEntries;
+    }
+
+    private Map<String, String> readManifest() throws PlatformException, IOException {
+        final ZipEntry manifestEntry = zipFile.getEntry(ConfigurationArchiveLayout.MANIFEST_ENTRY);
+        if (manifestEntry == null) {
+            throw new PlatformException("Configuration archive does not contain " + ConfigurationArchiveLayout.MANIFEST_ENTRY + " manifest");
+        }
+        final Map<String, String> manifest = new LinkedHashMap<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(zipFile.getInputStream(manifestEntry), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                final int separator = line.indexOf("  ");
+                if (separator < 0) {
+                    throw new PlatformException("Malformed line in configuration archive manifest: " + line);
+                }
+                manifest.put(line.substring(separator + 2), line.substring(0, separator));
+            }
+        }
+        return manifest;
+    }
+
+    private String sha256(ZipEntry entry) throws IOException {
+        final MessageDigest messageDigest = ContentDigest.newMessageDigest();
+        try (InputStream content = new DigestInputStream(zipFile.getInputStream(entry), messageDigest)) {
+            final byte[] buffer = new byte[8192];
+            while (content.read(buffer) != -1) {
+                // digest is updated while reading
+            }
+        }
+        return ContentDigest.toHex(messageDigest.digest());
+    }
+}
@@ -0,0 +1,89 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.configuration.impl;
+
+import static org.bonitasoft.platform.configuration.impl.ConfigurationFields.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.bonitasoft.platform.configuration.util.ContentDigest;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+/**
+ * streams each configuration row content from the result set to a zip entry, without loading it in memory, and records its SHA-256 for the manifest.
+ *
+ * @author Laurent Leseigneur
+ */
+public class ConfigurationArchiveWriter implements RowCallbackHandler {
+
+    private final ZipOutputStream zipOutputStream;
+
+    private final ConfigurationArchiveLayout layout = new ConfigurationArchiveLayout();
+
+    private final Map<String, String> manifest = new LinkedHashMap<>();
+
+    public ConfigurationArchiveWriter(ZipOutputStream zipOutputStream) {
+        this.zipOutputStream = zipOutputStream;
+    }
+
+    @Override
+    public void processRow(ResultSet rs) throws SQLException {
+        final String configurationType = rs.getString(CONTENT_TYPE);
+        final long tenantId = rs.getLong(TENANT_ID);
+        final String resourceName = rs.getString(RESOURCE_NAME);
+        try (InputStream content = rs.getBinaryStream(RESOURCE_CONTENT)) {
+            writeEntry(configurationType, tenantId, resourceName, content);
+        } catch (IOException e) {
+            throw new SQLException("Unable to write " + resourceName + " to configuration archive", e);
+        }
+    }
+
+    /**
+     * stream given content to a new archive entry. Content stream is not closed.
+     */
+    public void writeEntry(String configurationType, long tenantId, String resourceName, InputStream content) throws IOException {
+        final String entryName = layout.toEntryName(configurationType, tenantId, resourceName);
+        final MessageDigest messageDigest = ContentDigest.newMessageDigest();
+        zipOutputStream.putNextEntry(new ZipEntry(entryName));
+        IOUtils.copyLarge(new DigestInputStream(content, messageDigest), zipOutputStream);
+        zipOutputStream.closeEntry();
+        manifest.put(entryName, ContentDigest.toHex(messageDigest.digest()));
+    }
+
+    /**
+     * write the manifest entry, once all rows have been processed
+     */
+    public void writeManifest() throws IOException {
+        zipOutputStream.putNextEntry(new ZipEntry(ConfigurationArchiveLayout.MANIFEST_ENTRY));
+        for (Map.Entry<String, String> entry : manifest.entrySet()) {
+            zipOutputStream.write((entry.getValue() + "  " + entry.getKey() + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+        zipOutputStream.closeEntry();
+    }
+
+    public int getEntryCount() {
+        return manifest.size();
+    }
+}
@@ -0,0 +1,57 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.configuration.impl;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.bonitasoft.platform.configuration.dialect.ConfigurationDialects;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+
+/**
+ * insert file contents shared by configuration generations, identified by their SHA-256
+ *
+ * @author Laurent Leseigneur
+ */
+public class ConfigurationContentPreparedStatementSetter implements BatchPreparedStatementSetter {
+
+    public static final String INSERT_CONTENT = "INSERT into configuration_content(content_hash, resource_content) values (?,?)";
+
+    private final List<Map.Entry<String, byte[]>> contents;
+
+    private String dbVendor;
+
+    public ConfigurationContentPreparedStatementSetter(Map<String, byte[]> contentsByHash, String dbVendor) {
+        this.contents = new ArrayList<>(contentsByHash.entrySet());
+        this.dbVendor = dbVendor;
+        if (this.dbVendor == null) {
+            this.dbVendor = System.getProperty("sysprop.bonita.db.vendor");
+        }
+    }
+
+    @Override
+    public void setValues(PreparedStatement ps, int i) throws SQLException {
+        final Map.Entry<String, byte[]> content = contents.get(i);
+        ps.setString(1, content.getKey());
+        ConfigurationDialects.forVendor(dbVendor).setBlobAsBytes(ps, 2, content.getValue());
+    }
+
+    @Override
+    public int getBatchSize() {
+        return contents.size();
+    }
+}
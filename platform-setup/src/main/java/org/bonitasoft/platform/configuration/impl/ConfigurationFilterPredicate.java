@@ -0,0 +1,106 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.configuration.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.bonitasoft.platform.configuration.model.ConfigurationFilter;
+import org.bonitasoft.platform.configuration.type.ConfigurationType;
+
+/**
+ * translates a {@link ConfigurationFilter} to a WHERE clause on configuration table.
+ * Tenant ids and types become IN predicates, on the leading columns of pk_configuration and idx_configuration, and resource name globs become LIKE
+ * predicates, so that filtering is done by the database.
+ *
+ * @author Laurent Leseigneur
+ */
+public class ConfigurationFilterPredicate {
+
+    /**
+     * escape char of LIKE patterns. Backslash is not used as MySQL would need it escaped in the ESCAPE clause itself.
+     */
+    static final char LIKE_ESCAPE = '!';
+
+    private final String whereClause;
+
+    private final Object[] arguments;
+
+    public ConfigurationFilterPredicate(ConfigurationFilter filter) {
+        final StringBuilder where = new StringBuilder();
+        final List<Object> args = new ArrayList<>();
+        if (!filter.getTenantIds().isEmpty()) {
+            where.append(" AND tenant_id IN (");
+            appendPlaceholders(where, filter.getTenantIds().size());
+            args.addAll(filter.getTenantIds());
+        }
+        if (!filter.getTypes().isEmpty()) {
+            where.append(" AND content_type IN (");
+            appendPlaceholders(where, filter.getTypes().size());
+            for (ConfigurationType type : filter.getTypes()) {
+                args.add(type.name());
+            }
+        }
+        if (!filter.getResourceNamePatterns().isEmpty()) {
+            where.append(" AND (");
+            for (int i = 0; i < filter.getResourceNamePatterns().size(); i++) {
+                where.append(i == 0 ? "" : " OR ").append("resource_name LIKE ? ESCAPE '").append(LIKE_ESCAPE).append("'");
+                args.add(toLikePattern(filter.getResourceNamePatterns().get(i)));
+            }
+            where.append(")");
+        }
+        whereClause = where.length() == 0 ? "" : " WHERE" + where.substring(" AND".length());
+        arguments = args.toArray();
+    }
+
+    /**
+     * @return the WHERE clause, starting with a space, or an empty string when filter matches all rows
+     */
+    public String getWhereClause() {
+        return whereClause;
+    }
+
+    public Object[] getArguments() {
+        return arguments;
+    }
+
+    static String toLikePattern(String glob) {
+        final StringBuilder pattern = new StringBuilder(glob.length() + 4);
+        for (char c : glob.toCharArray()) {
+            switch (c) {
+                case '*':
+                    pattern.append('%');
+                    break;
+                case '?':
+                    pattern.append('_');
+                    break;
+                case '%':
+                case '_':
+                case LIKE_ESCAPE:
+                    pattern.append(LIKE_ESCAPE).append(c);
+                    break;
+                default:
+                    pattern.append(c);
+            }
+        }
+        return pattern.toString();
+    }
+
+    private static void appendPlaceholders(StringBuilder where, int count) {
+        for (int i = 0; i < count; i++) {
+            where.append(i == 0 ? "?" : ", ?");
+        }
+        where.append(")");
+    }
+}
@@ -0,0 +1,50 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.configuration.impl;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+
+/**
+ * delete configuration generations. Contents that are no more referenced by any generation are deleted with {@link #DELETE_UNUSED_CONTENT}.
+ *
+ * @author Laurent Leseigneur
+ */
+public class ConfigurationGenerationCleaner implements BatchPreparedStatementSetter {
+
+    public static final String DELETE_HISTORY = "DELETE FROM configuration_history WHERE generation = ?";
+
+    public static final String DELETE_GENERATION = "DELETE FROM configuration_generation WHERE generation = ?";
+
+    public static final String DELETE_UNUSED_CONTENT = "DELETE FROM configuration_content WHERE content_hash NOT IN (SELECT content_hash FROM configuration_history)";
+
+    private final List<Long> generations;
+
+    public ConfigurationGenerationCleaner(List<Long> generations) {
+        this.generations = generations;
+    }
+
+    @Override
+    public void setValues(PreparedStatement ps, int i) throws SQLException {
+        ps.setLong(1, generations.get(i));
+    }
+
+    @Override
+    public int getBatchSize() {
+        return generations.size();
+    }
+}
@@ -0,0 +1,38 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.configuration.impl;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.bonitasoft.platform.configuration.model.ConfigurationGeneration;
+import org.springframework.jdbc.core.RowMapper;
+
+/**
+ * the active generation is the one with the highest activation number
+ *
+ * @author Laurent Leseigneur
+ */
+public class ConfigurationGenerationRowMapper implements RowMapper<ConfigurationGeneration> {
+
+    public static final String SELECT_GENERATIONS = "SELECT g.generation, g.created, COUNT(h.resource_name) AS file_count, "
+            + "CASE WHEN g.activation = (SELECT MAX(activation) FROM configuration_generation) THEN 1 ELSE 0 END AS active "
+            + "FROM configuration_generation g LEFT OUTER JOIN configuration_history h ON h.generation = g.generation "
+            + "GROUP BY g.generation, g.created, g.activation ORDER BY g.generation";
+
+    @Override
+    public ConfigurationGeneration mapRow(ResultSet rs, int rowNum) throws SQLException {
+        return new ConfigurationGeneration(rs.getLong("generation"), rs.getLong("created"), rs.getInt("file_count"), rs.getInt("active") == 1);
+    }
+}
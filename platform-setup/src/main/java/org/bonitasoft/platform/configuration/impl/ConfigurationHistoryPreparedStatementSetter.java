@@ -0,0 +1,56 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.configuration.impl;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+import org.bonitasoft.platform.configuration.model.FullBonitaConfiguration;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+
+/**
+ * insert the files of a configuration generation, each one referencing its content by SHA-256
+ *
+ * @author Laurent Leseigneur
+ */
+public class ConfigurationHistoryPreparedStatementSetter implements BatchPreparedStatementSetter {
+
+    public static final String INSERT_HISTORY = "INSERT into configuration_history(generation, tenant_id, content_type, resource_name, content_hash) values (?,?,?,?,?)";
+
+    private final long generation;
+    private final List<FullBonitaConfiguration> bonitaConfigurations;
+    private final List<String> contentHashes;
+
+    public ConfigurationHistoryPreparedStatementSetter(long generation, List<FullBonitaConfiguration> bonitaConfigurations, List<String> contentHashes) {
+        this.generation = generation;
+        this.bonitaConfigurations = bonitaConfigurations;
+        this.contentHashes = contentHashes;
+    }
+
+    @Override
+    public void setValues(PreparedStatement ps, int i) throws SQLException {
+        final FullBonitaConfiguration bonitaConfiguration = bonitaConfigurations.get(i);
+        ps.setLong(1, generation);
+        ps.setLong(2, bonitaConfiguration.getTenantId());
+        ps.setString(3, bonitaConfiguration.getConfigurationType());
+        ps.setString(4, bonitaConfiguration.getResourceName());
+        ps.setString(5, contentHashes.get(i));
+    }
+
+    @Override
+    public int getBatchSize() {
+        return bonitaConfigurations.size();
+    }
+}
@@ -0,0 +1,80 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.configuration.impl;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.bonitasoft.platform.configuration.model.FullBonitaConfiguration;
+import org.bonitasoft.platform.configuration.util.GetConfigurationPageInTransaction;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * iterates over all configuration rows, in primary key order, reading them page by page, each page in its own short transaction.
+ * Only one page is held in memory. As pages are read in distinct transactions, rows written concurrently may or may not be returned.
+ *
+ * @author Laurent Leseigneur
+ */
+public class ConfigurationPageIterator implements Iterator<FullBonitaConfiguration> {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final int pageSize;
+
+    private List<FullBonitaConfiguration> page;
+
+    private int index;
+
+    public ConfigurationPageIterator(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, int pageSize) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("pageSize value " + pageSize + " is not allowed");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.pageSize = pageSize;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (page == null) {
+            page = readPage(null);
+        } else if (index == page.size() && page.size() == pageSize) {
+            // a full page may be followed by other rows:
+            page = readPage(page.get(page.size() - 1));
+            index = 0;
+        }
+        return index < page.size();
+    }
+
+    @Override
+    public FullBonitaConfiguration next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return page.get(index++);
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("configuration can not be removed while iterating");
+    }
+
+    private List<FullBonitaConfiguration> readPage(FullBonitaConfiguration previous) {
+        return transactionTemplate.execute(new GetConfigurationPageInTransaction(jdbcTemplate, previous, pageSize));
+    }
+}
@@ -0,0 +1,198 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.configuration.impl;
+
+import static org.bonitasoft.platform.configuration.impl.ConfigurationFields.*;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.bonitasoft.platform.configuration.model.ConfigurationProperty;
+import org.bonitasoft.platform.configuration.model.FullBonitaConfiguration;
+import org.bonitasoft.platform.configuration.type.ConfigurationType;
+import org.bonitasoft.platform.exception.PlatformException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+/**
+ * maintains configuration_property, the index of keys and values of all .properties configuration files.
+ * It must be called in the transaction that writes configuration rows, so that index never differs from configuration table.
+ * Properties are inserted in batches of at most {@value #BATCH_SIZE} rows, whatever the number of indexed files.
+ * <ul>
+ * <li>keys longer than {@value #MAX_KEY_LENGTH} characters are not indexed</li>
+ * <li>values longer than {@value #MAX_VALUE_LENGTH} characters are indexed with a null value</li>
+ * </ul>
+ *
+ * @author Laurent Leseigneur
+ */
+public class ConfigurationPropertyIndexer implements RowCallbackHandler {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(ConfigurationPropertyIndexer.class);
+
+    public static final int MAX_KEY_LENGTH = 200;
+
+    public static final int MAX_VALUE_LENGTH = 1024;
+
+    public static final int BATCH_SIZE = 500;
+
+    private static final String DELETE_PROPERTIES = "DELETE FROM configuration_property";
+
+    private static final String DELETE_FILE_PROPERTIES = DELETE_PROPERTIES + " WHERE tenant_id = ? AND content_type = ? AND resource_name = ?";
+
+    private static final String SELECT_PROPERTIES_FILES = "SELECT tenant_id, content_type, resource_name, resource_content FROM configuration "
+            + "WHERE resource_name LIKE '%.properties' AND content_type <> '" + ConfigurationType.LICENSES.name() + "'";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final List<ConfigurationProperty> properties = new ArrayList<>();
+
+    private int indexed;
+
+    public ConfigurationPropertyIndexer(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * index again the .properties files of the given scope, reading their content one row at a time
+     *
+     * @param tenantId tenant whose files are indexed again, or null for all tenants
+     * @param type type of the files indexed again, or null for all types
+     * @return number of indexed properties
+     */
+    public int reindex(Long tenantId, ConfigurationType type) {
+        final StringBuilder where = new StringBuilder();
+        final List<Object> args = new ArrayList<>();
+        if (tenantId != null) {
+            where.append(" AND tenant_id = ?");
+            args.add(tenantId);
+        }
+        if (type != null) {
+            where.append(" AND content_type = ?");
+            args.add(type.name());
+        }
+        final String scope = where.length() == 0 ? "" : " WHERE" + where.substring(" AND".length());
+        jdbcTemplate.update(DELETE_PROPERTIES + scope, args.toArray());
+        indexed = 0;
+        jdbcTemplate.query(SELECT_PROPERTIES_FILES + where, args.toArray(), this);
+        flush();
+        LOGGER.trace(indexed + " configuration properties indexed for tenant " + tenantId + " and type " + type);
+        return indexed;
+    }
+
+    /**
+     * index again files that were just written, from their given content: their previous properties are deleted and configuration table is not read.
+     * Files that are not .properties files, or that are licenses, are ignored.
+     *
+     * @param writtenConfigurations files as written to configuration table
+     * @return number of indexed properties
+     */
+    public int index(List<FullBonitaConfiguration> writtenConfigurations) {
+        final List<FullBonitaConfiguration> indexedFiles = new ArrayList<>();
+        for (FullBonitaConfiguration writtenConfiguration : writtenConfigurations) {
+            if (isIndexed(writtenConfiguration.getConfigurationType(), writtenConfiguration.getResourceName())) {
+                indexedFiles.add(writtenConfiguration);
+            }
+        }
+        for (int from = 0; from < indexedFiles.size(); from += BATCH_SIZE) {
+            final List<FullBonitaConfiguration> batch = indexedFiles.subList(from, Math.min(from + BATCH_SIZE, indexedFiles.size()));
+            jdbcTemplate.batchUpdate(DELETE_FILE_PROPERTIES, new BonitaAllConfigurationContentTypeCleaner(batch));
+        }
+        indexed = 0;
+        for (FullBonitaConfiguration indexedFile : indexedFiles) {
+            if (indexedFile.getResourceContent() != null) {
+                add(toProperties(indexedFile.getTenantId(), indexedFile.getConfigurationType(), indexedFile.getResourceName(),
+                        indexedFile.getResourceContent()));
+            }
+        }
+        flush();
+        LOGGER.trace(indexed + " configuration properties indexed for " + indexedFiles.size() + " written files");
+        return indexed;
+    }
+
+    /**
+     * delete indexed properties without indexing anything again, for configuration files that were deleted
+     *
+     * @param tenantId tenant whose properties are deleted, or null for all tenants
+     */
+    public void delete(Long tenantId) {
+        if (tenantId == null) {
+            jdbcTemplate.update(DELETE_PROPERTIES);
+        } else {
+            jdbcTemplate.update(DELETE_PROPERTIES + " WHERE tenant_id = ?", tenantId);
+        }
+    }
+
+    /**
+     * @return true if properties of this file are indexed
+     */
+    public static boolean isIndexed(String configurationType, String resourceName) {
+        return resourceName.endsWith(".properties") && !ConfigurationType.LICENSES.name().equals(configurationType);
+    }
+
+    private void add(List<ConfigurationProperty> fileProperties) {
+        properties.addAll(fileProperties);
+        if (properties.size() >= BATCH_SIZE) {
+            flush();
+        }
+    }
+
+    private void flush() {
+        if (!properties.isEmpty()) {
+            jdbcTemplate.batchUpdate(ConfigurationPropertyPreparedStatementSetter.INSERT_PROPERTY, new ConfigurationPropertyPreparedStatementSetter(properties));
+            indexed += properties.size();
+            properties.clear();
+        }
+    }
+
+    @Override
+    public void processRow(ResultSet rs) throws SQLException {
+        final long tenantId = rs.getLong(TENANT_ID);
+        final String configurationType = rs.getString(CONTENT_TYPE);
+        final String resourceName = rs.getString(RESOURCE_NAME);
+        final byte[] content = rs.getBytes(RESOURCE_CONTENT);
+        if (content == null) {
+            return;
+        }
+        add(toProperties(tenantId, configurationType, resourceName, content));
+    }
+
+    /**
+     * @return the indexed properties of a .properties file, ordered by key, or an empty list if file can not be parsed
+     */
+    public static List<ConfigurationProperty> toProperties(long tenantId, String configurationType, String resourceName, byte[] content) {
+        final List<ConfigurationProperty> fileProperties = new ArrayList<>();
+        final Map<String, String> parsed;
+        try {
+            parsed = ParsedConfigurationServiceImpl.parseProperties(content);
+        } catch (PlatformException e) {
+            LOGGER.warn("Unable to index properties of " + resourceName + " for tenant " + tenantId + ": " + e.getMessage());
+            return fileProperties;
+        }
+        for (Map.Entry<String, String> property : new TreeMap<>(parsed).entrySet()) {
+            if (property.getKey().length() > MAX_KEY_LENGTH) {
+                LOGGER.debug("property " + property.getKey() + " of " + resourceName + " is not indexed: key is too long");
+                continue;
+            }
+            final String value = property.getValue().length() > MAX_VALUE_LENGTH ? null : property.getValue();
+            fileProperties.add(new ConfigurationProperty(tenantId, configurationType, resourceName, property.getKey(), value));
+        }
+        return fileProperties;
+    }
+}
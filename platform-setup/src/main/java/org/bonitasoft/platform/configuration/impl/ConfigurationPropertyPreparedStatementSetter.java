@@ -0,0 +1,55 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.configuration.impl;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+
+import org.bonitasoft.platform.configuration.model.ConfigurationProperty;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+
+/**
+ * @author Laurent Leseigneur
+ */
+public class ConfigurationPropertyPreparedStatementSetter implements BatchPreparedStatementSetter {
+
+    public static final String INSERT_PROPERTY = "INSERT into configuration_property(tenant_id, content_type, resource_name, property_key, property_value) values (?,?,?,?,?)";
+
+    private final List<ConfigurationProperty> properties;
+
+    public ConfigurationPropertyPreparedStatementSetter(List<ConfigurationProperty> properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    public void setValues(PreparedStatement ps, int i) throws SQLException {
+        final ConfigurationProperty property = properties.get(i);
+        ps.setLong(1, property.getTenantId());
+        ps.setString(2, property.getConfigurationType());
+        ps.setString(3, property.getResourceName());
+        ps.setString(4, property.getKey());
+        if (property.getValue() == null) {
+            ps.setNull(5, Types.VARCHAR);
+        } else {
+            ps.setString(5, property.getValue());
+        }
+    }
+
+    @Override
+    public int getBatchSize() {
+        return properties.size();
+    }
+}
@@ -0,0 +1,55 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.configuration.impl;
+
+import static org.bonitasoft.platform.configuration.impl.ConfigurationFields.*;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.bonitasoft.platform.configuration.model.ConfigurationProperty;
+import org.springframework.jdbc.core.RowMapper;
+
+/**
+ * queries on the property index. They never read configuration content.
+ *
+ * @author Laurent Leseigneur
+ */
+public class ConfigurationPropertyRowMapper implements RowMapper<ConfigurationProperty> {
+
+    public static final String PROPERTY_KEY = "property_key";
+    public static final String PROPERTY_VALUE = "property_value";
+
+    public static final String SELECT_PROPERTIES_BY_KEY = "SELECT tenant_id, content_type, resource_name, property_key, property_value FROM configuration_property "
+            + "WHERE property_key = ? ORDER BY tenant_id, content_type, resource_name";
+
+    public static final String SELECT_PROPERTIES_BY_KEY_AND_VALUE = "SELECT tenant_id, content_type, resource_name, property_key, property_value "
+            + "FROM configuration_property WHERE property_key = ? AND property_value = ? ORDER BY tenant_id, content_type, resource_name";
+
+    /**
+     * tenant properties that are missing from tenant template file, or set to another value. Values too long to be indexed are not compared.
+     */
+    public static final String SELECT_TENANT_OVERRIDES = "SELECT t.tenant_id, t.content_type, t.resource_name, t.property_key, t.property_value "
+            + "FROM configuration_property t LEFT OUTER JOIN configuration_property tpl ON tpl.tenant_id = 0 AND tpl.content_type = ? "
+            + "AND tpl.resource_name = t.resource_name AND tpl.property_key = t.property_key "
+            + "WHERE t.tenant_id > 0 AND t.content_type = ? AND t.resource_name = ? "
+            + "AND (tpl.property_key IS NULL OR NOT (t.property_value = tpl.property_value OR (t.property_value IS NULL AND tpl.property_value IS NULL))) "
+            + "ORDER BY t.tenant_id, t.property_key";
+
+    @Override
+    public ConfigurationProperty mapRow(ResultSet rs, int rowNum) throws SQLException {
+        return new ConfigurationProperty(rs.getLong(TENANT_ID), rs.getString(CONTENT_TYPE), rs.getString(RESOURCE_NAME), rs.getString(PROPERTY_KEY),
+                rs.getString(PROPERTY_VALUE));
+    }
+}
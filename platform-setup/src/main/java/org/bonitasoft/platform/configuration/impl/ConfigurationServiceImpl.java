@@ -15,21 +15,35 @@ package org.bonitasoft.platform.configuration.impl;
 
 import static org.bonitasoft.platform.configuration.type.ConfigurationType.*;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
 
 import javax.naming.NamingException;
 import javax.sql.DataSource;
 
 import org.apache.commons.io.IOUtils;
 import org.bonitasoft.platform.configuration.ConfigurationService;
+import org.bonitasoft.platform.configuration.dialect.ConfigurationDialects;
 import org.bonitasoft.platform.configuration.model.BonitaConfiguration;
+import org.bonitasoft.platform.configuration.model.ConfigurationFilter;
+import org.bonitasoft.platform.configuration.model.ConfigurationGeneration;
+import org.bonitasoft.platform.configuration.model.ConfigurationProperty;
 import org.bonitasoft.platform.configuration.model.FullBonitaConfiguration;
+import org.bonitasoft.platform.configuration.model.TemplatePropagation;
 import org.bonitasoft.platform.configuration.type.ConfigurationType;
 import org.bonitasoft.platform.configuration.util.AllConfigurationResourceVisitor;
 import org.bonitasoft.platform.configuration.util.CleanAndStoreAllConfigurationInTransaction;
@@ -37,10 +51,27 @@ import org.bonitasoft.platform.configuration.util.CleanAndStoreConfigurationInTr
 import org.bonitasoft.platform.configuration.util.ConfigurationResourceVisitor;
 import org.bonitasoft.platform.configuration.util.DeleteAllConfigurationInTransaction;
 import org.bonitasoft.platform.configuration.util.DeleteTenantConfigurationInTransaction;
+import org.bonitasoft.platform.configuration.util.ExportAllConfigurationToArchiveInTransaction;
+import org.bonitasoft.platform.configuration.util.ExportAllConfigurationToSnapshotInTransaction;
 import org.bonitasoft.platform.configuration.util.GetAllConfigurationInTransaction;
+import org.bonitasoft.platform.configuration.util.GetConfigurationChangeMarkInTransaction;
+import org.bonitasoft.platform.configuration.util.GetConfigurationHistoryInTransaction;
 import org.bonitasoft.platform.configuration.util.GetConfigurationInTransaction;
+import org.bonitasoft.platform.configuration.util.GetConfigurationPropertiesInTransaction;
+import org.bonitasoft.platform.configuration.util.GetConfigurationTenantIdsInTransaction;
 import org.bonitasoft.platform.configuration.util.GetConfigurationsInTransaction;
+import org.bonitasoft.platform.configuration.util.GetFilteredConfigurationInTransaction;
+import org.bonitasoft.platform.configuration.util.ImportAllConfigurationFromArchiveInTransaction;
+import org.bonitasoft.platform.configuration.util.IndexConfigurationPropertiesInTransaction;
+import org.bonitasoft.platform.configuration.util.InsertAllConfigurationInTransaction;
 import org.bonitasoft.platform.configuration.util.LicensesResourceVisitor;
+import org.bonitasoft.platform.configuration.util.MarkConfigurationChangeInTransaction;
+import org.bonitasoft.platform.configuration.util.PropagateTenantTemplateInTransaction;
+import org.bonitasoft.platform.configuration.util.PruneConfigurationGenerationsInTransaction;
+import org.bonitasoft.platform.configuration.util.RecordConfigurationGenerationInTransaction;
+import org.bonitasoft.platform.configuration.util.ReplaceFilteredConfigurationInTransaction;
+import org.bonitasoft.platform.configuration.util.RollbackConfigurationGenerationInTransaction;
+import org.bonitasoft.platform.configuration.util.SetPropertyInTransaction;
 import org.bonitasoft.platform.configuration.util.StoreConfigurationInTransaction;
 import org.bonitasoft.platform.exception.PlatformException;
 import org.bonitasoft.platform.setup.DataSourceLookup;
@@ -51,6 +82,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.datasource.DataSourceTransactionManager;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionCallback;
 import org.springframework.transaction.support.TransactionTemplate;
 
 /**
@@ -61,15 +93,56 @@ public class ConfigurationServiceImpl implements ConfigurationService {
 
     private static final int NON_TENANT_RESOURCE = 0;
 
+    private static final int SET_PROPERTY_CHUNK_SIZE = 100;
+
+    static final int DEFAULT_PAGE_SIZE = 100;
+
+    static final long DEFAULT_CHANGE_CHECK_INTERVAL = 1000L;
+
     private final static Logger LOGGER = LoggerFactory.getLogger(ConfigurationServiceImpl.class);
 
     private JdbcTemplate jdbcTemplate;
 
+    /**
+     * same data source as jdbcTemplate, with the fetch size of the db vendor dialect, used to read the whole configuration table
+     */
+    private JdbcTemplate streamingJdbcTemplate;
+
     private TransactionTemplate transactionTemplate;
 
     @Value("${db.vendor}")
     private String dbVendor;
 
+    @Value("${org.bonitasoft.platform.setup.configuration.page.size:" + DEFAULT_PAGE_SIZE + "}")
+    private int pageSize = DEFAULT_PAGE_SIZE;
+
+    /**
+     * milliseconds between two reads of the configuration change mark, 0 to read it on each call
+     */
+    @Value("${org.bonitasoft.platform.setup.configuration.change.check.interval:" + DEFAULT_CHANGE_CHECK_INTERVAL + "}")
+    private long changeCheckInterval = DEFAULT_CHANGE_CHECK_INTERVAL;
+
+    private final TenantConfigurationMerger tenantConfigurationMerger = new TenantConfigurationMerger();
+
+    /**
+     * effective tenant configurations, keyed by tenant id then configuration type.
+     * Writes done through this service invalidate it, and so does a change of the configuration change mark, for writes done by another node or
+     * process such as setup command line.
+     */
+    private final ConcurrentMap<Long, ConcurrentMap<ConfigurationType, List<BonitaConfiguration>>> effectiveTenantConfigurations = new ConcurrentHashMap<>();
+
+    /**
+     * incremented after each write done through this service, guarded by effectiveTenantConfigurations
+     */
+    private long configurationVersion;
+
+    /**
+     * last configuration change mark read, guarded by effectiveTenantConfigurations
+     */
+    private Long changeMark;
+
+    private long lastChangeCheck;
+
     @Autowired
     public ConfigurationServiceImpl(JdbcTemplate jdbcTemplate,
             TransactionTemplate transactionTemplate) {
@@ -173,12 +246,21 @@ public class ConfigurationServiceImpl implements ConfigurationService {
         AllConfigurationResourceVisitor allConfigurationResourceVisitor = new AllConfigurationResourceVisitor(fullBonitaConfigurations);
         try {
             Files.walkFileTree(path, allConfigurationResourceVisitor);
-            transactionTemplate.execute(new CleanAndStoreAllConfigurationInTransaction(jdbcTemplate, dbVendor, fullBonitaConfigurations));
+            executeWrite(new IndexConfigurationPropertiesInTransaction<>(jdbcTemplate,
+                    new CleanAndStoreAllConfigurationInTransaction(jdbcTemplate, dbVendor, fullBonitaConfigurations), fullBonitaConfigurations));
+            invalidateEffectiveTenantConfigurations(NON_TENANT_RESOURCE);
         } catch (IOException e) {
             throw new PlatformException(e);
         }
     }
 
+    @Override
+    public void insertNewConfigurations(List<FullBonitaConfiguration> fullBonitaConfigurations) {
+        executeWrite(new IndexConfigurationPropertiesInTransaction<>(jdbcTemplate,
+                new InsertAllConfigurationInTransaction(jdbcTemplate, dbVendor, fullBonitaConfigurations), fullBonitaConfigurations));
+        invalidateEffectiveTenantConfigurations(NON_TENANT_RESOURCE);
+    }
+
     @Override
     public void storeTenantTemplatePortalConf(List<BonitaConfiguration> bonitaConfigurations) {
         storeConfiguration(bonitaConfigurations, ConfigurationType.TENANT_TEMPLATE_PORTAL, NON_TENANT_RESOURCE);
@@ -211,11 +293,152 @@ public class ConfigurationServiceImpl implements ConfigurationService {
         return getBonitaConfiguration(ConfigurationType.TENANT_PORTAL, tenantId, file);
     }
 
+    @Override
+    public BonitaConfiguration getConfiguration(ConfigurationType type, long tenantId, String resourceName) {
+        return getBonitaConfiguration(type, tenantId, resourceName);
+    }
+
+    @Override
+    public List<BonitaConfiguration> getEffectiveTenantConfiguration(ConfigurationType type, long tenantId) {
+        final ConfigurationType templateType = TenantConfigurationMerger.getTemplateType(type);
+        checkChangeMark();
+        ConcurrentMap<ConfigurationType, List<BonitaConfiguration>> tenantConfigurations = effectiveTenantConfigurations.get(tenantId);
+        if (tenantConfigurations != null && tenantConfigurations.containsKey(type)) {
+            return tenantConfigurations.get(type);
+        }
+        final long version;
+        synchronized (effectiveTenantConfigurations) {
+            version = configurationVersion;
+        }
+        final List<BonitaConfiguration> effectiveConfigurations = tenantConfigurationMerger.merge(getNonTenantResource(templateType),
+                getBonitaConfigurations(type, tenantId));
+        synchronized (effectiveTenantConfigurations) {
+            // do not cache a result computed from data stored again in between
+            if (version == configurationVersion) {
+                tenantConfigurations = effectiveTenantConfigurations.get(tenantId);
+                if (tenantConfigurations == null) {
+                    tenantConfigurations = new ConcurrentHashMap<>();
+                    effectiveTenantConfigurations.put(tenantId, tenantConfigurations);
+                }
+                tenantConfigurations.put(type, effectiveConfigurations);
+            }
+        }
+        return effectiveConfigurations;
+    }
+
+    @Override
+    public long getConfigurationVersion() {
+        checkChangeMark();
+        synchronized (effectiveTenantConfigurations) {
+            return configurationVersion;
+        }
+    }
+
+    @Override
+    public List<ConfigurationProperty> findConfigurationProperties(String key) {
+        return transactionTemplate.execute(new GetConfigurationPropertiesInTransaction(jdbcTemplate, ConfigurationPropertyRowMapper.SELECT_PROPERTIES_BY_KEY, key));
+    }
+
+    @Override
+    public List<ConfigurationProperty> findConfigurationProperties(String key, String value) {
+        return transactionTemplate.execute(new GetConfigurationPropertiesInTransaction(jdbcTemplate,
+                ConfigurationPropertyRowMapper.SELECT_PROPERTIES_BY_KEY_AND_VALUE, key, value));
+    }
+
+    @Override
+    public List<ConfigurationProperty> findTenantPropertyOverrides(ConfigurationType type, String resourceName) {
+        final ConfigurationType templateType = TenantConfigurationMerger.getTemplateType(type);
+        return transactionTemplate.execute(new GetConfigurationPropertiesInTransaction(jdbcTemplate, ConfigurationPropertyRowMapper.SELECT_TENANT_OVERRIDES,
+                templateType.name(), type.name(), resourceName));
+    }
+
+    @Override
+    public void rebuildConfigurationPropertyIndex() {
+        transactionTemplate.execute(new IndexConfigurationPropertiesInTransaction<>(jdbcTemplate, null, null, null));
+    }
+
+    @Override
+    public int setProperty(ConfigurationType type, String resourceName, String key, String value) {
+        if (!resourceName.endsWith(".properties")) {
+            throw new IllegalArgumentException("resource " + resourceName + " is not a .properties file");
+        }
+        final List<Long> tenantIds = transactionTemplate.execute(new GetConfigurationTenantIdsInTransaction(jdbcTemplate, type, resourceName));
+        int changed = 0;
+        for (int from = 0; from < tenantIds.size(); from += SET_PROPERTY_CHUNK_SIZE) {
+            final List<Long> chunk = tenantIds.subList(from, Math.min(from + SET_PROPERTY_CHUNK_SIZE, tenantIds.size()));
+            final List<Long> changedTenantIds = executeWrite(new SetPropertyInTransaction(jdbcTemplate, dbVendor, type, resourceName, key, value,
+                    chunk));
+            for (Long tenantId : changedTenantIds) {
+                invalidateEffectiveTenantConfigurations(tenantId);
+            }
+            changed += changedTenantIds.size();
+        }
+        LOGGER.debug(String.format("property %s set in %d of %d %s files %s", key, changed, tenantIds.size(), type.name(), resourceName));
+        return changed;
+    }
+
+    @Override
+    public List<TemplatePropagation> propagateTenantTemplate(ConfigurationType templateType, List<BonitaConfiguration> bonitaConfigurations) {
+        final List<TemplatePropagation> propagations = executeWrite(new PropagateTenantTemplateInTransaction(jdbcTemplate, dbVendor,
+                templateType, bonitaConfigurations));
+        invalidateEffectiveTenantConfigurations(NON_TENANT_RESOURCE);
+        return propagations;
+    }
+
+    /**
+     * run a configuration write and increment the configuration change mark in the same transaction
+     */
+    private <T> T executeWrite(TransactionCallback<T> configurationWrite) {
+        return transactionTemplate.execute(new MarkConfigurationChangeInTransaction<>(jdbcTemplate, configurationWrite));
+    }
+
+    /**
+     * drop all cached values when the configuration change mark changed, reading it at most once per changeCheckInterval
+     */
+    private void checkChangeMark() {
+        final long now = System.currentTimeMillis();
+        synchronized (effectiveTenantConfigurations) {
+            if (changeMark != null && now - lastChangeCheck < changeCheckInterval) {
+                return;
+            }
+            lastChangeCheck = now;
+        }
+        final Long mark = transactionTemplate.execute(new GetConfigurationChangeMarkInTransaction(jdbcTemplate));
+        synchronized (effectiveTenantConfigurations) {
+            if (changeMark != null && !changeMark.equals(mark)) {
+                LOGGER.debug("configuration change mark changed from " + changeMark + " to " + mark + ", dropping cached configuration");
+                configurationVersion++;
+                effectiveTenantConfigurations.clear();
+            }
+            changeMark = mark;
+        }
+    }
+
+    /**
+     * @param tenantId tenant whose effective configuration is outdated, or 0 to drop them all
+     */
+    private void invalidateEffectiveTenantConfigurations(long tenantId) {
+        synchronized (effectiveTenantConfigurations) {
+            configurationVersion++;
+            if (tenantId == NON_TENANT_RESOURCE) {
+                effectiveTenantConfigurations.clear();
+            } else {
+                effectiveTenantConfigurations.remove(tenantId);
+            }
+        }
+    }
+
     @Override
     public void writeAllConfigurationToFolder(File configurationFolder, File licenseFolder) throws PlatformException {
+        writeConfigurationToFolder(configurationFolder, licenseFolder, iterateAllConfiguration(pageSize));
+    }
+
+    private void writeConfigurationToFolder(File configurationFolder, File licenseFolder, Iterator<FullBonitaConfiguration> fullBonitaConfigurations)
+            throws PlatformException {
         FolderResolver folderResolver = new FolderResolver(configurationFolder.toPath(), licenseFolder.toPath());
 
-        for (FullBonitaConfiguration fullBonitaConfiguration : getAllConfiguration()) {
+        while (fullBonitaConfigurations.hasNext()) {
+            final FullBonitaConfiguration fullBonitaConfiguration = fullBonitaConfigurations.next();
             File confFile = new File(folderResolver.getFolder(fullBonitaConfiguration), fullBonitaConfiguration.getResourceName());
             LOGGER.debug(String.format("writing file %s to folder %s", confFile.getName(), confFile.getParentFile().getAbsolutePath()));
             try {
@@ -226,8 +449,123 @@ public class ConfigurationServiceImpl implements ConfigurationService {
         }
     }
 
-    protected List<FullBonitaConfiguration> getAllConfiguration() {
-        return transactionTemplate.execute(new GetAllConfigurationInTransaction(jdbcTemplate));
+    @Override
+    public int exportAllConfigurationToArchive(File archiveFile) throws PlatformException {
+        try (ZipOutputStream zipOutputStream = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(archiveFile)))) {
+            final ConfigurationArchiveWriter archiveWriter = new ConfigurationArchiveWriter(zipOutputStream);
+            final int entryCount = transactionTemplate.execute(new ExportAllConfigurationToArchiveInTransaction(getStreamingJdbcTemplate(), archiveWriter));
+            archiveWriter.writeManifest();
+            LOGGER.debug(String.format("%d configuration files exported to archive %s", entryCount, archiveFile.getAbsolutePath()));
+            return entryCount;
+        } catch (IOException e) {
+            throw new PlatformException(e);
+        }
+    }
+
+    @Override
+    public int importAllConfigurationFromArchive(File archiveFile) throws PlatformException {
+        try (ZipFile zipFile = new ZipFile(archiveFile)) {
+            final List<ZipEntry> entries = new ConfigurationArchiveReader(zipFile).verify();
+            executeWrite(new ImportAllConfigurationFromArchiveInTransaction(jdbcTemplate, dbVendor, zipFile, entries));
+            invalidateEffectiveTenantConfigurations(NON_TENANT_RESOURCE);
+            LOGGER.debug(String.format("%d configuration files imported from archive %s", entries.size(), archiveFile.getAbsolutePath()));
+            return entries.size();
+        } catch (IOException e) {
+            throw new PlatformException(e);
+        }
+    }
+
+    @Override
+    public int writeAllConfigurationToSnapshot(File snapshotFile) throws PlatformException {
+        try (FileChannel channel = FileChannel.open(snapshotFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            final ConfigurationSnapshotWriter snapshotWriter = new ConfigurationSnapshotWriter(channel);
+            final int entryCount = transactionTemplate.execute(new ExportAllConfigurationToSnapshotInTransaction(getStreamingJdbcTemplate(), snapshotWriter));
+            snapshotWriter.finish();
+            LOGGER.debug(String.format("%d configuration files written to snapshot %s", entryCount, snapshotFile.getAbsolutePath()));
+            return entryCount;
+        } catch (IOException e) {
+            throw new PlatformException(e);
+        }
+    }
+
+    @Override
+    public long recordConfigurationGeneration() {
+        return transactionTemplate.execute(new RecordConfigurationGenerationInTransaction(jdbcTemplate, getStreamingJdbcTemplate(), dbVendor));
+    }
+
+    @Override
+    public List<ConfigurationGeneration> getConfigurationHistory() {
+        return transactionTemplate.execute(new GetConfigurationHistoryInTransaction(jdbcTemplate));
+    }
+
+    @Override
+    public void rollbackToConfigurationGeneration(long generation) throws PlatformException {
+        boolean exists = false;
+        for (ConfigurationGeneration configurationGeneration : getConfigurationHistory()) {
+            exists |= configurationGeneration.getGeneration() == generation;
+        }
+        if (!exists) {
+            throw new PlatformException("Configuration generation " + generation + " does not exist");
+        }
+        executeWrite(new IndexConfigurationPropertiesInTransaction<>(jdbcTemplate,
+                new RollbackConfigurationGenerationInTransaction(jdbcTemplate, generation), null, null));
+        invalidateEffectiveTenantConfigurations(NON_TENANT_RESOURCE);
+    }
+
+    @Override
+    public int pruneConfigurationGenerations(int generationsToKeep) {
+        if (generationsToKeep < 1) {
+            throw new IllegalArgumentException("generationsToKeep value " + generationsToKeep + " is not allowed");
+        }
+        return transactionTemplate.execute(new PruneConfigurationGenerationsInTransaction(jdbcTemplate, generationsToKeep));
+    }
+
+    @Override
+    public List<FullBonitaConfiguration> getAllConfiguration() {
+        return transactionTemplate.execute(new GetAllConfigurationInTransaction(getStreamingJdbcTemplate()));
+    }
+
+    @Override
+    public Iterator<FullBonitaConfiguration> iterateAllConfiguration(int pageSize) {
+        return new ConfigurationPageIterator(jdbcTemplate, transactionTemplate, pageSize);
+    }
+
+    @Override
+    public List<FullBonitaConfiguration> getConfiguration(ConfigurationFilter filter) {
+        return transactionTemplate.execute(new GetFilteredConfigurationInTransaction(jdbcTemplate, filter));
+    }
+
+    @Override
+    public void writeConfigurationToFolder(File configurationFolder, File licenseFolder, ConfigurationFilter filter) throws PlatformException {
+        writeConfigurationToFolder(configurationFolder, licenseFolder, getConfiguration(filter).iterator());
+    }
+
+    @Override
+    public int replaceConfiguration(File configurationRootFolder, ConfigurationFilter filter) throws PlatformException {
+        List<FullBonitaConfiguration> fullBonitaConfigurations = new ArrayList<>();
+        try {
+            Files.walkFileTree(configurationRootFolder.toPath(), new AllConfigurationResourceVisitor(fullBonitaConfigurations));
+        } catch (IOException e) {
+            throw new PlatformException(e);
+        }
+        final int stored = executeWrite(new ReplaceFilteredConfigurationInTransaction(jdbcTemplate, dbVendor, filter,
+                fullBonitaConfigurations));
+        invalidateEffectiveTenantConfigurations(NON_TENANT_RESOURCE);
+        LOGGER.debug(String.format("%d configuration files stored from folder %s for %s", stored, configurationRootFolder.getAbsolutePath(), filter));
+        return stored;
+    }
+
+    private JdbcTemplate getStreamingJdbcTemplate() {
+        if (streamingJdbcTemplate == null) {
+            if (jdbcTemplate.getDataSource() == null) {
+                return jdbcTemplate;
+            }
+            final JdbcTemplate template = new JdbcTemplate(jdbcTemplate.getDataSource());
+            template.setFetchSize(ConfigurationDialects.forVendor(dbVendor).getFetchSize());
+            streamingJdbcTemplate = template;
+        }
+        return streamingJdbcTemplate;
     }
 
     private void storeConfiguration(File configurationRootFolder, ConfigurationType type, long tenantId) throws PlatformException {
@@ -243,11 +581,13 @@ public class ConfigurationServiceImpl implements ConfigurationService {
     }
 
     private void storeConfiguration(List<BonitaConfiguration> bonitaConfigurations, ConfigurationType type, long tenantId) {
-        transactionTemplate.execute(new StoreConfigurationInTransaction(jdbcTemplate, dbVendor, bonitaConfigurations, type, tenantId));
+        executeWrite(new IndexConfigurationPropertiesInTransaction<>(jdbcTemplate,
+                new StoreConfigurationInTransaction(jdbcTemplate, dbVendor, bonitaConfigurations, type, tenantId), tenantId, type));
+        invalidateEffectiveTenantConfigurations(tenantId);
     }
 
     private void cleanAndStoreConfiguration(List<BonitaConfiguration> bonitaConfigurations, ConfigurationType type, long tenantId) {
-        transactionTemplate.execute(new CleanAndStoreConfigurationInTransaction(jdbcTemplate, dbVendor, bonitaConfigurations, type, tenantId));
+        executeWrite(new CleanAndStoreConfigurationInTransaction(jdbcTemplate, dbVendor, bonitaConfigurations, type, tenantId));
     }
 
     List<BonitaConfiguration> getNonTenantResource(ConfigurationType configurationType) {
@@ -295,11 +635,13 @@ public class ConfigurationServiceImpl implements ConfigurationService {
         if (tenantId <= 0) {
             throw new IllegalArgumentException("tenantId value " + tenantId + " is not allowed");
         }
-        transactionTemplate.execute(new DeleteTenantConfigurationInTransaction(jdbcTemplate, dbVendor, tenantId));
+        executeWrite(new DeleteTenantConfigurationInTransaction(jdbcTemplate, dbVendor, tenantId));
+        invalidateEffectiveTenantConfigurations(tenantId);
     }
 
     @Override
     public void deleteAllConfiguration() {
-        transactionTemplate.execute(new DeleteAllConfigurationInTransaction(jdbcTemplate));
+        executeWrite(new DeleteAllConfigurationInTransaction(jdbcTemplate));
+        invalidateEffectiveTenantConfigurations(NON_TENANT_RESOURCE);
     }
 }
@@ -0,0 +1,204 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.configuration.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bonitasoft.platform.configuration.model.FullBonitaConfiguration;
+import org.bonitasoft.platform.exception.PlatformException;
+
+/**
+ * read-only view of a configuration snapshot file, see {@link ConfigurationSnapshotFormat}.
+ * The file is memory-mapped and only the index is decoded when opening it: file contents are copied from the mapping only when they are requested.
+ * Instances are safe for concurrent reads.
+ *
+ * @author Laurent Leseigneur
+ */
+public class ConfigurationSnapshot {
+
+    private final MappedByteBuffer mappedFile;
+
+    private final List<Entry> entries;
+
+    private final Map<String, List<Entry>> entriesByTenantAndType;
+
+    private final Map<String, Entry> entriesByKey;
+
+    private ConfigurationSnapshot(MappedByteBuffer mappedFile, List<Entry> entries) {
+        this.mappedFile = mappedFile;
+        this.entries = Collections.unmodifiableList(entries);
+        entriesByTenantAndType = new HashMap<>();
+        entriesByKey = new HashMap<>(entries.size() * 2);
+        for (Entry entry : entries) {
+            List<Entry> sameTenantAndType = entriesByTenantAndType.get(key(entry.tenantId, entry.configurationType));
+            if (sameTenantAndType == null) {
+                sameTenantAndType = new ArrayList<>();
+                entriesByTenantAndType.put(key(entry.tenantId, entry.configurationType), sameTenantAndType);
+            }
+            sameTenantAndType.add(entry);
+            entriesByKey.put(key(entry.tenantId, entry.configurationType, entry.resourceName), entry);
+        }
+    }
+
+    public static ConfigurationSnapshot open(File snapshotFile) throws PlatformException {
+        final MappedByteBuffer mappedFile;
+        try (FileChannel channel = FileChannel.open(snapshotFile.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new PlatformException("Configuration snapshot " + snapshotFile + " is too large");
+            }
+            // mapping stays valid once the channel is closed
+            mappedFile = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+            throw new PlatformException("Unable to open configuration snapshot " + snapshotFile, e);
+        }
+        try {
+            return new ConfigurationSnapshot(mappedFile, readIndex(((ByteBuffer) mappedFile).duplicate()));
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new PlatformException("Configuration snapshot " + snapshotFile + " is truncated or corrupted", e);
+        }
+    }
+
+    private static List<Entry> readIndex(ByteBuffer buffer) throws PlatformException {
+        if (buffer.limit() < ConfigurationSnapshotFormat.HEADER_SIZE || buffer.getInt() != ConfigurationSnapshotFormat.MAGIC) {
+            throw new PlatformException("File is not a configuration snapshot");
+        }
+        final int version = buffer.getInt();
+        if (version != ConfigurationSnapshotFormat.VERSION) {
+            throw new PlatformException("Unsupported configuration snapshot version: " + version);
+        }
+        final int entryCount = buffer.getInt();
+        ((Buffer) buffer).position((int) buffer.getLong());
+        final List<Entry> entries = new ArrayList<>(entryCount);
+        for (int i = 0; i < entryCount; i++) {
+            final long tenantId = buffer.getLong();
+            final String configurationType = readString(buffer);
+            final String resourceName = readString(buffer);
+            final long offset = buffer.getLong();
+            final int length = buffer.getInt();
+            if (offset < ConfigurationSnapshotFormat.HEADER_SIZE || offset + length > buffer.limit()) {
+                throw new PlatformException("Configuration snapshot entry " + resourceName + " is out of file bounds");
+            }
+            entries.add(new Entry(tenantId, configurationType, resourceName, (int) offset, length));
+        }
+        return entries;
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        final byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return new String(bytes, ConfigurationSnapshotFormat.CHARSET);
+    }
+
+    private static String key(long tenantId, String configurationType) {
+        return tenantId + "/" + configurationType;
+    }
+
+    private static String key(long tenantId, String configurationType, String resourceName) {
+        return tenantId + "/" + configurationType + "/" + resourceName;
+    }
+
+    /**
+     * @return index entries, sorted by tenant id, configuration type and resource name
+     */
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * @return index entries of given tenant and configuration type, sorted by resource name
+     */
+    public List<Entry> getEntries(long tenantId, String configurationType) {
+        final List<Entry> sameTenantAndType = entriesByTenantAndType.get(key(tenantId, configurationType));
+        if (sameTenantAndType == null) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(sameTenantAndType);
+    }
+
+    /**
+     * @return index entry, or null if snapshot does not contain this file
+     */
+    public Entry getEntry(long tenantId, String configurationType, String resourceName) {
+        return entriesByKey.get(key(tenantId, configurationType, resourceName));
+    }
+
+    /**
+     * @return a read-only view on the mapped content of the entry, without copying it
+     */
+    public ByteBuffer getContent(Entry entry) {
+        // Buffer casts keep the Java 7 signatures when compiled on JDK 9+, where ByteBuffer overrides them covariantly
+        final ByteBuffer content = ((ByteBuffer) mappedFile).duplicate();
+        ((Buffer) content).limit(entry.offset + entry.length);
+        ((Buffer) content).position(entry.offset);
+        return content.slice().asReadOnlyBuffer();
+    }
+
+    public byte[] getContentAsBytes(Entry entry) {
+        final byte[] content = new byte[entry.length];
+        getContent(entry).get(content);
+        return content;
+    }
+
+    public FullBonitaConfiguration toFullBonitaConfiguration(Entry entry) {
+        return new FullBonitaConfiguration(entry.resourceName, getContentAsBytes(entry), entry.configurationType, entry.tenantId);
+    }
+
+    /**
+     * position of a file in the snapshot
+     */
+    public static class Entry {
+
+        private final long tenantId;
+        private final String configurationType;
+        private final String resourceName;
+        private final int offset;
+        private final int length;
+
+        Entry(long tenantId, String configurationType, String resourceName, int offset, int length) {
+            this.tenantId = tenantId;
+            this.configurationType = configurationType;
+            this.resourceName = resourceName;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        public long getTenantId() {
+            return tenantId;
+        }
+
+        public String getConfigurationType() {
+            return configurationType;
+        }
+
+        public String getResourceName() {
+            return resourceName;
+        }
+
+        public int getLength() {
+            return length;
+        }
+    }
+}
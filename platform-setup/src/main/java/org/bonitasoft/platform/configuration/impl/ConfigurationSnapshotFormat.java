@@ -0,0 +1,44 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.configuration.impl;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * binary snapshot of all configuration files, meant to be memory-mapped by read-only nodes.
+ * All numbers are big endian:
+ * <ul>
+ * <li>header: int magic, int version, int entry count, long index offset</li>
+ * <li>contents of all files, one after the other</li>
+ * <li>index: for each file, long tenant id, string configuration type, string resource name, long content offset, int content length</li>
+ * </ul>
+ * strings are stored as an unsigned short length followed by UTF-8 bytes.
+ * Index entries are sorted by tenant id, configuration type and resource name.
+ *
+ * @author Laurent Leseigneur
+ */
+public final class ConfigurationSnapshotFormat {
+
+    public static final int MAGIC = 0x42434653;
+
+    public static final int VERSION = 1;
+
+    public static final int HEADER_SIZE = 4 + 4 + 4 + 8;
+
+    static final Charset CHARSET = StandardCharsets.UTF_8;
+
+    private ConfigurationSnapshotFormat() {
+    }
+}
@@ -0,0 +1,113 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.configuration.impl;
+
+import static org.bonitasoft.platform.configuration.impl.ConfigurationFields.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.apache.commons.io.IOUtils;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+/**
+ * streams each configuration row content from the result set to a snapshot file, see {@link ConfigurationSnapshotFormat}.
+ * Index is kept in memory and written by {@link #finish()}, once all rows have been processed.
+ *
+ * @author Laurent Leseigneur
+ */
+public class ConfigurationSnapshotWriter implements RowCallbackHandler {
+
+    private final FileChannel channel;
+
+    private final ByteArrayOutputStream index = new ByteArrayOutputStream();
+
+    private final DataOutputStream indexOutput = new DataOutputStream(index);
+
+    private int entryCount;
+
+    public ConfigurationSnapshotWriter(FileChannel channel) throws IOException {
+        this.channel = channel;
+        channel.position(ConfigurationSnapshotFormat.HEADER_SIZE);
+    }
+
+    @Override
+    public void processRow(ResultSet rs) throws SQLException {
+        final String configurationType = rs.getString(CONTENT_TYPE);
+        final long tenantId = rs.getLong(TENANT_ID);
+        final String resourceName = rs.getString(RESOURCE_NAME);
+        try (InputStream content = rs.getBinaryStream(RESOURCE_CONTENT)) {
+            writeEntry(configurationType, tenantId, resourceName, content);
+        } catch (IOException e) {
+            throw new SQLException("Unable to write " + resourceName + " to configuration snapshot", e);
+        }
+    }
+
+    /**
+     * append given content to the snapshot. Entries must be written in index order. Content stream is not closed.
+     */
+    public void writeEntry(String configurationType, long tenantId, String resourceName, InputStream content) throws IOException {
+        final long offset = channel.position();
+        // stream returned by Channels is not closed, it would close the channel
+        IOUtils.copyLarge(content, Channels.newOutputStream(channel));
+        final long length = channel.position() - offset;
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("Resource " + resourceName + " is too large for a configuration snapshot");
+        }
+        indexOutput.writeLong(tenantId);
+        writeString(configurationType);
+        writeString(resourceName);
+        indexOutput.writeLong(offset);
+        indexOutput.writeInt((int) length);
+        entryCount++;
+    }
+
+    private void writeString(String value) throws IOException {
+        final byte[] bytes = value.getBytes(ConfigurationSnapshotFormat.CHARSET);
+        indexOutput.writeShort(bytes.length);
+        indexOutput.write(bytes);
+    }
+
+    /**
+     * write index and header, once all rows have been processed
+     */
+    public void finish() throws IOException {
+        final long indexOffset = channel.position();
+        writeFully(ByteBuffer.wrap(index.toByteArray()), indexOffset);
+        final ByteBuffer header = ByteBuffer.allocate(ConfigurationSnapshotFormat.HEADER_SIZE);
+        header.putInt(ConfigurationSnapshotFormat.MAGIC).putInt(ConfigurationSnapshotFormat.VERSION).putInt(entryCount).putLong(indexOffset);
+        ((Buffer) header).flip();
+        writeFully(header, 0);
+        channel.force(false);
+    }
+
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        long current = position;
+        while (buffer.hasRemaining()) {
+            current += channel.write(buffer, current);
+        }
+    }
+
+    public int getEntryCount() {
+        return entryCount;
+    }
+}
@@ -46,6 +46,13 @@ public class FolderResolver {
 
     }
 
+    /**
+     * @return the path of the file under configurationFolder or licenseFolder, without creating any folder
+     */
+    public Path resolvePath(FullBonitaConfiguration fullBonitaConfiguration) {
+        return resolveFolder(fullBonitaConfiguration).resolve(fullBonitaConfiguration.getResourceName());
+    }
+
     private Path resolveSubFolder(Path rootPath, FullBonitaConfiguration fullBonitaConfiguration) {
         if (fullBonitaConfiguration.isLicenseFile()) {
             return rootPath;
@@ -0,0 +1,159 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.configuration.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.bonitasoft.platform.configuration.ConfigurationService;
+import org.bonitasoft.platform.configuration.ParsedConfigurationService;
+import org.bonitasoft.platform.configuration.model.BonitaConfiguration;
+import org.bonitasoft.platform.configuration.type.ConfigurationType;
+import org.bonitasoft.platform.configuration.util.ContentDigest;
+import org.bonitasoft.platform.exception.PlatformException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.w3c.dom.Document;
+import org.xml.sax.SAXException;
+
+/**
+ * keeps one parsed value per file, along with the configuration version and the SHA-256 of the content it was parsed from.
+ * While {@link ConfigurationService#getConfigurationVersion()} is unchanged, cached values are returned without reading configuration. Once it changes,
+ * content is read again, but only parsed when its hash changed.
+ *
+ * @author Laurent Leseigneur
+ */
+@Service
+public class ParsedConfigurationServiceImpl implements ParsedConfigurationService {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(ParsedConfigurationServiceImpl.class);
+
+    private final ConfigurationService configurationService;
+
+    private final ConcurrentMap<String, ParsedContent<Map<String, String>>> parsedProperties = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, ParsedContent<Document>> parsedDocuments = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ParsedConfigurationServiceImpl(ConfigurationService configurationService) {
+        this.configurationService = configurationService;
+    }
+
+    @Override
+    public Map<String, String> getProperties(ConfigurationType type, long tenantId, String resourceName) throws PlatformException {
+        return getParsed(parsedProperties, type, tenantId, resourceName, new Parser<Map<String, String>>() {
+
+            @Override
+            public Map<String, String> parse(byte[] content) throws PlatformException {
+                return parseProperties(content);
+            }
+        });
+    }
+
+    @Override
+    public Document getXmlDocument(ConfigurationType type, long tenantId, String resourceName) throws PlatformException {
+        return getParsed(parsedDocuments, type, tenantId, resourceName, new Parser<Document>() {
+
+            @Override
+            public Document parse(byte[] content) throws PlatformException {
+                return ReadOnlyDom.view(parseXml(content));
+            }
+        });
+    }
+
+    private <T> T getParsed(ConcurrentMap<String, ParsedContent<T>> parsedContents, ConfigurationType type, long tenantId, String resourceName,
+            Parser<T> parser) throws PlatformException {
+        // read before content, so that a concurrent write is seen as a change by next call:
+        final long version = configurationService.getConfigurationVersion();
+        final String key = key(type, tenantId, resourceName);
+        final ParsedContent<T> cached = parsedContents.get(key);
+        if (cached != null && cached.version == version) {
+            return cached.value;
+        }
+        final BonitaConfiguration bonitaConfiguration = configurationService.getConfiguration(type, tenantId, resourceName);
+        if (bonitaConfiguration == null) {
+            parsedContents.put(key, new ParsedContent<T>(version, null, null));
+            return null;
+        }
+        final String contentHash = ContentDigest.sha256(bonitaConfiguration.getResourceContent());
+        final T value;
+        if (cached != null && contentHash.equals(cached.contentHash)) {
+            value = cached.value;
+        } else {
+            LOGGER.debug("parsing " + resourceName + " of type " + type + " and tenant " + tenantId);
+            value = parser.parse(bonitaConfiguration.getResourceContent());
+        }
+        parsedContents.put(key, new ParsedContent<>(version, contentHash, value));
+        return value;
+    }
+
+    public static Map<String, String> parseProperties(byte[] content) throws PlatformException {
+        final Properties properties = new Properties();
+        try {
+            properties.load(new ByteArrayInputStream(content));
+        } catch (IOException | IllegalArgumentException e) {
+            throw new PlatformException("Unable to parse properties", e);
+        }
+        final Map<String, String> values = new HashMap<>();
+        for (String name : properties.stringPropertyNames()) {
+            values.put(name, properties.getProperty(name));
+        }
+        return Collections.unmodifiableMap(values);
+    }
+
+    private Document parseXml(byte[] content) throws PlatformException {
+        final DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
+        documentBuilderFactory.setNamespaceAware(true);
+        try {
+            return documentBuilderFactory.newDocumentBuilder().parse(new ByteArrayInputStream(content));
+        } catch (ParserConfigurationException | SAXException | IOException e) {
+            throw new PlatformException("Unable to parse xml", e);
+        }
+    }
+
+    private static String key(ConfigurationType type, long tenantId, String resourceName) {
+        return tenantId + "/" + type.name() + "/" + resourceName;
+    }
+
+    private interface Parser<T> {
+
+        T parse(byte[] content) throws PlatformException;
+    }
+
+    private static class ParsedContent<T> {
+
+        private final long version;
+
+        private final String contentHash;
+
+        private final T value;
+
+        ParsedContent(long version, String contentHash, T value) {
+            this.version = version;
+            this.contentHash = contentHash;
+            this.value = value;
+        }
+    }
+}
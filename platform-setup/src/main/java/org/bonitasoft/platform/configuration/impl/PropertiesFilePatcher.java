@@ -0,0 +1,197 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.configuration.impl;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * sets one property in the raw content of a .properties file, leaving every other byte untouched: comments, ordering,
+ * line separators and formatting of other properties are kept.
+ * <ul>
+ * <li>when the key is set several times, the last occurrence (the one {@link java.util.Properties} keeps) is replaced</li>
+ * <li>when the key is not set, a line is appended at the end of the file</li>
+ * </ul>
+ * Content is handled as ISO-8859-1, like {@link java.util.Properties#load(java.io.InputStream)} does, so that any byte maps to one char and back.
+ *
+ * @author Laurent Leseigneur
+ */
+public class PropertiesFilePatcher {
+
+    /**
+     * @return patched content
+     */
+    public byte[] setProperty(byte[] content, String key, String value) {
+        final String text = new String(content, StandardCharsets.ISO_8859_1);
+        final StringBuilder escapedValue = new StringBuilder();
+        TenantConfigurationMerger.escape(escapedValue, value, false);
+        final int[] valueBounds = findLastValue(text, key);
+        final StringBuilder patched = new StringBuilder(text.length() + escapedValue.length() + key.length() + 2);
+        if (valueBounds != null) {
+            patched.append(text, 0, valueBounds[0]);
+            if (valueBounds[2] == 1) {
+                patched.append('=');
+            }
+            patched.append(escapedValue).append(text, valueBounds[1], text.length());
+        } else {
+            final String lineSeparator = text.contains("\r\n") ? "\r\n" : "\n";
+            patched.append(text);
+            if (!text.isEmpty() && !text.endsWith("\n") && !text.endsWith("\r")) {
+                patched.append(lineSeparator);
+            }
+            TenantConfigurationMerger.escape(patched, key, true);
+            patched.append('=').append(escapedValue).append(lineSeparator);
+        }
+        return patched.toString().getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * @return start and end offsets of the value of the last logical line setting the key, followed by 1 if the line has no separator
+     *         between key and value, or null if key is not set
+     */
+    int[] findLastValue(String text, String key) {
+        int[] found = null;
+        int position = 0;
+        while (position < text.length()) {
+            // skip leading white space of the natural line
+            while (position < text.length() && isWhitespace(text.charAt(position))) {
+                position++;
+            }
+            if (position >= text.length()) {
+                break;
+            }
+            final char first = text.charAt(position);
+            if (first == '\r' || first == '\n') {
+                position++;
+                continue;
+            }
+            if (first == '#' || first == '!') {
+                position = endOfNaturalLine(text, position);
+                continue;
+            }
+            final int lineEnd = endOfLogicalLine(text, position);
+            final StringBuilder lineKey = new StringBuilder();
+            int index = position;
+            while (index < lineEnd) {
+                final char c = text.charAt(index);
+                if (c == '\\') {
+                    index = unescape(text, index, lineEnd, lineKey);
+                    continue;
+                }
+                if (c == '=' || c == ':' || isWhitespace(c)) {
+                    break;
+                }
+                lineKey.append(c);
+                index++;
+            }
+            final int keyEnd = index;
+            while (index < lineEnd && isWhitespace(text.charAt(index))) {
+                index++;
+            }
+            if (index < lineEnd && (text.charAt(index) == '=' || text.charAt(index) == ':')) {
+                index++;
+                while (index < lineEnd && isWhitespace(text.charAt(index))) {
+                    index++;
+                }
+            }
+            if (lineKey.toString().equals(key)) {
+                found = new int[] { index, lineEnd, index == keyEnd ? 1 : 0 };
+            }
+            position = lineEnd;
+        }
+        return found;
+    }
+
+    /**
+     * @return offset of the line terminator ending the natural line
+     */
+    private int endOfNaturalLine(String text, int position) {
+        int index = position;
+        while (index < text.length() && text.charAt(index) != '\n' && text.charAt(index) != '\r') {
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * @return offset of the line terminator ending the logical line, natural lines ending with an odd number of backslashes being continued
+     */
+    private int endOfLogicalLine(String text, int position) {
+        int index = endOfNaturalLine(text, position);
+        while (index < text.length()) {
+            int backslashes = 0;
+            while (index - backslashes - 1 >= position && text.charAt(index - backslashes - 1) == '\\') {
+                backslashes++;
+            }
+            if (backslashes % 2 == 0) {
+                break;
+            }
+            // skip terminator of continued line
+            index += text.startsWith("\r\n", index) ? 2 : 1;
+            index = endOfNaturalLine(text, index);
+        }
+        return index;
+    }
+
+    /**
+     * append the char escaped at index to the key
+     *
+     * @return offset following the escape sequence
+     */
+    private int unescape(String text, int index, int lineEnd, StringBuilder key) {
+        if (index + 1 >= lineEnd) {
+            return lineEnd;
+        }
+        final char escaped = text.charAt(index + 1);
+        switch (escaped) {
+            case 't':
+                key.append('\t');
+                return index + 2;
+            case 'n':
+                key.append('\n');
+                return index + 2;
+            case 'r':
+                key.append('\r');
+                return index + 2;
+            case 'f':
+                key.append('\f');
+                return index + 2;
+            case 'u':
+                if (index + 6 <= lineEnd) {
+                    try {
+                        key.append((char) Integer.parseInt(text.substring(index + 2, index + 6), 16));
+                        return index + 6;
+                    } catch (NumberFormatException e) {
+                        // malformed escape, kept as is
+                    }
+                }
+                key.append(escaped);
+                return index + 2;
+            case '\r':
+            case '\n':
+                // continuation inside key: skip terminator and leading white space of next line
+                int next = index + 1 + (text.startsWith("\r\n", index + 1) ? 2 : 1);
+                while (next < lineEnd && isWhitespace(text.charAt(next))) {
+                    next++;
+                }
+                return next;
+            default:
+                key.append(escaped);
+                return index + 2;
+        }
+    }
+
+    private boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\f';
+    }
+}
@@ -0,0 +1,130 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.configuration.impl;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.w3c.dom.DOMException;
+import org.w3c.dom.Document;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+/**
+ * read-only view of a DOM document, that can be shared between callers and threads.
+ * <ul>
+ * <li>methods that modify the document, or create nodes owned by it, throw a {@link DOMException} with code NO_MODIFICATION_ALLOWED_ERR</li>
+ * <li>calls are serialized on the document, as reading a DOM may update its internal caches</li>
+ * <li>cloneNode on the document view returns a modifiable copy</li>
+ * </ul>
+ *
+ * @author Laurent Leseigneur
+ */
+class ReadOnlyDom implements InvocationHandler {
+
+    private static final String DOM_PACKAGE = "org.w3c.dom";
+
+    private static final Set<String> MODIFYING_METHODS = new HashSet<>(Arrays.asList("appendChild", "insertBefore", "removeChild", "replaceChild",
+            "setNodeValue", "setTextContent", "setPrefix", "normalize", "setUserData", "setAttribute", "setAttributeNS", "setAttributeNode",
+            "setAttributeNodeNS", "removeAttribute", "removeAttributeNS", "removeAttributeNode", "setIdAttribute", "setIdAttributeNS",
+            "setIdAttributeNode", "setValue", "setData", "appendData", "insertData", "deleteData", "replaceData", "splitText", "replaceWholeText",
+            "setNamedItem", "setNamedItemNS", "removeNamedItem", "removeNamedItemNS", "adoptNode", "importNode", "renameNode", "normalizeDocument",
+            "setXmlStandalone", "setXmlVersion", "setDocumentURI", "setStrictErrorChecking", "createElement", "createElementNS",
+            "createDocumentFragment", "createTextNode", "createComment", "createCDATASection", "createProcessingInstruction", "createAttribute",
+            "createAttributeNS", "createEntityReference"));
+
+    private final Object target;
+
+    private final Document lock;
+
+    private ReadOnlyDom(Object target, Document lock) {
+        this.target = target;
+        this.lock = lock;
+    }
+
+    static Document view(Document document) {
+        return (Document) wrap(document, document);
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if (method.getDeclaringClass() == Object.class) {
+            if ("equals".equals(method.getName())) {
+                return target.equals(unwrap(args[0]));
+            }
+            return method.invoke(target, args);
+        }
+        if (MODIFYING_METHODS.contains(method.getName())) {
+            throw new DOMException(DOMException.NO_MODIFICATION_ALLOWED_ERR, "configuration document is read-only, clone it to modify it");
+        }
+        final Object[] targetArgs = unwrap(args);
+        synchronized (lock) {
+            try {
+                final Object result = method.invoke(target, targetArgs);
+                if (target == lock && "cloneNode".equals(method.getName())) {
+                    return result;
+                }
+                return wrap(result, lock);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    private static Object wrap(Object value, Document lock) {
+        if (!(value instanceof Node || value instanceof NodeList || value instanceof NamedNodeMap)) {
+            return value;
+        }
+        final Set<Class<?>> domInterfaces = new LinkedHashSet<>();
+        for (Class<?> type = value.getClass(); type != null; type = type.getSuperclass()) {
+            addDomInterfaces(type, domInterfaces);
+        }
+        return Proxy.newProxyInstance(ReadOnlyDom.class.getClassLoader(), domInterfaces.toArray(new Class<?>[domInterfaces.size()]),
+                new ReadOnlyDom(value, lock));
+    }
+
+    private static void addDomInterfaces(Class<?> type, Set<Class<?>> domInterfaces) {
+        for (Class<?> implemented : type.getInterfaces()) {
+            if (implemented.getPackage() != null && DOM_PACKAGE.equals(implemented.getPackage().getName())) {
+                domInterfaces.add(implemented);
+            }
+            addDomInterfaces(implemented, domInterfaces);
+        }
+    }
+
+    private static Object unwrap(Object value) {
+        if (value != null && Proxy.isProxyClass(value.getClass()) && Proxy.getInvocationHandler(value) instanceof ReadOnlyDom) {
+            return ((ReadOnlyDom) Proxy.getInvocationHandler(value)).target;
+        }
+        return value;
+    }
+
+    private static Object[] unwrap(Object[] args) {
+        if (args == null) {
+            return null;
+        }
+        final Object[] unwrapped = new Object[args.length];
+        for (int i = 0; i < args.length; i++) {
+            unwrapped[i] = unwrap(args[i]);
+        }
+        return unwrapped;
+    }
+}
@@ -0,0 +1,453 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.configuration.impl;
+
+import static org.bonitasoft.platform.configuration.type.ConfigurationType.*;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.zip.ZipOutputStream;
+
+import org.bonitasoft.platform.configuration.ConfigurationService;
+import org.bonitasoft.platform.configuration.model.BonitaConfiguration;
+import org.bonitasoft.platform.configuration.model.ConfigurationFilter;
+import org.bonitasoft.platform.configuration.model.ConfigurationGeneration;
+import org.bonitasoft.platform.configuration.model.ConfigurationProperty;
+import org.bonitasoft.platform.configuration.model.FullBonitaConfiguration;
+import org.bonitasoft.platform.configuration.model.TemplatePropagation;
+import org.bonitasoft.platform.configuration.type.ConfigurationType;
+import org.bonitasoft.platform.exception.PlatformException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * read-only {@link ConfigurationService} serving a configuration snapshot file produced by {@link ConfigurationService#writeAllConfigurationToSnapshot(File)}.
+ * It does not need any database access, all store and delete operations throw {@link UnsupportedOperationException}.
+ *
+ * @author Laurent Leseigneur
+ */
+public class SnapshotConfigurationServiceImpl implements ConfigurationService {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(SnapshotConfigurationServiceImpl.class);
+
+    private static final long NON_TENANT_RESOURCE = 0L;
+
+    private final File snapshotFile;
+
+    private final ConfigurationSnapshot snapshot;
+
+    private final TenantConfigurationMerger tenantConfigurationMerger = new TenantConfigurationMerger();
+
+    /**
+     * snapshot never changes, so effective tenant configurations are never invalidated
+     */
+    private final ConcurrentMap<String, List<BonitaConfiguration>> effectiveTenantConfigurations = new ConcurrentHashMap<>();
+
+    /**
+     * in-memory equivalent of the property index, built on first query
+     */
+    private volatile List<ConfigurationProperty> configurationProperties;
+
+    public SnapshotConfigurationServiceImpl(File snapshotFile) throws PlatformException {
+        this.snapshotFile = snapshotFile;
+        this.snapshot = ConfigurationSnapshot.open(snapshotFile);
+        LOGGER.debug(String.format("configuration snapshot %s opened with %d files", snapshotFile.getAbsolutePath(), snapshot.getEntries().size()));
+    }
+
+    @Override
+    public List<BonitaConfiguration> getPlatformPortalConf() {
+        return getBonitaConfigurations(PLATFORM_PORTAL, NON_TENANT_RESOURCE);
+    }
+
+    @Override
+    public List<BonitaConfiguration> getPlatformInitEngineConf() {
+        return getBonitaConfigurations(PLATFORM_INIT_ENGINE, NON_TENANT_RESOURCE);
+    }
+
+    @Override
+    public List<BonitaConfiguration> getPlatformEngineConf() {
+        return getBonitaConfigurations(PLATFORM_ENGINE, NON_TENANT_RESOURCE);
+    }
+
+    @Override
+    public List<BonitaConfiguration> getTenantTemplateEngineConf() {
+        return getBonitaConfigurations(TENANT_TEMPLATE_ENGINE, NON_TENANT_RESOURCE);
+    }
+
+    @Override
+    public List<BonitaConfiguration> getTenantTemplateSecurityScripts() {
+        return getBonitaConfigurations(TENANT_TEMPLATE_SECURITY_SCRIPTS, NON_TENANT_RESOURCE);
+    }
+
+    @Override
+    public List<BonitaConfiguration> getTenantEngineConf(long tenantId) {
+        return getBonitaConfigurations(TENANT_ENGINE, tenantId);
+    }
+
+    @Override
+    public List<BonitaConfiguration> getTenantSecurityScripts(long tenantId) {
+        return getBonitaConfigurations(TENANT_SECURITY_SCRIPTS, tenantId);
+    }
+
+    @Override
+    public List<BonitaConfiguration> getTenantTemplatePortalConf() {
+        return getBonitaConfigurations(TENANT_TEMPLATE_PORTAL, NON_TENANT_RESOURCE);
+    }
+
+    @Override
+    public List<BonitaConfiguration> getTenantPortalConf(long tenantId) {
+        return getBonitaConfigurations(TENANT_PORTAL, tenantId);
+    }
+
+    @Override
+    public BonitaConfiguration getTenantPortalConfiguration(long tenantId, String file) {
+        return getConfiguration(TENANT_PORTAL, tenantId, file);
+    }
+
+    @Override
+    public BonitaConfiguration getConfiguration(ConfigurationType type, long tenantId, String resourceName) {
+        final ConfigurationSnapshot.Entry entry = snapshot.getEntry(tenantId, type.name(), resourceName);
+        if (entry == null) {
+            return null;
+        }
+        return new BonitaConfiguration(entry.getResourceName(), snapshot.getContentAsBytes(entry));
+    }
+
+    /**
+     * @return always 0, as a snapshot never changes
+     */
+    @Override
+    public long getConfigurationVersion() {
+        return 0L;
+    }
+
+    @Override
+    public List<BonitaConfiguration> getEffectiveTenantConfiguration(ConfigurationType type, long tenantId) {
+        final ConfigurationType templateType = TenantConfigurationMerger.getTemplateType(type);
+        final String key = tenantId + "/" + type.name();
+        List<BonitaConfiguration> effectiveConfigurations = effectiveTenantConfigurations.get(key);
+        if (effectiveConfigurations == null) {
+            effectiveConfigurations = tenantConfigurationMerger.merge(getBonitaConfigurations(templateType, NON_TENANT_RESOURCE),
+                    getBonitaConfigurations(type, tenantId));
+            final List<BonitaConfiguration> previous = effectiveTenantConfigurations.putIfAbsent(key, effectiveConfigurations);
+            if (previous != null) {
+                effectiveConfigurations = previous;
+            }
+        }
+        return effectiveConfigurations;
+    }
+
+    @Override
+    public List<BonitaConfiguration> getLicenses() throws PlatformException {
+        return getBonitaConfigurations(LICENSES, NON_TENANT_RESOURCE);
+    }
+
+    private List<BonitaConfiguration> getBonitaConfigurations(ConfigurationType type, long tenantId) {
+        final List<BonitaConfiguration> bonitaConfigurations = new ArrayList<>();
+        for (ConfigurationSnapshot.Entry entry : snapshot.getEntries(tenantId, type.name())) {
+            bonitaConfigurations.add(new BonitaConfiguration(entry.getResourceName(), snapshot.getContentAsBytes(entry)));
+        }
+        return bonitaConfigurations;
+    }
+
+    @Override
+    public List<ConfigurationProperty> findConfigurationProperties(String key) {
+        final List<ConfigurationProperty> found = new ArrayList<>();
+        for (ConfigurationProperty property : getConfigurationProperties()) {
+            if (property.getKey().equals(key)) {
+                found.add(property);
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public List<ConfigurationProperty> findConfigurationProperties(String key, String value) {
+        final List<ConfigurationProperty> found = new ArrayList<>();
+        for (ConfigurationProperty property : findConfigurationProperties(key)) {
+            if (value.equals(property.getValue())) {
+                found.add(property);
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public List<ConfigurationProperty> findTenantPropertyOverrides(ConfigurationType type, String resourceName) {
+        final ConfigurationType templateType = TenantConfigurationMerger.getTemplateType(type);
+        final Map<String, ConfigurationProperty> templateProperties = new HashMap<>();
+        for (ConfigurationProperty property : getConfigurationProperties()) {
+            if (property.getTenantId() == NON_TENANT_RESOURCE && property.getConfigurationType().equals(templateType.name())
+                    && property.getResourceName().equals(resourceName)) {
+                templateProperties.put(property.getKey(), property);
+            }
+        }
+        final List<ConfigurationProperty> overrides = new ArrayList<>();
+        for (ConfigurationProperty property : getConfigurationProperties()) {
+            if (property.getTenantId() == NON_TENANT_RESOURCE || !property.getConfigurationType().equals(type.name())
+                    || !property.getResourceName().equals(resourceName)) {
+                continue;
+            }
+            final ConfigurationProperty templateProperty = templateProperties.get(property.getKey());
+            // same rule as index query: values too long to be indexed are not compared
+            if (templateProperty == null || (property.getValue() != null && templateProperty.getValue() != null
+                    && !property.getValue().equals(templateProperty.getValue()))) {
+                overrides.add(property);
+            }
+        }
+        return overrides;
+    }
+
+    @Override
+    public void rebuildConfigurationPropertyIndex() {
+        throw readOnly();
+    }
+
+    @Override
+    public int setProperty(ConfigurationType type, String resourceName, String key, String value) {
+        throw readOnly();
+    }
+
+    @Override
+    public int replaceConfiguration(File configurationRootFolder, ConfigurationFilter filter) {
+        throw readOnly();
+    }
+
+    @Override
+    public List<TemplatePropagation> propagateTenantTemplate(ConfigurationType templateType, List<BonitaConfiguration> bonitaConfigurations) {
+        throw readOnly();
+    }
+
+    private List<ConfigurationProperty> getConfigurationProperties() {
+        if (configurationProperties == null) {
+            final List<ConfigurationProperty> properties = new ArrayList<>();
+            for (ConfigurationSnapshot.Entry entry : snapshot.getEntries()) {
+                if (entry.getResourceName().endsWith(".properties") && !LICENSES.name().equals(entry.getConfigurationType())) {
+                    properties.addAll(ConfigurationPropertyIndexer.toProperties(entry.getTenantId(), entry.getConfigurationType(), entry.getResourceName(),
+                            snapshot.getContentAsBytes(entry)));
+                }
+            }
+            configurationProperties = Collections.unmodifiableList(properties);
+        }
+        return configurationProperties;
+    }
+
+    @Override
+    public List<FullBonitaConfiguration> getAllConfiguration() {
+        final List<FullBonitaConfiguration> fullBonitaConfigurations = new ArrayList<>();
+        for (ConfigurationSnapshot.Entry entry : snapshot.getEntries()) {
+            fullBonitaConfigurations.add(snapshot.toFullBonitaConfiguration(entry));
+        }
+        return fullBonitaConfigurations;
+    }
+
+    @Override
+    public Iterator<FullBonitaConfiguration> iterateAllConfiguration(int pageSize) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("pageSize value " + pageSize + " is not allowed");
+        }
+        // snapshot is already in memory, pages are pointless:
+        return Collections.unmodifiableList(getAllConfiguration()).iterator();
+    }
+
+    @Override
+    public List<FullBonitaConfiguration> getConfiguration(ConfigurationFilter filter) {
+        final List<FullBonitaConfiguration> fullBonitaConfigurations = new ArrayList<>();
+        for (ConfigurationSnapshot.Entry entry : snapshot.getEntries()) {
+            if (filter.matches(entry.getTenantId(), entry.getConfigurationType(), entry.getResourceName())) {
+                fullBonitaConfigurations.add(snapshot.toFullBonitaConfiguration(entry));
+            }
+        }
+        return fullBonitaConfigurations;
+    }
+
+    @Override
+    public void writeAllConfigurationToFolder(File configurationFolder, File licenseFolder) throws PlatformException {
+        writeConfigurationToFolder(configurationFolder, licenseFolder, ConfigurationFilter.ALL);
+    }
+
+    @Override
+    public void writeConfigurationToFolder(File configurationFolder, File licenseFolder, ConfigurationFilter filter) throws PlatformException {
+        FolderResolver folderResolver = new FolderResolver(configurationFolder.toPath(), licenseFolder.toPath());
+
+        for (ConfigurationSnapshot.Entry entry : snapshot.getEntries()) {
+            if (!filter.matches(entry.getTenantId(), entry.getConfigurationType(), entry.getResourceName())) {
+                continue;
+            }
+            final FullBonitaConfiguration fullBonitaConfiguration = new FullBonitaConfiguration(entry.getResourceName(), null,
+                    entry.getConfigurationType(), entry.getTenantId());
+            File confFile = new File(folderResolver.getFolder(fullBonitaConfiguration), fullBonitaConfiguration.getResourceName());
+            LOGGER.debug(String.format("writing file %s to folder %s", confFile.getName(), confFile.getParentFile().getAbsolutePath()));
+            try (FileChannel channel = FileChannel.open(confFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                final ByteBuffer content = snapshot.getContent(entry);
+                while (content.hasRemaining()) {
+                    channel.write(content);
+                }
+            } catch (IOException e) {
+                throw new PlatformException(e);
+            }
+        }
+    }
+
+    @Override
+    public int exportAllConfigurationToArchive(File archiveFile) throws PlatformException {
+        try (ZipOutputStream zipOutputStream = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(archiveFile)))) {
+            final ConfigurationArchiveWriter archiveWriter = new ConfigurationArchiveWriter(zipOutputStream);
+            for (ConfigurationSnapshot.Entry entry : snapshot.getEntries()) {
+                archiveWriter.writeEntry(entry.getConfigurationType(), entry.getTenantId(), entry.getResourceName(),
+                        new ByteArrayInputStream(snapshot.getContentAsBytes(entry)));
+            }
+            archiveWriter.writeManifest();
+            return archiveWriter.getEntryCount();
+        } catch (IOException e) {
+            throw new PlatformException(e);
+        }
+    }
+
+    @Override
+    public int writeAllConfigurationToSnapshot(File snapshotFile) throws PlatformException {
+        try {
+            Files.copy(this.snapshotFile.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new PlatformException(e);
+        }
+        return snapshot.getEntries().size();
+    }
+
+    @Override
+    public List<ConfigurationGeneration> getConfigurationHistory() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public long recordConfigurationGeneration() {
+        throw readOnly();
+    }
+
+    @Override
+    public void rollbackToConfigurationGeneration(long generation) throws PlatformException {
+        throw readOnly();
+    }
+
+    @Override
+    public int pruneConfigurationGenerations(int generationsToKeep) {
+        throw readOnly();
+    }
+
+    @Override
+    public void storePlatformInitEngineConf(List<BonitaConfiguration> bonitaConfigurations) {
+        throw readOnly();
+    }
+
+    @Override
+    public void storePlatformEngineConf(List<BonitaConfiguration> bonitaConfigurations) {
+        throw readOnly();
+    }
+
+    @Override
+    public void storeTenantTemplateEngineConf(List<BonitaConfiguration> bonitaConfigurations) {
+        throw readOnly();
+    }
+
+    @Override
+    public void storeTenantTemplateSecurityScripts(List<BonitaConfiguration> bonitaConfigurations) {
+        throw readOnly();
+    }
+
+    @Override
+    public void storeTenantEngineConf(List<BonitaConfiguration> bonitaConfigurations, long tenantId) {
+        throw readOnly();
+    }
+
+    @Override
+    public void storeTenantSecurityScripts(List<BonitaConfiguration> bonitaConfigurations, long tenantId) {
+        throw readOnly();
+    }
+
+    @Override
+    public void storeTenantTemplatePortalConf(List<BonitaConfiguration> bonitaConfigurations) {
+        throw readOnly();
+    }
+
+    @Override
+    public void storeTenantPortalConf(List<BonitaConfiguration> bonitaConfigurations, long tenantId) {
+        throw readOnly();
+    }
+
+    @Override
+    public void storePlatformPortalConf(List<BonitaConfiguration> bonitaConfigurations) {
+        throw readOnly();
+    }
+
+    @Override
+    public void storeTenantConfiguration(File configurationRootFolder, long tenantId) throws PlatformException {
+        throw readOnly();
+    }
+
+    @Override
+    public void storePlatformConfiguration(File configurationRootFolder) throws PlatformException {
+        throw readOnly();
+    }
+
+    @Override
+    public void storeAllConfiguration(File configurationRootFolder) throws PlatformException {
+        throw readOnly();
+    }
+
+    @Override
+    public void insertNewConfigurations(List<FullBonitaConfiguration> fullBonitaConfigurations) {
+        throw readOnly();
+    }
+
+    @Override
+    public int importAllConfigurationFromArchive(File archiveFile) throws PlatformException {
+        throw readOnly();
+    }
+
+    @Override
+    public void storeLicenses(File licensesFolder) throws PlatformException {
+        throw readOnly();
+    }
+
+    @Override
+    public void deleteTenantConfiguration(long tenantId) {
+        throw readOnly();
+    }
+
+    @Override
+    public void deleteAllConfiguration() {
+        throw readOnly();
+    }
+
+    private UnsupportedOperationException readOnly() {
+        return new UnsupportedOperationException("configuration snapshot " + snapshotFile.getAbsolutePath() + " is read-only");
+    }
+}
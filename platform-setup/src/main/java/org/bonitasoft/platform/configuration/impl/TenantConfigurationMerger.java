@@ -0,0 +1,167 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.configuration.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.bonitasoft.platform.configuration.model.BonitaConfiguration;
+import org.bonitasoft.platform.configuration.type.ConfigurationType;
+import org.bonitasoft.platform.exception.PlatformException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * computes the effective configuration of a tenant: tenant template files overlaid with the tenant own files.
+ * <ul>
+ * <li>a file only present in template or in tenant is kept as is</li>
+ * <li>a .properties file present in both is merged key by key, tenant values overriding template ones</li>
+ * <li>any other file present in both is taken from tenant</li>
+ * </ul>
+ * Merged .properties files are written with sorted keys and without comments.
+ *
+ * @author Laurent Leseigneur
+ */
+public class TenantConfigurationMerger {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(TenantConfigurationMerger.class);
+
+    private static final String PROPERTIES_EXTENSION = ".properties";
+
+    /**
+     * @return the tenant template type overlaid by given tenant type
+     * @throws IllegalArgumentException if type is not a tenant type having a template
+     */
+    public static ConfigurationType getTemplateType(ConfigurationType tenantType) {
+        switch (tenantType) {
+            case TENANT_ENGINE:
+                return ConfigurationType.TENANT_TEMPLATE_ENGINE;
+            case TENANT_PORTAL:
+                return ConfigurationType.TENANT_TEMPLATE_PORTAL;
+            case TENANT_SECURITY_SCRIPTS:
+                return ConfigurationType.TENANT_TEMPLATE_SECURITY_SCRIPTS;
+            default:
+                throw new IllegalArgumentException("configuration type " + tenantType + " has no tenant template");
+        }
+    }
+
+    /**
+     * @return the tenant type initialized from given tenant template type
+     * @throws IllegalArgumentException if type is not a tenant template type
+     */
+    public static ConfigurationType getTenantType(ConfigurationType templateType) {
+        switch (templateType) {
+            case TENANT_TEMPLATE_ENGINE:
+                return ConfigurationType.TENANT_ENGINE;
+            case TENANT_TEMPLATE_PORTAL:
+                return ConfigurationType.TENANT_PORTAL;
+            case TENANT_TEMPLATE_SECURITY_SCRIPTS:
+                return ConfigurationType.TENANT_SECURITY_SCRIPTS;
+            default:
+                throw new IllegalArgumentException("configuration type " + templateType + " is not a tenant template");
+        }
+    }
+
+    /**
+     * @return an unmodifiable list of effective files, template files order first
+     */
+    public List<BonitaConfiguration> merge(List<BonitaConfiguration> templateConfigurations, List<BonitaConfiguration> tenantConfigurations) {
+        final Map<String, BonitaConfiguration> effectiveConfigurations = new LinkedHashMap<>();
+        for (BonitaConfiguration templateConfiguration : templateConfigurations) {
+            effectiveConfigurations.put(templateConfiguration.getResourceName(), templateConfiguration);
+        }
+        for (BonitaConfiguration tenantConfiguration : tenantConfigurations) {
+            final BonitaConfiguration templateConfiguration = effectiveConfigurations.get(tenantConfiguration.getResourceName());
+            if (templateConfiguration != null && tenantConfiguration.getResourceName().endsWith(PROPERTIES_EXTENSION)) {
+                effectiveConfigurations.put(tenantConfiguration.getResourceName(), mergeProperties(templateConfiguration, tenantConfiguration));
+            } else {
+                effectiveConfigurations.put(tenantConfiguration.getResourceName(), tenantConfiguration);
+            }
+        }
+        return Collections.unmodifiableList(new ArrayList<>(effectiveConfigurations.values()));
+    }
+
+    private BonitaConfiguration mergeProperties(BonitaConfiguration templateConfiguration, BonitaConfiguration tenantConfiguration) {
+        final Map<String, String> properties = new HashMap<>();
+        try {
+            properties.putAll(ParsedConfigurationServiceImpl.parseProperties(templateConfiguration.getResourceContent()));
+            properties.putAll(ParsedConfigurationServiceImpl.parseProperties(tenantConfiguration.getResourceContent()));
+        } catch (PlatformException e) {
+            LOGGER.warn("Unable to merge " + tenantConfiguration.getResourceName() + " with tenant template, using tenant file only: " + e.getMessage());
+            return tenantConfiguration;
+        }
+        return new BonitaConfiguration(tenantConfiguration.getResourceName(), toPropertiesContent(properties));
+    }
+
+    static byte[] toPropertiesContent(Map<String, String> properties) {
+        final StringBuilder content = new StringBuilder();
+        for (Map.Entry<String, String> property : new TreeMap<>(properties).entrySet()) {
+            escape(content, property.getKey(), true);
+            content.append('=');
+            escape(content, property.getValue(), false);
+            content.append('\n');
+        }
+        return content.toString().getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * same escaping rules as {@link java.util.Properties#store(java.io.OutputStream, String)}
+     */
+    static void escape(StringBuilder content, String value, boolean isKey) {
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            switch (c) {
+                case '\\':
+                    content.append("\\\\");
+                    break;
+                case '\t':
+                    content.append("\\t");
+                    break;
+                case '\n':
+                    content.append("\\n");
+                    break;
+                case '\r':
+                    content.append("\\r");
+                    break;
+                case '\f':
+                    content.append("\\f");
+                    break;
+                case '=':
+                case ':':
+                case '#':
+                case '!':
+                    content.append('\\').append(c);
+                    break;
+                case ' ':
+                    if (i == 0 || isKey) {
+                        content.append('\\');
+                    }
+                    content.append(c);
+                    break;
+                default:
+                    if (c < 0x20 || c > 0x7e) {
+                        content.append(String.format("\\u%04X", (int) c));
+                    } else {
+                        content.append(c);
+                    }
+            }
+        }
+    }
+}
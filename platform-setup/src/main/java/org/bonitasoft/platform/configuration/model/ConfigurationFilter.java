@@ -0,0 +1,129 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.configuration.model;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.bonitasoft.platform.configuration.type.ConfigurationType;
+
+/**
+ * restricts configuration files to some tenants, some configuration types and some resource names.
+ * Each criterion left empty matches all files. Resource name patterns are globs, where '*' matches any sequence of chars and '?' any single char.
+ *
+ * @author Laurent Leseigneur
+ */
+public class ConfigurationFilter implements Serializable {
+
+    /**
+     * matches all configuration files
+     */
+    public static final ConfigurationFilter ALL = new ConfigurationFilter(Collections.<Long> emptyList(), Collections.<ConfigurationType> emptyList(),
+            Collections.<String> emptyList());
+
+    private final Set<Long> tenantIds;
+
+    private final Set<ConfigurationType> types;
+
+    private final List<String> resourceNamePatterns;
+
+    private final List<Pattern> resourceNameRegexps;
+
+    /**
+     * @param tenantIds tenant ids to keep, 0 being the id of files that are not tenant specific
+     * @param types configuration types to keep
+     * @param resourceNamePatterns resource name globs to keep
+     */
+    public ConfigurationFilter(Collection<Long> tenantIds, Collection<ConfigurationType> types, Collection<String> resourceNamePatterns) {
+        this.tenantIds = Collections.unmodifiableSet(new LinkedHashSet<>(tenantIds));
+        this.types = Collections.unmodifiableSet(new LinkedHashSet<>(types));
+        this.resourceNamePatterns = Collections.unmodifiableList(new ArrayList<>(new LinkedHashSet<>(resourceNamePatterns)));
+        resourceNameRegexps = new ArrayList<>(this.resourceNamePatterns.size());
+        for (String resourceNamePattern : this.resourceNamePatterns) {
+            resourceNameRegexps.add(toRegexp(resourceNamePattern));
+        }
+    }
+
+    public Set<Long> getTenantIds() {
+        return tenantIds;
+    }
+
+    public Set<ConfigurationType> getTypes() {
+        return types;
+    }
+
+    public List<String> getResourceNamePatterns() {
+        return resourceNamePatterns;
+    }
+
+    /**
+     * @return true if this filter matches all configuration files
+     */
+    public boolean isAll() {
+        return tenantIds.isEmpty() && types.isEmpty() && resourceNamePatterns.isEmpty();
+    }
+
+    public boolean matches(FullBonitaConfiguration fullBonitaConfiguration) {
+        return matches(fullBonitaConfiguration.getTenantId(), fullBonitaConfiguration.getConfigurationType(), fullBonitaConfiguration.getResourceName());
+    }
+
+    public boolean matches(long tenantId, String configurationType, String resourceName) {
+        if (!tenantIds.isEmpty() && !tenantIds.contains(tenantId)) {
+            return false;
+        }
+        if (!types.isEmpty() && !types.contains(ConfigurationType.valueOf(configurationType))) {
+            return false;
+        }
+        if (resourceNameRegexps.isEmpty()) {
+            return true;
+        }
+        for (Pattern resourceNameRegexp : resourceNameRegexps) {
+            if (resourceNameRegexp.matcher(resourceName).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Pattern toRegexp(String glob) {
+        final StringBuilder regexp = new StringBuilder();
+        final StringBuilder literal = new StringBuilder();
+        for (char c : glob.toCharArray()) {
+            if (c == '*' || c == '?') {
+                if (literal.length() > 0) {
+                    regexp.append(Pattern.quote(literal.toString()));
+                    literal.setLength(0);
+                }
+                regexp.append(c == '*' ? ".*" : ".");
+            } else {
+                literal.append(c);
+            }
+        }
+        if (literal.length() > 0) {
+            regexp.append(Pattern.quote(literal.toString()));
+        }
+        return Pattern.compile(regexp.toString(), Pattern.DOTALL);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ConfigurationFilter{ tenantIds=%s , types=%s , resourceNamePatterns=%s }", tenantIds, types, resourceNamePatterns);
+    }
+}
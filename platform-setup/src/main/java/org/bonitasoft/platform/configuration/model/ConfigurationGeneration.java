@@ -0,0 +1,64 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.configuration.model;
+
+import java.io.Serializable;
+
+/**
+ * a configuration generation is the state of all configuration files recorded after a push.
+ * Only one generation is active at a time: the one currently copied in configuration table.
+ *
+ * @author Laurent Leseigneur
+ */
+public class ConfigurationGeneration implements Serializable {
+
+    private final long generation;
+
+    private final long created;
+
+    private final int fileCount;
+
+    private final boolean active;
+
+    public ConfigurationGeneration(long generation, long created, int fileCount, boolean active) {
+        this.generation = generation;
+        this.created = created;
+        this.fileCount = fileCount;
+        this.active = active;
+    }
+
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * @return creation date, in milliseconds
+     */
+    public long getCreated() {
+        return created;
+    }
+
+    public int getFileCount() {
+        return fileCount;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ConfigurationGeneration{ generation=%d , created=%d , fileCount=%d , active=%s }", generation, created, fileCount, active);
+    }
+}
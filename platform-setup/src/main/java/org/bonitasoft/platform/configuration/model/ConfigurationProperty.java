@@ -0,0 +1,91 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.configuration.model;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * a property set in a .properties configuration file, as recorded in the property index
+ *
+ * @author Laurent Leseigneur
+ */
+public class ConfigurationProperty implements Serializable {
+
+    private final long tenantId;
+
+    private final String configurationType;
+
+    private final String resourceName;
+
+    private final String key;
+
+    private final String value;
+
+    public ConfigurationProperty(long tenantId, String configurationType, String resourceName, String key, String value) {
+        this.tenantId = tenantId;
+        this.configurationType = configurationType;
+        this.resourceName = resourceName;
+        this.key = key;
+        this.value = value;
+    }
+
+    public long getTenantId() {
+        return tenantId;
+    }
+
+    public String getConfigurationType() {
+        return configurationType;
+    }
+
+    public String getResourceName() {
+        return resourceName;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * @return property value, or null if value is too long to be indexed
+     */
+    public String getValue() {
+        return value;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (o == null || getClass() != o.getClass())
+            return false;
+        ConfigurationProperty that = (ConfigurationProperty) o;
+        return tenantId == that.tenantId &&
+                Objects.equals(configurationType, that.configurationType) &&
+                Objects.equals(resourceName, that.resourceName) &&
+                Objects.equals(key, that.key) &&
+                Objects.equals(value, that.value);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(tenantId, configurationType, resourceName, key, value);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ConfigurationProperty{ tenantId=%d , configurationType='%s' , resourceName='%s' , key='%s' , value='%s' }", tenantId,
+                configurationType, resourceName, key, value);
+    }
+}
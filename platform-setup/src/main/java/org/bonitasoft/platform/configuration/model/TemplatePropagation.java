@@ -0,0 +1,72 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.configuration.model;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * outcome of propagating a changed tenant template file to existing tenants.
+ * Tenants whose copy was still identical to the previous template are updated, the others are reported as overridden and left as is.
+ *
+ * @author Laurent Leseigneur
+ */
+public class TemplatePropagation implements Serializable {
+
+    private final String configurationType;
+
+    private final String resourceName;
+
+    private final List<Long> propagatedTenantIds;
+
+    private final List<Long> overriddenTenantIds;
+
+    public TemplatePropagation(String configurationType, String resourceName, List<Long> propagatedTenantIds, List<Long> overriddenTenantIds) {
+        this.configurationType = configurationType;
+        this.resourceName = resourceName;
+        this.propagatedTenantIds = propagatedTenantIds;
+        this.overriddenTenantIds = overriddenTenantIds;
+    }
+
+    /**
+     * @return the tenant template type of the file
+     */
+    public String getConfigurationType() {
+        return configurationType;
+    }
+
+    public String getResourceName() {
+        return resourceName;
+    }
+
+    /**
+     * @return ids of the tenants whose copy was replaced by the new template content
+     */
+    public List<Long> getPropagatedTenantIds() {
+        return propagatedTenantIds;
+    }
+
+    /**
+     * @return ids of the tenants having modified their copy, left unchanged
+     */
+    public List<Long> getOverriddenTenantIds() {
+        return overriddenTenantIds;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("TemplatePropagation{ configurationType=%s , resourceName=%s , propagatedTenantIds=%s , overriddenTenantIds=%s }",
+                configurationType, resourceName, propagatedTenantIds, overriddenTenantIds);
+    }
+}
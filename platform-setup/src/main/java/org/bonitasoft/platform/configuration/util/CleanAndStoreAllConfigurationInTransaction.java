@@ -15,8 +15,8 @@ package org.bonitasoft.platform.configuration.util;
 
 import java.util.List;
 
+import org.bonitasoft.platform.configuration.dialect.ConfigurationDialects;
 import org.bonitasoft.platform.configuration.impl.BonitaAllConfigurationContentTypeCleaner;
-import org.bonitasoft.platform.configuration.impl.BonitaAllConfigurationPreparedStatementSetter;
 import org.bonitasoft.platform.configuration.impl.ConfigurationServiceImpl;
 import org.bonitasoft.platform.configuration.model.FullBonitaConfiguration;
 import org.slf4j.LoggerFactory;
@@ -50,8 +50,7 @@ public class CleanAndStoreAllConfigurationInTransaction extends TransactionCallb
         jdbcTemplate.batchUpdate(BonitaAllConfigurationContentTypeCleaner.DELETE_CONFIGURATION,
                 new BonitaAllConfigurationContentTypeCleaner(bonitaConfigurations));
 
-        jdbcTemplate.batchUpdate(BonitaAllConfigurationPreparedStatementSetter.INSERT_CONFIGURATION,
-                new BonitaAllConfigurationPreparedStatementSetter(bonitaConfigurations, dbVendor));
+        ConfigurationDialects.forVendor(dbVendor).insertConfigurations(jdbcTemplate, bonitaConfigurations);
 
     }
 
@@ -13,12 +13,14 @@
  **/
 package org.bonitasoft.platform.configuration.util;
 
+import java.util.ArrayList;
 import java.util.List;
 
+import org.bonitasoft.platform.configuration.dialect.ConfigurationDialects;
 import org.bonitasoft.platform.configuration.impl.BonitaConfigurationContentTypeCleaner;
-import org.bonitasoft.platform.configuration.impl.BonitaConfigurationPreparedStatementSetter;
 import org.bonitasoft.platform.configuration.impl.ConfigurationServiceImpl;
 import org.bonitasoft.platform.configuration.model.BonitaConfiguration;
+import org.bonitasoft.platform.configuration.model.FullBonitaConfiguration;
 import org.bonitasoft.platform.configuration.type.ConfigurationType;
 import org.slf4j.LoggerFactory;
 import org.springframework.jdbc.core.JdbcTemplate;
@@ -56,8 +58,12 @@ public class CleanAndStoreConfigurationInTransaction extends TransactionCallback
         jdbcTemplate.batchUpdate(BonitaConfigurationContentTypeCleaner.DELETE_CONFIGURATION,
                 new BonitaConfigurationContentTypeCleaner(type, tenantId));
 
-        jdbcTemplate.batchUpdate(BonitaConfigurationPreparedStatementSetter.INSERT_CONFIGURATION,
-                new BonitaConfigurationPreparedStatementSetter(bonitaConfigurations, dbVendor, type, tenantId));
+        final List<FullBonitaConfiguration> fullBonitaConfigurations = new ArrayList<>();
+        for (BonitaConfiguration bonitaConfiguration : bonitaConfigurations) {
+            fullBonitaConfigurations.add(new FullBonitaConfiguration(bonitaConfiguration.getResourceName(), bonitaConfiguration.getResourceContent(),
+                    type.name(), tenantId));
+        }
+        ConfigurationDialects.forVendor(dbVendor).insertConfigurations(jdbcTemplate, fullBonitaConfigurations);
 
     }
 
@@ -14,6 +14,7 @@
 package org.bonitasoft.platform.configuration.util;
 
 import org.bonitasoft.platform.configuration.impl.BonitaConfigurationCleaner;
+import org.bonitasoft.platform.configuration.impl.ConfigurationPropertyIndexer;
 import org.bonitasoft.platform.configuration.impl.ConfigurationServiceImpl;
 import org.slf4j.LoggerFactory;
 import org.springframework.jdbc.core.JdbcTemplate;
@@ -38,6 +39,7 @@ public class DeleteAllConfigurationInTransaction extends TransactionCallbackWith
         LOGGER.debug("Execute DeleteAllConfigurationInTransaction transaction.");
         jdbcTemplate.batchUpdate(BonitaConfigurationCleaner.DELETE_ALL_CONFIGURATION,
                 new BonitaConfigurationCleaner());
+        new ConfigurationPropertyIndexer(jdbcTemplate).delete(null);
 
     }
 }
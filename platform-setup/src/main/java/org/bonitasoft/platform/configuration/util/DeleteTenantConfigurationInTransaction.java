@@ -14,6 +14,7 @@
 package org.bonitasoft.platform.configuration.util;
 
 import org.bonitasoft.platform.configuration.impl.BonitaConfigurationTenantCleaner;
+import org.bonitasoft.platform.configuration.impl.ConfigurationPropertyIndexer;
 import org.bonitasoft.platform.configuration.impl.ConfigurationServiceImpl;
 import org.slf4j.LoggerFactory;
 import org.springframework.jdbc.core.JdbcTemplate;
@@ -45,6 +46,7 @@ public class DeleteTenantConfigurationInTransaction extends TransactionCallbackW
 
         jdbcTemplate.batchUpdate(BonitaConfigurationTenantCleaner.DELETE_TENANT_CONFIGURATION,
                 new BonitaConfigurationTenantCleaner(tenantId));
+        new ConfigurationPropertyIndexer(jdbcTemplate).delete(tenantId);
 
     }
 }
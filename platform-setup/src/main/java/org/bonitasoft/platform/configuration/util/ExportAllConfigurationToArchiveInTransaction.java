@@ -0,0 +1,49 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.configuration.util;
+
+import org.bonitasoft.platform.configuration.impl.ConfigurationArchiveWriter;
+import org.bonitasoft.platform.configuration.impl.FullBonitaConfigurationRowMapper;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+
+/**
+ * stream all configurations to a configuration archive, one row at a time
+ *
+ * @author Laurent Leseigneur
+ */
+public class ExportAllConfigurationToArchiveInTransaction implements TransactionCallback<Integer> {
+
+    private final static org.slf4j.Logger LOGGER = LoggerFactory.getLogger(ExportAllConfigurationToArchiveInTransaction.class);
+    private final JdbcTemplate jdbcTemplate;
+    private final ConfigurationArchiveWriter archiveWriter;
+
+    public ExportAllConfigurationToArchiveInTransaction(JdbcTemplate jdbcTemplate, ConfigurationArchiveWriter archiveWriter) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.archiveWriter = archiveWriter;
+    }
+
+    @Override
+    public Integer doInTransaction(TransactionStatus transactionStatus) {
+        LOGGER.debug("export all configurations to archive");
+
+        jdbcTemplate.query(FullBonitaConfigurationRowMapper.SELECT_CONFIGURATION, archiveWriter);
+
+        LOGGER.debug("configurations exported:" + archiveWriter.getEntryCount());
+        return archiveWriter.getEntryCount();
+    }
+
+}
@@ -0,0 +1,49 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.configuration.util;
+
+import org.bonitasoft.platform.configuration.impl.ConfigurationSnapshotWriter;
+import org.bonitasoft.platform.configuration.impl.FullBonitaConfigurationRowMapper;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+
+/**
+ * stream all configurations to a configuration snapshot, one row at a time
+ *
+ * @author Laurent Leseigneur
+ */
+public class ExportAllConfigurationToSnapshotInTransaction implements TransactionCallback<Integer> {
+
+    private final static org.slf4j.Logger LOGGER = LoggerFactory.getLogger(ExportAllConfigurationToSnapshotInTransaction.class);
+    private final JdbcTemplate jdbcTemplate;
+    private final ConfigurationSnapshotWriter snapshotWriter;
+
+    public ExportAllConfigurationToSnapshotInTransaction(JdbcTemplate jdbcTemplate, ConfigurationSnapshotWriter snapshotWriter) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.snapshotWriter = snapshotWriter;
+    }
+
+    @Override
+    public Integer doInTransaction(TransactionStatus transactionStatus) {
+        LOGGER.debug("export all configurations to snapshot");
+
+        jdbcTemplate.query(FullBonitaConfigurationRowMapper.SELECT_CONFIGURATION, snapshotWriter);
+
+        LOGGER.debug("configurations exported:" + snapshotWriter.getEntryCount());
+        return snapshotWriter.getEntryCount();
+    }
+
+}
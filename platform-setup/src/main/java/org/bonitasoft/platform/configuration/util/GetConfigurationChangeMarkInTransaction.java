@@ -0,0 +1,45 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.configuration.util;
+
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+
+/**
+ * reads the configuration change mark, that every configuration write increments, whatever the node or process doing it.
+ * Reading it is a primary key lookup on a single row table.
+ *
+ * @author Laurent Leseigneur
+ */
+public class GetConfigurationChangeMarkInTransaction implements TransactionCallback<Long> {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public GetConfigurationChangeMarkInTransaction(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * @return current change mark, or 0 if configuration was never written
+     */
+    @Override
+    public Long doInTransaction(TransactionStatus status) {
+        final List<Long> marks = jdbcTemplate.queryForList(MarkConfigurationChangeInTransaction.SELECT_CHANGE_MARK, Long.class);
+        return marks.isEmpty() ? 0L : marks.get(0);
+    }
+
+}
@@ -0,0 +1,85 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.configuration.util;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+import org.bonitasoft.platform.configuration.impl.FullBonitaConfigurationRowMapper;
+import org.bonitasoft.platform.configuration.model.FullBonitaConfiguration;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+
+/**
+ * reads one page of configuration rows, ordered by primary key, starting after a given row (keyset pagination).
+ * Page size is enforced with {@link PreparedStatement#setMaxRows(int)}, which all supported drivers honor, instead of vendor specific LIMIT syntax.
+ *
+ * @author Laurent Leseigneur
+ */
+public class GetConfigurationPageInTransaction implements TransactionCallback<List<FullBonitaConfiguration>> {
+
+    public static final String SELECT_FIRST_PAGE = FullBonitaConfigurationRowMapper.SELECT_CONFIGURATION;
+
+    // row value comparison "(a, b, c) > (?, ?, ?)" is not supported by all vendors. Each level starts with an inclusive bound AND-ed with the rest,
+    // so that optimizers use it as a range start on pk_configuration instead of scanning the table for a top level OR:
+    public static final String SELECT_NEXT_PAGE = "SELECT tenant_id, content_type, resource_name, resource_content FROM configuration"
+            + " WHERE tenant_id >= ? AND (tenant_id > ? OR (content_type >= ? AND (content_type > ? OR resource_name > ?)))"
+            + " ORDER BY tenant_id, content_type, resource_name";
+
+    private final static org.slf4j.Logger LOGGER = LoggerFactory.getLogger(GetConfigurationPageInTransaction.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final FullBonitaConfiguration previous;
+
+    private final int pageSize;
+
+    /**
+     * @param previous last row of previous page, or null for first page
+     * @param pageSize maximum number of rows to read
+     */
+    public GetConfigurationPageInTransaction(JdbcTemplate jdbcTemplate, FullBonitaConfiguration previous, int pageSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.previous = previous;
+        this.pageSize = pageSize;
+    }
+
+    @Override
+    public List<FullBonitaConfiguration> doInTransaction(TransactionStatus status) {
+        final List<FullBonitaConfiguration> page = jdbcTemplate.query(new PreparedStatementCreator() {
+
+            @Override
+            public PreparedStatement createPreparedStatement(Connection connection) throws SQLException {
+                final PreparedStatement preparedStatement = connection.prepareStatement(previous == null ? SELECT_FIRST_PAGE : SELECT_NEXT_PAGE);
+                if (previous != null) {
+                    preparedStatement.setLong(1, previous.getTenantId());
+                    preparedStatement.setLong(2, previous.getTenantId());
+                    preparedStatement.setString(3, previous.getConfigurationType());
+                    preparedStatement.setString(4, previous.getConfigurationType());
+                    preparedStatement.setString(5, previous.getResourceName());
+                }
+                preparedStatement.setMaxRows(pageSize);
+                preparedStatement.setFetchSize(pageSize);
+                return preparedStatement;
+            }
+        }, new FullBonitaConfigurationRowMapper());
+        LOGGER.debug(page.size() + " configurations read after " + previous);
+        return page;
+    }
+}
@@ -0,0 +1,49 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.configuration.util;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.bonitasoft.platform.configuration.impl.ConfigurationPropertyRowMapper;
+import org.bonitasoft.platform.configuration.model.ConfigurationProperty;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+
+/**
+ * run one of the {@link ConfigurationPropertyRowMapper} queries
+ *
+ * @author Laurent Leseigneur
+ */
+public class GetConfigurationPropertiesInTransaction implements TransactionCallback<List<ConfigurationProperty>> {
+
+    private final static org.slf4j.Logger LOGGER = LoggerFactory.getLogger(GetConfigurationPropertiesInTransaction.class);
+    private final JdbcTemplate jdbcTemplate;
+    private final String query;
+    private final Object[] args;
+
+    public GetConfigurationPropertiesInTransaction(JdbcTemplate jdbcTemplate, String query, Object... args) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.query = query;
+        this.args = args;
+    }
+
+    @Override
+    public List<ConfigurationProperty> doInTransaction(TransactionStatus transactionStatus) {
+        LOGGER.debug("get configuration properties for " + Arrays.toString(args));
+        return jdbcTemplate.query(query, args, new ConfigurationPropertyRowMapper());
+    }
+}
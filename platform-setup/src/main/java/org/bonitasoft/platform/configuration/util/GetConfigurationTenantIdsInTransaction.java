@@ -0,0 +1,46 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.configuration.util;
+
+import java.util.List;
+
+import org.bonitasoft.platform.configuration.type.ConfigurationType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+
+/**
+ * list the tenants having a given configuration file, without reading its content
+ *
+ * @author Laurent Leseigneur
+ */
+public class GetConfigurationTenantIdsInTransaction implements TransactionCallback<List<Long>> {
+
+    public static final String SELECT_TENANT_IDS = "SELECT tenant_id FROM configuration WHERE content_type = ? AND resource_name = ? ORDER BY tenant_id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ConfigurationType type;
+    private final String resourceName;
+
+    public GetConfigurationTenantIdsInTransaction(JdbcTemplate jdbcTemplate, ConfigurationType type, String resourceName) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.type = type;
+        this.resourceName = resourceName;
+    }
+
+    @Override
+    public List<Long> doInTransaction(TransactionStatus status) {
+        return jdbcTemplate.queryForList(SELECT_TENANT_IDS, Long.class, type.name(), resourceName);
+    }
+}
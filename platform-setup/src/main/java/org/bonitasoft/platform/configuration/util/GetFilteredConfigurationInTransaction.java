@@ -0,0 +1,65 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.configuration.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.bonitasoft.platform.configuration.impl.ConfigurationFilterPredicate;
+import org.bonitasoft.platform.configuration.impl.FullBonitaConfigurationRowMapper;
+import org.bonitasoft.platform.configuration.model.ConfigurationFilter;
+import org.bonitasoft.platform.configuration.model.FullBonitaConfiguration;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+
+/**
+ * retrieves only the configuration rows matching a filter. The filter is applied by the database, then rows are checked again with
+ * {@link ConfigurationFilter#matches(FullBonitaConfiguration)}, as LIKE is case insensitive on some vendors: pull selects exactly the rows push
+ * replaces.
+ *
+ * @author Laurent Leseigneur
+ */
+public class GetFilteredConfigurationInTransaction implements TransactionCallback<List<FullBonitaConfiguration>> {
+
+    public static final String SELECT_CONFIGURATION = "SELECT tenant_id, content_type, resource_name, resource_content FROM configuration";
+
+    public static final String ORDER_BY = " ORDER BY tenant_id, content_type, resource_name";
+
+    private final static org.slf4j.Logger LOGGER = LoggerFactory.getLogger(GetFilteredConfigurationInTransaction.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ConfigurationFilter filter;
+
+    public GetFilteredConfigurationInTransaction(JdbcTemplate jdbcTemplate, ConfigurationFilter filter) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.filter = filter;
+    }
+
+    @Override
+    public List<FullBonitaConfiguration> doInTransaction(TransactionStatus status) {
+        final ConfigurationFilterPredicate predicate = new ConfigurationFilterPredicate(filter);
+        final List<FullBonitaConfiguration> fullBonitaConfigurations = new ArrayList<>();
+        for (FullBonitaConfiguration fullBonitaConfiguration : jdbcTemplate.query(SELECT_CONFIGURATION + predicate.getWhereClause() + ORDER_BY,
+                predicate.getArguments(), new FullBonitaConfigurationRowMapper())) {
+            if (filter.matches(fullBonitaConfiguration)) {
+                fullBonitaConfigurations.add(fullBonitaConfiguration);
+            }
+        }
+        LOGGER.debug(fullBonitaConfigurations.size() + " configurations found for " + filter);
+        return fullBonitaConfigurations;
+    }
+}
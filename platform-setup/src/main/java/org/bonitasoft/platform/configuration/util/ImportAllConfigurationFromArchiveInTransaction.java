@@ -0,0 +1,72 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.configuration.util;
+
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.bonitasoft.platform.configuration.impl.BonitaConfigurationCleaner;
+import org.bonitasoft.platform.configuration.impl.ConfigurationArchiveEntryPreparedStatementSetter;
+import org.bonitasoft.platform.configuration.impl.ConfigurationPropertyIndexer;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+
+/**
+ * replace all configurations with the entries of a verified configuration archive.
+ * Entries are inserted in batches of {@link #BATCH_SIZE}, so that at most one batch of entry streams is open at a time.
+ * Properties of each batch are indexed from the archive entries, configuration table is not read back.
+ *
+ * @author Laurent Leseigneur
+ */
+public class ImportAllConfigurationFromArchiveInTransaction extends TransactionCallbackWithoutResult {
+
+    static final int BATCH_SIZE = 100;
+
+    private final static org.slf4j.Logger LOGGER = LoggerFactory.getLogger(ImportAllConfigurationFromArchiveInTransaction.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String dbVendor;
+    private final ZipFile zipFile;
+    private final List<ZipEntry> entries;
+
+    public ImportAllConfigurationFromArchiveInTransaction(JdbcTemplate jdbcTemplate, String dbVendor, ZipFile zipFile, List<ZipEntry> entries) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dbVendor = dbVendor;
+        this.zipFile = zipFile;
+        this.entries = entries;
+    }
+
+    @Override
+    protected void doInTransactionWithoutResult(TransactionStatus status) {
+        LOGGER.debug("delete all configurations before importing " + entries.size() + " archive entries");
+        jdbcTemplate.batchUpdate(BonitaConfigurationCleaner.DELETE_ALL_CONFIGURATION, new BonitaConfigurationCleaner());
+        final ConfigurationPropertyIndexer indexer = new ConfigurationPropertyIndexer(jdbcTemplate);
+        indexer.delete(null);
+
+        for (int from = 0; from < entries.size(); from += BATCH_SIZE) {
+            final ConfigurationArchiveEntryPreparedStatementSetter setter = new ConfigurationArchiveEntryPreparedStatementSetter(zipFile,
+                    entries.subList(from, Math.min(from + BATCH_SIZE, entries.size())), dbVendor);
+            try {
+                jdbcTemplate.batchUpdate(ConfigurationArchiveEntryPreparedStatementSetter.INSERT_CONFIGURATION, setter);
+            } finally {
+                setter.closeStreams();
+            }
+            indexer.index(setter.getPropertiesFiles());
+        }
+    }
+
+}
@@ -0,0 +1,81 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.configuration.util;
+
+import java.util.List;
+
+import org.bonitasoft.platform.configuration.impl.ConfigurationPropertyIndexer;
+import org.bonitasoft.platform.configuration.model.FullBonitaConfiguration;
+import org.bonitasoft.platform.configuration.type.ConfigurationType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+
+/**
+ * runs a configuration write, then indexes again the .properties files it may have changed, in the same transaction:
+ * either the given written files, or all files of a tenant and type scope
+ *
+ * @author Laurent Leseigneur
+ */
+public class IndexConfigurationPropertiesInTransaction<T> implements TransactionCallback<T> {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionCallback<T> configurationWrite;
+
+    private final Long tenantId;
+
+    private final ConfigurationType type;
+
+    private final List<FullBonitaConfiguration> writtenConfigurations;
+
+    /**
+     * @param configurationWrite the write to run first, or null to only index again
+     * @param tenantId tenant written to, or null for all tenants
+     * @param type type written to, or null for all types
+     */
+    public IndexConfigurationPropertiesInTransaction(JdbcTemplate jdbcTemplate, TransactionCallback<T> configurationWrite, Long tenantId,
+            ConfigurationType type) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.configurationWrite = configurationWrite;
+        this.tenantId = tenantId;
+        this.type = type;
+        this.writtenConfigurations = null;
+    }
+
+    /**
+     * @param configurationWrite the write to run first
+     * @param writtenConfigurations files written by configurationWrite, only these are indexed again, from their given content
+     */
+    public IndexConfigurationPropertiesInTransaction(JdbcTemplate jdbcTemplate, TransactionCallback<T> configurationWrite,
+            List<FullBonitaConfiguration> writtenConfigurations) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.configurationWrite = configurationWrite;
+        this.tenantId = null;
+        this.type = null;
+        this.writtenConfigurations = writtenConfigurations;
+    }
+
+    @Override
+    public T doInTransaction(TransactionStatus status) {
+        final T result = configurationWrite == null ? null : configurationWrite.doInTransaction(status);
+        final ConfigurationPropertyIndexer indexer = new ConfigurationPropertyIndexer(jdbcTemplate);
+        if (writtenConfigurations == null) {
+            indexer.reindex(tenantId, type);
+        } else {
+            indexer.index(writtenConfigurations);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,52 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.configuration.util;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+
+/**
+ * runs a configuration write, then increments the configuration change mark in the same transaction, so that every node caching values derived
+ * from configuration notices the write.
+ * The single row of configuration_change_mark is inserted by the first write.
+ *
+ * @author Laurent Leseigneur
+ */
+public class MarkConfigurationChangeInTransaction<T> implements TransactionCallback<T> {
+
+    public static final String SELECT_CHANGE_MARK = "SELECT mark FROM configuration_change_mark WHERE id = 1";
+
+    public static final String INCREMENT_CHANGE_MARK = "UPDATE configuration_change_mark SET mark = mark + 1 WHERE id = 1";
+
+    public static final String INSERT_CHANGE_MARK = "INSERT into configuration_change_mark(id, mark) values (1, 1)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionCallback<T> configurationWrite;
+
+    public MarkConfigurationChangeInTransaction(JdbcTemplate jdbcTemplate, TransactionCallback<T> configurationWrite) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.configurationWrite = configurationWrite;
+    }
+
+    @Override
+    public T doInTransaction(TransactionStatus status) {
+        final T result = configurationWrite.doInTransaction(status);
+        if (jdbcTemplate.update(INCREMENT_CHANGE_MARK) == 0) {
+            jdbcTemplate.update(INSERT_CHANGE_MARK);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,128 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.configuration.util;
+
+import static org.bonitasoft.platform.configuration.impl.ConfigurationFields.RESOURCE_CONTENT;
+import static org.bonitasoft.platform.configuration.impl.ConfigurationFields.TENANT_ID;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.bonitasoft.platform.configuration.impl.BonitaConfigurationRowMapper;
+import org.bonitasoft.platform.configuration.impl.ConfigurationContentUpdatePreparedStatementSetter;
+import org.bonitasoft.platform.configuration.impl.ConfigurationPropertyIndexer;
+import org.bonitasoft.platform.configuration.impl.TenantConfigurationMerger;
+import org.bonitasoft.platform.configuration.model.BonitaConfiguration;
+import org.bonitasoft.platform.configuration.model.FullBonitaConfiguration;
+import org.bonitasoft.platform.configuration.model.TemplatePropagation;
+import org.bonitasoft.platform.configuration.type.ConfigurationType;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+
+/**
+ * store new tenant template files, and copy each changed one to the tenants whose copy still has the content of the previous template.
+ * Tenant copies are compared by SHA-256 while rows are read, so that their content is never held in memory.
+ *
+ * @author Laurent Leseigneur
+ */
+public class PropagateTenantTemplateInTransaction implements TransactionCallback<List<TemplatePropagation>> {
+
+    public static final String SELECT_TENANT_CONTENTS = "SELECT tenant_id, resource_content FROM configuration WHERE content_type = ? AND resource_name = ? AND tenant_id > 0 ORDER BY tenant_id";
+
+    private final static org.slf4j.Logger LOGGER = LoggerFactory.getLogger(PropagateTenantTemplateInTransaction.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String dbVendor;
+    private final ConfigurationType templateType;
+    private final List<BonitaConfiguration> templateConfigurations;
+
+    public PropagateTenantTemplateInTransaction(JdbcTemplate jdbcTemplate, String dbVendor, ConfigurationType templateType,
+            List<BonitaConfiguration> templateConfigurations) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dbVendor = dbVendor;
+        this.templateType = templateType;
+        this.templateConfigurations = templateConfigurations;
+    }
+
+    /**
+     * @return one propagation per template file whose content changed
+     */
+    @Override
+    public List<TemplatePropagation> doInTransaction(TransactionStatus status) {
+        final ConfigurationType tenantType = TenantConfigurationMerger.getTenantType(templateType);
+        final List<TemplatePropagation> propagations = new ArrayList<>();
+        final List<FullBonitaConfiguration> writtenConfigurations = new ArrayList<>();
+        for (BonitaConfiguration templateConfiguration : templateConfigurations) {
+            final List<BonitaConfiguration> previousTemplates = jdbcTemplate.query(BonitaConfigurationRowMapper.SELECT_CONFIGURATION,
+                    new Object[] { 0L, templateType.name(), templateConfiguration.getResourceName() }, new BonitaConfigurationRowMapper());
+            if (previousTemplates.size() != 1) {
+                // new template file: tenants do not have it yet, there is nothing to compare with
+                continue;
+            }
+            final byte[] previousContent = previousTemplates.get(0).getResourceContent();
+            if (Arrays.equals(previousContent, templateConfiguration.getResourceContent())) {
+                continue;
+            }
+            propagations.add(propagate(tenantType, templateConfiguration, ContentDigest.sha256(previousContent), writtenConfigurations));
+        }
+        new StoreConfigurationInTransaction(jdbcTemplate, dbVendor, templateConfigurations, templateType, 0L).doInTransaction(status);
+        for (BonitaConfiguration templateConfiguration : templateConfigurations) {
+            writtenConfigurations.add(new FullBonitaConfiguration(templateConfiguration.getResourceName(), templateConfiguration.getResourceContent(),
+                    templateType.name(), 0L));
+        }
+        new ConfigurationPropertyIndexer(jdbcTemplate).index(writtenConfigurations);
+        return propagations;
+    }
+
+    private TemplatePropagation propagate(ConfigurationType tenantType, BonitaConfiguration templateConfiguration, final String previousHash,
+            List<FullBonitaConfiguration> writtenConfigurations) {
+        final String newHash = ContentDigest.sha256(templateConfiguration.getResourceContent());
+        final List<Long> propagatedTenantIds = new ArrayList<>();
+        final List<Long> overriddenTenantIds = new ArrayList<>();
+        jdbcTemplate.query(SELECT_TENANT_CONTENTS, new Object[] { tenantType.name(), templateConfiguration.getResourceName() }, new RowCallbackHandler() {
+
+            @Override
+            public void processRow(ResultSet rs) throws SQLException {
+                final byte[] content = rs.getBytes(RESOURCE_CONTENT);
+                final String hash = content == null ? null : ContentDigest.sha256(content);
+                if (previousHash.equals(hash)) {
+                    propagatedTenantIds.add(rs.getLong(TENANT_ID));
+                } else if (!newHash.equals(hash)) {
+                    overriddenTenantIds.add(rs.getLong(TENANT_ID));
+                }
+            }
+        });
+        if (!propagatedTenantIds.isEmpty()) {
+            final List<FullBonitaConfiguration> tenantConfigurations = new ArrayList<>(propagatedTenantIds.size());
+            for (Long tenantId : propagatedTenantIds) {
+                tenantConfigurations.add(new FullBonitaConfiguration(templateConfiguration.getResourceName(), templateConfiguration.getResourceContent(),
+                        tenantType.name(), tenantId));
+            }
+            jdbcTemplate.batchUpdate(ConfigurationContentUpdatePreparedStatementSetter.UPDATE_CONFIGURATION_CONTENT,
+                    new ConfigurationContentUpdatePreparedStatementSetter(tenantConfigurations, dbVendor));
+            writtenConfigurations.addAll(tenantConfigurations);
+        }
+        LOGGER.debug(templateType.name() + " " + templateConfiguration.getResourceName() + " propagated to tenants " + propagatedTenantIds
+                + ", overridden by tenants " + overriddenTenantIds);
+        return new TemplatePropagation(templateType.name(), templateConfiguration.getResourceName(), Collections.unmodifiableList(propagatedTenantIds),
+                Collections.unmodifiableList(overriddenTenantIds));
+    }
+}
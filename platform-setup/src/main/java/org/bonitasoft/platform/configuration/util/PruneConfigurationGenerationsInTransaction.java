@@ -0,0 +1,67 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.configuration.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.bonitasoft.platform.configuration.impl.ConfigurationGenerationCleaner;
+import org.bonitasoft.platform.configuration.impl.ConfigurationGenerationRowMapper;
+import org.bonitasoft.platform.configuration.model.ConfigurationGeneration;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+
+/**
+ * delete all generations but the most recent ones and the active one, then delete contents no more used by any generation
+ *
+ * @author Laurent Leseigneur
+ */
+public class PruneConfigurationGenerationsInTransaction implements TransactionCallback<Integer> {
+
+    private final static org.slf4j.Logger LOGGER = LoggerFactory.getLogger(PruneConfigurationGenerationsInTransaction.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int generationsToKeep;
+
+    public PruneConfigurationGenerationsInTransaction(JdbcTemplate jdbcTemplate, int generationsToKeep) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.generationsToKeep = generationsToKeep;
+    }
+
+    @Override
+    public Integer doInTransaction(TransactionStatus status) {
+        final List<ConfigurationGeneration> generations = jdbcTemplate.query(ConfigurationGenerationRowMapper.SELECT_GENERATIONS,
+                new ConfigurationGenerationRowMapper());
+        final List<Long> generationsToDelete = new ArrayList<>();
+        // generations are sorted from the oldest to the most recent one
+        for (int i = 0; i < generations.size() - generationsToKeep; i++) {
+            if (!generations.get(i).isActive()) {
+                generationsToDelete.add(generations.get(i).getGeneration());
+            }
+        }
+        if (generationsToDelete.isEmpty()) {
+            return 0;
+        }
+        LOGGER.debug("prune configuration generations " + generationsToDelete);
+
+        final ConfigurationGenerationCleaner cleaner = new ConfigurationGenerationCleaner(generationsToDelete);
+        jdbcTemplate.batchUpdate(ConfigurationGenerationCleaner.DELETE_HISTORY, cleaner);
+        jdbcTemplate.batchUpdate(ConfigurationGenerationCleaner.DELETE_GENERATION, cleaner);
+        jdbcTemplate.update(ConfigurationGenerationCleaner.DELETE_UNUSED_CONTENT);
+        return generationsToDelete.size();
+    }
+
+}
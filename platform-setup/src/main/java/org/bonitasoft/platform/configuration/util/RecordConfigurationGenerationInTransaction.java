@@ -0,0 +1,155 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.configuration.util;
+
+import static org.bonitasoft.platform.configuration.impl.ConfigurationFields.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.NullOutputStream;
+import org.bonitasoft.platform.configuration.impl.BonitaConfigurationRowMapper;
+import org.bonitasoft.platform.configuration.impl.ConfigurationContentPreparedStatementSetter;
+import org.bonitasoft.platform.configuration.impl.ConfigurationHistoryPreparedStatementSetter;
+import org.bonitasoft.platform.configuration.impl.FullBonitaConfigurationRowMapper;
+import org.bonitasoft.platform.configuration.model.BonitaConfiguration;
+import org.bonitasoft.platform.configuration.model.FullBonitaConfiguration;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+
+/**
+ * record the current content of configuration table as a new generation, and make it the active one.
+ * Only contents that are not already stored by a previous generation are inserted.
+ * <p/>
+ * Every configuration row is streamed and hashed, one row at a time, so that the generation describes the actual content of the table whoever wrote it.
+ * Only the rows whose hash is not stored yet are read again, by primary key, and their contents are inserted in batches of {@link #BATCH_SIZE}.
+ *
+ * @author Laurent Leseigneur
+ */
+public class RecordConfigurationGenerationInTransaction implements TransactionCallback<Long> {
+
+    public static final String SELECT_LAST_GENERATION = "SELECT MAX(generation) FROM configuration_generation";
+
+    public static final String SELECT_LAST_ACTIVATION = "SELECT MAX(activation) FROM configuration_generation";
+
+    public static final String SELECT_CONTENT_HASHES = "SELECT content_hash FROM configuration_content";
+
+    public static final String INSERT_GENERATION = "INSERT into configuration_generation(generation, created, activation) values (?,?,?)";
+
+    static final int BATCH_SIZE = 100;
+
+    private final static org.slf4j.Logger LOGGER = LoggerFactory.getLogger(RecordConfigurationGenerationInTransaction.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final String dbVendor;
+
+    /**
+     * @param streamingJdbcTemplate template reading configuration rows with a fetch size, so that contents are not all loaded at once
+     */
+    public RecordConfigurationGenerationInTransaction(JdbcTemplate jdbcTemplate, JdbcTemplate streamingJdbcTemplate, String dbVendor) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.streamingJdbcTemplate = streamingJdbcTemplate;
+        this.dbVendor = dbVendor;
+    }
+
+    @Override
+    public Long doInTransaction(TransactionStatus status) {
+        final long generation = nextValue(SELECT_LAST_GENERATION);
+        final List<FullBonitaConfiguration> bonitaConfigurations = new ArrayList<>();
+        final List<String> contentHashes = new ArrayList<>();
+        streamingJdbcTemplate.query(FullBonitaConfigurationRowMapper.SELECT_CONFIGURATION, new RowCallbackHandler() {
+
+            @Override
+            public void processRow(ResultSet rs) throws SQLException {
+                final String resourceName = rs.getString(RESOURCE_NAME);
+                bonitaConfigurations.add(new FullBonitaConfiguration(resourceName, null, rs.getString(CONTENT_TYPE), rs.getLong(TENANT_ID)));
+                try (InputStream content = rs.getBinaryStream(RESOURCE_CONTENT)) {
+                    contentHashes.add(hash(content));
+                } catch (IOException e) {
+                    throw new SQLException("Unable to hash content of " + resourceName, e);
+                }
+            }
+        });
+        final Set<String> storedHashes = new HashSet<>(jdbcTemplate.queryForList(SELECT_CONTENT_HASHES, String.class));
+
+        final Map<String, byte[]> newContents = new LinkedHashMap<>();
+        int insertedContents = 0;
+        for (int i = 0; i < bonitaConfigurations.size(); i++) {
+            final String contentHash = contentHashes.get(i);
+            if (storedHashes.add(contentHash)) {
+                newContents.put(contentHash, readContent(bonitaConfigurations.get(i)));
+                if (newContents.size() >= BATCH_SIZE) {
+                    insertedContents += insertContents(newContents);
+                }
+            }
+        }
+        insertedContents += insertContents(newContents);
+        LOGGER.debug("record configuration generation " + generation + " with " + bonitaConfigurations.size() + " files, " + insertedContents
+                + " new contents");
+
+        if (!bonitaConfigurations.isEmpty()) {
+            jdbcTemplate.batchUpdate(ConfigurationHistoryPreparedStatementSetter.INSERT_HISTORY,
+                    new ConfigurationHistoryPreparedStatementSetter(generation, bonitaConfigurations, contentHashes));
+        }
+        jdbcTemplate.update(INSERT_GENERATION, generation, System.currentTimeMillis(), nextValue(SELECT_LAST_ACTIVATION));
+        return generation;
+    }
+
+    private static String hash(InputStream content) throws IOException {
+        final MessageDigest messageDigest = ContentDigest.newMessageDigest();
+        if (content != null) {
+            IOUtils.copyLarge(new DigestInputStream(content, messageDigest), new NullOutputStream());
+        }
+        return ContentDigest.toHex(messageDigest.digest());
+    }
+
+    private int insertContents(Map<String, byte[]> newContents) {
+        final int inserted = newContents.size();
+        if (inserted > 0) {
+            jdbcTemplate.batchUpdate(ConfigurationContentPreparedStatementSetter.INSERT_CONTENT,
+                    new ConfigurationContentPreparedStatementSetter(newContents, dbVendor));
+            newContents.clear();
+        }
+        return inserted;
+    }
+
+    private byte[] readContent(FullBonitaConfiguration bonitaConfiguration) {
+        final List<BonitaConfiguration> rows = jdbcTemplate.query(BonitaConfigurationRowMapper.SELECT_CONFIGURATION, new Object[] {
+                bonitaConfiguration.getTenantId(), bonitaConfiguration.getConfigurationType(), bonitaConfiguration.getResourceName() },
+                new BonitaConfigurationRowMapper());
+        final byte[] content = rows.get(0).getResourceContent();
+        return content == null ? new byte[0] : content;
+    }
+
+    private long nextValue(String selectMaxValue) {
+        final Long maxValue = jdbcTemplate.queryForObject(selectMaxValue, Long.class);
+        return maxValue == null ? 1L : maxValue + 1;
+    }
+
+}
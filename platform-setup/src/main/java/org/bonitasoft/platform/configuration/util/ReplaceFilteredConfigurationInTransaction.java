@@ -0,0 +1,110 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.configuration.util;
+
+import static org.bonitasoft.platform.configuration.impl.ConfigurationFields.*;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.bonitasoft.platform.configuration.impl.BonitaAllConfigurationContentTypeCleaner;
+import org.bonitasoft.platform.configuration.impl.ConfigurationFilterPredicate;
+import org.bonitasoft.platform.configuration.impl.ConfigurationPropertyIndexer;
+import org.bonitasoft.platform.configuration.model.ConfigurationFilter;
+import org.bonitasoft.platform.configuration.model.FullBonitaConfiguration;
+import org.bonitasoft.platform.configuration.type.ConfigurationType;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+
+/**
+ * deletes the configuration rows matching a filter, then inserts the given files matching it. Other rows, and licenses, are left untouched.
+ * Candidate rows are selected by the database, which may compare resource names ignoring case, so each one is checked again with
+ * {@link ConfigurationFilter#matches(long, String, String)} before being deleted by primary key.
+ * Properties of deleted and inserted files are indexed again in the same transaction.
+ *
+ * @author Laurent Leseigneur
+ */
+public class ReplaceFilteredConfigurationInTransaction implements TransactionCallback<Integer> {
+
+    public static final String SELECT_CONFIGURATION_KEYS = "SELECT tenant_id, content_type, resource_name FROM configuration";
+
+    static final int BATCH_SIZE = 100;
+
+    private final static org.slf4j.Logger LOGGER = LoggerFactory.getLogger(ReplaceFilteredConfigurationInTransaction.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final String dbVendor;
+
+    private final ConfigurationFilter filter;
+
+    private final List<FullBonitaConfiguration> fullBonitaConfigurations;
+
+    public ReplaceFilteredConfigurationInTransaction(JdbcTemplate jdbcTemplate, String dbVendor, ConfigurationFilter filter,
+            List<FullBonitaConfiguration> fullBonitaConfigurations) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dbVendor = dbVendor;
+        this.filter = filter;
+        this.fullBonitaConfigurations = fullBonitaConfigurations;
+    }
+
+    /**
+     * @return number of files inserted
+     */
+    @Override
+    public Integer doInTransaction(TransactionStatus status) {
+        final ConfigurationFilterPredicate predicate = new ConfigurationFilterPredicate(filter);
+        final String whereClause = predicate.getWhereClause();
+        final List<Object> args = new ArrayList<>(Arrays.asList(predicate.getArguments()));
+        args.add(ConfigurationType.LICENSES.name());
+        final List<FullBonitaConfiguration> deletedConfigurations = new ArrayList<>();
+        jdbcTemplate.query(SELECT_CONFIGURATION_KEYS + (whereClause.isEmpty() ? " WHERE" : whereClause + " AND") + " content_type <> ?", args.toArray(),
+                new RowCallbackHandler() {
+
+                    @Override
+                    public void processRow(ResultSet rs) throws SQLException {
+                        final long tenantId = rs.getLong(TENANT_ID);
+                        final String configurationType = rs.getString(CONTENT_TYPE);
+                        final String resourceName = rs.getString(RESOURCE_NAME);
+                        if (filter.matches(tenantId, configurationType, resourceName)) {
+                            deletedConfigurations.add(new FullBonitaConfiguration(resourceName, null, configurationType, tenantId));
+                        }
+                    }
+                });
+        for (int from = 0; from < deletedConfigurations.size(); from += BATCH_SIZE) {
+            jdbcTemplate.batchUpdate(BonitaAllConfigurationContentTypeCleaner.DELETE_CONFIGURATION, new BonitaAllConfigurationContentTypeCleaner(
+                    deletedConfigurations.subList(from, Math.min(from + BATCH_SIZE, deletedConfigurations.size()))));
+        }
+        final List<FullBonitaConfiguration> matchingConfigurations = new ArrayList<>();
+        for (FullBonitaConfiguration fullBonitaConfiguration : fullBonitaConfigurations) {
+            if (filter.matches(fullBonitaConfiguration) && !ConfigurationType.LICENSES.name().equals(fullBonitaConfiguration.getConfigurationType())) {
+                matchingConfigurations.add(fullBonitaConfiguration);
+            }
+        }
+        if (!matchingConfigurations.isEmpty()) {
+            new InsertAllConfigurationInTransaction(jdbcTemplate, dbVendor, matchingConfigurations).doInTransaction(status);
+        }
+        final ConfigurationPropertyIndexer indexer = new ConfigurationPropertyIndexer(jdbcTemplate);
+        indexer.index(deletedConfigurations);
+        indexer.index(matchingConfigurations);
+        LOGGER.debug(deletedConfigurations.size() + " configurations deleted and " + matchingConfigurations.size() + " inserted for " + filter);
+        return matchingConfigurations.size();
+    }
+}
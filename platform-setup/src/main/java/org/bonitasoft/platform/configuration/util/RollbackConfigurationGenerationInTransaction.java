@@ -0,0 +1,57 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.configuration.util;
+
+import org.bonitasoft.platform.configuration.impl.BonitaConfigurationCleaner;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+
+/**
+ * make an existing generation the active one, and copy its files to configuration table.
+ * Files are copied by the database itself, contents are not sent back and forth.
+ *
+ * @author Laurent Leseigneur
+ */
+public class RollbackConfigurationGenerationInTransaction extends TransactionCallbackWithoutResult {
+
+    public static final String ACTIVATE_GENERATION = "UPDATE configuration_generation SET activation = ? WHERE generation = ?";
+
+    public static final String RESTORE_CONFIGURATION = "INSERT INTO configuration(tenant_id, content_type, resource_name, resource_content) "
+            + "SELECT h.tenant_id, h.content_type, h.resource_name, c.resource_content "
+            + "FROM configuration_history h INNER JOIN configuration_content c ON c.content_hash = h.content_hash WHERE h.generation = ?";
+
+    private final static org.slf4j.Logger LOGGER = LoggerFactory.getLogger(RollbackConfigurationGenerationInTransaction.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long generation;
+
+    public RollbackConfigurationGenerationInTransaction(JdbcTemplate jdbcTemplate, long generation) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.generation = generation;
+    }
+
+    @Override
+    protected void doInTransactionWithoutResult(TransactionStatus status) {
+        LOGGER.debug("rollback configuration to generation " + generation);
+        final Long lastActivation = jdbcTemplate.queryForObject(RecordConfigurationGenerationInTransaction.SELECT_LAST_ACTIVATION, Long.class);
+        jdbcTemplate.update(ACTIVATE_GENERATION, lastActivation + 1, generation);
+
+        jdbcTemplate.update(BonitaConfigurationCleaner.DELETE_ALL_CONFIGURATION);
+        final int restored = jdbcTemplate.update(RESTORE_CONFIGURATION, generation);
+        LOGGER.debug(restored + " configuration files restored from generation " + generation);
+    }
+
+}
@@ -0,0 +1,112 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.configuration.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.bonitasoft.platform.configuration.impl.ConfigurationContentUpdatePreparedStatementSetter;
+import org.bonitasoft.platform.configuration.impl.ConfigurationPropertyIndexer;
+import org.bonitasoft.platform.configuration.impl.FullBonitaConfigurationRowMapper;
+import org.bonitasoft.platform.configuration.impl.ParsedConfigurationServiceImpl;
+import org.bonitasoft.platform.configuration.impl.PropertiesFilePatcher;
+import org.bonitasoft.platform.configuration.model.FullBonitaConfiguration;
+import org.bonitasoft.platform.configuration.type.ConfigurationType;
+import org.bonitasoft.platform.exception.PlatformException;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+
+/**
+ * set a property in the .properties file of a chunk of tenants. Files of the whole chunk are read with a single query, and files where property
+ * already has the value are not written.
+ *
+ * @author Laurent Leseigneur
+ */
+public class SetPropertyInTransaction implements TransactionCallback<List<Long>> {
+
+    private final static org.slf4j.Logger LOGGER = LoggerFactory.getLogger(SetPropertyInTransaction.class);
+
+    static final String SELECT_TENANT_CONFIGURATIONS = "SELECT tenant_id, content_type, resource_name, resource_content FROM configuration "
+            + "WHERE content_type = ? AND resource_name = ? AND tenant_id IN (";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String dbVendor;
+    private final ConfigurationType type;
+    private final String resourceName;
+    private final String key;
+    private final String value;
+    private final List<Long> tenantIds;
+
+    public SetPropertyInTransaction(JdbcTemplate jdbcTemplate, String dbVendor, ConfigurationType type, String resourceName, String key, String value,
+            List<Long> tenantIds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dbVendor = dbVendor;
+        this.type = type;
+        this.resourceName = resourceName;
+        this.key = key;
+        this.value = value;
+        this.tenantIds = tenantIds;
+    }
+
+    /**
+     * @return ids of the tenants whose file changed
+     */
+    @Override
+    public List<Long> doInTransaction(TransactionStatus status) {
+        final PropertiesFilePatcher patcher = new PropertiesFilePatcher();
+        final List<FullBonitaConfiguration> patchedConfigurations = new ArrayList<>();
+        final List<Long> changedTenantIds = new ArrayList<>();
+        for (FullBonitaConfiguration configuration : readConfigurations()) {
+            if (isAlreadySet(configuration.getResourceContent())) {
+                continue;
+            }
+            patchedConfigurations.add(new FullBonitaConfiguration(resourceName,
+                    patcher.setProperty(configuration.getResourceContent(), key, value), type.name(), configuration.getTenantId()));
+            changedTenantIds.add(configuration.getTenantId());
+        }
+        if (!patchedConfigurations.isEmpty()) {
+            jdbcTemplate.batchUpdate(ConfigurationContentUpdatePreparedStatementSetter.UPDATE_CONFIGURATION_CONTENT,
+                    new ConfigurationContentUpdatePreparedStatementSetter(patchedConfigurations, dbVendor));
+            new ConfigurationPropertyIndexer(jdbcTemplate).index(patchedConfigurations);
+        }
+        LOGGER.debug("property " + key + " of " + resourceName + " changed for tenants " + changedTenantIds);
+        return changedTenantIds;
+    }
+
+    private List<FullBonitaConfiguration> readConfigurations() {
+        final StringBuilder sql = new StringBuilder(SELECT_TENANT_CONFIGURATIONS);
+        final List<Object> args = new ArrayList<>();
+        args.add(type.name());
+        args.add(resourceName);
+        for (int i = 0; i < tenantIds.size(); i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+            args.add(tenantIds.get(i));
+        }
+        sql.append(") ORDER BY tenant_id");
+        return jdbcTemplate.query(sql.toString(), args.toArray(), new FullBonitaConfigurationRowMapper());
+    }
+
+    private boolean isAlreadySet(byte[] content) {
+        try {
+            final Map<String, String> properties = ParsedConfigurationServiceImpl.parseProperties(content);
+            return value.equals(properties.get(key));
+        } catch (PlatformException e) {
+            // unparsable file gets patched anyway, the rest of it is kept as is
+            return false;
+        }
+    }
+}
@@ -13,12 +13,13 @@
  **/
 package org.bonitasoft.platform.configuration.util;
 
+import java.util.ArrayList;
 import java.util.List;
 
-import org.bonitasoft.platform.configuration.impl.BonitaConfigurationPreparedStatementCleaner;
-import org.bonitasoft.platform.configuration.impl.BonitaConfigurationPreparedStatementSetter;
+import org.bonitasoft.platform.configuration.dialect.ConfigurationDialects;
 import org.bonitasoft.platform.configuration.impl.ConfigurationServiceImpl;
 import org.bonitasoft.platform.configuration.model.BonitaConfiguration;
+import org.bonitasoft.platform.configuration.model.FullBonitaConfiguration;
 import org.bonitasoft.platform.configuration.type.ConfigurationType;
 import org.slf4j.LoggerFactory;
 import org.springframework.jdbc.core.JdbcTemplate;
@@ -50,16 +51,14 @@ public class StoreConfigurationInTransaction extends TransactionCallbackWithoutR
 
     @Override
     protected void doInTransactionWithoutResult(TransactionStatus status) {
-        LOGGER.debug(
-                "delete configurations for type:" + type.name() + " and tenant id:" + tenantId + " bonitaConfigurations:" + bonitaConfigurations.toString());
-
-        jdbcTemplate.batchUpdate(BonitaConfigurationPreparedStatementCleaner.DELETE_CONFIGURATION,
-                new BonitaConfigurationPreparedStatementCleaner(bonitaConfigurations, type, tenantId));
-
         LOGGER.debug(
                 "store configurations for type:" + type.name() + " and tenant id:" + tenantId + " bonitaConfigurations:" + bonitaConfigurations.toString());
-        jdbcTemplate.batchUpdate(BonitaConfigurationPreparedStatementSetter.INSERT_CONFIGURATION,
-                new BonitaConfigurationPreparedStatementSetter(bonitaConfigurations, dbVendor, type, tenantId));
+        final List<FullBonitaConfiguration> fullBonitaConfigurations = new ArrayList<>();
+        for (BonitaConfiguration bonitaConfiguration : bonitaConfigurations) {
+            fullBonitaConfigurations.add(new FullBonitaConfiguration(bonitaConfiguration.getResourceName(), bonitaConfiguration.getResourceContent(),
+                    type.name(), tenantId));
+        }
+        ConfigurationDialects.forVendor(dbVendor).upsertConfigurations(jdbcTemplate, fullBonitaConfigurations);
 
     }
 
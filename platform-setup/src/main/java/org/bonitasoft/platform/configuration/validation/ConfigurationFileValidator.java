@@ -0,0 +1,41 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.configuration.validation;
+
+/**
+ * checks that one kind of configuration file can be read by the engine.
+ * Implementations are called concurrently and must be stateless.
+ *
+ * @author Laurent Leseigneur
+ */
+public interface ConfigurationFileValidator {
+
+    /**
+     * @return name of the kind of file validated, part of the key of cached verdicts
+     */
+    String getKind();
+
+    /**
+     * @param resourceName name of the configuration file
+     * @return true if this validator checks this file
+     */
+    boolean accepts(String resourceName);
+
+    /**
+     * @param content content of the configuration file
+     * @throws InvalidConfigurationFileException if content can not be read, with the line of the error when known
+     */
+    void validate(byte[] content) throws InvalidConfigurationFileException;
+
+}
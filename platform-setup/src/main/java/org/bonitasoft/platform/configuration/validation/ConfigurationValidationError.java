@@ -0,0 +1,76 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.configuration.validation;
+
+/**
+ * an invalid configuration file, located as it is in the setup folder
+ *
+ * @author Laurent Leseigneur
+ */
+public class ConfigurationValidationError {
+
+    private final long tenantId;
+
+    private final String configurationType;
+
+    private final String resourceName;
+
+    private final int line;
+
+    private final String message;
+
+    public ConfigurationValidationError(long tenantId, String configurationType, String resourceName, int line, String message) {
+        this.tenantId = tenantId;
+        this.configurationType = configurationType;
+        this.resourceName = resourceName;
+        this.line = line;
+        this.message = message;
+    }
+
+    public long getTenantId() {
+        return tenantId;
+    }
+
+    public String getConfigurationType() {
+        return configurationType;
+    }
+
+    public String getResourceName() {
+        return resourceName;
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * @return path of the file relative to the configuration folder
+     */
+    public String getPath() {
+        final StringBuilder path = new StringBuilder();
+        if (tenantId > 0) {
+            path.append("tenants/").append(tenantId).append("/");
+        }
+        return path.append(configurationType.toLowerCase()).append("/").append(resourceName).toString();
+    }
+
+    @Override
+    public String toString() {
+        return getPath() + (line > InvalidConfigurationFileException.UNKNOWN_LINE ? ":" + line : "") + ": " + message;
+    }
+}
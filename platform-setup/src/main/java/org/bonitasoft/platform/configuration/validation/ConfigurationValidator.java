@@ -0,0 +1,218 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.configuration.validation;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.bonitasoft.platform.configuration.model.FullBonitaConfiguration;
+import org.bonitasoft.platform.configuration.util.ContentDigest;
+import org.bonitasoft.platform.exception.PlatformException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * validates configuration files before they are pushed, one file per task, on all available processors.
+ * Validation stops at the first invalid file found.
+ * <p/>
+ * Files found valid are remembered by kind and SHA-256 of their content, so that unchanged files are not validated again. These verdicts
+ * can be saved to a file, one "kind TAB hash" per line, to be reused by the next push.
+ *
+ * @author Laurent Leseigneur
+ */
+public class ConfigurationValidator {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(ConfigurationValidator.class);
+
+    private final List<ConfigurationFileValidator> validators;
+
+    private final int threads;
+
+    private final Set<String> validVerdicts = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    /**
+     * verdicts of the files of the last validation, the ones worth saving
+     */
+    private final Set<String> lastValidVerdicts = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    public ConfigurationValidator() {
+        this(Arrays.asList(new XmlConfigurationFileValidator(), new PropertiesConfigurationFileValidator(), new JsonConfigurationFileValidator(),
+                new GroovyConfigurationFileValidator()), Runtime.getRuntime().availableProcessors());
+    }
+
+    public ConfigurationValidator(List<ConfigurationFileValidator> validators, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be greater than 0, was " + threads);
+        }
+        this.validators = validators;
+        this.threads = threads;
+    }
+
+    /**
+     * @param fullBonitaConfigurations files to validate. Files no validator accepts are considered valid.
+     * @return the invalid files found, empty if all files are valid
+     * @throws PlatformException if validation is interrupted or a validator fails unexpectedly
+     */
+    public List<ConfigurationValidationError> validate(List<FullBonitaConfiguration> fullBonitaConfigurations) throws PlatformException {
+        lastValidVerdicts.clear();
+        final List<ValidationTask> tasks = new ArrayList<>();
+        for (FullBonitaConfiguration fullBonitaConfiguration : fullBonitaConfigurations) {
+            final ConfigurationFileValidator validator = getValidator(fullBonitaConfiguration.getResourceName());
+            if (validator == null) {
+                continue;
+            }
+            final String verdictKey = validator.getKind() + "\t" + ContentDigest.sha256(fullBonitaConfiguration.getResourceContent());
+            if (validVerdicts.contains(verdictKey)) {
+                lastValidVerdicts.add(verdictKey);
+            } else {
+                tasks.add(new ValidationTask(validator, fullBonitaConfiguration, verdictKey));
+            }
+        }
+        LOGGER.debug(String.format("%d configuration files to validate, %d already validated", tasks.size(), lastValidVerdicts.size()));
+        if (tasks.isEmpty()) {
+            return Collections.emptyList();
+        }
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, tasks.size()), new ValidationThreadFactory());
+        final CompletionService<ConfigurationValidationError> completionService = new ExecutorCompletionService<>(executor);
+        try {
+            for (ValidationTask task : tasks) {
+                completionService.submit(task);
+            }
+            final List<ConfigurationValidationError> errors = new ArrayList<>();
+            for (int i = 0; i < tasks.size() && errors.isEmpty(); i++) {
+                addIfInvalid(errors, completionService.take());
+            }
+            // report other files already found invalid, without waiting for running tasks:
+            Future<ConfigurationValidationError> done;
+            while ((done = completionService.poll()) != null) {
+                addIfInvalid(errors, done);
+            }
+            return errors;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PlatformException("Configuration validation interrupted", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void addIfInvalid(List<ConfigurationValidationError> errors, Future<ConfigurationValidationError> done) throws PlatformException,
+            InterruptedException {
+        try {
+            final ConfigurationValidationError error = done.get();
+            if (error != null) {
+                errors.add(error);
+            }
+        } catch (ExecutionException e) {
+            throw new PlatformException("Unable to validate configuration", e);
+        }
+    }
+
+    private ConfigurationFileValidator getValidator(String resourceName) {
+        for (ConfigurationFileValidator validator : validators) {
+            if (validator.accepts(resourceName)) {
+                return validator;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * load verdicts saved by {@link #saveVerdicts(Path)}. Does nothing if file does not exist.
+     */
+    public void loadVerdicts(Path verdictsFile) throws PlatformException {
+        if (!Files.isRegularFile(verdictsFile)) {
+            return;
+        }
+        try {
+            for (String line : Files.readAllLines(verdictsFile, StandardCharsets.UTF_8)) {
+                if (line.indexOf('\t') > 0) {
+                    validVerdicts.add(line);
+                }
+            }
+        } catch (IOException e) {
+            throw new PlatformException("Unable to read configuration validation cache " + verdictsFile, e);
+        }
+    }
+
+    /**
+     * save verdicts of the files found valid by the last validation
+     */
+    public void saveVerdicts(Path verdictsFile) throws PlatformException {
+        final List<String> lines = new ArrayList<>(lastValidVerdicts);
+        Collections.sort(lines);
+        try {
+            Files.write(verdictsFile, lines, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new PlatformException("Unable to write configuration validation cache " + verdictsFile, e);
+        }
+    }
+
+    private class ValidationTask implements Callable<ConfigurationValidationError> {
+
+        private final ConfigurationFileValidator validator;
+
+        private final FullBonitaConfiguration fullBonitaConfiguration;
+
+        private final String verdictKey;
+
+        ValidationTask(ConfigurationFileValidator validator, FullBonitaConfiguration fullBonitaConfiguration, String verdictKey) {
+            this.validator = validator;
+            this.fullBonitaConfiguration = fullBonitaConfiguration;
+            this.verdictKey = verdictKey;
+        }
+
+        @Override
+        public ConfigurationValidationError call() {
+            try {
+                validator.validate(fullBonitaConfiguration.getResourceContent());
+            } catch (InvalidConfigurationFileException e) {
+                return new ConfigurationValidationError(fullBonitaConfiguration.getTenantId(), fullBonitaConfiguration.getConfigurationType(),
+                        fullBonitaConfiguration.getResourceName(), e.getLine(), e.getMessage());
+            }
+            validVerdicts.add(verdictKey);
+            lastValidVerdicts.add(verdictKey);
+            return null;
+        }
+    }
+
+    private static class ValidationThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger threadNumber = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            final Thread thread = new Thread(runnable, "configuration-validation-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
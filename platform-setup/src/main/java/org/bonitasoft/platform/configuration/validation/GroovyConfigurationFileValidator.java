@@ -0,0 +1,110 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.configuration.validation;
+
+import java.lang.reflect.InvocationTargetException;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * checks that .groovy security scripts can be parsed, using the Groovy compiler up to the conversion phase: syntax is checked, classes are not
+ * resolved, as the classes used by the scripts are not available to the setup tool.
+ * <p/>
+ * The Groovy compiler is not shipped with the setup tool: it is used when found on the classpath, e.g. when a groovy-all jar is dropped in the lib
+ * folder. Otherwise, .groovy files are not validated.
+ *
+ * @author Laurent Leseigneur
+ */
+public class GroovyConfigurationFileValidator implements ConfigurationFileValidator {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(GroovyConfigurationFileValidator.class);
+
+    static final String COMPILATION_UNIT_CLASS = "org.codehaus.groovy.control.CompilationUnit";
+
+    /**
+     * value of org.codehaus.groovy.control.Phases.CONVERSION: source is parsed and converted to an AST, nothing is resolved
+     */
+    private static final int CONVERSION_PHASE = 3;
+
+    /**
+     * one error of a MultipleCompilationErrorsException message, e.g. "Script1.groovy: 3: unexpected token: } @ line 3, column 1."
+     */
+    private static final Pattern COMPILATION_ERROR = Pattern.compile("^\\S+: \\d+: (.*) @ line (\\d+), column \\d+\\.", Pattern.MULTILINE);
+
+    /**
+     * null when Groovy is not on the classpath
+     */
+    private final Class<?> compilationUnitClass;
+
+    public GroovyConfigurationFileValidator() {
+        this(GroovyConfigurationFileValidator.class.getClassLoader());
+    }
+
+    GroovyConfigurationFileValidator(ClassLoader classLoader) {
+        compilationUnitClass = loadCompilationUnitClass(classLoader);
+    }
+
+    private static Class<?> loadCompilationUnitClass(ClassLoader classLoader) {
+        try {
+            return Class.forName(COMPILATION_UNIT_CLASS, false, classLoader);
+        } catch (ClassNotFoundException | LinkageError e) {
+            LOGGER.debug("Groovy compiler not found on classpath, .groovy files will not be validated");
+            return null;
+        }
+    }
+
+    /**
+     * @return true if Groovy compiler is on the classpath, so that .groovy files are validated
+     */
+    public boolean isGroovyAvailable() {
+        return compilationUnitClass != null;
+    }
+
+    @Override
+    public String getKind() {
+        return "groovy";
+    }
+
+    @Override
+    public boolean accepts(String resourceName) {
+        return isGroovyAvailable() && resourceName.endsWith(".groovy");
+    }
+
+    @Override
+    public void validate(byte[] content) throws InvalidConfigurationFileException {
+        final String script = new String(content, StandardCharsets.UTF_8);
+        try {
+            final Object compilationUnit = compilationUnitClass.newInstance();
+            compilationUnitClass.getMethod("addSource", String.class, String.class).invoke(compilationUnit, "Script.groovy", script);
+            compilationUnitClass.getMethod("compile", int.class).invoke(compilationUnit, CONVERSION_PHASE);
+        } catch (InvocationTargetException e) {
+            throw toInvalidConfigurationFileException(e.getCause());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Unable to call Groovy compiler", e);
+        }
+    }
+
+    private InvalidConfigurationFileException toInvalidConfigurationFileException(Throwable compilationFailure) {
+        final String message = String.valueOf(compilationFailure.getMessage());
+        final Matcher matcher = COMPILATION_ERROR.matcher(message);
+        if (matcher.find()) {
+            return new InvalidConfigurationFileException(matcher.group(1), Integer.parseInt(matcher.group(2)));
+        }
+        return new InvalidConfigurationFileException(message, InvalidConfigurationFileException.UNKNOWN_LINE);
+    }
+}
@@ -0,0 +1,36 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.configuration.validation;
+
+/**
+ * @author Laurent Leseigneur
+ */
+public class InvalidConfigurationFileException extends Exception {
+
+    public static final int UNKNOWN_LINE = 0;
+
+    private final int line;
+
+    public InvalidConfigurationFileException(String message, int line) {
+        super(message);
+        this.line = line;
+    }
+
+    /**
+     * @return line number of the error, starting at 1, or {@link #UNKNOWN_LINE}
+     */
+    public int getLine() {
+        return line;
+    }
+}
@@ -0,0 +1,223 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.configuration.validation;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * checks that .json files, like autologin-v6.json, are valid JSON documents.
+ * No JSON library is shipped with the setup tool, so this is a syntax check only, nothing is built from the content.
+ *
+ * @author Laurent Leseigneur
+ */
+public class JsonConfigurationFileValidator implements ConfigurationFileValidator {
+
+    @Override
+    public String getKind() {
+        return "json";
+    }
+
+    @Override
+    public boolean accepts(String resourceName) {
+        return resourceName.endsWith(".json");
+    }
+
+    @Override
+    public void validate(byte[] content) throws InvalidConfigurationFileException {
+        new JsonSyntaxChecker(new String(content, StandardCharsets.UTF_8)).check();
+    }
+
+    private static class JsonSyntaxChecker {
+
+        private final String json;
+
+        private int position;
+
+        private int line = 1;
+
+        JsonSyntaxChecker(String json) {
+            this.json = json;
+        }
+
+        void check() throws InvalidConfigurationFileException {
+            // byte order mark
+            consume('\uFEFF');
+            skipWhitespaces();
+            value();
+            skipWhitespaces();
+            if (position < json.length()) {
+                throw error("unexpected content after JSON document");
+            }
+        }
+
+        private void value() throws InvalidConfigurationFileException {
+            if (position >= json.length()) {
+                throw error("unexpected end of document");
+            }
+            final char c = json.charAt(position);
+            switch (c) {
+                case '{':
+                    object();
+                    break;
+                case '[':
+                    array();
+                    break;
+                case '"':
+                    string();
+                    break;
+                case 't':
+                    literal("true");
+                    break;
+                case 'f':
+                    literal("false");
+                    break;
+                case 'n':
+                    literal("null");
+                    break;
+                default:
+                    if (c == '-' || (c >= '0' && c <= '9')) {
+                        number();
+                    } else {
+                        throw error("unexpected character '" + c + "'");
+                    }
+            }
+        }
+
+        private void object() throws InvalidConfigurationFileException {
+            position++;
+            skipWhitespaces();
+            if (consume('}')) {
+                return;
+            }
+            do {
+                skipWhitespaces();
+                if (position >= json.length() || json.charAt(position) != '"') {
+                    throw error("expected a field name");
+                }
+                string();
+                skipWhitespaces();
+                expect(':');
+                skipWhitespaces();
+                value();
+                skipWhitespaces();
+            } while (consume(','));
+            expect('}');
+        }
+
+        private void array() throws InvalidConfigurationFileException {
+            position++;
+            skipWhitespaces();
+            if (consume(']')) {
+                return;
+            }
+            do {
+                skipWhitespaces();
+                value();
+                skipWhitespaces();
+            } while (consume(','));
+            expect(']');
+        }
+
+        private void string() throws InvalidConfigurationFileException {
+            position++;
+            while (position < json.length()) {
+                final char c = json.charAt(position++);
+                if (c == '"') {
+                    return;
+                }
+                if (c == '\\') {
+                    if (position >= json.length()) {
+                        break;
+                    }
+                    final char escaped = json.charAt(position++);
+                    if (escaped == 'u') {
+                        for (int i = 0; i < 4; i++) {
+                            if (position >= json.length() || Character.digit(json.charAt(position++), 16) < 0) {
+                                throw error("malformed unicode escape");
+                            }
+                        }
+                    } else if ("\"\\/bfnrt".indexOf(escaped) < 0) {
+                        throw error("invalid escape '\\" + escaped + "'");
+                    }
+                } else if (c < ' ') {
+                    throw error("control character in string");
+                }
+            }
+            throw error("unterminated string");
+        }
+
+        private void number() throws InvalidConfigurationFileException {
+            consume('-');
+            if (!consume('0') && digits() == 0) {
+                throw error("malformed number");
+            }
+            if (consume('.') && digits() == 0) {
+                throw error("malformed number");
+            }
+            if (consume('e') || consume('E')) {
+                if (!consume('+')) {
+                    consume('-');
+                }
+                if (digits() == 0) {
+                    throw error("malformed number");
+                }
+            }
+        }
+
+        private int digits() {
+            final int start = position;
+            while (position < json.length() && json.charAt(position) >= '0' && json.charAt(position) <= '9') {
+                position++;
+            }
+            return position - start;
+        }
+
+        private void literal(String literal) throws InvalidConfigurationFileException {
+            if (!json.startsWith(literal, position)) {
+                throw error("unexpected token, expected " + literal);
+            }
+            position += literal.length();
+        }
+
+        private boolean consume(char c) {
+            if (position < json.length() && json.charAt(position) == c) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char c) throws InvalidConfigurationFileException {
+            if (!consume(c)) {
+                throw error("expected '" + c + "'");
+            }
+        }
+
+        private void skipWhitespaces() {
+            while (position < json.length()) {
+                final char c = json.charAt(position);
+                if (c == '\n') {
+                    line++;
+                } else if (c != ' ' && c != '\t' && c != '\r') {
+                    return;
+                }
+                position++;
+            }
+        }
+
+        private InvalidConfigurationFileException error(String message) {
+            return new InvalidConfigurationFileException(message, line);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.configuration.validation;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Properties;
+
+/**
+ * checks that .properties files can be loaded.
+ * The only content {@link Properties#load(java.io.InputStream)} rejects is a malformed unicode escape, located here by line.
+ *
+ * @author Laurent Leseigneur
+ */
+public class PropertiesConfigurationFileValidator implements ConfigurationFileValidator {
+
+    @Override
+    public String getKind() {
+        return "properties";
+    }
+
+    @Override
+    public boolean accepts(String resourceName) {
+        return resourceName.endsWith(".properties");
+    }
+
+    @Override
+    public void validate(byte[] content) throws InvalidConfigurationFileException {
+        checkUnicodeEscapes(content);
+        try {
+            new Properties().load(new ByteArrayInputStream(content));
+        } catch (IOException | IllegalArgumentException e) {
+            throw new InvalidConfigurationFileException(e.getMessage(), InvalidConfigurationFileException.UNKNOWN_LINE);
+        }
+    }
+
+    private void checkUnicodeEscapes(byte[] content) throws InvalidConfigurationFileException {
+        int line = 1;
+        for (int i = 0; i < content.length; i++) {
+            if (content[i] == '\n') {
+                line++;
+            } else if (content[i] == '\\' && i + 1 < content.length) {
+                i++;
+                if (content[i] == 'u' && !isHexDigits(content, i + 1, 4)) {
+                    throw new InvalidConfigurationFileException("Malformed \\uxxxx encoding", line);
+                }
+                if (content[i] == '\n') {
+                    line++;
+                }
+            }
+        }
+    }
+
+    private boolean isHexDigits(byte[] content, int from, int count) {
+        if (from + count > content.length) {
+            return false;
+        }
+        for (int i = from; i < from + count; i++) {
+            if (Character.digit(content[i], 16) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
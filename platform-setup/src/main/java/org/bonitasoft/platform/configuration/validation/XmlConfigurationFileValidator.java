@@ -0,0 +1,69 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.configuration.validation;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXNotRecognizedException;
+import org.xml.sax.SAXNotSupportedException;
+import org.xml.sax.SAXParseException;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * checks that .xml files are well-formed, without loading external DTDs
+ *
+ * @author Laurent Leseigneur
+ */
+public class XmlConfigurationFileValidator implements ConfigurationFileValidator {
+
+    private static final String LOAD_EXTERNAL_DTD = "http://apache.org/xml/features/nonvalidating/load-external-dtd";
+
+    private final SAXParserFactory saxParserFactory;
+
+    public XmlConfigurationFileValidator() {
+        saxParserFactory = SAXParserFactory.newInstance();
+        saxParserFactory.setNamespaceAware(true);
+        try {
+            saxParserFactory.setFeature(LOAD_EXTERNAL_DTD, false);
+        } catch (ParserConfigurationException | SAXNotRecognizedException | SAXNotSupportedException ignored) {
+            // parser does not load external DTDs when not validating
+        }
+    }
+
+    @Override
+    public String getKind() {
+        return "xml";
+    }
+
+    @Override
+    public boolean accepts(String resourceName) {
+        return resourceName.endsWith(".xml");
+    }
+
+    @Override
+    public void validate(byte[] content) throws InvalidConfigurationFileException {
+        try {
+            saxParserFactory.newSAXParser().parse(new ByteArrayInputStream(content), new DefaultHandler());
+        } catch (SAXParseException e) {
+            throw new InvalidConfigurationFileException(e.getMessage(), Math.max(e.getLineNumber(), InvalidConfigurationFileException.UNKNOWN_LINE));
+        } catch (ParserConfigurationException | SAXException | IOException e) {
+            throw new InvalidConfigurationFileException(e.getMessage(), InvalidConfigurationFileException.UNKNOWN_LINE);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.setup;
+
+import static java.util.Arrays.asList;
+
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.bonitasoft.platform.exception.PlatformException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * moves rows of the archive tables older than a cutoff date out of the database, into gzipped CSV files.
+ * <p/>
+ * Each table is read per tenant by ranges of at most chunkSize ids, following the (tenantid, id) primary key. Rows of a range archived before
+ * the cutoff are appended to one file per tenant, table and day of archiveDate (UTC): <code>tenant-&lt;id&gt;/&lt;table&gt;/&lt;yyyy-MM-dd&gt;.csv.gz</code>.
+ * Once the file is synced to disk, the same rows are deleted in their own transaction. Each append is a complete gzip member, so files stay
+ * readable by gunzip or zcat even after a crash, and a run stopped between writing and deleting a range writes those rows again when restarted.
+ *
+ * @author Laurent Leseigneur
+ */
+public class ArchiveOffloader {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(ArchiveOffloader.class);
+
+    public static final List<String> ARCHIVE_TABLES = asList("arch_process_instance", "arch_flownode_instance", "arch_data_instance",
+            "arch_connector_instance", "arch_document_mapping", "arch_contract_data");
+
+    /**
+     * read from the tenant table: a DISTINCT on archive tables would scan them whole
+     */
+    static final String SELECT_TENANT_IDS = "SELECT id FROM tenant ORDER BY id";
+
+    private static final String ARCHIVE_DATE_COLUMN = "archivedate";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Path outputFolder;
+
+    private final int chunkSize;
+
+    private final SimpleDateFormat dayFormat;
+
+    public ArchiveOffloader(DataSource dataSource, Path outputFolder, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunk size must be greater than 0, was " + chunkSize);
+        }
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        this.outputFolder = outputFolder;
+        this.chunkSize = chunkSize;
+        this.dayFormat = DailyCsvChunk.newDayFormat();
+    }
+
+    /**
+     * @param cutoffDate rows having an archiveDate strictly lower than this timestamp (in milliseconds) are offloaded
+     * @return number of rows written to files and deleted, for all tables and tenants
+     */
+    public long offload(long cutoffDate) throws PlatformException {
+        final long start = System.currentTimeMillis();
+        long offloadedRows = 0;
+        final List<Long> tenantIds = jdbcTemplate.queryForList(SELECT_TENANT_IDS, Long.class);
+        for (String table : ARCHIVE_TABLES) {
+            for (Long tenantId : tenantIds) {
+                offloadedRows += offload(table, tenantId, cutoffDate);
+            }
+        }
+        LOGGER.info(String.format("%d archived rows older than %s offloaded to %s, %d rows/s", offloadedRows, formatDay(cutoffDate), outputFolder,
+                rowsPerSecond(offloadedRows, start)));
+        return offloadedRows;
+    }
+
+    private long offload(String table, long tenantId, long cutoffDate) throws PlatformException {
+        final long start = System.currentTimeMillis();
+        long offloadedRows = 0;
+        int chunks = 0;
+        Long lowerId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM " + table + " WHERE tenantid = ?", Long.class, tenantId);
+        while (lowerId != null) {
+            final long upperId = lowerId + chunkSize;
+            final DailyCsvChunk chunk = readChunk(table, tenantId, lowerId, upperId, cutoffDate);
+            if (chunk.getRows() > 0) {
+                chunk.writeTo(outputFolder.resolve("tenant-" + tenantId).resolve(table));
+                final int deletedRows = deleteInTransaction("DELETE FROM " + table + " WHERE tenantid = ? AND id >= ? AND id < ? AND archiveDate < ?",
+                        tenantId, lowerId, upperId, cutoffDate);
+                if (deletedRows != chunk.getRows()) {
+                    LOGGER.warn(String.format("tenant %d: %d rows of %s written for ids [%d, %d[ but %d deleted", tenantId, chunk.getRows(), table, lowerId,
+                            upperId, deletedRows));
+                }
+                offloadedRows += deletedRows;
+                chunks++;
+                LOGGER.debug(String.format("tenant %d: %d rows offloaded from %s, up to id %d", tenantId, offloadedRows, table, upperId - 1));
+            }
+            lowerId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM " + table + " WHERE tenantid = ? AND id >= ?", Long.class, tenantId, upperId);
+        }
+        if (offloadedRows > 0) {
+            LOGGER.info(String.format("tenant %d: %d rows offloaded from %s in %d chunks, %d rows/s", tenantId, offloadedRows, table, chunks,
+                    rowsPerSecond(offloadedRows, start)));
+        }
+        return offloadedRows;
+    }
+
+    private DailyCsvChunk readChunk(String table, long tenantId, long lowerId, long upperId, long cutoffDate) {
+        final DailyCsvChunk chunk = new DailyCsvChunk(ARCHIVE_DATE_COLUMN, dayFormat);
+        jdbcTemplate.query("SELECT * FROM " + table + " WHERE tenantid = ? AND id >= ? AND id < ? AND archiveDate < ? ORDER BY id", chunk, tenantId,
+                lowerId, upperId, cutoffDate);
+        return chunk;
+    }
+
+    private int deleteInTransaction(final String sql, final Object... args) {
+        return transactionTemplate.execute(new TransactionCallback<Integer>() {
+
+            @Override
+            public Integer doInTransaction(TransactionStatus status) {
+                return jdbcTemplate.update(sql, args);
+            }
+        });
+    }
+
+    private String formatDay(long timestamp) {
+        return dayFormat.format(new Date(timestamp));
+    }
+
+    private static long rowsPerSecond(long rows, long since) {
+        return rows * 1000 / Math.max(1, System.currentTimeMillis() - since);
+    }
+}
@@ -0,0 +1,165 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.setup;
+
+import java.io.BufferedReader;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.IOUtils;
+import org.bonitasoft.platform.configuration.model.FullBonitaConfiguration;
+import org.bonitasoft.platform.configuration.type.ConfigurationType;
+import org.bonitasoft.platform.configuration.util.ContentDigest;
+import org.bonitasoft.platform.exception.PlatformException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads the indexes of configuration resources generated at build time in platform-resources, and loads exactly the indexed resources from classpath.
+ * <p/>
+ * Each index line is: CONFIGURATION_TYPE, resource name, size in bytes and SHA-256 of the content, separated by tabs.
+ * Lines starting with # are comments.
+ * <p/>
+ * All indexes found in classpath under the same name are merged: each resource is read from the classpath entry (folder or jar) holding its index, and when
+ * several indexes declare the same resource, the first one in classpath order wins.
+ *
+ * @author Laurent Leseigneur
+ */
+public class ConfigurationResourceIndex {
+
+    public static final String DEFAULT_INDEX = "/META-INF/bonita-configuration.index";
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(ConfigurationResourceIndex.class);
+
+    private static final int NON_TENANT_RESOURCE = 0;
+
+    private final String resourceRoot;
+
+    private final String indexResource;
+
+    private final ClassLoader classLoader;
+
+    public ConfigurationResourceIndex() {
+        this("", DEFAULT_INDEX);
+    }
+
+    /**
+     * @param resourceRoot classpath folder containing configuration type folders, empty string for classpath root
+     * @param indexResource classpath location of the index
+     */
+    public ConfigurationResourceIndex(String resourceRoot, String indexResource) {
+        this(resourceRoot, indexResource, ConfigurationResourceIndex.class.getClassLoader());
+    }
+
+    ConfigurationResourceIndex(String resourceRoot, String indexResource, ClassLoader classLoader) {
+        this.resourceRoot = resourceRoot;
+        this.indexResource = indexResource;
+        this.classLoader = classLoader;
+    }
+
+    /**
+     * @return true if at least one index is available in classpath
+     */
+    public boolean exists() {
+        return classLoader.getResource(toClassLoaderName(indexResource)) != null;
+    }
+
+    /**
+     * load all resources declared by the indexes found in classpath.
+     *
+     * @return configuration files with tenant id 0
+     * @throws PlatformException if no index is found, if an index is malformed or if a resource is missing or does not match its size or hash
+     */
+    public List<FullBonitaConfiguration> load() throws PlatformException {
+        final String indexName = toClassLoaderName(indexResource);
+        final Map<String, FullBonitaConfiguration> configurations = new LinkedHashMap<>();
+        int indexCount = 0;
+        try {
+            final Enumeration<URL> indexes = classLoader.getResources(indexName);
+            while (indexes.hasMoreElements()) {
+                final URL indexUrl = indexes.nextElement();
+                final String indexLocation = indexUrl.toExternalForm();
+                loadIndex(indexUrl, indexLocation.substring(0, indexLocation.length() - indexName.length()), configurations);
+                indexCount++;
+            }
+        } catch (IOException e) {
+            throw new PlatformException(e);
+        }
+        if (indexCount == 0) {
+            throw new PlatformException("Configuration index not found in classpath: " + indexResource);
+        }
+        LOGGER.debug("Loaded " + configurations.size() + " configuration files from " + indexCount + " index(es) " + indexResource);
+        return new ArrayList<>(configurations.values());
+    }
+
+    private void loadIndex(URL indexUrl, String classpathEntry, Map<String, FullBonitaConfiguration> configurations) throws PlatformException, IOException {
+        try (InputStream indexStream = indexUrl.openStream()) {
+            final BufferedReader reader = new BufferedReader(new InputStreamReader(indexStream, StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                loadResource(line, classpathEntry, configurations);
+            }
+        }
+    }
+
+    private void loadResource(String line, String classpathEntry, Map<String, FullBonitaConfiguration> configurations) throws PlatformException,
+            IOException {
+        final String[] columns = line.split("\t");
+        if (columns.length != 4) {
+            throw new PlatformException("Malformed line in configuration index " + indexResource + ": " + line);
+        }
+        final ConfigurationType type;
+        final long size;
+        try {
+            type = ConfigurationType.valueOf(columns[0]);
+            size = Long.parseLong(columns[2]);
+        } catch (IllegalArgumentException e) {
+            throw new PlatformException("Malformed line in configuration index " + indexResource + ": " + line, e);
+        }
+        final String resourceName = columns[1];
+        final String resourcePath = resourceRoot + "/" + type.name().toLowerCase() + "/" + resourceName;
+        if (configurations.containsKey(resourcePath)) {
+            LOGGER.warn("Resource " + resourcePath + " declared in configuration index of " + classpathEntry + " is ignored: already declared by another index");
+            return;
+        }
+        final byte[] content;
+        try (InputStream resourceAsStream = new URL(classpathEntry + toClassLoaderName(resourcePath)).openStream()) {
+            content = IOUtils.toByteArray(resourceAsStream);
+        } catch (FileNotFoundException e) {
+            throw new PlatformException("Resource " + resourcePath + " declared in configuration index is not found in classpath", e);
+        }
+        if (content.length != size || !ContentDigest.sha256(content).equals(columns[3])) {
+            throw new PlatformException("Resource " + resourcePath + " does not match size or hash declared in configuration index");
+        }
+        LOGGER.debug("Using configuration from classpath " + resourcePath);
+        configurations.put(resourcePath, new FullBonitaConfiguration(resourceName, content, type.name(), (long) NON_TENANT_RESOURCE));
+    }
+
+    private static String toClassLoaderName(String resource) {
+        return resource.startsWith("/") ? resource.substring(1) : resource;
+    }
+
+}
@@ -0,0 +1,327 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.setup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import org.bonitasoft.platform.configuration.ConfigurationService;
+import org.bonitasoft.platform.configuration.impl.ConfigurationArchiveLayout;
+import org.bonitasoft.platform.configuration.model.FullBonitaConfiguration;
+import org.bonitasoft.platform.configuration.util.ContentDigest;
+import org.bonitasoft.platform.exception.PlatformException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * serves configuration files over HTTP from memory, so that nodes do not have to query the configuration table themselves.
+ * <p/>
+ * Files are served under {@value #CONTEXT_PATH}, using the same layout as configuration archives, e.g.
+ * /configuration/platform_engine/bonita-platform-custom.xml or /configuration/tenants/1/tenant_engine/bonita-tenant-custom.xml.
+ * {@value #CONTEXT_PATH}SHA256SUMS lists all served files with their hash, so that a client can detect any change with a single request.
+ * <p/>
+ * Each response carries an ETag built from the file SHA-256: a request with a matching If-None-Match header gets an empty 304 response.
+ * Content is sent gzipped to clients accepting it, with its own ETag. Whole configuration is read again from database at a fixed interval, only
+ * when configuration version changed. License files are never served.
+ * <p/>
+ * When a token is given, every request must carry it in a {@value #TOKEN_HEADER} header. Without token, server only listens on a loopback
+ * address.
+ *
+ * @author Laurent Leseigneur
+ */
+public class ConfigurationServer {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(ConfigurationServer.class);
+
+    public static final String CONTEXT_PATH = "/configuration/";
+
+    public static final String TOKEN_HEADER = "X-Bonita-Configuration-Token";
+
+    static final String GZIP_ETAG_SUFFIX = "-gzip";
+
+    private static final int HANDLER_THREADS = 4;
+
+    private final ConfigurationService configurationService;
+
+    private final InetSocketAddress address;
+
+    private final long refreshIntervalSeconds;
+
+    /**
+     * null when requests are not authenticated
+     */
+    private final byte[] token;
+
+    private final ConfigurationArchiveLayout layout = new ConfigurationArchiveLayout();
+
+    private volatile Map<String, ServedResource> servedResources = Collections.emptyMap();
+
+    /**
+     * configuration version of served resources, null before first load. Only written by refresh, which is never run concurrently
+     */
+    private Long servedConfigurationVersion;
+
+    private HttpServer httpServer;
+
+    private ExecutorService handlerExecutor;
+
+    private ScheduledExecutorService refreshExecutor;
+
+    /**
+     * @param token value clients must send in {@value #TOKEN_HEADER} header, or null to accept any local client
+     */
+    public ConfigurationServer(ConfigurationService configurationService, InetSocketAddress address, long refreshIntervalSeconds, String token) {
+        this.configurationService = configurationService;
+        this.address = address;
+        this.refreshIntervalSeconds = refreshIntervalSeconds;
+        this.token = token == null || token.isEmpty() ? null : token.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * load configuration, then start listening and refreshing configuration in background
+     */
+    public synchronized void start() throws PlatformException {
+        if (token == null && (address.getAddress() == null || !address.getAddress().isLoopbackAddress())) {
+            throw new PlatformException("Refusing to serve configuration on non-loopback address " + address + " without a token");
+        }
+        refresh();
+        try {
+            httpServer = HttpServer.create(address, 0);
+        } catch (IOException e) {
+            throw new PlatformException("Unable to listen on " + address, e);
+        }
+        handlerExecutor = Executors.newFixedThreadPool(HANDLER_THREADS, new DaemonThreadFactory("configuration-server-"));
+        httpServer.setExecutor(handlerExecutor);
+        httpServer.createContext(CONTEXT_PATH, new ConfigurationHandler());
+        httpServer.start();
+        refreshExecutor = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("configuration-server-refresh-"));
+        refreshExecutor.scheduleWithFixedDelay(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    refresh();
+                } catch (RuntimeException e) {
+                    LOGGER.warn("Unable to refresh served configuration, keeping previous one: " + e.getMessage());
+                }
+            }
+        }, refreshIntervalSeconds, refreshIntervalSeconds, TimeUnit.SECONDS);
+        LOGGER.info("Serving configuration on http://" + address.getHostString() + ":" + getPort() + CONTEXT_PATH + " with " + (servedResources.size() - 1)
+                + " files, refreshed every " + refreshIntervalSeconds + " seconds");
+    }
+
+    public synchronized void stop() {
+        if (httpServer != null) {
+            refreshExecutor.shutdownNow();
+            httpServer.stop(0);
+            handlerExecutor.shutdownNow();
+            httpServer = null;
+        }
+    }
+
+    /**
+     * @return the port actually listened to, useful when started on port 0
+     */
+    public int getPort() {
+        return httpServer.getAddress().getPort();
+    }
+
+    /**
+     * read whole configuration again, unless configuration version did not change since last read. Files whose content did not change are kept as
+     * is, so they are not compressed again.
+     */
+    synchronized void refresh() {
+        final long configurationVersion = configurationService.getConfigurationVersion();
+        if (servedConfigurationVersion != null && servedConfigurationVersion == configurationVersion) {
+            return;
+        }
+        final List<FullBonitaConfiguration> configurations = configurationService.getAllConfiguration();
+        final Map<String, ServedResource> previousResources = servedResources;
+        final Map<String, ServedResource> resources = new HashMap<>();
+        final Map<String, String> manifest = new TreeMap<>();
+        for (FullBonitaConfiguration configuration : configurations) {
+            if (configuration.isLicenseFile()) {
+                continue;
+            }
+            final String entryName = layout.toEntryName(configuration.getConfigurationType(), configuration.getTenantId(), configuration.getResourceName());
+            final String contentHash = ContentDigest.sha256(configuration.getResourceContent());
+            final ServedResource previous = previousResources.get(entryName);
+            resources.put(entryName, previous != null && previous.contentHash.equals(contentHash) ? previous
+                    : new ServedResource(contentHash, configuration.getResourceContent()));
+            manifest.put(entryName, contentHash);
+        }
+        final StringBuilder manifestContent = new StringBuilder();
+        for (Map.Entry<String, String> entry : manifest.entrySet()) {
+            manifestContent.append(entry.getValue()).append("  ").append(entry.getKey()).append('\n');
+        }
+        final byte[] manifestBytes = manifestContent.toString().getBytes(StandardCharsets.UTF_8);
+        resources.put(ConfigurationArchiveLayout.MANIFEST_ENTRY, new ServedResource(ContentDigest.sha256(manifestBytes), manifestBytes));
+        servedResources = resources;
+        servedConfigurationVersion = configurationVersion;
+        LOGGER.debug(manifest.size() + " configuration files loaded");
+    }
+
+    private class ConfigurationHandler implements HttpHandler {
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            try {
+                final String method = exchange.getRequestMethod();
+                if (!"GET".equals(method) && !"HEAD".equals(method)) {
+                    exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+                    exchange.sendResponseHeaders(405, -1);
+                    return;
+                }
+                if (token != null && !hasToken(exchange.getRequestHeaders().getFirst(TOKEN_HEADER))) {
+                    exchange.sendResponseHeaders(403, -1);
+                    return;
+                }
+                final String entryName = exchange.getRequestURI().getPath().substring(CONTEXT_PATH.length());
+                final ServedResource resource = servedResources.get(entryName);
+                if (resource == null) {
+                    exchange.sendResponseHeaders(404, -1);
+                    return;
+                }
+                final boolean gzipped = resource.gzippedContent != null && acceptsGzip(exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+                final String etag = gzipped ? resource.gzippedEtag : resource.etag;
+                exchange.getResponseHeaders().set("ETag", etag);
+                exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+                exchange.getResponseHeaders().set("Vary", "Accept-Encoding");
+                if (matches(exchange.getRequestHeaders().getFirst("If-None-Match"), etag)) {
+                    exchange.sendResponseHeaders(304, -1);
+                    return;
+                }
+                exchange.getResponseHeaders().set("Content-Type", "application/octet-stream");
+                byte[] body = resource.content;
+                if (gzipped) {
+                    exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+                    body = resource.gzippedContent;
+                }
+                if ("HEAD".equals(method)) {
+                    exchange.getResponseHeaders().set("Content-Length", String.valueOf(body.length));
+                    exchange.sendResponseHeaders(200, -1);
+                    return;
+                }
+                exchange.sendResponseHeaders(200, body.length == 0 ? -1 : body.length);
+                try (OutputStream responseBody = exchange.getResponseBody()) {
+                    responseBody.write(body);
+                }
+            } finally {
+                exchange.close();
+            }
+        }
+
+        private boolean hasToken(String requestToken) {
+            return requestToken != null && MessageDigest.isEqual(token, requestToken.getBytes(StandardCharsets.UTF_8));
+        }
+
+        private boolean matches(String ifNoneMatch, String etag) {
+            if (ifNoneMatch == null) {
+                return false;
+            }
+            for (String candidate : ifNoneMatch.split(",")) {
+                final String trimmed = candidate.trim();
+                if (trimmed.equals("*") || trimmed.equals(etag) || trimmed.equals("W/" + etag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean acceptsGzip(String acceptEncoding) {
+            if (acceptEncoding == null) {
+                return false;
+            }
+            for (String encoding : acceptEncoding.split(",")) {
+                final String[] parts = encoding.trim().split(";");
+                if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                    return parts.length == 1 || !parts[1].trim().replace(" ", "").matches("q=0(\\.0*)?");
+                }
+            }
+            return false;
+        }
+    }
+
+    private static class ServedResource {
+
+        private final String contentHash;
+
+        private final String etag;
+
+        private final String gzippedEtag;
+
+        private final byte[] content;
+
+        /**
+         * null when compression does not make content smaller
+         */
+        private final byte[] gzippedContent;
+
+        ServedResource(String contentHash, byte[] content) {
+            this.contentHash = contentHash;
+            this.etag = "\"" + contentHash + "\"";
+            this.gzippedEtag = "\"" + contentHash + GZIP_ETAG_SUFFIX + "\"";
+            this.content = content;
+            final byte[] gzipped = gzip(content);
+            this.gzippedContent = gzipped.length < content.length ? gzipped : null;
+        }
+
+        private static byte[] gzip(byte[] content) {
+            final ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+            try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(gzipped)) {
+                gzipOutputStream.write(content);
+            } catch (IOException e) {
+                throw new IllegalStateException("Unable to compress in memory", e);
+            }
+            return gzipped.toByteArray();
+        }
+    }
+
+    private static class DaemonThreadFactory implements ThreadFactory {
+
+        private final String prefix;
+
+        private int threadNumber;
+
+        DaemonThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public synchronized Thread newThread(Runnable runnable) {
+            final Thread thread = new Thread(runnable, prefix + (++threadNumber));
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.setup;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.TreeMap;
+import java.util.zip.GZIPOutputStream;
+
+import org.bonitasoft.platform.configuration.util.ContentDigest;
+import org.bonitasoft.platform.exception.PlatformException;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+/**
+ * rows of a table read as CSV lines, grouped by the day (UTC) of a timestamp column, and appended to one gzipped file per day:
+ * <code>&lt;folder&gt;/&lt;yyyy-MM-dd&gt;.csv.gz</code>.
+ * <p/>
+ * Each append is a complete gzip member, synced to disk before {@link #writeTo(Path)} returns, so that callers can delete the rows right after.
+ *
+ * @author Laurent Leseigneur
+ */
+class DailyCsvChunk implements RowCallbackHandler {
+
+    private static final String FILE_EXTENSION = ".csv.gz";
+
+    private final String dayColumn;
+
+    private final SimpleDateFormat dayFormat;
+
+    private String header;
+
+    private int columnCount;
+
+    private int dayColumnIndex;
+
+    private int rows;
+
+    private final Map<String, List<String>> linesPerDay = new TreeMap<>();
+
+    /**
+     * @param dayColumn name of the column holding the timestamp, in milliseconds, rows are grouped by
+     * @param dayFormat formatter of the day, as returned by {@link #newDayFormat()}
+     */
+    DailyCsvChunk(String dayColumn, SimpleDateFormat dayFormat) {
+        this.dayColumn = dayColumn.toLowerCase();
+        this.dayFormat = dayFormat;
+    }
+
+    @Override
+    public void processRow(ResultSet rs) throws SQLException {
+        if (header == null) {
+            readHeader(rs.getMetaData());
+        }
+        final StringBuilder line = new StringBuilder();
+        for (int column = 1; column <= columnCount; column++) {
+            if (column > 1) {
+                line.append(',');
+            }
+            line.append(toCsvField(rs.getObject(column)));
+        }
+        line.append('\n');
+        final String day = dayFormat.format(new Date(rs.getLong(dayColumnIndex)));
+        List<String> lines = linesPerDay.get(day);
+        if (lines == null) {
+            lines = new ArrayList<>();
+            linesPerDay.put(day, lines);
+        }
+        lines.add(line.toString());
+        rows++;
+    }
+
+    private void readHeader(ResultSetMetaData metaData) throws SQLException {
+        columnCount = metaData.getColumnCount();
+        final StringBuilder names = new StringBuilder();
+        for (int column = 1; column <= columnCount; column++) {
+            final String name = metaData.getColumnLabel(column).toLowerCase();
+            if (dayColumn.equals(name)) {
+                dayColumnIndex = column;
+            }
+            names.append(column > 1 ? "," : "").append(name);
+        }
+        if (dayColumnIndex == 0) {
+            throw new SQLException("Column " + dayColumn + " is missing from " + names);
+        }
+        header = names.append('\n').toString();
+    }
+
+    int getRows() {
+        return rows;
+    }
+
+    /**
+     * append the rows read to the files of folder, writing the column names first in new files
+     */
+    void writeTo(Path folder) throws PlatformException {
+        for (Map.Entry<String, List<String>> day : linesPerDay.entrySet()) {
+            final Path file = folder.resolve(day.getKey() + FILE_EXTENSION);
+            try {
+                Files.createDirectories(folder);
+                final boolean newFile = !Files.exists(file) || Files.size(file) == 0;
+                try (FileOutputStream fileOutputStream = new FileOutputStream(file.toFile(), true)) {
+                    final GZIPOutputStream gzipOutputStream = new GZIPOutputStream(fileOutputStream);
+                    final Writer writer = new OutputStreamWriter(gzipOutputStream, StandardCharsets.UTF_8);
+                    if (newFile) {
+                        writer.write(header);
+                    }
+                    for (String line : day.getValue()) {
+                        writer.write(line);
+                    }
+                    writer.flush();
+                    gzipOutputStream.finish();
+                    // rows are deleted right after, they must be on disk first:
+                    fileOutputStream.getFD().sync();
+                }
+            } catch (IOException e) {
+                throw new PlatformException("Unable to write rows to " + file, e);
+            }
+        }
+    }
+
+    static SimpleDateFormat newDayFormat() {
+        final SimpleDateFormat dayFormat = new SimpleDateFormat("yyyy-MM-dd");
+        dayFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+        return dayFormat;
+    }
+
+    /**
+     * @return the value as a RFC 4180 field: null is an empty field, an empty string is "", binary content is written in hexadecimal
+     */
+    static String toCsvField(Object value) throws SQLException {
+        if (value == null) {
+            return "";
+        }
+        final String text;
+        if (value instanceof byte[]) {
+            return ContentDigest.toHex((byte[]) value);
+        } else if (value instanceof Blob) {
+            final Blob blob = (Blob) value;
+            return ContentDigest.toHex(blob.getBytes(1, (int) blob.length()));
+        } else if (value instanceof Clob) {
+            final Clob clob = (Clob) value;
+            text = clob.getSubString(1, (int) clob.length());
+        } else {
+            text = value.toString();
+        }
+        if (text.isEmpty() || text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+            return '"' + text.replace("\"", "\"\"") + '"';
+        }
+        return text;
+    }
+}
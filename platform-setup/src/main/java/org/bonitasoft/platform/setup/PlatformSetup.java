@@ -15,14 +15,20 @@ package org.bonitasoft.platform.setup;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.SQLException;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import javax.naming.NamingException;
 import javax.sql.DataSource;
@@ -33,8 +39,19 @@ import org.apache.commons.io.filefilter.RegexFileFilter;
 import org.bonitasoft.platform.configuration.ConfigurationService;
 import org.bonitasoft.platform.configuration.impl.ConfigurationServiceImpl;
 import org.bonitasoft.platform.configuration.model.BonitaConfiguration;
+import org.bonitasoft.platform.configuration.model.ConfigurationFilter;
+import org.bonitasoft.platform.configuration.model.ConfigurationGeneration;
+import org.bonitasoft.platform.configuration.model.FullBonitaConfiguration;
+import org.bonitasoft.platform.configuration.model.TemplatePropagation;
 import org.bonitasoft.platform.configuration.type.ConfigurationType;
+import org.bonitasoft.platform.configuration.util.AllConfigurationResourceVisitor;
+import org.bonitasoft.platform.configuration.util.ConfigurationResourceVisitor;
+import org.bonitasoft.platform.configuration.validation.ConfigurationValidationError;
+import org.bonitasoft.platform.configuration.validation.ConfigurationValidator;
 import org.bonitasoft.platform.exception.PlatformException;
+import org.bonitasoft.platform.setup.generator.GenerationPlan;
+import org.bonitasoft.platform.setup.schema.SchemaDifference;
+import org.bonitasoft.platform.setup.stats.StatisticsReport;
 import org.bonitasoft.platform.version.VersionService;
 import org.bonitasoft.platform.version.impl.VersionServiceImpl;
 import org.slf4j.Logger;
@@ -67,6 +84,82 @@ public class PlatformSetup {
 
     public static final String BONITA_CLIENT_HOME_FOLDER = "bonita.client.home";
 
+    static final String BONITA_SETUP_GENERATION = "org.bonitasoft.platform.setup.generation";
+
+    public static final String BONITA_SETUP_GENERATIONS_TO_KEEP = "org.bonitasoft.platform.setup.history.keep";
+
+    static final int DEFAULT_GENERATIONS_TO_KEEP = 10;
+
+    public static final String BONITA_SETUP_FILTER_TENANTS = "org.bonitasoft.platform.setup.filter.tenants";
+
+    public static final String BONITA_SETUP_FILTER_TYPES = "org.bonitasoft.platform.setup.filter.types";
+
+    public static final String BONITA_SETUP_FILTER_FILES = "org.bonitasoft.platform.setup.filter.files";
+
+    public static final String BONITA_SETUP_SKIP_VALIDATION = "org.bonitasoft.platform.setup.validation.skip";
+
+    public static final String BONITA_SETUP_SERVE_HOST = "org.bonitasoft.platform.setup.serve.host";
+
+    public static final String BONITA_SETUP_SERVE_PORT = "org.bonitasoft.platform.setup.serve.port";
+
+    public static final String BONITA_SETUP_SERVE_REFRESH = "org.bonitasoft.platform.setup.serve.refresh";
+
+    public static final String BONITA_SETUP_SERVE_TOKEN = "org.bonitasoft.platform.setup.serve.token";
+
+    static final String DEFAULT_SERVE_HOST = "localhost";
+
+    static final int DEFAULT_SERVE_PORT = 8090;
+
+    static final long DEFAULT_SERVE_REFRESH_SECONDS = 10L;
+
+    static final String BONITA_SETUP_PROPERTY_TYPE = "org.bonitasoft.platform.setup.property.type";
+
+    static final String BONITA_SETUP_PROPERTY_FILE = "org.bonitasoft.platform.setup.property.file";
+
+    static final String BONITA_SETUP_PROPERTY_KEY = "org.bonitasoft.platform.setup.property.key";
+
+    static final String BONITA_SETUP_PROPERTY_VALUE = "org.bonitasoft.platform.setup.property.value";
+
+    static final String VALIDATION_CACHE_FILE_NAME = "validation.cache";
+
+    static final String BONITA_SETUP_RETENTION_DAYS = "org.bonitasoft.platform.setup.retention.days";
+
+    static final String BONITA_SETUP_OFFLOAD = "org.bonitasoft.platform.setup.offload";
+
+    static final String ARCHIVES_FOLDER_NAME = "archives";
+
+    static final String BONITA_SETUP_TENANT_ID = "org.bonitasoft.platform.setup.tenant.id";
+
+    static final String BONITA_SETUP_TENANT_FILE = "org.bonitasoft.platform.setup.tenant.file";
+
+    static final String BONITA_SETUP_NEW_TENANT_ID = "org.bonitasoft.platform.setup.tenant.new.id";
+
+    static final String BONITA_SETUP_NEW_TENANT_NAME = "org.bonitasoft.platform.setup.tenant.new.name";
+
+    static final String EXPORTS_FOLDER_NAME = "exports";
+
+    public static final String BONITA_SETUP_STATS_THREADS = "org.bonitasoft.platform.setup.stats.threads";
+
+    static final int DEFAULT_STATS_THREADS = 4;
+
+    static final String STATS_FOLDER_NAME = "stats";
+
+    static final String BONITA_SETUP_GENERATE_TENANTS = "org.bonitasoft.platform.setup.generate.tenants";
+
+    static final String BONITA_SETUP_GENERATE_PROCESS_INSTANCES = "org.bonitasoft.platform.setup.generate.process.instances";
+
+    public static final String BONITA_SETUP_GENERATE_FLOW_NODES = "org.bonitasoft.platform.setup.generate.flownodes";
+
+    public static final String BONITA_SETUP_GENERATE_DATA = "org.bonitasoft.platform.setup.generate.data";
+
+    public static final String BONITA_SETUP_GENERATE_ARCHIVED_PERCENT = "org.bonitasoft.platform.setup.generate.archived.percent";
+
+    public static final String BONITA_SETUP_GENERATE_SEED = "org.bonitasoft.platform.setup.generate.seed";
+
+    public static final String BONITA_SETUP_GENERATE_THREADS = "org.bonitasoft.platform.setup.generate.threads";
+
+    static final int DEFAULT_GENERATE_THREADS = 4;
+
     @Autowired
     private ScriptExecutor scriptExecutor;
 
@@ -85,6 +178,10 @@ public class PlatformSetup {
     private Path initialConfigurationFolder;
     private Path currentConfigurationFolder;
     private Path licensesFolder;
+    private Path validationCacheFile;
+    private Path archivesFolder;
+    private Path exportsFolder;
+    private Path statsFolder;
 
     public PlatformSetup(String dbVendor) {
         this.dbVendor = dbVendor;
@@ -124,6 +221,7 @@ public class PlatformSetup {
             initConfigurationWithClasspath();
         }
         pushLicenses();
+        recordConfigurationGeneration();
         LOGGER.info("Initial configuration files successfully pushed to database");
     }
 
@@ -158,16 +256,397 @@ public class PlatformSetup {
         if (!isPlatformAlreadyCreated()) {
             throw new PlatformException("Platform is not created. Run 'setup init' first.");
         }
+        final ConfigurationFilter filter = getConfigurationFilter();
+        if (!filter.isAll()) {
+            pushFiltered(filter);
+            return;
+        }
         preventFromPushingZeroLicense();
         checkPlatformVersion();
         checkPushFolderExists(currentConfigurationFolder);
+        validateConfiguration(ConfigurationFilter.ALL);
         LOGGER.info("Configuration currently in database will be replace by configuration from folder: " + currentConfigurationFolder.toString());
         clean();
         pushFromFolder(currentConfigurationFolder);
         pushLicenses();
+        recordConfigurationGeneration();
+        pruneConfigurationGenerations();
         LOGGER.info("Configuration files successfully pushed to database. You can now restart Bonita BPM to reflect your changes.");
     }
 
+    private void pushFiltered(ConfigurationFilter filter) throws PlatformException {
+        checkPlatformVersion();
+        checkPushFolderExists(currentConfigurationFolder);
+        validateConfiguration(filter);
+        LOGGER.info("Configuration files currently in database matching " + describe(filter) + " will be replaced by the ones from folder: "
+                + currentConfigurationFolder.toString() + ". Other files and licenses are left unchanged.");
+        final int stored = configurationService.replaceConfiguration(currentConfigurationFolder.toFile(), filter);
+        recordConfigurationGeneration();
+        pruneConfigurationGenerations();
+        LOGGER.info(stored + " configuration files successfully pushed to database. You can now restart Bonita BPM to reflect your changes.");
+    }
+
+    /**
+     * parse the configuration files about to be pushed, so that an invalid file fails the push instead of the engine startup.
+     * Skipped when {@value #BONITA_SETUP_SKIP_VALIDATION} system property is true.
+     */
+    private void validateConfiguration(ConfigurationFilter filter) throws PlatformException {
+        if (Boolean.getBoolean(BONITA_SETUP_SKIP_VALIDATION)) {
+            LOGGER.warn("Configuration files validation is skipped, as " + BONITA_SETUP_SKIP_VALIDATION + " is set to true.");
+            return;
+        }
+        final List<FullBonitaConfiguration> configurations = new ArrayList<>();
+        try {
+            Files.walkFileTree(currentConfigurationFolder, new AllConfigurationResourceVisitor(configurations));
+        } catch (IOException e) {
+            throw new PlatformException(e);
+        }
+        final List<FullBonitaConfiguration> configurationsToValidate = new ArrayList<>();
+        for (FullBonitaConfiguration configuration : configurations) {
+            if (filter.matches(configuration)) {
+                configurationsToValidate.add(configuration);
+            }
+        }
+        final ConfigurationValidator configurationValidator = new ConfigurationValidator();
+        configurationValidator.loadVerdicts(validationCacheFile);
+        final List<ConfigurationValidationError> errors = configurationValidator.validate(configurationsToValidate);
+        configurationValidator.saveVerdicts(validationCacheFile);
+        if (!errors.isEmpty()) {
+            final StringBuilder message = new StringBuilder("Invalid configuration files found in folder ").append(currentConfigurationFolder)
+                    .append(", nothing was pushed:");
+            for (ConfigurationValidationError error : errors) {
+                message.append("\n").append(error);
+            }
+            throw new PlatformException(message.toString());
+        }
+        LOGGER.info(configurationsToValidate.size() + " configuration files validated.");
+    }
+
+    /**
+     * Entry point to list configuration generations recorded by init and push
+     *
+     * @throws PlatformException
+     */
+    List<ConfigurationGeneration> history() throws PlatformException {
+        initPlatformSetup();
+        checkPlatformVersion();
+        final List<ConfigurationGeneration> generations = configurationService.getConfigurationHistory();
+        if (generations.isEmpty()) {
+            LOGGER.info("No configuration generation recorded.");
+        }
+        final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        for (ConfigurationGeneration generation : generations) {
+            LOGGER.info(String.format("generation %d - pushed %s - %d files%s", generation.getGeneration(), dateFormat.format(new Date(generation.getCreated())),
+                    generation.getFileCount(), generation.isActive() ? " - active" : ""));
+        }
+        return generations;
+    }
+
+    /**
+     * Entry point to restore the configuration files of a previous generation
+     *
+     * @param generation the generation to restore, as listed by {@link #history()}
+     * @throws PlatformException
+     */
+    public void rollback(long generation) throws PlatformException {
+        initPlatformSetup();
+        if (!isPlatformAlreadyCreated()) {
+            throw new PlatformException("Platform is not created. Run 'setup init' first.");
+        }
+        checkPlatformVersion();
+        LOGGER.info("Configuration currently in database will be replaced by configuration of generation " + generation);
+        configurationService.rollbackToConfigurationGeneration(generation);
+        LOGGER.info("Configuration generation " + generation + " successfully restored. You can now restart Bonita BPM to reflect your changes.");
+    }
+
+    /**
+     * Entry point to serve configuration files over HTTP, until the JVM stops
+     *
+     * @return the started server
+     * @throws PlatformException
+     */
+    ConfigurationServer serve() throws PlatformException {
+        initPlatformSetup();
+        if (!isPlatformAlreadyCreated()) {
+            throw new PlatformException("Platform is not created. Run 'setup init' first.");
+        }
+        checkPlatformVersion();
+        final InetSocketAddress address = new InetSocketAddress(System.getProperty(BONITA_SETUP_SERVE_HOST, DEFAULT_SERVE_HOST),
+                Integer.getInteger(BONITA_SETUP_SERVE_PORT, DEFAULT_SERVE_PORT));
+        final ConfigurationServer configurationServer = new ConfigurationServer(configurationService, address,
+                Long.getLong(BONITA_SETUP_SERVE_REFRESH, DEFAULT_SERVE_REFRESH_SECONDS), System.getProperty(BONITA_SETUP_SERVE_TOKEN));
+        configurationServer.start();
+        return configurationServer;
+    }
+
+    /**
+     * Entry point to set a property in a .properties file of all tenants, without pulling and pushing whole configuration
+     *
+     * @param type configuration type of the file
+     * @param resourceName name of the file
+     * @param key property key
+     * @param value property value
+     * @return number of files changed
+     * @throws PlatformException
+     */
+    int setProperty(ConfigurationType type, String resourceName, String key, String value) throws PlatformException {
+        initPlatformSetup();
+        if (!isPlatformAlreadyCreated()) {
+            throw new PlatformException("Platform is not created. Run 'setup init' first.");
+        }
+        checkPlatformVersion();
+        final int changed = configurationService.setProperty(type, resourceName, key, value);
+        if (changed == 0) {
+            LOGGER.info("Property " + key + " already set to this value in all " + type.name().toLowerCase() + " " + resourceName + " files. Nothing to do.");
+            return changed;
+        }
+        LOGGER.info("Property " + key + " successfully set in " + changed + " " + type.name().toLowerCase() + " " + resourceName
+                + " files. You can now restart Bonita BPM to reflect your changes.");
+        recordConfigurationGeneration();
+        pruneConfigurationGenerations();
+        return changed;
+    }
+
+    /**
+     * Entry point to roll out tenant template files modified in current configuration folder to existing tenants.
+     * Tenants whose copy of a file still has the content of the previous template get the new one, tenants having modified their copy are only reported.
+     *
+     * @return one propagation per template file whose content changed
+     * @throws PlatformException
+     */
+    List<TemplatePropagation> propagate() throws PlatformException {
+        initPlatformSetup();
+        if (!isPlatformAlreadyCreated()) {
+            throw new PlatformException("Platform is not created. Run 'setup init' first.");
+        }
+        checkPlatformVersion();
+        checkPushFolderExists(currentConfigurationFolder);
+        final List<TemplatePropagation> propagations = new ArrayList<>();
+        for (ConfigurationType templateType : Arrays.asList(ConfigurationType.TENANT_TEMPLATE_ENGINE, ConfigurationType.TENANT_TEMPLATE_PORTAL,
+                ConfigurationType.TENANT_TEMPLATE_SECURITY_SCRIPTS)) {
+            final Path templateFolder = currentConfigurationFolder.resolve(templateType.name().toLowerCase());
+            if (!Files.isDirectory(templateFolder)) {
+                continue;
+            }
+            final List<BonitaConfiguration> templateConfigurations = new ArrayList<>();
+            try {
+                Files.walkFileTree(templateFolder, new ConfigurationResourceVisitor(templateConfigurations));
+            } catch (IOException e) {
+                throw new PlatformException(e);
+            }
+            propagations.addAll(configurationService.propagateTenantTemplate(templateType, templateConfigurations));
+        }
+        if (propagations.isEmpty()) {
+            LOGGER.info("No tenant template file changed in folder " + currentConfigurationFolder + ". Nothing to do.");
+            return propagations;
+        }
+        for (TemplatePropagation propagation : propagations) {
+            LOGGER.info(String.format("%s %s propagated to %d tenants%s", propagation.getConfigurationType().toLowerCase(), propagation.getResourceName(),
+                    propagation.getPropagatedTenantIds().size(), propagation.getOverriddenTenantIds().isEmpty() ? ""
+                            : ", not to tenants " + propagation.getOverriddenTenantIds() + " having modified it"));
+        }
+        recordConfigurationGeneration();
+        pruneConfigurationGenerations();
+        LOGGER.info("Tenant template files successfully propagated. You can now restart Bonita BPM to reflect your changes.");
+        return propagations;
+    }
+
+    /**
+     * Entry point to move archived process, flow node, data, connector, document and contract data rows older than retentionDays days out of the
+     * database, into gzipped CSV files of the archives folder
+     *
+     * @param retentionDays number of days of archives to keep in database
+     * @return number of rows offloaded
+     * @throws PlatformException
+     */
+    long offloadArchives(int retentionDays) throws PlatformException {
+        if (retentionDays < 0) {
+            throw new PlatformException("Invalid number of days of archives to keep: " + retentionDays);
+        }
+        initPlatformSetup();
+        if (!isPlatformAlreadyCreated()) {
+            throw new PlatformException("Platform is not created. Run 'setup init' first.");
+        }
+        checkPlatformVersion();
+        final long cutoffDate = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(retentionDays);
+        LOGGER.info("Archived rows older than " + retentionDays + " days will be moved to folder: " + archivesFolder);
+        final long offloadedRows = scriptExecutor.offloadArchives(cutoffDate, archivesFolder, ScriptExecutor.DEFAULT_OFFLOAD_CHUNK_SIZE);
+        LOGGER.info(offloadedRows + " archived rows successfully moved to folder: " + archivesFolder);
+        return offloadedRows;
+    }
+
+    /**
+     * Entry point to roll queriable logs older than retentionDays days up into daily counts per severity, action type and action status, stored
+     * in table queriable_log_day, then delete them
+     *
+     * @param retentionDays number of days of detailed logs to keep in database
+     * @param offload whether logs are written to gzipped CSV files of the archives folder before being deleted
+     * @return number of logs rolled up
+     * @throws PlatformException
+     */
+    long rollupLogs(int retentionDays, boolean offload) throws PlatformException {
+        if (retentionDays < 0) {
+            throw new PlatformException("Invalid number of days of logs to keep: " + retentionDays);
+        }
+        initPlatformSetup();
+        if (!isPlatformAlreadyCreated()) {
+            throw new PlatformException("Platform is not created. Run 'setup init' first.");
+        }
+        checkPlatformVersion();
+        final long cutoffDate = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(retentionDays);
+        LOGGER.info("Queriable logs older than " + retentionDays + " days will be rolled up into daily counts"
+                + (offload ? " and moved to folder: " + archivesFolder : " and deleted"));
+        final long rolledUpRows = scriptExecutor.rollupQueriableLogs(cutoffDate, offload ? archivesFolder : null, ScriptExecutor.DEFAULT_OFFLOAD_CHUNK_SIZE);
+        LOGGER.info(rolledUpRows + " queriable logs successfully rolled up into table queriable_log_day");
+        return rolledUpRows;
+    }
+
+    /**
+     * Entry point to write all rows of a tenant, including its configuration, to file tenant-&lt;id&gt;.gz of the exports folder, so that it can
+     * be imported on another platform
+     *
+     * @param tenantId id of the tenant to export
+     * @return file written
+     * @throws PlatformException
+     */
+    Path exportTenant(long tenantId) throws PlatformException {
+        initPlatformSetup();
+        if (!isPlatformAlreadyCreated()) {
+            throw new PlatformException("Platform is not created. Run 'setup init' first.");
+        }
+        checkPlatformVersion();
+        final Path file = exportsFolder.resolve("tenant-" + tenantId + ".gz");
+        final long exportedRows = scriptExecutor.exportTenant(tenantId, file, ScriptExecutor.DEFAULT_EXPORT_CHUNK_SIZE);
+        LOGGER.info(exportedRows + " rows of tenant " + tenantId + " successfully exported to file: " + file);
+        return file;
+    }
+
+    /**
+     * Entry point to insert the rows of a tenant exported by {@link #exportTenant(long)}, possibly from another platform
+     *
+     * @param file file written by the export
+     * @param newTenantId id given to the imported tenant, or null to keep the exported one
+     * @param newTenantName name given to the imported tenant, or null to keep the exported one
+     * @return number of rows imported
+     * @throws PlatformException
+     */
+    long importTenant(Path file, Long newTenantId, String newTenantName) throws PlatformException {
+        if (!Files.isRegularFile(file)) {
+            throw new PlatformException("File " + file.toAbsolutePath() + " does not exist");
+        }
+        initPlatformSetup();
+        if (!isPlatformAlreadyCreated()) {
+            throw new PlatformException("Platform is not created. Run 'setup init' first.");
+        }
+        checkPlatformVersion();
+        final long importedRows = scriptExecutor.importTenant(file, newTenantId, newTenantName, ScriptExecutor.DEFAULT_IMPORT_BATCH_SIZE);
+        LOGGER.info(importedRows + " rows successfully imported from file: " + file);
+        return importedRows;
+    }
+
+    /**
+     * Entry point to list rows, binary column sizes and storage size of each table, per tenant, biggest tables first, and write them to a JSON
+     * file of the stats folder
+     *
+     * @return file written
+     * @throws PlatformException
+     */
+    Path stats() throws PlatformException {
+        initPlatformSetup();
+        if (!isPlatformAlreadyCreated()) {
+            throw new PlatformException("Platform is not created. Run 'setup init' first.");
+        }
+        checkPlatformVersion();
+        final int threads = Integer.getInteger(BONITA_SETUP_STATS_THREADS, DEFAULT_STATS_THREADS);
+        final long date = System.currentTimeMillis();
+        final StatisticsReport report = new StatisticsReport(dbVendor, date, scriptExecutor.collectStatistics(threads));
+        for (String line : report.toLines()) {
+            LOGGER.info(line);
+        }
+        final Path file = statsFolder.resolve("stats-" + new SimpleDateFormat("yyyy-MM-dd-HHmmss").format(new Date(date)) + ".json");
+        try {
+            Files.createDirectories(statsFolder);
+            Files.write(file, report.toJson().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new PlatformException("Unable to write statistics to " + file, e);
+        }
+        LOGGER.info("Statistics written to file: " + file);
+        return file;
+    }
+
+    /**
+     * Entry point to add tenants filled with synthetic process instances, flow nodes, archives, data instances and queriable logs, with the
+     * configuration of the tenant template, e.g. to reproduce query plans and purge times of a production database
+     *
+     * @param tenants number of tenants to add
+     * @param processInstances number of process instances of each tenant
+     * @return ids of the tenants added
+     * @throws PlatformException
+     */
+    List<Long> generateData(int tenants, int processInstances) throws PlatformException {
+        initPlatformSetup();
+        if (!isPlatformAlreadyCreated()) {
+            throw new PlatformException("Platform is not created. Run 'setup init' first.");
+        }
+        checkPlatformVersion();
+        final GenerationPlan plan;
+        try {
+            plan = new GenerationPlan(tenants, processInstances,
+                    Integer.getInteger(BONITA_SETUP_GENERATE_FLOW_NODES, GenerationPlan.DEFAULT_FLOW_NODES_PER_PROCESS),
+                    Integer.getInteger(BONITA_SETUP_GENERATE_DATA, GenerationPlan.DEFAULT_DATA_PER_PROCESS),
+                    Integer.getInteger(BONITA_SETUP_GENERATE_ARCHIVED_PERCENT, GenerationPlan.DEFAULT_ARCHIVED_PERCENT),
+                    Long.getLong(BONITA_SETUP_GENERATE_SEED, GenerationPlan.DEFAULT_SEED));
+        } catch (IllegalArgumentException e) {
+            throw new PlatformException("Invalid generation parameters: " + e.getMessage());
+        }
+        final List<Long> tenantIds = scriptExecutor.generateData(plan, Integer.getInteger(BONITA_SETUP_GENERATE_THREADS, DEFAULT_GENERATE_THREADS));
+        final List<BonitaConfiguration> engineConfigurations = configurationService.getTenantTemplateEngineConf();
+        final List<BonitaConfiguration> securityScripts = configurationService.getTenantTemplateSecurityScripts();
+        final List<BonitaConfiguration> portalConfigurations = configurationService.getTenantTemplatePortalConf();
+        for (Long tenantId : tenantIds) {
+            configurationService.storeTenantEngineConf(engineConfigurations, tenantId);
+            configurationService.storeTenantSecurityScripts(securityScripts, tenantId);
+            configurationService.storeTenantPortalConf(portalConfigurations, tenantId);
+        }
+        LOGGER.info("Tenants " + tenantIds + " generated, with the configuration of the tenant template");
+        return tenantIds;
+    }
+
+    /**
+     * Entry point to compare the tables, keys and indexes of the database with the ones the sql scripts of the db vendor create, e.g. to find
+     * an index dropped or added by hand
+     *
+     * @throws PlatformException if the database does not match the sql scripts
+     */
+    void verifySchema() throws PlatformException {
+        initPlatformSetup();
+        if (!isPlatformAlreadyCreated()) {
+            throw new PlatformException("Platform is not created. Run 'setup init' first.");
+        }
+        checkPlatformVersion();
+        final List<SchemaDifference> differences = scriptExecutor.verifySchema();
+        for (SchemaDifference difference : differences) {
+            LOGGER.warn(difference.toString());
+        }
+        if (!differences.isEmpty()) {
+            throw new PlatformException(differences.size() + " differences found between the database and the sql scripts of " + dbVendor);
+        }
+        LOGGER.info("Database schema matches the sql scripts of " + dbVendor);
+    }
+
+    private void recordConfigurationGeneration() {
+        final long generation = configurationService.recordConfigurationGeneration();
+        LOGGER.info("Configuration recorded as generation " + generation);
+    }
+
+    private void pruneConfigurationGenerations() {
+        final int generationsToKeep = Integer.getInteger(BONITA_SETUP_GENERATIONS_TO_KEEP, DEFAULT_GENERATIONS_TO_KEEP);
+        final int pruned = configurationService.pruneConfigurationGenerations(generationsToKeep);
+        if (pruned > 0) {
+            LOGGER.info(pruned + " old configuration generations deleted, keeping the " + generationsToKeep + " most recent ones");
+        }
+    }
+
     /**
      * Entry point to retrieve all configuration files and write them to folder
      * each file will be located under sub folder according to its purpose. See {@link org.bonitasoft.platform.configuration.type.ConfigurationType} for all
@@ -179,6 +658,14 @@ public class PlatformSetup {
     void pull() throws PlatformException {
         initPlatformSetup();
         checkPlatformVersion();
+        final ConfigurationFilter filter = getConfigurationFilter();
+        if (!filter.isAll()) {
+            LOGGER.info("Pulling configuration files matching " + describe(filter) + " into folder: " + currentConfigurationFolder
+                    + ". Other files of this folder are left unchanged.");
+            configurationService.writeConfigurationToFolder(currentConfigurationFolder.toFile(), licensesFolder.toFile(), filter);
+            LOGGER.info("Configuration files successfully pulled. You can now edit them. Use \"setup push\" with the same filters when done.");
+            return;
+        }
         LOGGER.info("Pulling configuration into folder: " + currentConfigurationFolder);
         if (Files.isDirectory(licensesFolder)) {
             LOGGER.info("Pulling licenses into folder: " + licensesFolder);
@@ -199,6 +686,53 @@ public class PlatformSetup {
         }
     }
 
+    /**
+     * @return the filter given by system properties, matching all files when none is set
+     */
+    static ConfigurationFilter getConfigurationFilter() throws PlatformException {
+        final List<Long> tenantIds = new ArrayList<>();
+        for (String tenantId : splitFilterValues(BONITA_SETUP_FILTER_TENANTS)) {
+            try {
+                tenantIds.add(Long.parseLong(tenantId));
+            } catch (NumberFormatException e) {
+                throw new PlatformException("Invalid tenant id: " + tenantId + ". Use comma separated tenant ids, e.g. 1,2.");
+            }
+        }
+        final List<ConfigurationType> types = new ArrayList<>();
+        for (String type : splitFilterValues(BONITA_SETUP_FILTER_TYPES)) {
+            try {
+                types.add(ConfigurationType.valueOf(type.toUpperCase()));
+            } catch (IllegalArgumentException e) {
+                throw new PlatformException("Invalid configuration type: " + type + ". Use folder names of pulled configuration, e.g. tenant_portal.");
+            }
+        }
+        return new ConfigurationFilter(tenantIds, types, splitFilterValues(BONITA_SETUP_FILTER_FILES));
+    }
+
+    private static List<String> splitFilterValues(String systemProperty) {
+        final List<String> values = new ArrayList<>();
+        for (String value : System.getProperty(systemProperty, "").split(",")) {
+            if (!value.trim().isEmpty()) {
+                values.add(value.trim());
+            }
+        }
+        return values;
+    }
+
+    private static String describe(ConfigurationFilter filter) {
+        final StringBuilder description = new StringBuilder();
+        if (!filter.getTenantIds().isEmpty()) {
+            description.append("tenants ").append(filter.getTenantIds());
+        }
+        if (!filter.getTypes().isEmpty()) {
+            description.append(description.length() == 0 ? "" : ", ").append("types ").append(filter.getTypes().toString().toLowerCase());
+        }
+        if (!filter.getResourceNamePatterns().isEmpty()) {
+            description.append(description.length() == 0 ? "" : ", ").append("files ").append(filter.getResourceNamePatterns());
+        }
+        return description.toString();
+    }
+
     private void recreateDirectory(Path... folders) throws IOException {
         for (Path folder : folders) {
             if (Files.exists(folder)) {
@@ -252,6 +786,10 @@ public class PlatformSetup {
         initialConfigurationFolder = platformConfFolder.resolve("initial");
         currentConfigurationFolder = platformConfFolder.resolve("current");
         licensesFolder = getLicenseInitialFolder(platformConfFolder);
+        validationCacheFile = platformConfFolder.resolve(VALIDATION_CACHE_FILE_NAME);
+        archivesFolder = platformConfFolder.resolve(ARCHIVES_FOLDER_NAME);
+        exportsFolder = platformConfFolder.resolve(EXPORTS_FOLDER_NAME);
+        statsFolder = platformConfFolder.resolve(STATS_FOLDER_NAME);
     }
 
     private Path getLicenseInitialFolder(Path platformConfFolder) {
@@ -263,6 +801,16 @@ public class PlatformSetup {
     }
 
     private void initConfigurationWithClasspath() throws PlatformException {
+        final ConfigurationResourceIndex configurationResourceIndex = new ConfigurationResourceIndex();
+        if (configurationResourceIndex.exists()) {
+            configurationService.insertNewConfigurations(configurationResourceIndex.load());
+            return;
+        }
+        LOGGER.debug("No configuration index found in classpath, looking up well-known configuration files");
+        initConfigurationWithKnownClasspathResources();
+    }
+
+    private void initConfigurationWithKnownClasspathResources() throws PlatformException {
         try {
             List<BonitaConfiguration> platformInitConfigurations = new ArrayList<>();
             addIfExists(platformInitConfigurations, ConfigurationType.PLATFORM_INIT_ENGINE, "bonita-platform-init-community-custom.properties");
@@ -13,6 +13,11 @@
  **/
 package org.bonitasoft.platform.setup;
 
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.CountDownLatch;
+
+import org.bonitasoft.platform.configuration.type.ConfigurationType;
 import org.bonitasoft.platform.exception.PlatformException;
 import org.bonitasoft.platform.setup.jndi.MemoryJNDISetup;
 import org.slf4j.Logger;
@@ -35,6 +40,19 @@ public class PlatformSetupApplication {
     private static final String ACTION_INIT = "init";
     private static final String ACTION_PUSH = "push";
     private static final String ACTION_PULL = "pull";
+    private static final String ACTION_HISTORY = "history";
+    private static final String ACTION_ROLLBACK = "rollback";
+    private static final String ACTION_SERVE = "serve";
+    private static final String ACTION_SET_PROPERTY = "set-property";
+    private static final String ACTION_PROPAGATE = "propagate";
+    private static final String ACTION_OFFLOAD_ARCHIVES = "offload-archives";
+    private static final String ACTION_ROLLUP_LOGS = "rollup-logs";
+    private static final String ACTION_VERIFY_SCHEMA = "verify-schema";
+    private static final String ACTION_EXPORT_TENANT = "export-tenant";
+    private static final String ACTION_IMPORT_TENANT = "import-tenant";
+    private static final String ACTION_STATS = "stats";
+    private static final String ACTION_GENERATE_DATA = "generate-data";
+    private static final String OFFLOAD_OPTION = "--offload";
 
     @Autowired
     MemoryJNDISetup memoryJNDISetup;
@@ -57,6 +75,42 @@ public class PlatformSetupApplication {
                     case ACTION_PULL:
                         pull(getConfigurableApplicationContext(args));
                         break;
+                    case ACTION_HISTORY:
+                        history(getConfigurableApplicationContext(args));
+                        break;
+                    case ACTION_ROLLBACK:
+                        rollback(getGeneration(), getConfigurableApplicationContext(args));
+                        break;
+                    case ACTION_SERVE:
+                        serve(getConfigurableApplicationContext(args));
+                        break;
+                    case ACTION_SET_PROPERTY:
+                        setProperty(getConfigurableApplicationContext(args));
+                        break;
+                    case ACTION_PROPAGATE:
+                        propagate(getConfigurableApplicationContext(args));
+                        break;
+                    case ACTION_OFFLOAD_ARCHIVES:
+                        offloadArchives(getRetentionDays(), getConfigurableApplicationContext(args));
+                        break;
+                    case ACTION_ROLLUP_LOGS:
+                        rollupLogs(getRetentionDays(), isOffload(), getConfigurableApplicationContext(args));
+                        break;
+                    case ACTION_VERIFY_SCHEMA:
+                        verifySchema(getConfigurableApplicationContext(args));
+                        break;
+                    case ACTION_EXPORT_TENANT:
+                        exportTenant(getTenantId(), getConfigurableApplicationContext(args));
+                        break;
+                    case ACTION_IMPORT_TENANT:
+                        importTenant(getTenantFile(), getNewTenantId(), getNewTenantName(), getConfigurableApplicationContext(args));
+                        break;
+                    case ACTION_STATS:
+                        stats(getConfigurableApplicationContext(args));
+                        break;
+                    case ACTION_GENERATE_DATA:
+                        generateData(getGenerateTenants(), getGenerateProcessInstances(), getConfigurableApplicationContext(args));
+                        break;
                     default:
                         displayMessageAndExit(action);
                 }
@@ -88,6 +142,163 @@ public class PlatformSetupApplication {
         run.getBean(PlatformSetup.class).push();
     }
 
+    private static void history(ConfigurableApplicationContext run) throws PlatformException {
+        run.getBean(PlatformSetup.class).history();
+    }
+
+    private static void rollback(long generation, ConfigurableApplicationContext run) throws PlatformException {
+        run.getBean(PlatformSetup.class).rollback(generation);
+    }
+
+    private static void serve(ConfigurableApplicationContext run) throws PlatformException, InterruptedException {
+        final ConfigurationServer configurationServer = run.getBean(PlatformSetup.class).serve();
+        Runtime.getRuntime().addShutdownHook(new Thread() {
+
+            @Override
+            public void run() {
+                configurationServer.stop();
+            }
+        });
+        // serve until the JVM is stopped:
+        new CountDownLatch(1).await();
+    }
+
+    private static void setProperty(ConfigurableApplicationContext run) throws PlatformException {
+        final String key = getRequiredProperty(PlatformSetup.BONITA_SETUP_PROPERTY_KEY, "property key");
+        final String value = System.getProperty(PlatformSetup.BONITA_SETUP_PROPERTY_VALUE, "");
+        run.getBean(PlatformSetup.class).setProperty(getPropertyFileType(), getRequiredProperty(PlatformSetup.BONITA_SETUP_PROPERTY_FILE, "file name"), key,
+                value);
+    }
+
+    private static void propagate(ConfigurableApplicationContext run) throws PlatformException {
+        run.getBean(PlatformSetup.class).propagate();
+    }
+
+    private static void offloadArchives(int retentionDays, ConfigurableApplicationContext run) throws PlatformException {
+        run.getBean(PlatformSetup.class).offloadArchives(retentionDays);
+    }
+
+    private static void rollupLogs(int retentionDays, boolean offload, ConfigurableApplicationContext run) throws PlatformException {
+        run.getBean(PlatformSetup.class).rollupLogs(retentionDays, offload);
+    }
+
+    private static void verifySchema(ConfigurableApplicationContext run) throws PlatformException {
+        run.getBean(PlatformSetup.class).verifySchema();
+    }
+
+    private static void exportTenant(long tenantId, ConfigurableApplicationContext run) throws PlatformException {
+        run.getBean(PlatformSetup.class).exportTenant(tenantId);
+    }
+
+    private static void importTenant(Path file, Long newTenantId, String newTenantName, ConfigurableApplicationContext run) throws PlatformException {
+        run.getBean(PlatformSetup.class).importTenant(file, newTenantId, newTenantName);
+    }
+
+    private static void stats(ConfigurableApplicationContext run) throws PlatformException {
+        run.getBean(PlatformSetup.class).stats();
+    }
+
+    private static void generateData(int tenants, int processInstances, ConfigurableApplicationContext run) throws PlatformException {
+        run.getBean(PlatformSetup.class).generateData(tenants, processInstances);
+    }
+
+    static ConfigurationType getPropertyFileType() throws PlatformException {
+        final String type = getRequiredProperty(PlatformSetup.BONITA_SETUP_PROPERTY_TYPE, "configuration type");
+        try {
+            return ConfigurationType.valueOf(type.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new PlatformException("Invalid configuration type: " + type + ". Use one of the folder names of pulled configuration, e.g. tenant_portal.");
+        }
+    }
+
+    private static String getRequiredProperty(String name, String description) throws PlatformException {
+        final String value = System.getProperty(name);
+        if (value == null || value.isEmpty()) {
+            throw new PlatformException("Missing " + description + ". Usage: setup set-property <configuration type> <file name> <property key> <value>");
+        }
+        return value;
+    }
+
+    static long getGeneration() throws PlatformException {
+        final String generation = System.getProperty(PlatformSetup.BONITA_SETUP_GENERATION);
+        try {
+            return Long.parseLong(generation);
+        } catch (NumberFormatException e) {
+            throw new PlatformException("Invalid or missing generation number: " + generation + ". Run 'setup history' to list available generations.");
+        }
+    }
+
+    static int getRetentionDays() throws PlatformException {
+        final String retentionDays = System.getProperty(PlatformSetup.BONITA_SETUP_RETENTION_DAYS);
+        try {
+            return Integer.parseInt(retentionDays);
+        } catch (NumberFormatException e) {
+            throw new PlatformException("Invalid or missing number of days to keep: " + retentionDays
+                    + ". Usage: setup offload-archives <days> or setup rollup-logs <days> [--offload]");
+        }
+    }
+
+    static boolean isOffload() throws PlatformException {
+        final String offload = System.getProperty(PlatformSetup.BONITA_SETUP_OFFLOAD, "");
+        if (!offload.isEmpty() && !OFFLOAD_OPTION.equals(offload)) {
+            throw new PlatformException("Unknown option " + offload + ". Usage: setup rollup-logs <days> [--offload]");
+        }
+        return !offload.isEmpty();
+    }
+
+    static long getTenantId() throws PlatformException {
+        final String tenantId = System.getProperty(PlatformSetup.BONITA_SETUP_TENANT_ID);
+        try {
+            return Long.parseLong(tenantId);
+        } catch (NumberFormatException e) {
+            throw new PlatformException("Invalid or missing tenant id: " + tenantId + ". Usage: setup export-tenant <tenant id>");
+        }
+    }
+
+    static Path getTenantFile() throws PlatformException {
+        final String file = System.getProperty(PlatformSetup.BONITA_SETUP_TENANT_FILE);
+        if (file == null || file.isEmpty()) {
+            throw new PlatformException("Missing file. Usage: setup import-tenant <file> [<new tenant id> [<new tenant name>]]");
+        }
+        return Paths.get(file);
+    }
+
+    static Long getNewTenantId() throws PlatformException {
+        final String newTenantId = System.getProperty(PlatformSetup.BONITA_SETUP_NEW_TENANT_ID, "");
+        if (newTenantId.isEmpty()) {
+            return null;
+        }
+        try {
+            return Long.valueOf(newTenantId);
+        } catch (NumberFormatException e) {
+            throw new PlatformException("Invalid new tenant id: " + newTenantId
+                    + ". Usage: setup import-tenant <file> [<new tenant id> [<new tenant name>]]");
+        }
+    }
+
+    static String getNewTenantName() {
+        final String newTenantName = System.getProperty(PlatformSetup.BONITA_SETUP_NEW_TENANT_NAME, "");
+        return newTenantName.isEmpty() ? null : newTenantName;
+    }
+
+    static int getGenerateTenants() throws PlatformException {
+        return getGenerateCount(PlatformSetup.BONITA_SETUP_GENERATE_TENANTS, "number of tenants");
+    }
+
+    static int getGenerateProcessInstances() throws PlatformException {
+        return getGenerateCount(PlatformSetup.BONITA_SETUP_GENERATE_PROCESS_INSTANCES, "number of process instances");
+    }
+
+    private static int getGenerateCount(String name, String description) throws PlatformException {
+        final String count = System.getProperty(name);
+        try {
+            return Integer.parseInt(count);
+        } catch (NumberFormatException e) {
+            throw new PlatformException("Invalid or missing " + description + ": " + count
+                    + ". Usage: setup generate-data <tenants> <process instances per tenant>");
+        }
+    }
+
     private static void init(ConfigurableApplicationContext run) throws PlatformException {
         run.getBean(PlatformSetup.class).init();
     }
@@ -0,0 +1,198 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.setup;
+
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.text.SimpleDateFormat;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.bonitasoft.platform.exception.PlatformException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * rolls rows of queriable_log older than a cutoff date up into queriable_log_day, which keeps one count per tenant, day, severity, action type
+ * and action status, then deletes them along with their queriablelog_p parameters.
+ * <p/>
+ * Each tenant is processed by ranges of at most chunkSize ids. Counts of a range are added and its rows deleted in the same transaction, so a
+ * run stopped at any point never counts a log twice. When an offload folder is given, rows of a range are first appended to gzipped CSV files,
+ * one per tenant, table and day of log_timestamp (UTC). Parameter rows get the log_timestamp of their log as last column.
+ *
+ * @author Laurent Leseigneur
+ */
+public class QueriableLogRollup {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(QueriableLogRollup.class);
+
+    static final String SELECT_TENANT_IDS = "SELECT id FROM tenant ORDER BY id";
+
+    private static final String LOG_TIMESTAMP_COLUMN = "log_timestamp";
+
+    private static final String RANGE_CONDITION = "tenantid = ? AND id >= ? AND id < ? AND log_timestamp < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Path offloadFolder;
+
+    private final int chunkSize;
+
+    private final SimpleDateFormat dayFormat;
+
+    /**
+     * @param offloadFolder folder where rows are written before being deleted, or null to only keep daily counts
+     */
+    public QueriableLogRollup(DataSource dataSource, Path offloadFolder, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunk size must be greater than 0, was " + chunkSize);
+        }
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        this.offloadFolder = offloadFolder;
+        this.chunkSize = chunkSize;
+        this.dayFormat = DailyCsvChunk.newDayFormat();
+    }
+
+    /**
+     * @param cutoffDate logs having a log_timestamp strictly lower than this timestamp (in milliseconds) are rolled up
+     * @return number of queriable_log rows rolled up and deleted, for all tenants
+     */
+    public long rollup(long cutoffDate) throws PlatformException {
+        final long start = System.currentTimeMillis();
+        long rolledUpRows = 0;
+        for (Long tenantId : jdbcTemplate.queryForList(SELECT_TENANT_IDS, Long.class)) {
+            rolledUpRows += rollup(tenantId, cutoffDate);
+        }
+        LOGGER.info(String.format("%d queriable logs rolled up into daily counts%s, %d rows/s", rolledUpRows,
+                offloadFolder == null ? "" : " and offloaded to " + offloadFolder, rowsPerSecond(rolledUpRows, start)));
+        return rolledUpRows;
+    }
+
+    private long rollup(long tenantId, long cutoffDate) throws PlatformException {
+        final long start = System.currentTimeMillis();
+        long rolledUpRows = 0;
+        int chunks = 0;
+        Long lowerId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM queriable_log WHERE tenantid = ?", Long.class, tenantId);
+        while (lowerId != null) {
+            final long upperId = lowerId + chunkSize;
+            if (offloadFolder != null) {
+                offload(tenantId, lowerId, upperId, cutoffDate);
+            }
+            final int deletedRows = rollupInTransaction(tenantId, lowerId, upperId, cutoffDate);
+            if (deletedRows > 0) {
+                rolledUpRows += deletedRows;
+                chunks++;
+                LOGGER.debug(String.format("tenant %d: %d queriable logs rolled up, up to id %d", tenantId, rolledUpRows, upperId - 1));
+            }
+            lowerId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM queriable_log WHERE tenantid = ? AND id >= ?", Long.class, tenantId, upperId);
+        }
+        if (rolledUpRows > 0) {
+            LOGGER.info(String.format("tenant %d: %d queriable logs rolled up in %d chunks, %d rows/s", tenantId, rolledUpRows, chunks,
+                    rowsPerSecond(rolledUpRows, start)));
+        }
+        return rolledUpRows;
+    }
+
+    private void offload(long tenantId, long lowerId, long upperId, long cutoffDate) throws PlatformException {
+        final Path tenantFolder = offloadFolder.resolve("tenant-" + tenantId);
+        final DailyCsvChunk logs = new DailyCsvChunk(LOG_TIMESTAMP_COLUMN, dayFormat);
+        jdbcTemplate.query("SELECT * FROM queriable_log WHERE " + RANGE_CONDITION + " ORDER BY id", logs, tenantId, lowerId, upperId, cutoffDate);
+        if (logs.getRows() == 0) {
+            return;
+        }
+        final DailyCsvChunk parameters = new DailyCsvChunk(LOG_TIMESTAMP_COLUMN, dayFormat);
+        jdbcTemplate.query("SELECT p.*, l.log_timestamp FROM queriablelog_p p INNER JOIN queriable_log l ON l.tenantid = p.tenantid AND l.id = p.queriableLogId"
+                + " WHERE l.tenantid = ? AND l.id >= ? AND l.id < ? AND l.log_timestamp < ? ORDER BY p.id", parameters, tenantId, lowerId, upperId,
+                cutoffDate);
+        logs.writeTo(tenantFolder.resolve("queriable_log"));
+        parameters.writeTo(tenantFolder.resolve("queriablelog_p"));
+    }
+
+    private int rollupInTransaction(final long tenantId, final long lowerId, final long upperId, final long cutoffDate) {
+        return transactionTemplate.execute(new TransactionCallback<Integer>() {
+
+            @Override
+            public Integer doInTransaction(TransactionStatus status) {
+                final List<DailyCount> dailyCounts = jdbcTemplate.query("SELECT whatYear, dayOfYear, severity, actionType, actionStatus, COUNT(*)"
+                        + " FROM queriable_log WHERE " + RANGE_CONDITION + " GROUP BY whatYear, dayOfYear, severity, actionType, actionStatus",
+                        new DailyCountRowMapper(), tenantId, lowerId, upperId, cutoffDate);
+                if (dailyCounts.isEmpty()) {
+                    return 0;
+                }
+                for (DailyCount dailyCount : dailyCounts) {
+                    addDailyCount(tenantId, dailyCount);
+                }
+                jdbcTemplate.update("DELETE FROM queriablelog_p WHERE tenantid = ? AND queriableLogId IN (SELECT id FROM queriable_log WHERE "
+                        + RANGE_CONDITION + ")", tenantId, tenantId, lowerId, upperId, cutoffDate);
+                return jdbcTemplate.update("DELETE FROM queriable_log WHERE " + RANGE_CONDITION, tenantId, lowerId, upperId, cutoffDate);
+            }
+        });
+    }
+
+    private void addDailyCount(long tenantId, DailyCount dailyCount) {
+        final int updated = jdbcTemplate.update("UPDATE queriable_log_day SET logCount = logCount + ? WHERE tenantid = ? AND whatYear = ? AND dayOfYear = ?"
+                + " AND severity = ? AND actionType = ? AND actionStatus = ?", dailyCount.count, tenantId, dailyCount.year, dailyCount.dayOfYear,
+                dailyCount.severity, dailyCount.actionType, dailyCount.actionStatus);
+        if (updated == 0) {
+            jdbcTemplate.update("INSERT INTO queriable_log_day (tenantid, whatYear, dayOfYear, severity, actionType, actionStatus, logCount)"
+                    + " VALUES (?, ?, ?, ?, ?, ?, ?)", tenantId, dailyCount.year, dailyCount.dayOfYear, dailyCount.severity, dailyCount.actionType,
+                    dailyCount.actionStatus, dailyCount.count);
+        }
+    }
+
+    private static long rowsPerSecond(long rows, long since) {
+        return rows * 1000 / Math.max(1, System.currentTimeMillis() - since);
+    }
+
+    private static class DailyCount {
+
+        private int year;
+
+        private int dayOfYear;
+
+        private String severity;
+
+        private String actionType;
+
+        private int actionStatus;
+
+        private long count;
+    }
+
+    private static class DailyCountRowMapper implements RowMapper<DailyCount> {
+
+        @Override
+        public DailyCount mapRow(ResultSet rs, int rowNum) throws SQLException {
+            final DailyCount dailyCount = new DailyCount();
+            dailyCount.year = rs.getInt(1);
+            dailyCount.dayOfYear = rs.getInt(2);
+            dailyCount.severity = rs.getString(3);
+            dailyCount.actionType = rs.getString(4);
+            dailyCount.actionStatus = rs.getInt(5);
+            dailyCount.count = rs.getLong(6);
+            return dailyCount;
+        }
+    }
+}
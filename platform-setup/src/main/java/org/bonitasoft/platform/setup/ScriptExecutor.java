@@ -19,17 +19,32 @@ import static org.bonitasoft.platform.setup.PlatformSetup.PLATFORM_CONF_FOLDER_N
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.naming.NamingException;
 import javax.sql.DataSource;
 
+import org.apache.commons.io.IOUtils;
 import org.bonitasoft.platform.exception.PlatformException;
+import org.bonitasoft.platform.setup.generator.DataGenerator;
+import org.bonitasoft.platform.setup.generator.GenerationPlan;
+import org.bonitasoft.platform.setup.schema.ExpectedSchema;
+import org.bonitasoft.platform.setup.schema.SchemaDifference;
+import org.bonitasoft.platform.setup.schema.SchemaVerifier;
+import org.bonitasoft.platform.setup.stats.StatisticsCollector;
+import org.bonitasoft.platform.setup.stats.TableStatistics;
 import org.bonitasoft.platform.version.VersionService;
 import org.bonitasoft.platform.version.impl.VersionServiceImpl;
 import org.slf4j.Logger;
@@ -42,8 +57,14 @@ import org.springframework.core.io.Resource;
 import org.springframework.core.io.UrlResource;
 import org.springframework.dao.DataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
 import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
 
 /**
  * @author Emmanuel Duchastenier
@@ -56,6 +77,9 @@ public class ScriptExecutor {
 
     public static final boolean FAIL_ON_ERROR = false;
 
+    /**
+     * sql files of every db vendor, see {@link #getSqlFiles(String)} for all files of a db vendor
+     */
     public static final String[] ALL_SQL_FILES = new String[] { "cleanTables.sql",
             "createQuartzTables.sql",
             "createTables.sql",
@@ -65,7 +89,52 @@ public class ScriptExecutor {
             "initTables.sql",
             "initTenantTables.sql",
             "postCreateStructure.sql",
-            "preDropStructure.sql" };
+            "preDropStructure.sql",
+            "createHighLoadIndexes.sql" };
+
+    /**
+     * sql files only shipped for the db vendors of {@link #PARTITIONING_DB_VENDORS}
+     */
+    public static final String[] PARTITION_SQL_FILES = new String[] { "createPartitionedTables.sql",
+            "createTenantPartitions.sql",
+            "dropTenantPartitions.sql" };
+
+    /**
+     * value of db.schema.profile creating all tables as plain tables
+     */
+    public static final String DEFAULT_SCHEMA_PROFILE = "default";
+
+    /**
+     * value of db.schema.profile creating archive and log tables partitioned by tenant, where the db vendor supports it
+     */
+    public static final String PARTITIONED_SCHEMA_PROFILE = "partitioned";
+
+    /**
+     * db vendors supporting the partitioned schema profile, the only ones having partition scripts
+     */
+    static final List<String> PARTITIONING_DB_VENDORS = Collections.singletonList("postgres");
+
+    /**
+     * value of db.index.profile creating only the indexes of createTables.sql
+     */
+    public static final String DEFAULT_INDEX_PROFILE = "default";
+
+    /**
+     * value of db.index.profile also creating the tenant-leading covering indexes of createHighLoadIndexes.sql
+     */
+    public static final String HIGH_LOAD_INDEX_PROFILE = "high-load";
+
+    public static final int DEFAULT_PURGE_CHUNK_SIZE = 10000;
+
+    public static final int DEFAULT_OFFLOAD_CHUNK_SIZE = 10000;
+
+    public static final int DEFAULT_EXPORT_CHUNK_SIZE = 10000;
+
+    public static final int DEFAULT_IMPORT_BATCH_SIZE = 1000;
+
+    public static final int DEFAULT_GENERATE_BATCH_SIZE = 1000;
+
+    public static final String TENANT_ID_PLACEHOLDER = "${tenantid}";
 
     private final Logger logger = LoggerFactory.getLogger(ScriptExecutor.class);
 
@@ -75,34 +144,85 @@ public class ScriptExecutor {
 
     private final String dbVendor;
 
+    private final String schemaProfile;
+
+    private final String indexProfile;
+
     private VersionService versionService;
 
     @Autowired
-    public ScriptExecutor(@Value("${db.vendor}") String dbVendor) throws NamingException {
-        this(dbVendor, new DataSourceLookup().lookup());
+    public ScriptExecutor(@Value("${db.vendor}") String dbVendor, @Value("${db.schema.profile:default}") String schemaProfile,
+            @Value("${db.index.profile:default}") String indexProfile) throws NamingException {
+        this(dbVendor, new DataSourceLookup().lookup(), schemaProfile, indexProfile);
     }
 
     public ScriptExecutor(String dbVendor, DataSource datasource) {
+        this(dbVendor, datasource, DEFAULT_SCHEMA_PROFILE);
+    }
+
+    public ScriptExecutor(String dbVendor, DataSource datasource, String schemaProfile) {
+        this(dbVendor, datasource, schemaProfile, DEFAULT_INDEX_PROFILE);
+    }
+
+    public ScriptExecutor(String dbVendor, DataSource datasource, String schemaProfile, String indexProfile) {
         if (dbVendor == null) {
             throw new IllegalArgumentException("dbVendor is null");
         }
+        if (!DEFAULT_SCHEMA_PROFILE.equals(schemaProfile) && !PARTITIONED_SCHEMA_PROFILE.equals(schemaProfile)) {
+            throw new IllegalArgumentException("unsupported schema profile:" + schemaProfile);
+        }
+        if (!DEFAULT_INDEX_PROFILE.equals(indexProfile) && !HIGH_LOAD_INDEX_PROFILE.equals(indexProfile)) {
+            throw new IllegalArgumentException("unsupported index profile:" + indexProfile);
+        }
         this.dbVendor = dbVendor;
         this.datasource = datasource;
-        logger.info("configuration for Database vendor: " + dbVendor);
+        this.schemaProfile = schemaProfile;
+        this.indexProfile = indexProfile;
+        logger.info("configuration for Database vendor: " + dbVendor + ", schema profile: " + schemaProfile + ", index profile: " + indexProfile);
+        if (PARTITIONED_SCHEMA_PROFILE.equals(schemaProfile) && !PARTITIONING_DB_VENDORS.contains(dbVendor)) {
+            logger.warn("schema profile " + PARTITIONED_SCHEMA_PROFILE + " is not supported on " + dbVendor
+                    + ", archive and log tables are created with the " + DEFAULT_SCHEMA_PROFILE + " schema profile");
+        }
         this.sqlFolder = "/sql/" + dbVendor;
         JdbcTemplate jdbcTemplate = new JdbcTemplate(datasource);
         this.versionService = new VersionServiceImpl(jdbcTemplate);
     }
 
+    /**
+     * @return names of all the sql files of given db vendor
+     */
+    public static List<String> getSqlFiles(String dbVendor) {
+        final List<String> sqlFiles = new ArrayList<>(asList(ALL_SQL_FILES));
+        if (PARTITIONING_DB_VENDORS.contains(dbVendor)) {
+            sqlFiles.addAll(asList(PARTITION_SQL_FILES));
+        }
+        return sqlFiles;
+    }
+
     public void createTables() throws PlatformException {
+        final List<String> sqlFiles = new ArrayList<>(asList("dropQuartzTables.sql", "dropTables.sql", "createTables.sql"));
+        if (isPartitioned()) {
+            sqlFiles.add("createPartitionedTables.sql");
+        }
+        sqlFiles.addAll(asList("createQuartzTables.sql", "postCreateStructure.sql"));
+        if (isHighLoad()) {
+            sqlFiles.add("createHighLoadIndexes.sql");
+        }
         try {
-            executeSQLResources(asList("dropQuartzTables.sql", "dropTables.sql", "createTables.sql", "createQuartzTables.sql", "postCreateStructure.sql"),
-                    FAIL_ON_ERROR);
+            executeSQLResources(sqlFiles, FAIL_ON_ERROR);
         } catch (final IOException | SQLException e) {
             throw new PlatformException(e);
         }
     }
 
+    private boolean isPartitioned() {
+        return PARTITIONED_SCHEMA_PROFILE.equals(schemaProfile) && PARTITIONING_DB_VENDORS.contains(dbVendor);
+    }
+
+    private boolean isHighLoad() {
+        return HIGH_LOAD_INDEX_PROFILE.equals(indexProfile);
+    }
+
     public void createAndInitializePlatformIfNecessary() throws PlatformException {
         if (!isPlatformAlreadyCreated()) {
             createTables();
@@ -209,6 +329,266 @@ public class ScriptExecutor {
         }
     }
 
+    /**
+     * run initTenantTables.sql for all given tenants at once, in a single transaction.
+     * The script is parsed once, and each of its statements is sent as one JDBC batch holding a row per tenant, with the tenant id bound
+     * where the script has ${tenantid}.
+     * With the partitioned schema profile, createTenantPartitions.sql is run first for each tenant.
+     *
+     * @param tenantIds ids of the tenants to initialize
+     * @throws PlatformException
+     */
+    public void initializeTenants(final Collection<Long> tenantIds) throws PlatformException {
+        if (tenantIds.isEmpty()) {
+            return;
+        }
+        if (isPartitioned()) {
+            for (Long tenantId : tenantIds) {
+                executeTenantScript("createTenantPartitions.sql", tenantId);
+            }
+        }
+        final List<String> statements = splitSQLResource("initTenantTables.sql");
+        final JdbcTemplate jdbcTemplate = new JdbcTemplate(datasource);
+        new TransactionTemplate(new DataSourceTransactionManager(datasource)).execute(new TransactionCallbackWithoutResult() {
+
+            @Override
+            protected void doInTransactionWithoutResult(TransactionStatus status) {
+                for (String statement : statements) {
+                    final int placeholders = StringUtils.countOccurrencesOf(statement, TENANT_ID_PLACEHOLDER);
+                    final List<Object[]> batchArgs = new ArrayList<>(tenantIds.size());
+                    for (Long tenantId : tenantIds) {
+                        final Object[] args = new Object[placeholders];
+                        Arrays.fill(args, tenantId);
+                        batchArgs.add(args);
+                    }
+                    jdbcTemplate.batchUpdate(statement.replace(TENANT_ID_PLACEHOLDER, "?"), batchArgs);
+                }
+            }
+        });
+        logger.info("Initialized " + tenantIds.size() + " tenants with " + statements.size() + " batched statements of initTenantTables.sql");
+    }
+
+    /**
+     * delete all rows of a tenant, as deleteTenantObjects.sql does, by chunks of at most chunkSize ids per table, each in its own transaction.
+     * A purge interrupted by a crash resumes where it stopped when called again for the same tenant.
+     * With the partitioned schema profile, the partitions of the tenant are dropped first, leaving nothing to delete in them.
+     *
+     * @param tenantId id of the tenant to purge
+     * @param chunkSize maximum number of ids deleted per transaction
+     * @return number of rows deleted
+     * @throws PlatformException
+     */
+    public long purgeTenant(long tenantId, int chunkSize) throws PlatformException {
+        if (isPartitioned()) {
+            executeTenantScript("dropTenantPartitions.sql", tenantId);
+        }
+        final TenantPurgePlan plan;
+        try {
+            plan = TenantPurgePlan.parse(readSQLResource("deleteTenantObjects.sql"), readSQLResource("postCreateStructure.sql"));
+        } catch (IOException e) {
+            throw new PlatformException(e);
+        }
+        logger.info("Purging tenant " + tenantId + " from " + plan.getTables().size() + " tables, by chunks of " + chunkSize + " ids");
+        return new TenantPurger(datasource, plan, chunkSize, getPurgeCheckpointFile(tenantId)).purge(tenantId);
+    }
+
+    /**
+     * write rows of the archive tables archived before cutoffDate to gzipped CSV files, one per tenant, table and day, then delete them from the
+     * database by chunks of at most chunkSize ids, each in its own transaction.
+     *
+     * @param cutoffDate timestamp, in milliseconds, before which archived rows are offloaded
+     * @param outputFolder folder where files are written, created if needed
+     * @param chunkSize maximum number of ids read and deleted per transaction
+     * @return number of rows offloaded
+     * @throws PlatformException
+     */
+    public long offloadArchives(long cutoffDate, Path outputFolder, int chunkSize) throws PlatformException {
+        logger.info("Offloading rows of " + ArchiveOffloader.ARCHIVE_TABLES.size() + " archive tables to " + outputFolder + ", by chunks of " + chunkSize
+                + " ids");
+        return new ArchiveOffloader(datasource, outputFolder, chunkSize).offload(cutoffDate);
+    }
+
+    /**
+     * add rows of queriable_log logged before cutoffDate to the daily counts of queriable_log_day, then delete them and their parameters, by
+     * chunks of at most chunkSize ids, each in its own transaction.
+     *
+     * @param cutoffDate timestamp, in milliseconds, before which logs are rolled up
+     * @param offloadFolder folder where rows are written to gzipped CSV files before being deleted, or null not to keep them
+     * @param chunkSize maximum number of ids rolled up per transaction
+     * @return number of logs rolled up
+     * @throws PlatformException
+     */
+    public long rollupQueriableLogs(long cutoffDate, Path offloadFolder, int chunkSize) throws PlatformException {
+        logger.info("Rolling up queriable logs into daily counts" + (offloadFolder == null ? "" : ", offloading them to " + offloadFolder) + ", by chunks of "
+                + chunkSize + " ids");
+        return new QueriableLogRollup(datasource, offloadFolder, chunkSize).rollup(cutoffDate);
+    }
+
+    /**
+     * write all rows of a tenant to a gzipped file: its row of table tenant, its rows of the tables purged by deleteTenantObjects.sql, parents
+     * before children, and its rows of table configuration.
+     *
+     * @param tenantId id of the tenant to export
+     * @param file file to write, replaced if it exists
+     * @param chunkSize maximum number of ids read per query
+     * @return number of rows exported
+     * @throws PlatformException
+     */
+    public long exportTenant(long tenantId, Path file, int chunkSize) throws PlatformException {
+        final TenantPurgePlan plan;
+        try {
+            plan = TenantPurgePlan.parse(readSQLResource("deleteTenantObjects.sql"), readSQLResource("postCreateStructure.sql"));
+        } catch (IOException e) {
+            throw new PlatformException(e);
+        }
+        // import follows file order: referenced tables first, i.e. purge order reversed
+        final Map<String, String> tenantColumns = new LinkedHashMap<>();
+        tenantColumns.put("tenant", "id");
+        final List<String> tables = new ArrayList<>(plan.getTables());
+        Collections.reverse(tables);
+        for (String table : tables) {
+            tenantColumns.put(table, "tenantid");
+        }
+        tenantColumns.put("configuration", "tenant_id");
+        logger.info("Exporting tenant " + tenantId + " from " + tenantColumns.size() + " tables to " + file + ", by chunks of " + chunkSize + " ids");
+        return new TenantExporter(datasource, tenantColumns, chunkSize).export(tenantId, file);
+    }
+
+    /**
+     * insert the rows of a file written by {@link #exportTenant(long, Path, int)}, with batches of at most batchSize rows, each committed in its
+     * own transaction.
+     *
+     * @param file file to read
+     * @param newTenantId id given to the imported tenant, or null to keep the exported one
+     * @param newTenantName name given to the imported tenant, or null to keep the exported one
+     * @param batchSize maximum number of rows per batch
+     * @return number of rows imported
+     * @throws PlatformException if a tenant with the same id or name already exists, or if the file cannot be imported
+     */
+    public long importTenant(Path file, Long newTenantId, String newTenantName, int batchSize) throws PlatformException {
+        logger.info("Importing tenant from " + file + (newTenantId == null ? "" : " as tenant " + newTenantId)
+                + (newTenantName == null ? "" : " named " + newTenantName) + ", by batches of " + batchSize + " rows");
+        return new TenantImporter(datasource, batchSize).importTenant(file, newTenantId, newTenantName);
+    }
+
+    /**
+     * compare tables, columns, primary keys, foreign keys and indexes of the database with the ones createTables.sql and postCreateStructure.sql
+     * of the current db vendor and schema profile would create.
+     *
+     * @return differences found, empty if the database matches the scripts
+     * @throws PlatformException
+     */
+    public List<SchemaDifference> verifySchema() throws PlatformException {
+        final ExpectedSchema expectedSchema = getExpectedSchema();
+        logger.info("Verifying " + expectedSchema.getTables().size() + " tables against the sql scripts of " + dbVendor);
+        try {
+            return new SchemaVerifier(datasource).verify(expectedSchema);
+        } catch (DataAccessException e) {
+            throw new PlatformException("Unable to read database metadata", e);
+        }
+    }
+
+    /**
+     * count rows and sum binary column sizes per tenant, and read the storage size, of each table created by createTables.sql.
+     *
+     * @param threads maximum number of tables read at the same time
+     * @return statistics of each table
+     * @throws PlatformException
+     */
+    public List<TableStatistics> collectStatistics(int threads) throws PlatformException {
+        final ExpectedSchema expectedSchema = getExpectedSchema();
+        logger.info("Collecting statistics of " + expectedSchema.getTables().size() + " tables, reading at most " + threads + " tables at a time");
+        try {
+            return new StatisticsCollector(datasource, dbVendor, threads).collect(expectedSchema);
+        } catch (DataAccessException e) {
+            throw new PlatformException("Unable to read database metadata", e);
+        }
+    }
+
+    /**
+     * create the tenants of the plan, numbered after the existing ones, initialize them as initTenantTables.sql does, and fill them with the
+     * synthetic process instances, flow nodes, archives, data instances and queriable logs of the plan.
+     * Sequences of the new tenants are moved after the generated ids.
+     *
+     * @param threads maximum number of chunks of process instances inserted at the same time
+     * @return ids of the tenants created
+     * @throws PlatformException
+     */
+    public List<Long> generateData(GenerationPlan plan, int threads) throws PlatformException {
+        final JdbcTemplate jdbcTemplate = new JdbcTemplate(datasource);
+        final List<Long> tenantIds = new ArrayList<>();
+        try {
+            final Long maxTenantId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM tenant", Long.class);
+            final long firstTenantId = maxTenantId == null ? 1 : maxTenantId + 1;
+            for (long tenantId = firstTenantId; tenantId < firstTenantId + plan.getTenants(); tenantId++) {
+                jdbcTemplate.update("INSERT INTO tenant (id, created, createdBy, defaultTenant, name, status) VALUES (?, ?, ?, ?, ?, ?)", tenantId,
+                        System.currentTimeMillis(), "platform-setup", maxTenantId == null && tenantId == firstTenantId, "generated" + tenantId,
+                        "ACTIVATED");
+                tenantIds.add(tenantId);
+            }
+            initializeTenants(tenantIds);
+            logger.info("Generating " + plan + " in tenants " + tenantIds);
+            new DataGenerator(datasource, threads, DEFAULT_GENERATE_BATCH_SIZE).generate(plan, tenantIds);
+            for (Long tenantId : tenantIds) {
+                jdbcTemplate.update("UPDATE sequence SET nextid = ? WHERE tenantid = ?", plan.getMaxId() + 1, tenantId);
+            }
+        } catch (DataAccessException e) {
+            throw new PlatformException("Unable to generate data", e);
+        }
+        return tenantIds;
+    }
+
+    /**
+     * @return tables, keys and indexes the sql scripts of the db vendor, schema profile and index profile create
+     */
+    private ExpectedSchema getExpectedSchema() throws PlatformException {
+        final List<String> statements = new ArrayList<>(splitSQLResource("createTables.sql"));
+        if (isPartitioned()) {
+            statements.addAll(splitSQLResource("createPartitionedTables.sql"));
+        }
+        statements.addAll(splitSQLResource("postCreateStructure.sql"));
+        if (isHighLoad()) {
+            statements.addAll(splitSQLResource("createHighLoadIndexes.sql"));
+        }
+        return ExpectedSchema.parse(statements);
+    }
+
+    /**
+     * run the statements of a script one by one, outside of any transaction, replacing ${tenantid} by the tenant id
+     */
+    private void executeTenantScript(String sqlFile, long tenantId) throws PlatformException {
+        final JdbcTemplate jdbcTemplate = new JdbcTemplate(datasource);
+        final List<String> statements = splitSQLResource(sqlFile);
+        for (String statement : statements) {
+            jdbcTemplate.execute(statement.replace(TENANT_ID_PLACEHOLDER, String.valueOf(tenantId)));
+        }
+        logger.info("Executed " + statements.size() + " statements of " + sqlFile + " for tenant " + tenantId);
+    }
+
+    private List<String> splitSQLResource(String sqlFile) throws PlatformException {
+        final List<String> statements = new ArrayList<>();
+        try {
+            ScriptUtils.splitSqlScript(null, readSQLResource(sqlFile), getSeparator(), ScriptUtils.DEFAULT_COMMENT_PREFIX,
+                    ScriptUtils.DEFAULT_BLOCK_COMMENT_START_DELIMITER, ScriptUtils.DEFAULT_BLOCK_COMMENT_END_DELIMITER, statements);
+        } catch (IOException e) {
+            throw new PlatformException(e);
+        }
+        return statements;
+    }
+
+    private String readSQLResource(String sqlFile) throws IOException {
+        try (InputStream inputStream = getSQLResource(sqlFolder, sqlFile).getInputStream()) {
+            return IOUtils.toString(inputStream, StandardCharsets.UTF_8);
+        }
+    }
+
+    private Path getPurgeCheckpointFile(long tenantId) {
+        final String setupFolderPath = System.getProperty(BONITA_SETUP_FOLDER);
+        final Path platformConfFolder = setupFolderPath != null ? Paths.get(setupFolderPath).resolve(PLATFORM_CONF_FOLDER_NAME)
+                : Paths.get(PLATFORM_CONF_FOLDER_NAME);
+        return platformConfFolder.resolve("purge-tenant-" + tenantId + ".checkpoint");
+    }
+
     public void deleteTables() throws PlatformException {
         try {
             executeSQLResources(asList("preDropStructure.sql", "dropQuartzTables.sql", "dropTables.sql"), CONTINUE_ON_ERROR);
@@ -0,0 +1,153 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.setup;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * layout of the files written by {@link TenantExporter} and read by {@link TenantImporter}, inside a gzip stream:
+ * <ul>
+ * <li>header: {@link #MAGIC}, {@link #VERSION}, id of the exported tenant</li>
+ * <li>for each table: true, table name, name of the tenant id column, number of columns and column names, then for each row: true and one tagged
+ * value per column, then false</li>
+ * <li>false once all tables are written</li>
+ * </ul>
+ * Values are tagged with their type rather than with the sql type of their column, so that a file can be imported on another db vendor.
+ *
+ * @author Laurent Leseigneur
+ */
+class TenantDataFormat {
+
+    static final String MAGIC = "bonita-tenant-export";
+
+    static final int VERSION = 1;
+
+    private static final byte NULL = 0;
+
+    private static final byte LONG = 1;
+
+    private static final byte DECIMAL = 2;
+
+    private static final byte DOUBLE = 3;
+
+    private static final byte BOOLEAN = 4;
+
+    private static final byte STRING = 5;
+
+    private static final byte BYTES = 6;
+
+    private static final byte TIMESTAMP = 7;
+
+    private static final BigDecimal MIN_LONG = BigDecimal.valueOf(Long.MIN_VALUE);
+
+    private static final BigDecimal MAX_LONG = BigDecimal.valueOf(Long.MAX_VALUE);
+
+    private TenantDataFormat() {
+    }
+
+    static void writeValue(DataOutputStream output, Object value) throws IOException, SQLException {
+        if (value == null) {
+            output.writeByte(NULL);
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            writeLong(output, ((Number) value).longValue());
+        } else if (value instanceof BigInteger) {
+            writeDecimal(output, new BigDecimal((BigInteger) value));
+        } else if (value instanceof BigDecimal) {
+            writeDecimal(output, (BigDecimal) value);
+        } else if (value instanceof Double || value instanceof Float) {
+            output.writeByte(DOUBLE);
+            output.writeDouble(((Number) value).doubleValue());
+        } else if (value instanceof Boolean) {
+            output.writeByte(BOOLEAN);
+            output.writeBoolean((Boolean) value);
+        } else if (value instanceof byte[]) {
+            writeBytes(output, BYTES, (byte[]) value);
+        } else if (value instanceof Blob) {
+            final Blob blob = (Blob) value;
+            writeBytes(output, BYTES, blob.getBytes(1, (int) blob.length()));
+        } else if (value instanceof Clob) {
+            try (Reader reader = ((Clob) value).getCharacterStream()) {
+                writeBytes(output, STRING, IOUtils.toString(reader).getBytes(StandardCharsets.UTF_8));
+            }
+        } else if (value instanceof java.util.Date) {
+            output.writeByte(TIMESTAMP);
+            output.writeLong(((java.util.Date) value).getTime());
+        } else {
+            writeBytes(output, STRING, value.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static void writeLong(DataOutputStream output, long value) throws IOException {
+        output.writeByte(LONG);
+        output.writeLong(value);
+    }
+
+    private static void writeDecimal(DataOutputStream output, BigDecimal value) throws IOException {
+        // some vendors, e.g. Oracle, return all integer columns as decimals:
+        if (value.signum() == 0 || value.stripTrailingZeros().scale() <= 0 && value.compareTo(MIN_LONG) >= 0 && value.compareTo(MAX_LONG) <= 0) {
+            writeLong(output, value.longValue());
+        } else {
+            output.writeByte(DECIMAL);
+            output.writeUTF(value.toString());
+        }
+    }
+
+    private static void writeBytes(DataOutputStream output, byte tag, byte[] bytes) throws IOException {
+        output.writeByte(tag);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    static Object readValue(DataInputStream input) throws IOException {
+        final byte tag = input.readByte();
+        switch (tag) {
+            case NULL:
+                return null;
+            case LONG:
+                return input.readLong();
+            case DECIMAL:
+                return new BigDecimal(input.readUTF());
+            case DOUBLE:
+                return input.readDouble();
+            case BOOLEAN:
+                return input.readBoolean();
+            case STRING:
+                return new String(readBytes(input), StandardCharsets.UTF_8);
+            case BYTES:
+                return readBytes(input);
+            case TIMESTAMP:
+                return new Timestamp(input.readLong());
+            default:
+                throw new IOException("Unknown value type " + tag + ", file is corrupted or was written by a newer version");
+        }
+    }
+
+    private static byte[] readBytes(DataInputStream input) throws IOException {
+        final byte[] bytes = new byte[input.readInt()];
+        input.readFully(bytes);
+        return bytes;
+    }
+}
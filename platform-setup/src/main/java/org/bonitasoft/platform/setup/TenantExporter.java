@@ -0,0 +1,184 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.setup;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import javax.sql.DataSource;
+
+import org.bonitasoft.platform.exception.PlatformException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * writes all rows of a tenant to a single gzipped file, table after table, in the format described by {@link TenantDataFormat}.
+ * <p/>
+ * Tables having tenantid and id in their primary key are read by ranges of at most chunkSize ids, following the primary key, like
+ * {@link TenantPurger} deletes them. Other tables are read with a single query. Rows are written as they are read, so memory use does not depend
+ * on table size. All tables are read in the same transaction, and the file only gets its final name once complete.
+ *
+ * @author Laurent Leseigneur
+ */
+public class TenantExporter {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(TenantExporter.class);
+
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final String RANGE_KEY_COLUMN = "id";
+
+    private final DataSource dataSource;
+
+    private final Map<String, String> tenantColumns;
+
+    private final int chunkSize;
+
+    /**
+     * @param tenantColumns name of the column holding the tenant id, by table, in export order
+     */
+    public TenantExporter(DataSource dataSource, Map<String, String> tenantColumns, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunk size must be greater than 0, was " + chunkSize);
+        }
+        this.dataSource = dataSource;
+        this.tenantColumns = tenantColumns;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * @return number of rows exported
+     */
+    public long export(long tenantId, Path file) throws PlatformException {
+        final long start = System.currentTimeMillis();
+        final Map<String, Boolean> readByRanges = new HashMap<>();
+        for (Map.Entry<String, String> table : tenantColumns.entrySet()) {
+            readByRanges.put(table.getKey(), "tenantid".equals(table.getValue())
+                    && RANGE_KEY_COLUMN.equals(TenantPurger.getRangeKeyColumn(dataSource, table.getKey())));
+        }
+        final Path temporaryFile = file.resolveSibling(file.getFileName() + ".tmp");
+        long exportedRows = 0;
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            try (Connection connection = dataSource.getConnection();
+                    DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(temporaryFile),
+                            BUFFER_SIZE), BUFFER_SIZE))) {
+                connection.setAutoCommit(false);
+                output.writeUTF(TenantDataFormat.MAGIC);
+                output.writeInt(TenantDataFormat.VERSION);
+                output.writeLong(tenantId);
+                for (Map.Entry<String, String> table : tenantColumns.entrySet()) {
+                    final long tableStart = System.currentTimeMillis();
+                    final long tableRows = exportTable(connection, output, table.getKey(), table.getValue(), tenantId, readByRanges.get(table.getKey()));
+                    if (tableRows > 0) {
+                        LOGGER.info(String.format("tenant %d: %d rows exported from %s, %d rows/s", tenantId, tableRows, table.getKey(),
+                                rowsPerSecond(tableRows, tableStart)));
+                    }
+                    exportedRows += tableRows;
+                }
+                output.writeBoolean(false);
+                // nothing was written, only ends the read transaction:
+                connection.commit();
+            }
+            Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | SQLException e) {
+            throw new PlatformException("Unable to export tenant " + tenantId + " to " + file, e);
+        }
+        LOGGER.info(String.format("Tenant %d exported: %d rows from %d tables, %d rows/s", tenantId, exportedRows, tenantColumns.size(),
+                rowsPerSecond(exportedRows, start)));
+        return exportedRows;
+    }
+
+    private long exportTable(Connection connection, DataOutputStream output, String table, String tenantColumn, long tenantId, boolean byRanges)
+            throws SQLException, IOException {
+        output.writeBoolean(true);
+        output.writeUTF(table);
+        output.writeUTF(tenantColumn);
+        try (PreparedStatement statement = connection.prepareStatement("SELECT * FROM " + table + " WHERE 1 = 0");
+                ResultSet resultSet = statement.executeQuery()) {
+            final ResultSetMetaData metaData = resultSet.getMetaData();
+            output.writeInt(metaData.getColumnCount());
+            for (int column = 1; column <= metaData.getColumnCount(); column++) {
+                output.writeUTF(metaData.getColumnLabel(column).toLowerCase());
+            }
+        }
+        long rows = 0;
+        if (!byRanges) {
+            rows = writeRows(connection, output, "SELECT * FROM " + table + " WHERE " + tenantColumn + " = ?", tenantId);
+        } else {
+            Long lowerKey = getNextKey(connection, table, tenantId, null);
+            while (lowerKey != null) {
+                final long upperKey = lowerKey + chunkSize;
+                rows += writeRows(connection, output, "SELECT * FROM " + table + " WHERE tenantid = ? AND " + RANGE_KEY_COLUMN + " >= ? AND "
+                        + RANGE_KEY_COLUMN + " < ? ORDER BY " + RANGE_KEY_COLUMN, tenantId, lowerKey, upperKey);
+                lowerKey = getNextKey(connection, table, tenantId, upperKey - 1);
+            }
+        }
+        output.writeBoolean(false);
+        return rows;
+    }
+
+    private long writeRows(Connection connection, DataOutputStream output, String sql, Object... args) throws SQLException, IOException {
+        long rows = 0;
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setFetchSize(Math.min(chunkSize, 1000));
+            for (int i = 0; i < args.length; i++) {
+                statement.setObject(i + 1, args[i]);
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                final int columnCount = resultSet.getMetaData().getColumnCount();
+                while (resultSet.next()) {
+                    output.writeBoolean(true);
+                    for (int column = 1; column <= columnCount; column++) {
+                        TenantDataFormat.writeValue(output, resultSet.getObject(column));
+                    }
+                    rows++;
+                }
+            }
+        }
+        return rows;
+    }
+
+    private Long getNextKey(Connection connection, String table, long tenantId, Long afterKey) throws SQLException {
+        final String sql = "SELECT MIN(" + RANGE_KEY_COLUMN + ") FROM " + table + " WHERE tenantid = ?"
+                + (afterKey == null ? "" : " AND " + RANGE_KEY_COLUMN + " > ?");
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, tenantId);
+            if (afterKey != null) {
+                statement.setLong(2, afterKey);
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                final long key = resultSet.getLong(1);
+                return resultSet.wasNull() ? null : key;
+            }
+        }
+    }
+
+    private static long rowsPerSecond(long rows, long since) {
+        return rows * 1000 / Math.max(1, System.currentTimeMillis() - since);
+    }
+}
@@ -0,0 +1,244 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.setup;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import javax.sql.DataSource;
+
+import org.bonitasoft.platform.exception.PlatformException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * loads a file written by {@link TenantExporter} into the database, table after table in file order, which is foreign key order.
+ * <p/>
+ * Rows are read one at a time and inserted with JDBC batches of at most batchSize rows, each batch committed in its own transaction. The tenant id
+ * column of each table, and columns ending with _tenantid or _tenant_id, can be given a new tenant id, so that a tenant can be imported on a
+ * platform already having a tenant with the same id. The row of the tenant table can likewise be given a new name, as tenant names are unique.
+ * The imported tenant is never made the default tenant of a platform already having one.
+ *
+ * @author Laurent Leseigneur
+ */
+public class TenantImporter {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(TenantImporter.class);
+
+    private static final String TENANT_TABLE = "tenant";
+
+    private static final String TENANT_NAME_COLUMN = "name";
+
+    private static final String DEFAULT_TENANT_COLUMN = "defaulttenant";
+
+    private final DataSource dataSource;
+
+    private final int batchSize;
+
+    public TenantImporter(DataSource dataSource, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batch size must be greater than 0, was " + batchSize);
+        }
+        this.dataSource = dataSource;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * @param newTenantId id given to the imported tenant, or null to keep the exported one
+     * @param newTenantName name given to the imported tenant, or null to keep the exported one
+     * @return number of rows imported
+     */
+    public long importTenant(Path file, Long newTenantId, String newTenantName) throws PlatformException {
+        final long start = System.currentTimeMillis();
+        long importedRows = 0;
+        int tables = 0;
+        long tenantId = -1;
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(file),
+                TenantExporter.BUFFER_SIZE), TenantExporter.BUFFER_SIZE));
+                Connection connection = dataSource.getConnection()) {
+            if (!TenantDataFormat.MAGIC.equals(input.readUTF()) || input.readInt() != TenantDataFormat.VERSION) {
+                throw new PlatformException("File " + file + " is not a tenant export of this version");
+            }
+            final long exportedTenantId = input.readLong();
+            tenantId = newTenantId != null ? newTenantId : exportedTenantId;
+            if (count(connection, "SELECT COUNT(*) FROM tenant WHERE id = ?", tenantId) > 0) {
+                throw new PlatformException("Tenant " + tenantId + " already exists. Import it with another tenant id.");
+            }
+            final boolean hasDefaultTenant = count(connection, "SELECT COUNT(*) FROM tenant WHERE defaultTenant = ?", true) > 0;
+            final TenantRow tenantRow = new TenantRow(newTenantName, hasDefaultTenant);
+            connection.setAutoCommit(false);
+            try {
+                while (input.readBoolean()) {
+                    importedRows += importTable(connection, input, tenantId, tenantRow);
+                    tables++;
+                }
+            } finally {
+                // the uncommitted batch of a failed import, and the locks taken by reads, must not stay on the pooled connection:
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+        } catch (IOException | SQLException e) {
+            throw new PlatformException("Unable to import tenant " + tenantId + " from " + file
+                    + ". Batches already committed must be deleted, e.g. by purging the tenant, before importing it again", e);
+        }
+        LOGGER.info(String.format("Tenant %d imported: %d rows in %d tables, %d rows/s", tenantId, importedRows, tables, rowsPerSecond(importedRows, start)));
+        return importedRows;
+    }
+
+    private static long count(Connection connection, String query, Object parameter) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(query)) {
+            statement.setObject(1, parameter);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                return resultSet.getLong(1);
+            }
+        }
+    }
+
+    private long importTable(Connection connection, DataInputStream input, long tenantId, TenantRow tenantRow) throws IOException, SQLException,
+            PlatformException {
+        final long tableStart = System.currentTimeMillis();
+        final String table = input.readUTF();
+        final String tenantColumn = input.readUTF();
+        final String[] columns = new String[input.readInt()];
+        final boolean[] tenantIdColumns = new boolean[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = input.readUTF();
+            tenantIdColumns[i] = columns[i].equals(tenantColumn) || columns[i].endsWith("_tenantid") || columns[i].endsWith("_tenant_id");
+        }
+        final int[] columnTypes = getColumnTypes(connection, table, columns);
+        final StringBuilder insert = new StringBuilder("INSERT INTO ").append(table).append(" (");
+        final StringBuilder parameters = new StringBuilder();
+        for (int i = 0; i < columns.length; i++) {
+            insert.append(i > 0 ? ", " : "").append(columns[i]);
+            parameters.append(i > 0 ? ", ?" : "?");
+        }
+        insert.append(") VALUES (").append(parameters).append(')');
+        long rows = 0;
+        int batchedRows = 0;
+        try (PreparedStatement statement = connection.prepareStatement(insert.toString())) {
+            while (input.readBoolean()) {
+                for (int i = 0; i < columns.length; i++) {
+                    Object value = TenantDataFormat.readValue(input);
+                    if (value != null && tenantIdColumns[i]) {
+                        value = tenantId;
+                    } else if (TENANT_TABLE.equals(table)) {
+                        value = tenantRow.rewrite(connection, columns[i], value);
+                    }
+                    setParameter(statement, i + 1, value, columnTypes[i]);
+                }
+                statement.addBatch();
+                rows++;
+                if (++batchedRows == batchSize) {
+                    statement.executeBatch();
+                    connection.commit();
+                    batchedRows = 0;
+                }
+            }
+            if (batchedRows > 0) {
+                statement.executeBatch();
+                connection.commit();
+            }
+        }
+        if (rows > 0) {
+            LOGGER.info(String.format("tenant %d: %d rows imported into %s, %d rows/s", tenantId, rows, table, rowsPerSecond(rows, tableStart)));
+        }
+        return rows;
+    }
+
+    /**
+     * @return sql types of the columns in the target database, which may not be the one the file was exported from
+     */
+    private int[] getColumnTypes(Connection connection, String table, String[] columns) throws SQLException {
+        final Map<String, Integer> typesByColumn = new HashMap<>();
+        try (PreparedStatement statement = connection.prepareStatement("SELECT * FROM " + table + " WHERE 1 = 0");
+                ResultSet resultSet = statement.executeQuery()) {
+            final ResultSetMetaData metaData = resultSet.getMetaData();
+            for (int column = 1; column <= metaData.getColumnCount(); column++) {
+                typesByColumn.put(metaData.getColumnLabel(column).toLowerCase(), metaData.getColumnType(column));
+            }
+        }
+        final int[] columnTypes = new int[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            if (!typesByColumn.containsKey(columns[i])) {
+                throw new SQLException("Column " + columns[i] + " of the file does not exist in table " + table);
+            }
+            columnTypes[i] = typesByColumn.get(columns[i]);
+        }
+        return columnTypes;
+    }
+
+    private void setParameter(PreparedStatement statement, int index, Object value, int columnType) throws SQLException {
+        if (value == null) {
+            statement.setNull(index, columnType);
+        } else if (columnType == Types.BOOLEAN || columnType == Types.BIT) {
+            // booleans are numbers on some vendors, e.g. Oracle:
+            statement.setBoolean(index, value instanceof Boolean ? (Boolean) value : ((Number) value).intValue() != 0);
+        } else if (value instanceof Boolean) {
+            statement.setInt(index, (Boolean) value ? 1 : 0);
+        } else {
+            statement.setObject(index, value);
+        }
+    }
+
+    /**
+     * values of the row of the tenant table that can not be imported as exported
+     */
+    private static class TenantRow {
+
+        private final String newTenantName;
+
+        private final boolean targetHasDefaultTenant;
+
+        TenantRow(String newTenantName, boolean targetHasDefaultTenant) {
+            this.newTenantName = newTenantName;
+            this.targetHasDefaultTenant = targetHasDefaultTenant;
+        }
+
+        Object rewrite(Connection connection, String column, Object value) throws SQLException, PlatformException {
+            if (TENANT_NAME_COLUMN.equals(column)) {
+                final Object name = newTenantName != null ? newTenantName : value;
+                if (count(connection, "SELECT COUNT(*) FROM tenant WHERE name = ?", name) > 0) {
+                    throw new PlatformException("A tenant named " + name + " already exists. Import it with another tenant name.");
+                }
+                return name;
+            }
+            if (DEFAULT_TENANT_COLUMN.equals(column) && targetHasDefaultTenant && isTrue(value)) {
+                LOGGER.info("Imported tenant is not made the default tenant, as the platform already has one");
+                return false;
+            }
+            return value;
+        }
+
+        private static boolean isTrue(Object value) {
+            return value instanceof Boolean ? (Boolean) value : value instanceof Number && ((Number) value).intValue() != 0;
+        }
+    }
+
+    private static long rowsPerSecond(long rows, long since) {
+        return rows * 1000 / Math.max(1, System.currentTimeMillis() - since);
+    }
+}
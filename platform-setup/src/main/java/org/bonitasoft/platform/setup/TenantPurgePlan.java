@@ -0,0 +1,118 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.setup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * order in which tables of a tenant are purged: tables deleted by deleteTenantObjects.sql, ordered so that a table is purged after all tables
+ * having a foreign key to it in postCreateStructure.sql. Script order is kept otherwise.
+ *
+ * @author Laurent Leseigneur
+ */
+public class TenantPurgePlan {
+
+    private static final Pattern DELETE_TENANT_OBJECTS = Pattern.compile("DELETE\\s+FROM\\s+(\\w+)\\s+WHERE\\s+tenantid\\s*=", Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern FOREIGN_KEY = Pattern.compile(
+            "ALTER\\s+TABLE\\s+(\\w+)\\s+ADD\\s+CONSTRAINT\\s+\\w+\\s+FOREIGN\\s+KEY\\s*\\([^)]*\\)\\s*REFERENCES\\s+(\\w+)", Pattern.CASE_INSENSITIVE);
+
+    private final List<String> tables;
+
+    private final Set<String> selfReferencingTables;
+
+    TenantPurgePlan(List<String> tables, Set<String> selfReferencingTables) {
+        this.tables = Collections.unmodifiableList(tables);
+        this.selfReferencingTables = Collections.unmodifiableSet(selfReferencingTables);
+    }
+
+    /**
+     * @param deleteTenantObjectsScript content of deleteTenantObjects.sql
+     * @param postCreateStructureScript content of postCreateStructure.sql
+     */
+    public static TenantPurgePlan parse(String deleteTenantObjectsScript, String postCreateStructureScript) {
+        final Set<String> scriptTables = new LinkedHashSet<>();
+        final Matcher deleteMatcher = DELETE_TENANT_OBJECTS.matcher(removeComments(deleteTenantObjectsScript));
+        while (deleteMatcher.find()) {
+            scriptTables.add(deleteMatcher.group(1).toLowerCase());
+        }
+        // referenced table -> tables referencing it
+        final Map<String, Set<String>> referencingTables = new HashMap<>();
+        final Set<String> selfReferencingTables = new HashSet<>();
+        final Matcher foreignKeyMatcher = FOREIGN_KEY.matcher(removeComments(postCreateStructureScript));
+        while (foreignKeyMatcher.find()) {
+            final String table = foreignKeyMatcher.group(1).toLowerCase();
+            final String referencedTable = foreignKeyMatcher.group(2).toLowerCase();
+            if (table.equals(referencedTable)) {
+                selfReferencingTables.add(table);
+            } else if (scriptTables.contains(table) && scriptTables.contains(referencedTable)) {
+                if (!referencingTables.containsKey(referencedTable)) {
+                    referencingTables.put(referencedTable, new HashSet<String>());
+                }
+                referencingTables.get(referencedTable).add(table);
+            }
+        }
+        final List<String> orderedTables = new ArrayList<>();
+        final Set<String> remaining = new LinkedHashSet<>(scriptTables);
+        while (!remaining.isEmpty()) {
+            String next = null;
+            for (String table : remaining) {
+                if (!referencingTables.containsKey(table) || Collections.disjoint(referencingTables.get(table), remaining)) {
+                    next = table;
+                    break;
+                }
+            }
+            if (next == null) {
+                // foreign key cycle, keep script order
+                next = remaining.iterator().next();
+            }
+            remaining.remove(next);
+            orderedTables.add(next);
+        }
+        return new TenantPurgePlan(orderedTables, selfReferencingTables);
+    }
+
+    private static String removeComments(String script) {
+        final StringBuilder withoutComments = new StringBuilder(script.length());
+        for (String line : script.split("\\r?\\n")) {
+            if (!line.trim().startsWith("--")) {
+                withoutComments.append(line).append('\n');
+            }
+        }
+        return withoutComments.toString();
+    }
+
+    /**
+     * @return tables in purge order
+     */
+    public List<String> getTables() {
+        return tables;
+    }
+
+    /**
+     * @return true if rows of the table reference other rows of the same table, which prevents purging it by key ranges
+     */
+    public boolean isSelfReferencing(String table) {
+        return selfReferencingTables.contains(table);
+    }
+}
@@ -0,0 +1,227 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.setup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.Properties;
+import java.util.Set;
+
+import javax.sql.DataSource;
+
+import org.bonitasoft.platform.exception.PlatformException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * deletes all rows of a tenant, table after table, following a {@link TenantPurgePlan}.
+ * <p/>
+ * Tables having tenantid and id in their primary key are purged by ranges of at most chunkSize ids, each range in its own transaction, so that
+ * undo and WAL stay bounded and other tenants are not blocked. Other tables are purged with a single delete.
+ * <p/>
+ * After each committed chunk, the table and the last id purged are written to a checkpoint file. A purge started again on the same tenant resumes
+ * from there, and the checkpoint file is removed once the tenant is fully purged.
+ *
+ * @author Laurent Leseigneur
+ */
+public class TenantPurger {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(TenantPurger.class);
+
+    private static final String RANGE_KEY_COLUMN = "id";
+
+    private static final String CHECKPOINT_TABLE = "table";
+
+    private static final String CHECKPOINT_KEY = "key";
+
+    private static final String CHECKPOINT_DELETED_ROWS = "deletedRows";
+
+    private final DataSource dataSource;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final TenantPurgePlan plan;
+
+    private final int chunkSize;
+
+    private final Path checkpointFile;
+
+    public TenantPurger(DataSource dataSource, TenantPurgePlan plan, int chunkSize, Path checkpointFile) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunk size must be greater than 0, was " + chunkSize);
+        }
+        this.dataSource = dataSource;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        this.plan = plan;
+        this.chunkSize = chunkSize;
+        this.checkpointFile = checkpointFile;
+    }
+
+    /**
+     * @return number of rows deleted, including rows deleted before resuming from a checkpoint
+     */
+    public long purge(long tenantId) throws PlatformException {
+        final long start = System.currentTimeMillis();
+        int firstTable = 0;
+        Long resumeKey = null;
+        long deletedRows = 0;
+        final Properties checkpoint = loadCheckpoint();
+        if (checkpoint != null && plan.getTables().contains(checkpoint.getProperty(CHECKPOINT_TABLE))) {
+            firstTable = plan.getTables().indexOf(checkpoint.getProperty(CHECKPOINT_TABLE));
+            resumeKey = checkpoint.getProperty(CHECKPOINT_KEY) == null ? null : Long.valueOf(checkpoint.getProperty(CHECKPOINT_KEY));
+            deletedRows = Long.parseLong(checkpoint.getProperty(CHECKPOINT_DELETED_ROWS, "0"));
+            LOGGER.info(String.format("Resuming purge of tenant %d from table %s%s", tenantId, checkpoint.getProperty(CHECKPOINT_TABLE),
+                    resumeKey == null ? "" : ", after id " + resumeKey));
+        }
+        for (int i = firstTable; i < plan.getTables().size(); i++) {
+            final String table = plan.getTables().get(i);
+            final long tableStart = System.currentTimeMillis();
+            final String keyColumn = plan.isSelfReferencing(table) ? null : getRangeKeyColumn(dataSource, table);
+            long tableDeletedRows = 0;
+            int chunks = 0;
+            if (keyColumn == null) {
+                tableDeletedRows = deleteInTransaction("DELETE FROM " + table + " WHERE tenantid = ?", tenantId);
+                chunks++;
+            } else {
+                Long lowerKey = getNextKey(table, keyColumn, tenantId, resumeKey);
+                while (lowerKey != null) {
+                    final long upperKey = lowerKey + chunkSize;
+                    final int deleted = deleteInTransaction("DELETE FROM " + table + " WHERE tenantid = ? AND " + keyColumn + " >= ? AND " + keyColumn + " < ?",
+                            tenantId, lowerKey, upperKey);
+                    tableDeletedRows += deleted;
+                    chunks++;
+                    saveCheckpoint(table, upperKey - 1, deletedRows + tableDeletedRows);
+                    LOGGER.debug(String.format("tenant %d: %d rows deleted from %s, up to id %d", tenantId, tableDeletedRows, table, upperKey - 1));
+                    lowerKey = getNextKey(table, keyColumn, tenantId, upperKey - 1);
+                }
+            }
+            resumeKey = null;
+            deletedRows += tableDeletedRows;
+            if (i + 1 < plan.getTables().size()) {
+                saveCheckpoint(plan.getTables().get(i + 1), null, deletedRows);
+            }
+            if (tableDeletedRows > 0) {
+                LOGGER.info(String.format("tenant %d: %d rows deleted from %s in %d chunks, %d rows/s (table %d/%d)", tenantId, tableDeletedRows, table, chunks,
+                        rowsPerSecond(tableDeletedRows, tableStart), i + 1, plan.getTables().size()));
+            }
+        }
+        deleteCheckpoint();
+        LOGGER.info(String.format("Tenant %d purged: %d rows deleted from %d tables, %d rows/s", tenantId, deletedRows, plan.getTables().size(),
+                rowsPerSecond(deletedRows, start)));
+        return deletedRows;
+    }
+
+    private int deleteInTransaction(final String sql, final Object... args) {
+        return transactionTemplate.execute(new TransactionCallback<Integer>() {
+
+            @Override
+            public Integer doInTransaction(TransactionStatus status) {
+                return jdbcTemplate.update(sql, args);
+            }
+        });
+    }
+
+    private Long getNextKey(String table, String keyColumn, long tenantId, Long afterKey) {
+        if (afterKey == null) {
+            return jdbcTemplate.queryForObject("SELECT MIN(" + keyColumn + ") FROM " + table + " WHERE tenantid = ?", Long.class, tenantId);
+        }
+        return jdbcTemplate.queryForObject("SELECT MIN(" + keyColumn + ") FROM " + table + " WHERE tenantid = ? AND " + keyColumn + " > ?", Long.class,
+                tenantId, afterKey);
+    }
+
+    /**
+     * @return id if the primary key of the table is made of tenantid and id (and possibly other columns), null otherwise
+     */
+    static String getRangeKeyColumn(DataSource dataSource, String table) throws PlatformException {
+        try (Connection connection = dataSource.getConnection()) {
+            final DatabaseMetaData metaData = connection.getMetaData();
+            for (String tableName : new String[] { table, table.toUpperCase() }) {
+                final Set<String> primaryKeyColumns = new HashSet<>();
+                try (ResultSet primaryKeys = metaData.getPrimaryKeys(null, null, tableName)) {
+                    while (primaryKeys.next()) {
+                        primaryKeyColumns.add(primaryKeys.getString("COLUMN_NAME").toLowerCase());
+                    }
+                }
+                if (!primaryKeyColumns.isEmpty()) {
+                    return primaryKeyColumns.contains("tenantid") && primaryKeyColumns.contains(RANGE_KEY_COLUMN) ? RANGE_KEY_COLUMN : null;
+                }
+            }
+            return null;
+        } catch (SQLException e) {
+            throw new PlatformException("Unable to read primary key of table " + table, e);
+        }
+    }
+
+    private static long rowsPerSecond(long rows, long since) {
+        return rows * 1000 / Math.max(1, System.currentTimeMillis() - since);
+    }
+
+    private Properties loadCheckpoint() throws PlatformException {
+        if (!Files.isRegularFile(checkpointFile)) {
+            return null;
+        }
+        final Properties checkpoint = new Properties();
+        try (InputStream inputStream = Files.newInputStream(checkpointFile)) {
+            checkpoint.load(inputStream);
+        } catch (IOException e) {
+            throw new PlatformException("Unable to read tenant purge checkpoint " + checkpointFile, e);
+        }
+        return checkpoint;
+    }
+
+    private void saveCheckpoint(String table, Long key, long deletedRows) throws PlatformException {
+        final Properties checkpoint = new Properties();
+        checkpoint.setProperty(CHECKPOINT_TABLE, table);
+        if (key != null) {
+            checkpoint.setProperty(CHECKPOINT_KEY, String.valueOf(key));
+        }
+        checkpoint.setProperty(CHECKPOINT_DELETED_ROWS, String.valueOf(deletedRows));
+        // write then rename, so that a crash never leaves a truncated checkpoint:
+        final Path temporaryFile = checkpointFile.resolveSibling(checkpointFile.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(checkpointFile.toAbsolutePath().getParent());
+            try (OutputStream outputStream = Files.newOutputStream(temporaryFile)) {
+                checkpoint.store(outputStream, null);
+            }
+            Files.move(temporaryFile, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new PlatformException("Unable to write tenant purge checkpoint " + checkpointFile, e);
+        }
+    }
+
+    private void deleteCheckpoint() throws PlatformException {
+        try {
+            Files.deleteIfExists(checkpointFile);
+        } catch (IOException e) {
+            throw new PlatformException("Unable to delete tenant purge checkpoint " + checkpointFile, e);
+        }
+    }
+}
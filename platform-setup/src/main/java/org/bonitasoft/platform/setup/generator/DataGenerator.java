@@ -0,0 +1,150 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.setup.generator;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.sql.DataSource;
+
+import org.bonitasoft.platform.exception.PlatformException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * fills existing tenants with the synthetic rows of a {@link GenerationPlan}.
+ * <p/>
+ * Process instances of each tenant are split in chunks, generated and inserted in parallel on a fixed number of threads. Each chunk is inserted
+ * in its own transaction, with JDBC batches of at most batchSize rows, so that a single connection per thread is used.
+ * Ids start at 1 in each tenant: tenants must be empty.
+ *
+ * @author Laurent Leseigneur
+ */
+public class DataGenerator {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(DataGenerator.class);
+
+    static final int PROCESS_INSTANCES_PER_CHUNK = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final int threads;
+
+    private final int batchSize;
+
+    /**
+     * @param threads maximum number of chunks inserted at the same time, hence of connections used
+     * @param batchSize maximum number of rows per JDBC batch
+     */
+    public DataGenerator(DataSource dataSource, int threads, int batchSize) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("number of threads must be greater than 0, was " + threads);
+        }
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batch size must be greater than 0, was " + batchSize);
+        }
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        this.threads = threads;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * @return number of rows inserted in each table, in insertion order
+     */
+    public Map<String, Long> generate(final GenerationPlan plan, List<Long> tenantIds) throws PlatformException {
+        final long start = System.currentTimeMillis();
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<Map<SyntheticTable, Integer>>> futures = new ArrayList<>();
+            for (final Long tenantId : tenantIds) {
+                for (long firstId = 1; firstId <= plan.getProcessInstances(); firstId += PROCESS_INSTANCES_PER_CHUNK) {
+                    final long chunkFirstId = firstId;
+                    final long chunkLastId = Math.min(firstId + PROCESS_INSTANCES_PER_CHUNK - 1, plan.getProcessInstances());
+                    futures.add(executor.submit(new Callable<Map<SyntheticTable, Integer>>() {
+
+                        @Override
+                        public Map<SyntheticTable, Integer> call() throws Exception {
+                            // a row generator per chunk: it is not thread safe
+                            return insertChunk(new RowGenerator(plan, tenantId, start), chunkFirstId, chunkLastId);
+                        }
+                    }));
+                }
+            }
+            final Map<SyntheticTable, Long> insertedRows = new EnumMap<>(SyntheticTable.class);
+            for (SyntheticTable table : SyntheticTable.values()) {
+                insertedRows.put(table, 0L);
+            }
+            for (Future<Map<SyntheticTable, Integer>> future : futures) {
+                try {
+                    for (Map.Entry<SyntheticTable, Integer> chunkRows : future.get().entrySet()) {
+                        insertedRows.put(chunkRows.getKey(), insertedRows.get(chunkRows.getKey()) + chunkRows.getValue());
+                    }
+                } catch (ExecutionException e) {
+                    final Throwable cause = e.getCause();
+                    throw new PlatformException("Unable to insert generated rows", cause instanceof Exception ? (Exception) cause : e);
+                }
+            }
+            final Map<String, Long> rowsPerTable = new LinkedHashMap<>();
+            long total = 0;
+            for (Map.Entry<SyntheticTable, Long> tableRows : insertedRows.entrySet()) {
+                rowsPerTable.put(tableRows.getKey().getTableName(), tableRows.getValue());
+                total += tableRows.getValue();
+            }
+            LOGGER.info("Generated " + total + " rows in " + tenantIds.size() + " tenants in " + (System.currentTimeMillis() - start) + " ms, using "
+                    + threads + " threads: " + rowsPerTable);
+            return rowsPerTable;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PlatformException("Interrupted while generating data", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Map<SyntheticTable, Integer> insertChunk(RowGenerator rowGenerator, long firstId, long lastId) {
+        final Map<SyntheticTable, List<Object[]>> rows = rowGenerator.generate(firstId, lastId);
+        final Map<SyntheticTable, Integer> insertedRows = new EnumMap<>(SyntheticTable.class);
+        transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+
+            @Override
+            protected void doInTransactionWithoutResult(TransactionStatus status) {
+                for (Map.Entry<SyntheticTable, List<Object[]>> tableRows : rows.entrySet()) {
+                    final List<Object[]> batchArgs = tableRows.getValue();
+                    for (int from = 0; from < batchArgs.size(); from += batchSize) {
+                        jdbcTemplate.batchUpdate(tableRows.getKey().getInsert(), batchArgs.subList(from, Math.min(from + batchSize, batchArgs.size())));
+                    }
+                    insertedRows.put(tableRows.getKey(), batchArgs.size());
+                }
+            }
+        });
+        LOGGER.debug("Inserted process instances " + firstId + " to " + lastId);
+        return insertedRows;
+    }
+}
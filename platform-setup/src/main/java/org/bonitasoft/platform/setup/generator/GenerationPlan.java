@@ -0,0 +1,120 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.setup.generator;
+
+/**
+ * sizing of the synthetic data generated for each tenant.
+ * The same plan always generates the same rows, dates being relative to the generation date, so that performance tests can be repeated on the
+ * same data.
+ *
+ * @author Laurent Leseigneur
+ */
+public class GenerationPlan {
+
+    public static final int DEFAULT_FLOW_NODES_PER_PROCESS = 10;
+
+    public static final int DEFAULT_DATA_PER_PROCESS = 5;
+
+    public static final int DEFAULT_ARCHIVED_PERCENT = 80;
+
+    public static final long DEFAULT_SEED = 42L;
+
+    private final int tenants;
+
+    private final int processInstances;
+
+    private final int flowNodesPerProcess;
+
+    private final int dataPerProcess;
+
+    private final int archivedPercent;
+
+    private final long seed;
+
+    /**
+     * @param tenants number of tenants to create
+     * @param processInstances number of process instances generated in each tenant, archived or not
+     * @param flowNodesPerProcess average number of flow nodes of a process instance, actual numbers follow an exponential distribution
+     * @param dataPerProcess number of data instances of each process instance
+     * @param archivedPercent percentage of process instances that are completed, hence only in archive tables
+     * @param seed seed of the random distributions
+     */
+    public GenerationPlan(int tenants, int processInstances, int flowNodesPerProcess, int dataPerProcess, int archivedPercent, long seed) {
+        if (tenants < 1) {
+            throw new IllegalArgumentException("number of tenants must be greater than 0, was " + tenants);
+        }
+        if (processInstances < 1) {
+            throw new IllegalArgumentException("number of process instances must be greater than 0, was " + processInstances);
+        }
+        if (flowNodesPerProcess < 1) {
+            throw new IllegalArgumentException("number of flow nodes per process must be greater than 0, was " + flowNodesPerProcess);
+        }
+        if (dataPerProcess < 0) {
+            throw new IllegalArgumentException("number of data per process must not be negative, was " + dataPerProcess);
+        }
+        if (archivedPercent < 0 || archivedPercent > 100) {
+            throw new IllegalArgumentException("percentage of archived process instances must be between 0 and 100, was " + archivedPercent);
+        }
+        this.tenants = tenants;
+        this.processInstances = processInstances;
+        this.flowNodesPerProcess = flowNodesPerProcess;
+        this.dataPerProcess = dataPerProcess;
+        this.archivedPercent = archivedPercent;
+        this.seed = seed;
+    }
+
+    public int getTenants() {
+        return tenants;
+    }
+
+    public int getProcessInstances() {
+        return processInstances;
+    }
+
+    public int getFlowNodesPerProcess() {
+        return flowNodesPerProcess;
+    }
+
+    public int getDataPerProcess() {
+        return dataPerProcess;
+    }
+
+    public int getArchivedPercent() {
+        return archivedPercent;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @return maximum number of flow nodes of a process instance: flow node ids of process instance n are n * maxFlowNodes + k
+     */
+    public int getMaxFlowNodesPerProcess() {
+        return 4 * flowNodesPerProcess;
+    }
+
+    /**
+     * @return greatest id generated in a tenant, whatever the table
+     */
+    public long getMaxId() {
+        return (processInstances + 1L) * Math.max(getMaxFlowNodesPerProcess(), Math.max(dataPerProcess, 2)) - 1;
+    }
+
+    @Override
+    public String toString() {
+        return tenants + " tenants of " + processInstances + " process instances (" + archivedPercent + "% archived), " + flowNodesPerProcess
+                + " flow nodes and " + dataPerProcess + " data per process instance on average, seed " + seed;
+    }
+}
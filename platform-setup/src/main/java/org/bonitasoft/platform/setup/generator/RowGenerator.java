@@ -0,0 +1,183 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.setup.generator;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * builds the rows of a range of process instances of one tenant, the way the engine leaves them:
+ * completed process instances only have archived rows, running ones keep their current flow node in flownode_instance and their previous
+ * flow nodes in arch_flownode_instance.
+ * <p/>
+ * Process definitions, users and start dates are skewed: a few process definitions and users get most of the instances, and recent days get
+ * more instances than older ones. Rows only depend on the plan, the tenant and the range, whatever the thread building them.
+ *
+ * @author Laurent Leseigneur
+ */
+class RowGenerator {
+
+    static final int PROCESS_DEFINITIONS = 20;
+
+    static final int USERS = 200;
+
+    static final int ACTORS = 20;
+
+    static final int HISTORY_DAYS = 365;
+
+    private static final long MEAN_STEP_DURATION = TimeUnit.HOURS.toMillis(4);
+
+    private static final String[] FLOW_NODE_KINDS = { "user", "user", "user", "user", "user", "auto", "auto", "auto", "gate",
+            "intermediateCatchEvent" };
+
+    private static final String[] DISCRIMINANTS = { "SLongDataInstanceImpl", "SShortTextDataInstanceImpl", "SBooleanDataInstanceImpl" };
+
+    private static final String[] CLASS_NAMES = { Long.class.getName(), String.class.getName(), Boolean.class.getName() };
+
+    private static final int STATE_STARTED = 1;
+
+    private static final int STATE_COMPLETED = 2;
+
+    private static final int STATE_READY = 4;
+
+    private static final int STATE_EXECUTING = 1;
+
+    private static final int PROCESS_STATE_COMPLETED = 6;
+
+    private final GenerationPlan plan;
+
+    private final long tenantId;
+
+    private final long now;
+
+    private final Calendar calendar = Calendar.getInstance();
+
+    /**
+     * @param now generation date: no generated date is after it
+     */
+    RowGenerator(GenerationPlan plan, long tenantId, long now) {
+        this.plan = plan;
+        this.tenantId = tenantId;
+        this.now = now;
+    }
+
+    /**
+     * @return rows of process instances firstId to lastId, included, with their flow nodes, data and logs, per table
+     */
+    Map<SyntheticTable, List<Object[]>> generate(long firstId, long lastId) {
+        final Random random = new Random(plan.getSeed() * 31 + tenantId * 1000003L + firstId);
+        final Map<SyntheticTable, List<Object[]>> rows = new EnumMap<>(SyntheticTable.class);
+        for (SyntheticTable table : SyntheticTable.values()) {
+            rows.put(table, new ArrayList<Object[]>());
+        }
+        for (long processInstanceId = firstId; processInstanceId <= lastId; processInstanceId++) {
+            addProcessInstance(rows, random, processInstanceId);
+        }
+        return rows;
+    }
+
+    private void addProcessInstance(Map<SyntheticTable, List<Object[]>> rows, Random random, long id) {
+        final long processDefinitionId = 1 + skewed(random, PROCESS_DEFINITIONS);
+        final String name = "Process " + processDefinitionId;
+        final long startedBy = 1 + skewed(random, USERS);
+        final long startDate = now - (long) (TimeUnit.DAYS.toMillis(HISTORY_DAYS) * square(random.nextDouble()));
+        final boolean archived = random.nextInt(100) < plan.getArchivedPercent();
+        final int flowNodes = getFlowNodeCount(random);
+        long date = startDate;
+        for (int k = 0; k < flowNodes; k++) {
+            date = Math.min(now, date + (long) (MEAN_STEP_DURATION * exponential(random)));
+            final long flowNodeId = id * plan.getMaxFlowNodesPerProcess() + k;
+            final long flowNodeDefinitionId = processDefinitionId * 100 + k;
+            final String kind = FLOW_NODE_KINDS[random.nextInt(FLOW_NODE_KINDS.length)];
+            final boolean humanTask = "user".equals(kind);
+            final Long actorId = humanTask ? 1L + skewed(random, ACTORS) : null;
+            if (archived || k < flowNodes - 1) {
+                final long assigneeId = humanTask ? 1 + skewed(random, USERS) : 0;
+                rows.get(SyntheticTable.ARCH_FLOWNODE_INSTANCE).add(new Object[] { tenantId, flowNodeId, flowNodeDefinitionId, kind, flowNodeId, date, id,
+                        id, "Step " + (k + 1), STATE_COMPLETED, "completed", true, true, actorId, assigneeId, date, date, processDefinitionId, id, id, false });
+            } else {
+                // current flow node of a running process instance: human tasks are either assigned or pending for an actor
+                final long assigneeId = humanTask && random.nextBoolean() ? 1 + skewed(random, USERS) : 0;
+                rows.get(SyntheticTable.FLOWNODE_INSTANCE).add(new Object[] { tenantId, flowNodeId, flowNodeDefinitionId, kind, id, id, "Step " + (k + 1),
+                        humanTask ? STATE_READY : STATE_EXECUTING, humanTask ? "ready" : "executing", STATE_EXECUTING, false, humanTask, actorId, assigneeId,
+                        date, date, "NORMAL", processDefinitionId, id, id, 0 });
+                if (humanTask && assigneeId == 0) {
+                    rows.get(SyntheticTable.PENDING_MAPPING).add(new Object[] { tenantId, flowNodeId, flowNodeId, actorId, null });
+                }
+            }
+        }
+        final long endDate = archived ? date : 0;
+        if (archived) {
+            rows.get(SyntheticTable.ARCH_PROCESS_INSTANCE).add(new Object[] { tenantId, id, name, processDefinitionId, startDate, startedBy, 0L, endDate,
+                    endDate, PROCESS_STATE_COMPLETED, endDate, id, -1L, id });
+        } else {
+            rows.get(SyntheticTable.PROCESS_INSTANCE).add(new Object[] { tenantId, id, name, processDefinitionId, startDate, startedBy, 0L, endDate,
+                    STATE_STARTED, "NORMAL", date, id, -1L });
+        }
+        for (int k = 0; k < plan.getDataPerProcess(); k++) {
+            final long dataId = id * plan.getDataPerProcess() + k;
+            final int type = k % DISCRIMINANTS.length;
+            final Object[] data = new Object[] { tenantId, dataId, "data" + k, false, CLASS_NAMES[type], id, "PROCESS_INSTANCE",
+                    type == 0 ? Long.valueOf(random.nextInt(1000000)) : null, type == 1 ? "value " + random.nextInt(1000) : null,
+                    type == 2 ? Boolean.valueOf(random.nextBoolean()) : null, DISCRIMINANTS[type] };
+            if (archived) {
+                final Object[] archivedData = new Object[data.length + 2];
+                System.arraycopy(data, 0, archivedData, 0, data.length);
+                archivedData[data.length] = endDate;
+                archivedData[data.length + 1] = dataId;
+                rows.get(SyntheticTable.ARCH_DATA_INSTANCE).add(archivedData);
+            } else {
+                rows.get(SyntheticTable.DATA_INSTANCE).add(data);
+            }
+        }
+        rows.get(SyntheticTable.QUERIABLE_LOG).add(getLog(id * 2, startDate, startedBy, "PROCESSINSTANCE_CREATED", name));
+        if (archived) {
+            rows.get(SyntheticTable.QUERIABLE_LOG).add(getLog(id * 2 + 1, endDate, startedBy, "PROCESSINSTANCE_UPDATED", name));
+        }
+    }
+
+    private Object[] getLog(long id, long timestamp, long userId, String actionType, String processName) {
+        calendar.setTimeInMillis(timestamp);
+        return new Object[] { tenantId, id, timestamp, calendar.get(Calendar.YEAR), calendar.get(Calendar.MONTH), calendar.get(Calendar.DAY_OF_YEAR),
+                calendar.get(Calendar.WEEK_OF_YEAR), "user" + userId, 1L, "7.2.0", "INTERNAL", actionType, 1, actionType + " of " + processName };
+    }
+
+    /**
+     * @return between 1 and the maximum number of flow nodes of the plan, following an exponential distribution around the average of the plan
+     */
+    int getFlowNodeCount(Random random) {
+        final int count = 1 + (int) ((plan.getFlowNodesPerProcess() - 1) * exponential(random));
+        return Math.min(count, plan.getMaxFlowNodesPerProcess());
+    }
+
+    /**
+     * @return between 0 and bound - 1, low values being much more frequent than high ones
+     */
+    static int skewed(Random random, int bound) {
+        return (int) (bound * square(random.nextDouble()));
+    }
+
+    private static double square(double value) {
+        return value * value;
+    }
+
+    private static double exponential(Random random) {
+        return -Math.log(1 - random.nextDouble());
+    }
+}
@@ -0,0 +1,68 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.setup.generator;
+
+/**
+ * tables filled by {@link DataGenerator}, in insertion order: rows referenced by a foreign key come first
+ *
+ * @author Laurent Leseigneur
+ */
+enum SyntheticTable {
+
+    PROCESS_INSTANCE("process_instance", "tenantid, id, name, processDefinitionId, startDate, startedBy, startedBySubstitute, endDate, stateId, "
+            + "stateCategory, lastUpdate, rootProcessInstanceId, callerId", 13),
+
+    FLOWNODE_INSTANCE("flownode_instance", "tenantid, id, flownodeDefinitionId, kind, rootContainerId, parentContainerId, name, stateId, stateName, "
+            + "prev_state_id, terminal, stable, actorId, assigneeId, reachedStateDate, lastUpdateDate, stateCategory, logicalGroup1, logicalGroup2, "
+            + "logicalGroup4, tokenCount", 21),
+
+    PENDING_MAPPING("pending_mapping", "tenantid, id, activityId, actorId, userId", 5),
+
+    DATA_INSTANCE("data_instance", "tenantid, id, name, transientData, className, containerId, containerType, longValue, shortTextValue, "
+            + "booleanValue, discriminant", 11),
+
+    ARCH_PROCESS_INSTANCE("arch_process_instance", "tenantid, id, name, processDefinitionId, startDate, startedBy, startedBySubstitute, endDate, "
+            + "archiveDate, stateId, lastUpdate, rootProcessInstanceId, callerId, sourceObjectId", 14),
+
+    ARCH_FLOWNODE_INSTANCE("arch_flownode_instance", "tenantid, id, flownodeDefinitionId, kind, sourceObjectId, archiveDate, rootContainerId, "
+            + "parentContainerId, name, stateId, stateName, terminal, stable, actorId, assigneeId, reachedStateDate, lastUpdateDate, logicalGroup1, "
+            + "logicalGroup2, logicalGroup4, aborting", 21),
+
+    ARCH_DATA_INSTANCE("arch_data_instance", "tenantid, id, name, transientData, className, containerId, containerType, longValue, shortTextValue, "
+            + "booleanValue, discriminant, archiveDate, sourceObjectId", 13),
+
+    QUERIABLE_LOG("queriable_log", "tenantid, id, log_timestamp, whatYear, whatMonth, dayOfYear, weekOfYear, userId, threadNumber, productVersion, "
+            + "severity, actionType, actionStatus, rawMessage", 14);
+
+    private final String tableName;
+
+    private final String insert;
+
+    SyntheticTable(String tableName, String columns, int columnCount) {
+        this.tableName = tableName;
+        final StringBuilder insert = new StringBuilder("INSERT INTO ").append(tableName).append(" (").append(columns).append(") VALUES (?");
+        for (int i = 1; i < columnCount; i++) {
+            insert.append(", ?");
+        }
+        this.insert = insert.append(")").toString();
+    }
+
+    String getTableName() {
+        return tableName;
+    }
+
+    String getInsert() {
+        return insert;
+    }
+}
@@ -0,0 +1,172 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.setup.schema;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * tables, columns, keys and indexes created by the statements of the sql scripts (createTables.sql then postCreateStructure.sql).
+ * <p/>
+ * Only the statements these scripts use are understood: CREATE TABLE with inline primary key, unique and named constraints, ALTER TABLE ADD
+ * CONSTRAINT, CREATE [UNIQUE] INDEX and DROP TABLE. Other statements are ignored.
+ *
+ * @author Laurent Leseigneur
+ */
+public class ExpectedSchema {
+
+    private static final int FLAGS = Pattern.CASE_INSENSITIVE | Pattern.DOTALL;
+
+    private static final Pattern CREATE_TABLE = Pattern.compile("CREATE\\s+TABLE\\s+(\\w+)\\s*\\((.*)\\)[^)]*", FLAGS);
+
+    private static final Pattern DROP_TABLE = Pattern.compile("DROP\\s+TABLE\\s+(?:IF\\s+EXISTS\\s+)?(\\w+).*", FLAGS);
+
+    private static final Pattern CREATE_INDEX = Pattern.compile("CREATE\\s+(UNIQUE\\s+)?INDEX\\s+(\\w+)\\s+ON\\s+(\\w+)\\s*\\(([^)]*)\\).*", FLAGS);
+
+    private static final Pattern ADD_CONSTRAINT = Pattern.compile("ALTER\\s+TABLE\\s+(\\w+)\\s+ADD\\s+(CONSTRAINT\\s+\\w+\\s+.*)", FLAGS);
+
+    private static final Pattern CONSTRAINT = Pattern.compile(
+            "(?:CONSTRAINT\\s+(\\w+)\\s+)?(PRIMARY\\s+KEY|UNIQUE|FOREIGN\\s+KEY)\\s*\\(([^)]*)\\).*", FLAGS);
+
+    private static final Pattern TABLE_ELEMENT_KEYWORD = Pattern.compile("(CONSTRAINT|PRIMARY|UNIQUE|FOREIGN|CHECK|KEY|INDEX)\\b.*", FLAGS);
+
+    private static final Pattern COLUMN = Pattern.compile("(\\w+)\\s+(.*)", FLAGS);
+
+    private static final Pattern INLINE_PRIMARY_KEY = Pattern.compile(".*\\bPRIMARY\\s+KEY\\b.*", FLAGS);
+
+    private static final Pattern INLINE_UNIQUE = Pattern.compile(".*\\bUNIQUE\\b.*", FLAGS);
+
+    private final Map<String, TableDefinition> tables;
+
+    ExpectedSchema(Map<String, TableDefinition> tables) {
+        this.tables = Collections.unmodifiableMap(tables);
+    }
+
+    /**
+     * @param statements statements of the scripts, in execution order, as split by the script separator of the db vendor
+     */
+    public static ExpectedSchema parse(List<String> statements) {
+        final Map<String, TableDefinition> tables = new LinkedHashMap<>();
+        for (String statement : statements) {
+            final String sql = statement.trim();
+            Matcher matcher;
+            if ((matcher = CREATE_TABLE.matcher(sql)).matches()) {
+                final TableDefinition table = new TableDefinition(matcher.group(1).toLowerCase());
+                for (String element : splitTopLevel(matcher.group(2))) {
+                    parseTableElement(table, element);
+                }
+                tables.put(table.getName(), table);
+            } else if ((matcher = DROP_TABLE.matcher(sql)).matches()) {
+                tables.remove(matcher.group(1).toLowerCase());
+            } else if ((matcher = CREATE_INDEX.matcher(sql)).matches()) {
+                final TableDefinition table = tables.get(matcher.group(3).toLowerCase());
+                if (table != null) {
+                    table.addIndex(matcher.group(2).toLowerCase(), toColumnList(matcher.group(4)), matcher.group(1) != null);
+                }
+            } else if ((matcher = ADD_CONSTRAINT.matcher(sql)).matches()) {
+                final TableDefinition table = tables.get(matcher.group(1).toLowerCase());
+                if (table != null) {
+                    parseConstraint(table, matcher.group(2));
+                }
+            }
+        }
+        return new ExpectedSchema(tables);
+    }
+
+    private static void parseTableElement(TableDefinition table, String element) {
+        if (TABLE_ELEMENT_KEYWORD.matcher(element).matches()) {
+            parseConstraint(table, element);
+            return;
+        }
+        final Matcher column = COLUMN.matcher(element);
+        if (!column.matches()) {
+            return;
+        }
+        final String columnName = column.group(1).toLowerCase();
+        table.addColumn(columnName);
+        if (INLINE_PRIMARY_KEY.matcher(column.group(2)).matches()) {
+            table.setPrimaryKey(null, Collections.singletonList(columnName));
+        } else if (INLINE_UNIQUE.matcher(column.group(2)).matches()) {
+            table.addUniqueConstraint(null, Collections.singletonList(columnName));
+        }
+    }
+
+    private static void parseConstraint(TableDefinition table, String definition) {
+        final Matcher constraint = CONSTRAINT.matcher(definition);
+        if (!constraint.matches()) {
+            return;
+        }
+        final String constraintName = constraint.group(1) == null ? null : constraint.group(1).toLowerCase();
+        final List<String> columns = toColumnList(constraint.group(3));
+        final String kind = constraint.group(2).toUpperCase();
+        if (kind.startsWith("PRIMARY")) {
+            table.setPrimaryKey(constraintName, columns);
+        } else if (kind.startsWith("UNIQUE")) {
+            table.addUniqueConstraint(constraintName, columns);
+        } else if (constraintName != null) {
+            table.addForeignKey(constraintName, columns);
+        }
+    }
+
+    /**
+     * split the content of a CREATE TABLE on commas that are not between parentheses, such as the one of NUMERIC(19, 0)
+     */
+    static List<String> splitTopLevel(String tableContent) {
+        final List<String> elements = new ArrayList<>();
+        int depth = 0;
+        int start = 0;
+        for (int i = 0; i < tableContent.length(); i++) {
+            final char c = tableContent.charAt(i);
+            if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (c == ',' && depth == 0) {
+                addIfNotBlank(elements, tableContent.substring(start, i));
+                start = i + 1;
+            }
+        }
+        addIfNotBlank(elements, tableContent.substring(start));
+        return elements;
+    }
+
+    private static void addIfNotBlank(List<String> elements, String element) {
+        if (!element.trim().isEmpty()) {
+            elements.add(element.trim());
+        }
+    }
+
+    static List<String> toColumnList(String columns) {
+        final List<String> columnList = new ArrayList<>();
+        for (String column : columns.split(",")) {
+            // drop ASC / DESC:
+            columnList.add(column.trim().split("\\s+")[0].toLowerCase());
+        }
+        return columnList;
+    }
+
+    public Collection<TableDefinition> getTables() {
+        return tables.values();
+    }
+
+    public TableDefinition getTable(String name) {
+        return tables.get(name.toLowerCase());
+    }
+}
@@ -0,0 +1,265 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.setup.schema;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * compares an {@link ExpectedSchema} with the tables, columns, keys and indexes the database reports through {@link DatabaseMetaData}.
+ * <p/>
+ * Only the expected tables are looked at: other tables of the schema, such as the ones of the engine, are ignored. Indexes the database
+ * creates by itself to back a primary key, unique or foreign key constraint are not reported as extra, whatever their generated name.
+ * <p/>
+ * Columns of all tables are read with one metadata call. Keys and indexes are read per expected table, as drivers only accept an exact table name
+ * there.
+ *
+ * @author Laurent Leseigneur
+ */
+public class SchemaVerifier {
+
+    private static final String[] TABLE_TYPES = new String[] { "TABLE", "PARTITIONED TABLE" };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SchemaVerifier(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    /**
+     * @return differences found, ordered by table, empty if the live schema matches the expected one
+     */
+    public List<SchemaDifference> verify(final ExpectedSchema expectedSchema) {
+        return jdbcTemplate.execute(new ConnectionCallback<List<SchemaDifference>>() {
+
+            @Override
+            public List<SchemaDifference> doInConnection(Connection connection) throws SQLException {
+                return verify(expectedSchema, connection);
+            }
+        });
+    }
+
+    private List<SchemaDifference> verify(ExpectedSchema expectedSchema, Connection connection) throws SQLException {
+        final DatabaseMetaData metaData = connection.getMetaData();
+        final String catalog = connection.getCatalog();
+        final String schema = getSchema(connection);
+        final Map<String, String> liveTableNames = getTableNames(connection);
+        final Map<String, Set<String>> liveColumns = getColumns(metaData, catalog, schema);
+        final List<SchemaDifference> differences = new ArrayList<>();
+        for (TableDefinition expected : expectedSchema.getTables()) {
+            final String liveTableName = liveTableNames.get(expected.getName());
+            if (liveTableName == null) {
+                differences.add(new SchemaDifference(expected.getName(), "missing table"));
+                continue;
+            }
+            final Set<String> columns = liveColumns.get(liveTableName);
+            compareColumns(expected, columns == null ? Collections.<String> emptySet() : columns, differences);
+            comparePrimaryKey(expected, getPrimaryKey(metaData, catalog, schema, liveTableName), differences);
+            compareIndexes(expected, getIndexes(metaData, catalog, schema, liveTableName), differences);
+            compareForeignKeys(expected, getForeignKeys(metaData, catalog, schema, liveTableName), differences);
+        }
+        return differences;
+    }
+
+    private static String getSchema(Connection connection) {
+        try {
+            return connection.getSchema();
+        } catch (SQLException | AbstractMethodError e) {
+            // drivers older than JDBC 4.1: look in all schemas of the catalog
+            return null;
+        }
+    }
+
+    private void compareColumns(TableDefinition expected, Set<String> liveColumns, List<SchemaDifference> differences) {
+        for (String column : expected.getColumns()) {
+            if (!liveColumns.contains(column)) {
+                differences.add(new SchemaDifference(expected.getName(), "missing column " + column));
+            }
+        }
+        for (String column : liveColumns) {
+            if (!expected.getColumns().contains(column)) {
+                differences.add(new SchemaDifference(expected.getName(), "extra column " + column));
+            }
+        }
+    }
+
+    private void comparePrimaryKey(TableDefinition expected, List<String> livePrimaryKey, List<SchemaDifference> differences) {
+        if (!expected.getPrimaryKey().equals(livePrimaryKey)) {
+            differences.add(new SchemaDifference(expected.getName(), "primary key is " + livePrimaryKey + " instead of " + expected.getPrimaryKey()));
+        }
+    }
+
+    private void compareIndexes(TableDefinition expected, Map<String, LiveIndex> liveIndexes, List<SchemaDifference> differences) {
+        for (Map.Entry<String, List<String>> index : expected.getIndexes().entrySet()) {
+            final LiveIndex liveIndex = liveIndexes.get(index.getKey());
+            if (liveIndex == null) {
+                differences.add(new SchemaDifference(expected.getName(), "missing index " + index.getKey() + " on " + index.getValue()));
+            } else if (!liveIndex.columns.equals(index.getValue())) {
+                differences.add(new SchemaDifference(expected.getName(), "index " + index.getKey() + " is on " + liveIndex.columns + " instead of "
+                        + index.getValue()));
+            }
+        }
+        for (List<String> uniqueColumns : expected.getUniqueConstraints()) {
+            if (!hasUniqueIndexOn(liveIndexes, uniqueColumns)) {
+                differences.add(new SchemaDifference(expected.getName(), "missing unique constraint on " + uniqueColumns));
+            }
+        }
+        for (Map.Entry<String, LiveIndex> liveIndex : liveIndexes.entrySet()) {
+            if (!isExpected(expected, liveIndex.getKey(), liveIndex.getValue().columns)) {
+                differences.add(new SchemaDifference(expected.getName(), "extra index " + liveIndex.getKey() + " on " + liveIndex.getValue().columns));
+            }
+        }
+    }
+
+    private boolean hasUniqueIndexOn(Map<String, LiveIndex> liveIndexes, List<String> columns) {
+        for (LiveIndex liveIndex : liveIndexes.values()) {
+            if (liveIndex.unique && liveIndex.columns.equals(columns)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isExpected(TableDefinition expected, String indexName, List<String> columns) {
+        return expected.getIndexes().containsKey(indexName)
+                || expected.getConstraintNames().contains(indexName)
+                || expected.getPrimaryKey().equals(columns)
+                || expected.getUniqueConstraints().contains(columns)
+                || expected.getForeignKeys().containsValue(columns);
+    }
+
+    private void compareForeignKeys(TableDefinition expected, Map<String, List<String>> liveForeignKeys, List<SchemaDifference> differences) {
+        for (Map.Entry<String, List<String>> foreignKey : expected.getForeignKeys().entrySet()) {
+            if (!liveForeignKeys.containsKey(foreignKey.getKey())) {
+                differences.add(new SchemaDifference(expected.getName(), "missing foreign key " + foreignKey.getKey() + " on " + foreignKey.getValue()));
+            }
+        }
+        for (Map.Entry<String, List<String>> liveForeignKey : liveForeignKeys.entrySet()) {
+            if (!expected.getForeignKeys().containsKey(liveForeignKey.getKey())) {
+                differences.add(new SchemaDifference(expected.getName(), "extra foreign key " + liveForeignKey.getKey() + " on "
+                        + liveForeignKey.getValue()));
+            }
+        }
+    }
+
+    /**
+     * @return names of the tables of the current schema as stored by the database, by lower case name
+     */
+    public static Map<String, String> getTableNames(Connection connection) throws SQLException {
+        final Map<String, String> tableNames = new HashMap<>();
+        try (ResultSet tables = connection.getMetaData().getTables(connection.getCatalog(), getSchema(connection), "%", TABLE_TYPES)) {
+            while (tables.next()) {
+                final String tableName = tables.getString("TABLE_NAME");
+                tableNames.put(tableName.toLowerCase(), tableName);
+            }
+        }
+        return tableNames;
+    }
+
+    /**
+     * @return columns of all tables of the schema, by table name as stored by the database, read with a single metadata call
+     */
+    private Map<String, Set<String>> getColumns(DatabaseMetaData metaData, String catalog, String schema) throws SQLException {
+        final Map<String, Set<String>> columnsByTable = new HashMap<>();
+        try (ResultSet resultSet = metaData.getColumns(catalog, schema, "%", "%")) {
+            while (resultSet.next()) {
+                final String tableName = resultSet.getString("TABLE_NAME");
+                if (!columnsByTable.containsKey(tableName)) {
+                    columnsByTable.put(tableName, new LinkedHashSet<String>());
+                }
+                columnsByTable.get(tableName).add(resultSet.getString("COLUMN_NAME").toLowerCase());
+            }
+        }
+        return columnsByTable;
+    }
+
+    private List<String> getPrimaryKey(DatabaseMetaData metaData, String catalog, String schema, String tableName) throws SQLException {
+        final Map<Integer, String> columnsBySequence = new TreeMap<>();
+        try (ResultSet resultSet = metaData.getPrimaryKeys(catalog, schema, tableName)) {
+            while (resultSet.next()) {
+                columnsBySequence.put(resultSet.getInt("KEY_SEQ"), resultSet.getString("COLUMN_NAME").toLowerCase());
+            }
+        }
+        return new ArrayList<>(columnsBySequence.values());
+    }
+
+    private Map<String, LiveIndex> getIndexes(DatabaseMetaData metaData, String catalog, String schema, String tableName) throws SQLException {
+        final Map<String, Map<Integer, String>> columnsByIndex = new HashMap<>();
+        final Map<String, Boolean> uniqueByIndex = new HashMap<>();
+        try (ResultSet resultSet = metaData.getIndexInfo(catalog, schema, tableName, false, true)) {
+            while (resultSet.next()) {
+                final String indexName = resultSet.getString("INDEX_NAME");
+                if (resultSet.getShort("TYPE") == DatabaseMetaData.tableIndexStatistic || indexName == null) {
+                    continue;
+                }
+                final String key = indexName.toLowerCase();
+                if (!columnsByIndex.containsKey(key)) {
+                    columnsByIndex.put(key, new TreeMap<Integer, String>());
+                    uniqueByIndex.put(key, !resultSet.getBoolean("NON_UNIQUE"));
+                }
+                columnsByIndex.get(key).put((int) resultSet.getShort("ORDINAL_POSITION"), resultSet.getString("COLUMN_NAME").toLowerCase());
+            }
+        }
+        final Map<String, LiveIndex> indexes = new TreeMap<>();
+        for (Map.Entry<String, Map<Integer, String>> index : columnsByIndex.entrySet()) {
+            indexes.put(index.getKey(), new LiveIndex(new ArrayList<>(index.getValue().values()), uniqueByIndex.get(index.getKey())));
+        }
+        return indexes;
+    }
+
+    private Map<String, List<String>> getForeignKeys(DatabaseMetaData metaData, String catalog, String schema, String tableName) throws SQLException {
+        final Map<String, Map<Integer, String>> columnsByForeignKey = new TreeMap<>();
+        try (ResultSet resultSet = metaData.getImportedKeys(catalog, schema, tableName)) {
+            while (resultSet.next()) {
+                final String foreignKeyName = String.valueOf(resultSet.getString("FK_NAME")).toLowerCase();
+                if (!columnsByForeignKey.containsKey(foreignKeyName)) {
+                    columnsByForeignKey.put(foreignKeyName, new TreeMap<Integer, String>());
+                }
+                columnsByForeignKey.get(foreignKeyName).put(resultSet.getInt("KEY_SEQ"), resultSet.getString("FKCOLUMN_NAME").toLowerCase());
+            }
+        }
+        final Map<String, List<String>> foreignKeys = new TreeMap<>();
+        for (Map.Entry<String, Map<Integer, String>> foreignKey : columnsByForeignKey.entrySet()) {
+            foreignKeys.put(foreignKey.getKey(), new ArrayList<>(foreignKey.getValue().values()));
+        }
+        return foreignKeys;
+    }
+
+    private static class LiveIndex {
+
+        private final List<String> columns;
+
+        private final boolean unique;
+
+        LiveIndex(List<String> columns, boolean unique) {
+            this.columns = columns;
+            this.unique = unique;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.setup.schema;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * a table as created by the sql scripts: its columns, primary key, indexes and constraints. All names are lower case.
+ *
+ * @author Laurent Leseigneur
+ */
+public class TableDefinition {
+
+    private final String name;
+
+    private final Set<String> columns = new LinkedHashSet<>();
+
+    private List<String> primaryKey = Collections.emptyList();
+
+    private final Map<String, List<String>> indexes = new LinkedHashMap<>();
+
+    private final List<List<String>> uniqueConstraints = new ArrayList<>();
+
+    private final Set<String> constraintNames = new LinkedHashSet<>();
+
+    private final Map<String, List<String>> foreignKeys = new LinkedHashMap<>();
+
+    TableDefinition(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Set<String> getColumns() {
+        return columns;
+    }
+
+    public List<String> getPrimaryKey() {
+        return primaryKey;
+    }
+
+    /**
+     * @return columns of indexes created with CREATE INDEX, by index name
+     */
+    public Map<String, List<String>> getIndexes() {
+        return indexes;
+    }
+
+    /**
+     * @return columns of unique constraints, named or not
+     */
+    public List<List<String>> getUniqueConstraints() {
+        return uniqueConstraints;
+    }
+
+    /**
+     * @return names of primary key, unique and foreign key constraints, which databases may also give to the index backing them
+     */
+    public Set<String> getConstraintNames() {
+        return constraintNames;
+    }
+
+    /**
+     * @return columns of foreign keys, by constraint name
+     */
+    public Map<String, List<String>> getForeignKeys() {
+        return foreignKeys;
+    }
+
+    void addColumn(String column) {
+        columns.add(column);
+    }
+
+    void setPrimaryKey(String constraintName, List<String> columns) {
+        primaryKey = columns;
+        addConstraintName(constraintName);
+    }
+
+    void addIndex(String indexName, List<String> columns, boolean unique) {
+        indexes.put(indexName, columns);
+        if (unique) {
+            uniqueConstraints.add(columns);
+        }
+    }
+
+    void addUniqueConstraint(String constraintName, List<String> columns) {
+        uniqueConstraints.add(columns);
+        addConstraintName(constraintName);
+    }
+
+    void addForeignKey(String constraintName, List<String> columns) {
+        foreignKeys.put(constraintName, columns);
+        addConstraintName(constraintName);
+    }
+
+    private void addConstraintName(String constraintName) {
+        if (constraintName != null) {
+            constraintNames.add(constraintName);
+        }
+    }
+}
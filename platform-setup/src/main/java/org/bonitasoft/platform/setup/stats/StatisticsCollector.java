@@ -0,0 +1,249 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.setup.stats;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.sql.DataSource;
+
+import org.bonitasoft.platform.exception.PlatformException;
+import org.bonitasoft.platform.setup.schema.ExpectedSchema;
+import org.bonitasoft.platform.setup.schema.SchemaVerifier;
+import org.bonitasoft.platform.setup.schema.TableDefinition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowMapper;
+
+/**
+ * counts rows and sums the size of binary columns of each table, per tenant, and reads the size the database reports for each table.
+ * <p/>
+ * Each table is read with a single GROUP BY query on its tenant id column, so all rows are scanned: tables are read in parallel on a fixed
+ * number of threads, each using one connection at a time. Storage size includes indexes and LOBs; it is not available on h2, or when the database
+ * user is not allowed to read it.
+ *
+ * @author Laurent Leseigneur
+ */
+public class StatisticsCollector {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(StatisticsCollector.class);
+
+    private static final List<String> TENANT_COLUMNS = Arrays.asList("tenantid", "tenant_id");
+
+    private static final List<Integer> BINARY_TYPES = Arrays.asList(Types.BLOB, Types.BINARY, Types.VARBINARY, Types.LONGVARBINARY);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final String dbVendor;
+
+    private final int threads;
+
+    /**
+     * @param threads maximum number of tables read at the same time, hence of connections used
+     */
+    public StatisticsCollector(DataSource dataSource, String dbVendor, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("number of threads must be greater than 0, was " + threads);
+        }
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.dbVendor = dbVendor;
+        this.threads = threads;
+    }
+
+    /**
+     * @return statistics of the expected tables existing in the database, in the order of the expected schema
+     */
+    public List<TableStatistics> collect(ExpectedSchema expectedSchema) throws PlatformException {
+        final long start = System.currentTimeMillis();
+        final Map<String, String> liveTableNames = getTableNames();
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final Map<String, Future<TableStatistics>> futures = new HashMap<>();
+            final List<String> tables = new ArrayList<>();
+            for (TableDefinition table : expectedSchema.getTables()) {
+                final String liveTableName = liveTableNames.get(table.getName());
+                if (liveTableName == null) {
+                    LOGGER.warn("Table " + table.getName() + " does not exist, run 'setup verify-schema' for details");
+                    continue;
+                }
+                final String tenantColumn = getTenantColumn(table);
+                futures.put(table.getName(), executor.submit(new Callable<TableStatistics>() {
+
+                    @Override
+                    public TableStatistics call() throws Exception {
+                        return collectTable(liveTableName, tenantColumn);
+                    }
+                }));
+                tables.add(table.getName());
+            }
+            final List<TableStatistics> statistics = new ArrayList<>();
+            for (String table : tables) {
+                try {
+                    statistics.add(futures.get(table).get());
+                } catch (ExecutionException e) {
+                    final Throwable cause = e.getCause();
+                    throw new PlatformException("Unable to collect statistics of table " + table, cause instanceof Exception ? (Exception) cause : e);
+                }
+            }
+            LOGGER.info("Statistics of " + statistics.size() + " tables collected in " + (System.currentTimeMillis() - start) + " ms, using " + threads
+                    + " threads");
+            return statistics;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PlatformException("Interrupted while collecting statistics", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private String getTenantColumn(TableDefinition table) {
+        for (String column : TENANT_COLUMNS) {
+            if (table.getColumns().contains(column)) {
+                return column;
+            }
+        }
+        return null;
+    }
+
+    private TableStatistics collectTable(String table, final String tenantColumn) {
+        final long start = System.currentTimeMillis();
+        final List<String> binaryColumns = getBinaryColumns(table);
+        final StringBuilder sql = new StringBuilder("SELECT ");
+        if (tenantColumn != null) {
+            sql.append(tenantColumn).append(", ");
+        }
+        sql.append("COUNT(*)");
+        for (String column : binaryColumns) {
+            sql.append(", SUM(").append(getLengthFunction()).append('(').append(column).append("))");
+        }
+        sql.append(" FROM ").append(table);
+        if (tenantColumn != null) {
+            sql.append(" GROUP BY ").append(tenantColumn).append(" ORDER BY ").append(tenantColumn);
+        }
+        final int firstCountColumn = tenantColumn != null ? 2 : 1;
+        final List<TenantStatistics> tenants = jdbcTemplate.query(sql.toString(), new RowMapper<TenantStatistics>() {
+
+            @Override
+            public TenantStatistics mapRow(ResultSet rs, int rowNum) throws SQLException {
+                long lobBytes = 0;
+                for (int column = firstCountColumn + 1; column <= rs.getMetaData().getColumnCount(); column++) {
+                    lobBytes += rs.getLong(column);
+                }
+                return new TenantStatistics(tenantColumn != null ? rs.getLong(1) : null, rs.getLong(firstCountColumn), lobBytes);
+            }
+        });
+        final TableStatistics statistics = new TableStatistics(table.toLowerCase(), getStorageBytes(table), tenants);
+        LOGGER.debug(String.format("%s: %d rows read in %d ms", table, statistics.getRows(), System.currentTimeMillis() - start));
+        return statistics;
+    }
+
+    private List<String> getBinaryColumns(String table) {
+        return jdbcTemplate.query("SELECT * FROM " + table + " WHERE 1 = 0", new ResultSetExtractor<List<String>>() {
+
+            @Override
+            public List<String> extractData(ResultSet rs) throws SQLException {
+                final ResultSetMetaData metaData = rs.getMetaData();
+                final List<String> columns = new ArrayList<>();
+                for (int column = 1; column <= metaData.getColumnCount(); column++) {
+                    if (BINARY_TYPES.contains(metaData.getColumnType(column))) {
+                        columns.add(metaData.getColumnLabel(column));
+                    }
+                }
+                return columns;
+            }
+        });
+    }
+
+    /**
+     * @return function returning the size in bytes of a binary column. On h2, OCTET_LENGTH of a BLOB returns twice its byte count, LENGTH returns
+     *         it. OCTET_LENGTH of postgres and mysql, DBMS_LOB.GETLENGTH of an oracle BLOB and DATALENGTH of sqlserver all return bytes.
+     */
+    private String getLengthFunction() {
+        switch (dbVendor) {
+            case "h2":
+                return "LENGTH";
+            case "oracle":
+                return "DBMS_LOB.GETLENGTH";
+            case "sqlserver":
+                return "DATALENGTH";
+            default:
+                return "OCTET_LENGTH";
+        }
+    }
+
+    /**
+     * @return size of the table, its indexes and LOBs as reported by the database, or null if not available
+     */
+    private Long getStorageBytes(String table) {
+        final String sql;
+        switch (dbVendor) {
+            case "postgres":
+                // partitioned tables have no storage of their own, their partitions have:
+                sql = "SELECT SUM(pg_total_relation_size(c.oid)) FROM pg_class c WHERE c.oid = CAST(? AS regclass)"
+                        + " OR c.oid IN (SELECT inhrelid FROM pg_inherits WHERE inhparent = CAST(? AS regclass))";
+                break;
+            case "mysql":
+                sql = "SELECT data_length + index_length FROM information_schema.tables WHERE table_schema = DATABASE() AND table_name = ?";
+                break;
+            case "oracle":
+                sql = "SELECT SUM(bytes) FROM user_segments WHERE segment_name = UPPER(?)"
+                        + " OR segment_name IN (SELECT segment_name FROM user_lobs WHERE table_name = UPPER(?))"
+                        + " OR segment_name IN (SELECT index_name FROM user_indexes WHERE table_name = UPPER(?))";
+                break;
+            case "sqlserver":
+                sql = "SELECT SUM(reserved_page_count) * 8192 FROM sys.dm_db_partition_stats WHERE object_id = OBJECT_ID(?)";
+                break;
+            default:
+                return null;
+        }
+        final Object[] args = new Object[sql.length() - sql.replace("?", "").length()];
+        Arrays.fill(args, table);
+        try {
+            return jdbcTemplate.queryForObject(sql, Long.class, args);
+        } catch (DataAccessException e) {
+            LOGGER.debug("Unable to read storage size of table " + table + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * @return names of the tables as stored by the database, by lower case name
+     */
+    private Map<String, String> getTableNames() {
+        return jdbcTemplate.execute(new ConnectionCallback<Map<String, String>>() {
+
+            @Override
+            public Map<String, String> doInConnection(Connection connection) throws SQLException {
+                return SchemaVerifier.getTableNames(connection);
+            }
+        });
+    }
+}
@@ -0,0 +1,161 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.setup.stats;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.TreeMap;
+
+/**
+ * renders collected {@link TableStatistics} as JSON, for tools, and as text lines, for people. Tables are listed biggest first: by storage size
+ * where the database reports it, else by binary column size and rows.
+ *
+ * @author Laurent Leseigneur
+ */
+public class StatisticsReport {
+
+    private static final String LINE_FORMAT = "%-32s %8s %14s %12s %12s";
+
+    private final String dbVendor;
+
+    private final long date;
+
+    private final List<TableStatistics> tables;
+
+    public StatisticsReport(String dbVendor, long date, List<TableStatistics> tables) {
+        this.dbVendor = dbVendor;
+        this.date = date;
+        this.tables = new ArrayList<>(tables);
+        Collections.sort(this.tables, new Comparator<TableStatistics>() {
+
+            @Override
+            public int compare(TableStatistics table1, TableStatistics table2) {
+                final int byStorage = Long.compare(valueOf(table2.getStorageBytes()), valueOf(table1.getStorageBytes()));
+                if (byStorage != 0) {
+                    return byStorage;
+                }
+                final int byLobBytes = Long.compare(table2.getLobBytes(), table1.getLobBytes());
+                return byLobBytes != 0 ? byLobBytes : Long.compare(table2.getRows(), table1.getRows());
+            }
+        });
+    }
+
+    private static long valueOf(Long value) {
+        return value == null ? 0 : value;
+    }
+
+    /**
+     * @return rows and binary column sizes of each tenant, summed over all tables
+     */
+    public Map<Long, TenantStatistics> getTenantTotals() {
+        final Map<Long, TenantStatistics> totals = new TreeMap<>();
+        for (TableStatistics table : tables) {
+            for (TenantStatistics tenant : table.getTenants()) {
+                if (tenant.getTenantId() == null) {
+                    continue;
+                }
+                final TenantStatistics total = totals.get(tenant.getTenantId());
+                totals.put(tenant.getTenantId(), new TenantStatistics(tenant.getTenantId(), tenant.getRows() + (total == null ? 0 : total.getRows()),
+                        tenant.getLobBytes() + (total == null ? 0 : total.getLobBytes())));
+            }
+        }
+        return totals;
+    }
+
+    public String toJson() {
+        final StringBuilder json = new StringBuilder("{\n");
+        json.append("  \"dbVendor\": ").append(quote(dbVendor)).append(",\n");
+        json.append("  \"date\": ").append(quote(formatDate(date))).append(",\n");
+        json.append("  \"tables\": [");
+        for (int i = 0; i < tables.size(); i++) {
+            final TableStatistics table = tables.get(i);
+            json.append(i > 0 ? "," : "").append("\n    {\"name\": ").append(quote(table.getTable()));
+            json.append(", \"storageBytes\": ").append(table.getStorageBytes());
+            json.append(", \"rows\": ").append(table.getRows());
+            json.append(", \"lobBytes\": ").append(table.getLobBytes());
+            json.append(", \"tenants\": [");
+            for (int j = 0; j < table.getTenants().size(); j++) {
+                json.append(j > 0 ? ", " : "").append(toJson(table.getTenants().get(j)));
+            }
+            json.append("]}");
+        }
+        json.append("\n  ],\n  \"tenants\": [");
+        int i = 0;
+        for (TenantStatistics tenant : getTenantTotals().values()) {
+            json.append(i++ > 0 ? "," : "").append("\n    ").append(toJson(tenant));
+        }
+        return json.append("\n  ]\n}\n").toString();
+    }
+
+    private static String toJson(TenantStatistics tenant) {
+        return "{\"tenantId\": " + tenant.getTenantId() + ", \"rows\": " + tenant.getRows() + ", \"lobBytes\": " + tenant.getLobBytes() + "}";
+    }
+
+    /**
+     * @return one line per table and tenant, preceded by a header, then one line per tenant with its totals
+     */
+    public List<String> toLines() {
+        final List<String> lines = new ArrayList<>();
+        lines.add(String.format(LINE_FORMAT, "table", "tenant", "rows", "LOB size", "storage"));
+        for (TableStatistics table : tables) {
+            String name = table.getTable();
+            String storage = table.getStorageBytes() == null ? "-" : formatBytes(table.getStorageBytes());
+            if (table.getTenants().isEmpty()) {
+                lines.add(String.format(LINE_FORMAT, name, "-", 0, formatBytes(0), storage));
+            }
+            for (TenantStatistics tenant : table.getTenants()) {
+                lines.add(String.format(LINE_FORMAT, name, tenant.getTenantId() == null ? "-" : tenant.getTenantId(), tenant.getRows(),
+                        formatBytes(tenant.getLobBytes()), storage));
+                // table name and storage only on the first line of each table:
+                name = "";
+                storage = "";
+            }
+        }
+        for (TenantStatistics tenant : getTenantTotals().values()) {
+            lines.add(String.format(LINE_FORMAT, "total", tenant.getTenantId(), tenant.getRows(), formatBytes(tenant.getLobBytes()), ""));
+        }
+        return lines;
+    }
+
+    static String formatBytes(long bytes) {
+        if (bytes < 1024) {
+            return bytes + " B";
+        }
+        final String[] units = { "KB", "MB", "GB", "TB" };
+        double value = bytes;
+        int unit = -1;
+        while (value >= 1024 && unit < units.length - 1) {
+            value /= 1024;
+            unit++;
+        }
+        return String.format(Locale.ENGLISH, "%.1f %s", value, units[unit]);
+    }
+
+    private static String formatDate(long date) {
+        final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
+        dateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+        return dateFormat.format(new Date(date));
+    }
+
+    private static String quote(String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+}
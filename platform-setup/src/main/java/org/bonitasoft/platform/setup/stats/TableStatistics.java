@@ -0,0 +1,67 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.setup.stats;
+
+import java.util.List;
+
+/**
+ * footprint of one table: rows and binary column sizes per tenant, and the size the database reports for the table with its indexes and LOBs
+ *
+ * @author Laurent Leseigneur
+ */
+public class TableStatistics {
+
+    private final String table;
+
+    private final Long storageBytes;
+
+    private final List<TenantStatistics> tenants;
+
+    /**
+     * @param storageBytes size reported by the database, or null where the db vendor does not report it
+     */
+    public TableStatistics(String table, Long storageBytes, List<TenantStatistics> tenants) {
+        this.table = table;
+        this.storageBytes = storageBytes;
+        this.tenants = tenants;
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    public Long getStorageBytes() {
+        return storageBytes;
+    }
+
+    public List<TenantStatistics> getTenants() {
+        return tenants;
+    }
+
+    public long getRows() {
+        long rows = 0;
+        for (TenantStatistics tenant : tenants) {
+            rows += tenant.getRows();
+        }
+        return rows;
+    }
+
+    public long getLobBytes() {
+        long lobBytes = 0;
+        for (TenantStatistics tenant : tenants) {
+            lobBytes += tenant.getLobBytes();
+        }
+        return lobBytes;
+    }
+}
@@ -0,0 +1,49 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.setup.stats;
+
+/**
+ * number of rows, and total size of their binary columns, of one tenant in one table
+ *
+ * @author Laurent Leseigneur
+ */
+public class TenantStatistics {
+
+    private final Long tenantId;
+
+    private final long rows;
+
+    private final long lobBytes;
+
+    /**
+     * @param tenantId id of the tenant, or null for tables not split by tenant
+     */
+    public TenantStatistics(Long tenantId, long rows, long lobBytes) {
+        this.tenantId = tenantId;
+        this.rows = rows;
+        this.lobBytes = lobBytes;
+    }
+
+    public Long getTenantId() {
+        return tenantId;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getLobBytes() {
+        return lobBytes;
+    }
+}
@@ -22,15 +22,115 @@ IF NOT "%BONITA_DATABASE%" == "h2" IF NOT "%BONITA_DATABASE%" == "postgres" IF N
 )
 
 IF NOT (%1) == () set ACTION=%1
-IF NOT "%ACTION%" == "init" IF NOT "%ACTION%" == "pull" IF NOT "%ACTION%" == "push" (
-    echo Missing action argument. Available values are: init, pull, push
+IF NOT "%ACTION%" == "init" IF NOT "%ACTION%" == "pull" IF NOT "%ACTION%" == "push" IF NOT "%ACTION%" == "history" IF NOT "%ACTION%" == "rollback" IF NOT "%ACTION%" == "serve" IF NOT "%ACTION%" == "set-property" IF NOT "%ACTION%" == "propagate" IF NOT "%ACTION%" == "offload-archives" IF NOT "%ACTION%" == "rollup-logs" IF NOT "%ACTION%" == "verify-schema" IF NOT "%ACTION%" == "export-tenant" IF NOT "%ACTION%" == "import-tenant" IF NOT "%ACTION%" == "stats" IF NOT "%ACTION%" == "generate-data" (
+    echo Missing action argument. Available values are: init, pull, push, history, rollback, serve, set-property, propagate, offload-archives, rollup-logs, verify-schema, export-tenant, import-tenant, stats, generate-data
     exit /b 1
 )
+set GENERATION=%2
+IF "%ACTION%" == "rollback" IF "%GENERATION%" == "" (
+    echo Missing generation argument. Usage: setup.bat rollback generation. Run 'setup.bat history' to list available generations.
+    exit /b 1
+)
+
+IF "%ACTION%" == "offload-archives" IF "%~2" == "" (
+    echo Missing days argument. Usage: setup.bat offload-archives days, where days is the number of days of archives to keep in database.
+    exit /b 1
+)
+IF "%ACTION%" == "rollup-logs" IF "%~2" == "" (
+    echo Missing days argument. Usage: setup.bat rollup-logs days [--offload], where days is the number of days of detailed logs to keep in database.
+    exit /b 1
+)
+IF "%ACTION%" == "export-tenant" IF "%~2" == "" (
+    echo Missing tenant id argument. Usage: setup.bat export-tenant tenant_id
+    exit /b 1
+)
+IF "%ACTION%" == "import-tenant" IF "%~2" == "" (
+    echo Missing file argument. Usage: setup.bat import-tenant file [new_tenant_id [new_tenant_name]]
+    exit /b 1
+)
+IF "%ACTION%" == "generate-data" IF "%~3" == "" (
+    echo Missing arguments. Usage: setup.bat generate-data tenants process_instances_per_tenant [--flow-nodes average_per_process] [--data per_process] [--archived-percent percent] [--seed seed] [--threads threads]
+    exit /b 1
+)
+
+set PROPERTY_TYPE=%~2
+set PROPERTY_FILE=%~3
+set PROPERTY_KEY=%~4
+set PROPERTY_VALUE=%~5
+IF "%ACTION%" == "set-property" IF "%PROPERTY_KEY%" == "" (
+    echo Missing arguments. Usage: setup.bat set-property configuration_type file_name property_key value
+    exit /b 1
+)
+
+set FILTER_TENANTS=
+set FILTER_TYPES=
+set FILTER_FILES=
+IF "%ACTION%" == "pull" goto parse_filters
+IF "%ACTION%" == "push" goto parse_filters
+goto filters_parsed
+:parse_filters
+shift
+:next_filter
+IF "%~1" == "" goto filters_parsed
+IF "%~2" == "" (
+    echo Missing value for option %~1. Usage: setup.bat %ACTION% [--tenants "tenant ids"] [--types "configuration types"] [--files "file name patterns"]
+    exit /b 1
+)
+IF "%~1" == "--tenants" (
+    set FILTER_TENANTS=%~2
+) ELSE IF "%~1" == "--types" (
+    set FILTER_TYPES=%~2
+) ELSE IF "%~1" == "--files" (
+    set FILTER_FILES=%~2
+) ELSE (
+    echo Unknown option %~1. Usage: setup.bat %ACTION% [--tenants "tenant ids"] [--types "configuration types"] [--files "file name patterns"]
+    exit /b 1
+)
+shift
+shift
+goto next_filter
+:filters_parsed
+
+set GENERATE_TENANTS=%~2
+set GENERATE_PROCESS_INSTANCES=%~3
+set GENERATE_FLOW_NODES=
+set GENERATE_DATA=
+set GENERATE_ARCHIVED_PERCENT=
+set GENERATE_SEED=
+set GENERATE_THREADS=
+IF NOT "%ACTION%" == "generate-data" goto generate_options_parsed
+shift
+shift
+shift
+:next_generate_option
+IF "%~1" == "" goto generate_options_parsed
+IF "%~2" == "" (
+    echo Missing value for option %~1. Usage: setup.bat generate-data tenants process_instances_per_tenant [--flow-nodes average_per_process] [--data per_process] [--archived-percent percent] [--seed seed] [--threads threads]
+    exit /b 1
+)
+IF "%~1" == "--flow-nodes" (
+    set GENERATE_FLOW_NODES=%~2
+) ELSE IF "%~1" == "--data" (
+    set GENERATE_DATA=%~2
+) ELSE IF "%~1" == "--archived-percent" (
+    set GENERATE_ARCHIVED_PERCENT=%~2
+) ELSE IF "%~1" == "--seed" (
+    set GENERATE_SEED=%~2
+) ELSE IF "%~1" == "--threads" (
+    set GENERATE_THREADS=%~2
+) ELSE (
+    echo Unknown option %~1. Usage: setup.bat generate-data tenants process_instances_per_tenant [--flow-nodes average_per_process] [--data per_process] [--archived-percent percent] [--seed seed] [--threads threads]
+    exit /b 1
+)
+shift
+shift
+goto next_generate_option
+:generate_options_parsed
 
 echo using database %BONITA_DATABASE%
 echo action is %ACTION%
 
-java -cp "%BASEDIR%;%CFG_FOLDER%;%INITIAL_CFG_FOLDER%;%LIB_FOLDER%\*" -Dorg.bonitasoft.platform.setup.action=%ACTION% -Dspring.profiles.active=default -Dsysprop.bonita.db.vendor=%BONITA_DATABASE% org.bonitasoft.platform.setup.PlatformSetupApplication
+java -cp "%BASEDIR%;%CFG_FOLDER%;%INITIAL_CFG_FOLDER%;%LIB_FOLDER%\*" -Dorg.bonitasoft.platform.setup.action=%ACTION% -Dorg.bonitasoft.platform.setup.generation=%GENERATION% "-Dorg.bonitasoft.platform.setup.property.type=%PROPERTY_TYPE%" "-Dorg.bonitasoft.platform.setup.property.file=%PROPERTY_FILE%" "-Dorg.bonitasoft.platform.setup.property.key=%PROPERTY_KEY%" "-Dorg.bonitasoft.platform.setup.property.value=%PROPERTY_VALUE%" "-Dorg.bonitasoft.platform.setup.filter.tenants=%FILTER_TENANTS%" "-Dorg.bonitasoft.platform.setup.filter.types=%FILTER_TYPES%" "-Dorg.bonitasoft.platform.setup.filter.files=%FILTER_FILES%" "-Dorg.bonitasoft.platform.setup.retention.days=%~2" "-Dorg.bonitasoft.platform.setup.offload=%~3" "-Dorg.bonitasoft.platform.setup.tenant.id=%~2" "-Dorg.bonitasoft.platform.setup.tenant.file=%~2" "-Dorg.bonitasoft.platform.setup.tenant.new.id=%~3" "-Dorg.bonitasoft.platform.setup.tenant.new.name=%~4" "-Dorg.bonitasoft.platform.setup.generate.tenants=%GENERATE_TENANTS%" "-Dorg.bonitasoft.platform.setup.generate.process.instances=%GENERATE_PROCESS_INSTANCES%" "-Dorg.bonitasoft.platform.setup.generate.flownodes=%GENERATE_FLOW_NODES%" "-Dorg.bonitasoft.platform.setup.generate.data=%GENERATE_DATA%" "-Dorg.bonitasoft.platform.setup.generate.archived.percent=%GENERATE_ARCHIVED_PERCENT%" "-Dorg.bonitasoft.platform.setup.generate.seed=%GENERATE_SEED%" "-Dorg.bonitasoft.platform.setup.generate.threads=%GENERATE_THREADS%" -Dspring.profiles.active=default -Dsysprop.bonita.db.vendor=%BONITA_DATABASE% org.bonitasoft.platform.setup.PlatformSetupApplication
 
 if errorlevel 1 (
     echo ERROR 1 Executing platform setup
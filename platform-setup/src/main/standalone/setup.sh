@@ -26,6 +26,50 @@ check_is_installed() {
      return 0
 }
 
+parse_filters() {
+    # skip action argument:
+    shift
+    while [ $# -gt 0 ]; do
+        if [ $# -lt 2 ]; then
+            echo "Missing value for option $1. Usage: setup.sh ${ACTION} [--tenants <tenant ids>] [--types <configuration types>] [--files <file name patterns>]"
+            exit 1
+        fi
+        case "$1" in
+            --tenants) FILTER_TENANTS="$2" ;;
+            --types) FILTER_TYPES="$2" ;;
+            --files) FILTER_FILES="$2" ;;
+            *)
+                echo "Unknown option $1. Usage: setup.sh ${ACTION} [--tenants <tenant ids>] [--types <configuration types>] [--files <file name patterns>]"
+                exit 1
+                ;;
+        esac
+        shift 2
+    done
+}
+
+parse_generate_options() {
+    # skip action, tenants and process instances arguments:
+    shift 3
+    while [ $# -gt 0 ]; do
+        if [ $# -lt 2 ]; then
+            echo "Missing value for option $1. Usage: setup.sh generate-data <tenants> <process instances per tenant> [--flow-nodes <average per process>] [--data <per process>] [--archived-percent <percent>] [--seed <seed>] [--threads <threads>]"
+            exit 1
+        fi
+        case "$1" in
+            --flow-nodes) GENERATE_FLOW_NODES="$2" ;;
+            --data) GENERATE_DATA="$2" ;;
+            --archived-percent) GENERATE_ARCHIVED_PERCENT="$2" ;;
+            --seed) GENERATE_SEED="$2" ;;
+            --threads) GENERATE_THREADS="$2" ;;
+            *)
+                echo "Unknown option $1. Usage: setup.sh generate-data <tenants> <process instances per tenant> [--flow-nodes <average per process>] [--data <per process>] [--archived-percent <percent>] [--seed <seed>] [--threads <threads>]"
+                exit 1
+                ;;
+        esac
+        shift 2
+    done
+}
+
 BONITA_DATABASE=$( grep '^db.vendor=' database.properties | sed -e 's/db.vendor=//g' )
 
 if [ "$BONITA_DATABASE" != "h2" -a "$BONITA_DATABASE" != "postgres" -a "$BONITA_DATABASE" != "sqlserver" -a "$BONITA_DATABASE" != "oracle" -a "$BONITA_DATABASE" != "mysql"  ]; then
@@ -35,16 +79,59 @@ if [ "$BONITA_DATABASE" != "h2" -a "$BONITA_DATABASE" != "postgres" -a "$BONITA_
 fi
 
 ACTION=${1:-""}
-if [ "${ACTION}" != "init" -a "${ACTION}" != "pull" -a "${ACTION}" != "push"  ]; then
-    echo "Missing action argument. Available values are: init, pull, push"
+if [ "${ACTION}" != "init" -a "${ACTION}" != "pull" -a "${ACTION}" != "push" -a "${ACTION}" != "history" -a "${ACTION}" != "rollback" -a "${ACTION}" != "serve" -a "${ACTION}" != "set-property" -a "${ACTION}" != "propagate" -a "${ACTION}" != "offload-archives" -a "${ACTION}" != "rollup-logs" -a "${ACTION}" != "verify-schema" -a "${ACTION}" != "export-tenant" -a "${ACTION}" != "import-tenant" -a "${ACTION}" != "stats" -a "${ACTION}" != "generate-data"  ]; then
+    echo "Missing action argument. Available values are: init, pull, push, history, rollback, serve, set-property, propagate, offload-archives, rollup-logs, verify-schema, export-tenant, import-tenant, stats, generate-data"
+    exit 1
+fi
+GENERATION=${2:-""}
+if [ "${ACTION}" = "rollback" -a "${GENERATION}" = "" ]; then
+    echo "Missing generation argument. Usage: setup.sh rollback <generation>. Run 'setup.sh history' to list available generations."
+    exit 1
+fi
+if [ "${ACTION}" = "offload-archives" -a "${2:-""}" = "" ]; then
+    echo "Missing days argument. Usage: setup.sh offload-archives <days>, where <days> is the number of days of archives to keep in database."
+    exit 1
+fi
+if [ "${ACTION}" = "rollup-logs" -a "${2:-""}" = "" ]; then
+    echo "Missing days argument. Usage: setup.sh rollup-logs <days> [--offload], where <days> is the number of days of detailed logs to keep in database."
     exit 1
 fi
+if [ "${ACTION}" = "export-tenant" -a "${2:-""}" = "" ]; then
+    echo "Missing tenant id argument. Usage: setup.sh export-tenant <tenant id>"
+    exit 1
+fi
+if [ "${ACTION}" = "import-tenant" -a "${2:-""}" = "" ]; then
+    echo "Missing file argument. Usage: setup.sh import-tenant <file> [<new tenant id> [<new tenant name>]]"
+    exit 1
+fi
+if [ "${ACTION}" = "generate-data" -a "${3:-""}" = "" ]; then
+    echo "Missing arguments. Usage: setup.sh generate-data <tenants> <process instances per tenant> [--flow-nodes <average per process>] [--data <per process>] [--archived-percent <percent>] [--seed <seed>] [--threads <threads>]"
+    exit 1
+fi
+if [ "${ACTION}" = "set-property" -a $# -lt 5 ]; then
+    echo "Missing arguments. Usage: setup.sh set-property <configuration type> <file name> <property key> <value>, e.g. setup.sh set-property tenant_portal security-config.properties security.rest.api.authorizations.check.enabled true"
+    exit 1
+fi
+FILTER_TENANTS=""
+FILTER_TYPES=""
+FILTER_FILES=""
+if [ "${ACTION}" = "pull" -o "${ACTION}" = "push" ]; then
+    parse_filters "$@"
+fi
+GENERATE_FLOW_NODES=""
+GENERATE_DATA=""
+GENERATE_ARCHIVED_PERCENT=""
+GENERATE_SEED=""
+GENERATE_THREADS=""
+if [ "${ACTION}" = "generate-data" ]; then
+    parse_generate_options "$@"
+fi
 
 echo "Action is ${ACTION}"
 echo "Using database ${BONITA_DATABASE}"
 export BONITA_DATABASE
 
-java -cp "${BASEDIR}:${CFG_FOLDER}:${INITIAL_CFG_FOLDER}:${LIB_FOLDER}/*" -Dorg.bonitasoft.platform.setup.action=${ACTION} -Dspring.profiles.active=default -Dsysprop.bonita.db.vendor=${BONITA_DATABASE} org.bonitasoft.platform.setup.PlatformSetupApplication
+java -cp "${BASEDIR}:${CFG_FOLDER}:${INITIAL_CFG_FOLDER}:${LIB_FOLDER}/*" -Dorg.bonitasoft.platform.setup.action=${ACTION} -Dorg.bonitasoft.platform.setup.generation=${GENERATION} -Dorg.bonitasoft.platform.setup.property.type="${2}" -Dorg.bonitasoft.platform.setup.property.file="${3}" -Dorg.bonitasoft.platform.setup.property.key="${4}" -Dorg.bonitasoft.platform.setup.property.value="${5}" -Dorg.bonitasoft.platform.setup.filter.tenants="${FILTER_TENANTS}" -Dorg.bonitasoft.platform.setup.filter.types="${FILTER_TYPES}" -Dorg.bonitasoft.platform.setup.filter.files="${FILTER_FILES}" -Dorg.bonitasoft.platform.setup.retention.days="${2}" -Dorg.bonitasoft.platform.setup.offload="${3}" -Dorg.bonitasoft.platform.setup.tenant.id="${2}" -Dorg.bonitasoft.platform.setup.tenant.file="${2}" -Dorg.bonitasoft.platform.setup.tenant.new.id="${3}" -Dorg.bonitasoft.platform.setup.tenant.new.name="${4}" -Dorg.bonitasoft.platform.setup.generate.tenants="${2}" -Dorg.bonitasoft.platform.setup.generate.process.instances="${3}" -Dorg.bonitasoft.platform.setup.generate.flownodes="${GENERATE_FLOW_NODES}" -Dorg.bonitasoft.platform.setup.generate.data="${GENERATE_DATA}" -Dorg.bonitasoft.platform.setup.generate.archived.percent="${GENERATE_ARCHIVED_PERCENT}" -Dorg.bonitasoft.platform.setup.generate.seed="${GENERATE_SEED}" -Dorg.bonitasoft.platform.setup.generate.threads="${GENERATE_THREADS}" -Dspring.profiles.active=default -Dsysprop.bonita.db.vendor=${BONITA_DATABASE} org.bonitasoft.platform.setup.PlatformSetupApplication
 
 testReturnCode $? "Executing platform setup (Java command)"
 
@@ -0,0 +1,181 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.configuration.dialect;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.jdbc.datasource.init.ScriptUtils.*;
+
+import java.io.InputStream;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.bonitasoft.platform.configuration.impl.BonitaAllConfigurationPreparedStatementSetter;
+import org.bonitasoft.platform.configuration.model.FullBonitaConfiguration;
+import org.bonitasoft.platform.setup.PlatformSetupApplication;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.SpringApplicationConfiguration;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.support.EncodedResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.jdbc.JdbcTestUtils;
+
+/**
+ * runs the dialect of the configured db vendor, h2 by default, and logs how its bulk insert compares to a plain JDBC batch
+ *
+ * @author Laurent Leseigneur
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringApplicationConfiguration(classes = {
+        PlatformSetupApplication.class })
+@ComponentScan(basePackages = { "org.bonitasoft.platform.setup", "org.bonitasoft.platform.configuration" })
+@PropertySource("classpath:/application.properties")
+@Component
+public class ConfigurationDialectIT {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(ConfigurationDialectIT.class);
+
+    private static final int BENCHMARK_ROWS = 2000;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Value("${db.vendor}")
+    String dbVendor;
+
+    @Autowired
+    DataSource dataSource;
+
+    private ConfigurationDialect dialect;
+
+    @Before
+    public void setUpDb() throws Exception {
+        dropTables();
+        createTables();
+        dialect = ConfigurationDialects.forVendor(dbVendor);
+    }
+
+    @After
+    public void cleanUpDB() throws Exception {
+        dropTables();
+    }
+
+    @Test
+    public void should_insert_all_rows_with_dialect_bulk_insert() throws Exception {
+        //given
+        final List<FullBonitaConfiguration> configurations = buildConfigurations(1L, BENCHMARK_ROWS);
+
+        //when
+        dialect.insertConfigurations(jdbcTemplate, configurations);
+
+        //then
+        assertThat(JdbcTestUtils.countRowsInTable(jdbcTemplate, "configuration")).isEqualTo(BENCHMARK_ROWS);
+        assertThat(jdbcTemplate.queryForObject("SELECT resource_content FROM configuration WHERE tenant_id = 1 AND resource_name = 'file_1999.properties'",
+                byte[].class)).isEqualTo(configurations.get(1999).getResourceContent());
+    }
+
+    @Test
+    public void should_update_existing_row_and_insert_new_row_on_upsert() throws Exception {
+        //given
+        dialect.insertConfigurations(jdbcTemplate, Arrays.asList(
+                new FullBonitaConfiguration("existing.properties", "key=old".getBytes(), "TENANT_ENGINE", 1L)));
+
+        //when
+        dialect.upsertConfigurations(jdbcTemplate, Arrays.asList(
+                new FullBonitaConfiguration("existing.properties", "key=new".getBytes(), "TENANT_ENGINE", 1L),
+                new FullBonitaConfiguration("new.properties", "key=value".getBytes(), "TENANT_ENGINE", 1L)));
+
+        //then
+        assertThat(JdbcTestUtils.countRowsInTable(jdbcTemplate, "configuration")).isEqualTo(2);
+        assertThat(jdbcTemplate.queryForObject("SELECT resource_content FROM configuration WHERE resource_name = 'existing.properties'", byte[].class))
+                .isEqualTo("key=new".getBytes());
+        assertThat(jdbcTemplate.queryForObject("SELECT resource_content FROM configuration WHERE resource_name = 'new.properties'", byte[].class))
+                .isEqualTo("key=value".getBytes());
+    }
+
+    @Test
+    public void benchmark_dialect_bulk_insert_against_jdbc_batch() throws Exception {
+        //given
+        final List<FullBonitaConfiguration> warmUp = buildConfigurations(100L, BENCHMARK_ROWS);
+        jdbcTemplate.batchUpdate(BonitaAllConfigurationPreparedStatementSetter.INSERT_CONFIGURATION,
+                new BonitaAllConfigurationPreparedStatementSetter(warmUp, dbVendor));
+        dialect.insertConfigurations(jdbcTemplate, buildConfigurations(101L, BENCHMARK_ROWS));
+
+        //when
+        long start = System.nanoTime();
+        jdbcTemplate.batchUpdate(BonitaAllConfigurationPreparedStatementSetter.INSERT_CONFIGURATION,
+                new BonitaAllConfigurationPreparedStatementSetter(buildConfigurations(1L, BENCHMARK_ROWS), dbVendor));
+        final long batchMillis = (System.nanoTime() - start) / 1000000;
+
+        start = System.nanoTime();
+        final int statements = dialect.insertConfigurations(jdbcTemplate, buildConfigurations(2L, BENCHMARK_ROWS));
+        final long dialectMillis = (System.nanoTime() - start) / 1000000;
+
+        //then
+        LOGGER.info(String.format("%s: %d rows inserted in %d ms with a JDBC batch, in %d ms with %d statement(s) of %s", dbVendor, BENCHMARK_ROWS,
+                batchMillis, dialectMillis, statements, dialect));
+        assertThat(JdbcTestUtils.countRowsInTableWhere(jdbcTemplate, "configuration", "tenant_id IN (1, 2)")).isEqualTo(2 * BENCHMARK_ROWS);
+    }
+
+    private List<FullBonitaConfiguration> buildConfigurations(long tenantId, int count) {
+        final List<FullBonitaConfiguration> configurations = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            configurations.add(new FullBonitaConfiguration("file_" + i + ".properties", ("key_" + i + "=value of tenant " + tenantId).getBytes(),
+                    "TENANT_ENGINE", tenantId));
+        }
+        return configurations;
+    }
+
+    private void createTables() throws Exception {
+        final InputStream createTableResource = this.getClass().getResourceAsStream("/sql/" + dbVendor + "/createTables.sql");
+        ScriptUtils.executeSqlScript(getConnection(),
+                new EncodedResource(new InputStreamResource(createTableResource)), false, false, DEFAULT_COMMENT_PREFIX, getDefaultStatementSeparator(),
+                DEFAULT_BLOCK_COMMENT_START_DELIMITER, DEFAULT_BLOCK_COMMENT_END_DELIMITER);
+    }
+
+    private void dropTables() throws Exception {
+        final InputStream dropTablesResource = this.getClass().getResourceAsStream("/sql/" + dbVendor + "/dropTables.sql");
+        ScriptUtils.executeSqlScript(getConnection(),
+                new EncodedResource(new InputStreamResource(dropTablesResource)), true, true, DEFAULT_COMMENT_PREFIX, getDefaultStatementSeparator(),
+                DEFAULT_BLOCK_COMMENT_START_DELIMITER, DEFAULT_BLOCK_COMMENT_END_DELIMITER);
+    }
+
+    private String getDefaultStatementSeparator() {
+        switch (dbVendor) {
+            case "sqlserver":
+                return "GO";
+            default:
+                return DEFAULT_STATEMENT_SEPARATOR;
+        }
+    }
+
+    private Connection getConnection() throws Exception {
+        return dataSource.getConnection();
+    }
+}
@@ -0,0 +1,63 @@
+package org.bonitasoft.platform.configuration.dialect;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class ConfigurationDialectsTest {
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    @After
+    public void clearVendor() throws Exception {
+        System.clearProperty("sysprop.bonita.db.vendor");
+    }
+
+    @Test
+    public void should_give_dialect_of_each_supported_vendor() throws Exception {
+        //then
+        assertThat(ConfigurationDialects.forVendor("h2")).isInstanceOf(H2ConfigurationDialect.class);
+        assertThat(ConfigurationDialects.forVendor("postgres")).isInstanceOf(PostgresConfigurationDialect.class);
+        assertThat(ConfigurationDialects.forVendor("mysql")).isInstanceOf(MySQLConfigurationDialect.class);
+        assertThat(ConfigurationDialects.forVendor("oracle")).isInstanceOf(OracleConfigurationDialect.class);
+        assertThat(ConfigurationDialects.forVendor("sqlserver")).isInstanceOf(SQLServerConfigurationDialect.class);
+    }
+
+    @Test
+    public void should_use_system_property_when_vendor_is_null() throws Exception {
+        //given
+        System.setProperty("sysprop.bonita.db.vendor", "postgres");
+
+        //then
+        assertThat(ConfigurationDialects.forVendor(null).getVendor()).isEqualTo("postgres");
+    }
+
+    @Test
+    public void should_reject_unsupported_vendor() throws Exception {
+        //then
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("unsupported db vendor:db2");
+
+        //when
+        ConfigurationDialects.forVendor("db2");
+    }
+
+    @Test
+    public void should_build_multi_row_insert() throws Exception {
+        //then
+        assertThat(AbstractConfigurationDialect.buildMultiRowInsert(1)).isEqualTo(
+                "INSERT INTO configuration (tenant_id, content_type, resource_name, resource_content) VALUES (?, ?, ?, ?)");
+        assertThat(AbstractConfigurationDialect.buildMultiRowInsert(3)).isEqualTo(
+                "INSERT INTO configuration (tenant_id, content_type, resource_name, resource_content) VALUES (?, ?, ?, ?), (?, ?, ?, ?), (?, ?, ?, ?)");
+    }
+
+    @Test
+    public void should_keep_multi_row_insert_of_sqlserver_below_parameter_limit() throws Exception {
+        //then
+        assertThat(SQLServerConfigurationDialect.MAX_ROWS_PER_INSERT * 4).isLessThan(2100);
+    }
+}
@@ -0,0 +1,133 @@
+package org.bonitasoft.platform.configuration.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.bonitasoft.platform.configuration.type.ConfigurationType.TENANT_ENGINE;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.bonitasoft.platform.configuration.ConfigurationService;
+import org.bonitasoft.platform.configuration.model.BonitaConfiguration;
+import org.bonitasoft.platform.exception.PlatformException;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+
+/**
+ * @author Laurent Leseigneur
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class AsyncConfigurationServiceImplTest {
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    @Mock
+    ConfigurationService configurationService;
+
+    AsyncConfigurationServiceImpl asyncConfigurationService;
+
+    @After
+    public void after() throws Exception {
+        if (asyncConfigurationService != null) {
+            asyncConfigurationService.destroy();
+        }
+    }
+
+    @Test
+    public void getEffectiveTenantConfigurations_should_return_one_result_per_tenant_in_given_order() throws Exception {
+        //given
+        asyncConfigurationService = new AsyncConfigurationServiceImpl(configurationService, 4);
+        final List<BonitaConfiguration> tenant2 = Collections.singletonList(new BonitaConfiguration("tenant2.xml", "2".getBytes()));
+        final List<BonitaConfiguration> tenant1 = Collections.singletonList(new BonitaConfiguration("tenant1.xml", "1".getBytes()));
+        doReturn(tenant2).when(configurationService).getEffectiveTenantConfiguration(TENANT_ENGINE, 2L);
+        doReturn(tenant1).when(configurationService).getEffectiveTenantConfiguration(TENANT_ENGINE, 1L);
+
+        //when
+        final Map<Long, Future<List<BonitaConfiguration>>> results = asyncConfigurationService.getEffectiveTenantConfigurations(TENANT_ENGINE,
+                Arrays.asList(2L, 1L));
+
+        //then
+        assertThat(results.keySet()).containsExactly(2L, 1L);
+        assertThat(results.get(2L).get()).isSameAs(tenant2);
+        assertThat(results.get(1L).get()).isSameAs(tenant1);
+    }
+
+    @Test
+    public void should_never_run_more_calls_than_max_concurrency() throws Exception {
+        //given
+        asyncConfigurationService = new AsyncConfigurationServiceImpl(configurationService, 2);
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final CountDownLatch twoStarted = new CountDownLatch(2);
+        final CountDownLatch release = new CountDownLatch(1);
+        doAnswer(new Answer<List<BonitaConfiguration>>() {
+
+            @Override
+            public List<BonitaConfiguration> answer(InvocationOnMock invocation) throws Throwable {
+                final int current = running.incrementAndGet();
+                synchronized (maxRunning) {
+                    maxRunning.set(Math.max(maxRunning.get(), current));
+                }
+                twoStarted.countDown();
+                release.await(5, TimeUnit.SECONDS);
+                running.decrementAndGet();
+                return Collections.emptyList();
+            }
+        }).when(configurationService).getTenantEngineConf(anyLong());
+
+        //when
+        final List<Future<List<BonitaConfiguration>>> futures = Arrays.asList(asyncConfigurationService.getTenantEngineConf(1L),
+                asyncConfigurationService.getTenantEngineConf(2L), asyncConfigurationService.getTenantEngineConf(3L),
+                asyncConfigurationService.getTenantEngineConf(4L));
+        assertThat(twoStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        release.countDown();
+        for (Future<List<BonitaConfiguration>> future : futures) {
+            future.get(5, TimeUnit.SECONDS);
+        }
+
+        //then
+        assertThat(maxRunning.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void should_report_failure_through_future() throws Exception {
+        //given
+        asyncConfigurationService = new AsyncConfigurationServiceImpl(configurationService, 1);
+        final File folder = new File("unknown");
+        doThrow(new PlatformException("cannot store")).when(configurationService).storeTenantConfiguration(folder, 3L);
+        final Future<Void> future = asyncConfigurationService.storeTenantConfiguration(folder, 3L);
+
+        //then
+        expectedException.expect(ExecutionException.class);
+        expectedException.expectMessage("cannot store");
+
+        //when
+        future.get();
+    }
+
+    @Test
+    public void should_reject_zero_concurrency() throws Exception {
+        expectedException.expect(IllegalArgumentException.class);
+
+        new AsyncConfigurationServiceImpl(configurationService, 0);
+    }
+}
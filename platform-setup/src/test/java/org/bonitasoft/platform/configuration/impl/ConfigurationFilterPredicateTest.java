@@ -0,0 +1,47 @@
+package org.bonitasoft.platform.configuration.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.bonitasoft.platform.configuration.model.ConfigurationFilter;
+import org.bonitasoft.platform.configuration.type.ConfigurationType;
+import org.junit.Test;
+
+/**
+ * @author Laurent Leseigneur
+ */
+public class ConfigurationFilterPredicateTest {
+
+    @Test
+    public void should_have_no_where_clause_when_filter_matches_all() throws Exception {
+        //when
+        final ConfigurationFilterPredicate predicate = new ConfigurationFilterPredicate(ConfigurationFilter.ALL);
+
+        //then
+        assertThat(predicate.getWhereClause()).isEmpty();
+        assertThat(predicate.getArguments()).isEmpty();
+    }
+
+    @Test
+    public void should_build_predicates_for_all_criteria() throws Exception {
+        //given
+        final ConfigurationFilter filter = new ConfigurationFilter(Arrays.asList(1L, 2L), Collections.singletonList(ConfigurationType.TENANT_PORTAL),
+                Arrays.asList("*.properties", "a?.xml"));
+
+        //when
+        final ConfigurationFilterPredicate predicate = new ConfigurationFilterPredicate(filter);
+
+        //then
+        assertThat(predicate.getWhereClause()).isEqualTo(
+                " WHERE tenant_id IN (?, ?) AND content_type IN (?) AND (resource_name LIKE ? ESCAPE '!' OR resource_name LIKE ? ESCAPE '!')");
+        assertThat(predicate.getArguments()).containsExactly(1L, 2L, "TENANT_PORTAL", "%.properties", "a_.xml");
+    }
+
+    @Test
+    public void toLikePattern_should_escape_like_wildcards() throws Exception {
+        assertThat(ConfigurationFilterPredicate.toLikePattern("100%_done!*")).isEqualTo("100!%!_done!!%");
+    }
+
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ */
+package org.bonitasoft.platform.configuration.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import org.bonitasoft.platform.configuration.model.FullBonitaConfiguration;
+import org.bonitasoft.platform.configuration.util.GetConfigurationPageInTransaction;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * @author Laurent Leseigneur
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class ConfigurationPageIteratorTest {
+
+    @Mock
+    JdbcTemplate jdbcTemplate;
+
+    @Mock
+    TransactionTemplate transactionTemplate;
+
+    @Test
+    public void should_read_next_page_only_after_a_full_page() throws Exception {
+        //given
+        final FullBonitaConfiguration a = configuration("a");
+        final FullBonitaConfiguration b = configuration("b");
+        final FullBonitaConfiguration c = configuration("c");
+        when(transactionTemplate.execute(any(GetConfigurationPageInTransaction.class))).thenReturn(Arrays.asList(a, b), Collections.singletonList(c));
+
+        //when
+        final List<FullBonitaConfiguration> read = readAll(new ConfigurationPageIterator(jdbcTemplate, transactionTemplate, 2));
+
+        //then
+        assertThat(read).containsExactly(a, b, c);
+        verify(transactionTemplate, times(2)).execute(any(GetConfigurationPageInTransaction.class));
+    }
+
+    @Test
+    public void should_read_an_empty_page_after_last_full_page() throws Exception {
+        //given
+        final FullBonitaConfiguration a = configuration("a");
+        when(transactionTemplate.execute(any(GetConfigurationPageInTransaction.class))).thenReturn(Collections.singletonList(a),
+                Collections.<FullBonitaConfiguration> emptyList());
+
+        //when
+        final List<FullBonitaConfiguration> read = readAll(new ConfigurationPageIterator(jdbcTemplate, transactionTemplate, 1));
+
+        //then
+        assertThat(read).containsExactly(a);
+        verify(transactionTemplate, times(2)).execute(any(GetConfigurationPageInTransaction.class));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void should_reject_empty_pages() throws Exception {
+        new ConfigurationPageIterator(jdbcTemplate, transactionTemplate, 0);
+    }
+
+    private List<FullBonitaConfiguration> readAll(Iterator<FullBonitaConfiguration> iterator) {
+        final List<FullBonitaConfiguration> read = new ArrayList<>();
+        while (iterator.hasNext()) {
+            read.add(iterator.next());
+        }
+        assertThat(iterator.hasNext()).isFalse();
+        return read;
+    }
+
+    private FullBonitaConfiguration configuration(String resourceName) {
+        return new FullBonitaConfiguration(resourceName, resourceName.getBytes(), "TENANT_ENGINE", 1L);
+    }
+
+}
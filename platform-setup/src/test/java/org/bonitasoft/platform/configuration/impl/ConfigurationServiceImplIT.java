@@ -14,20 +14,34 @@
 package org.bonitasoft.platform.configuration.impl;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
 import static org.springframework.jdbc.datasource.init.ScriptUtils.*;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.InputStream;
 import java.sql.Connection;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import javax.sql.DataSource;
 
+import org.apache.commons.io.FileUtils;
 import org.bonitasoft.platform.configuration.model.BonitaConfiguration;
+import org.bonitasoft.platform.configuration.model.ConfigurationFilter;
+import org.bonitasoft.platform.configuration.model.ConfigurationProperty;
+import org.bonitasoft.platform.configuration.model.FullBonitaConfiguration;
+import org.bonitasoft.platform.configuration.model.TemplatePropagation;
+import org.bonitasoft.platform.configuration.type.ConfigurationType;
+import org.bonitasoft.platform.configuration.util.ContentDigest;
 import org.bonitasoft.platform.configuration.util.FolderComparator;
+import org.bonitasoft.platform.configuration.util.MarkConfigurationChangeInTransaction;
+import org.bonitasoft.platform.exception.PlatformException;
 import org.bonitasoft.platform.setup.PlatformSetupApplication;
 import org.bonitasoft.platform.setup.jndi.MemoryJNDISetup;
 import org.junit.After;
@@ -48,6 +62,7 @@ import org.springframework.jdbc.datasource.init.ScriptUtils;
 import org.springframework.stereotype.Component;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 import org.springframework.test.jdbc.JdbcTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
 
 /**
  * @author laurent Leseigneur
@@ -251,6 +266,392 @@ public class ConfigurationServiceImplIT {
 
     }
 
+    @Test
+    public void should_export_and_import_all_configuration_with_archive() throws Exception {
+        //given
+        configurationService.storePlatformEngineConf(Collections.singletonList(
+                new BonitaConfiguration("resourceOfPlatform.xml", "platform resource content".getBytes())));
+        configurationService.storeLicenses(new File(this.getClass().getResource("/licenses").getPath()));
+        storeTenantConfiguration(TENANT_ID_5);
+        final File archive = new File(temporaryFolder.getRoot(), "configuration.zip");
+
+        //when
+        final int exported = configurationService.exportAllConfigurationToArchive(archive);
+        configurationService.deleteAllConfiguration();
+        final int imported = configurationService.importAllConfigurationFromArchive(archive);
+
+        //then
+        assertThat(exported).isEqualTo(6);
+        assertThat(imported).isEqualTo(6);
+        assertThat(configurationService.getPlatformEngineConf()).containsExactly(
+                new BonitaConfiguration("resourceOfPlatform.xml", "platform resource content".getBytes()));
+        assertThat(configurationService.getLicenses()).extracting("resourceName").containsOnly("license1.lic", "license2.lic");
+        assertThat(configurationService.getTenantPortalConf(TENANT_ID_5)).containsExactly(
+                new BonitaConfiguration("resourceOfTenant.xml", "resource content in tenant 5".getBytes()));
+    }
+
+    @Test
+    public void should_not_import_archive_that_does_not_match_manifest() throws Exception {
+        //given
+        configurationService.storePlatformEngineConf(Collections.singletonList(
+                new BonitaConfiguration("resourceOfPlatform.xml", "platform resource content".getBytes())));
+        final File archive = new File(temporaryFolder.getRoot(), "configuration.zip");
+        try (ZipOutputStream zipOutputStream = new ZipOutputStream(new FileOutputStream(archive))) {
+            zipOutputStream.putNextEntry(new ZipEntry("platform_engine/resourceOfPlatform.xml"));
+            zipOutputStream.write("tampered content".getBytes());
+            zipOutputStream.closeEntry();
+            zipOutputStream.putNextEntry(new ZipEntry(ConfigurationArchiveLayout.MANIFEST_ENTRY));
+            zipOutputStream.write("0000  platform_engine/resourceOfPlatform.xml\n".getBytes());
+            zipOutputStream.closeEntry();
+        }
+
+        //when
+        try {
+            configurationService.importAllConfigurationFromArchive(archive);
+            fail("import should fail");
+        } catch (PlatformException e) {
+            assertThat(e.getMessage()).contains("does not match hash declared in manifest");
+        }
+
+        //then
+        assertThat(configurationService.getPlatformEngineConf()).as("should keep existing configuration").containsExactly(
+                new BonitaConfiguration("resourceOfPlatform.xml", "platform resource content".getBytes()));
+    }
+
+    @Test
+    public void should_write_all_configuration_to_snapshot() throws Exception {
+        //given
+        configurationService.storePlatformEngineConf(Collections.singletonList(
+                new BonitaConfiguration("resourceOfPlatform.xml", "platform resource content".getBytes())));
+        storeTenantConfiguration(TENANT_ID_5);
+        final File snapshotFile = new File(temporaryFolder.getRoot(), "configuration.snapshot");
+
+        //when
+        final int written = configurationService.writeAllConfigurationToSnapshot(snapshotFile);
+
+        //then
+        assertThat(written).isEqualTo(4);
+        final SnapshotConfigurationServiceImpl snapshotConfigurationService = new SnapshotConfigurationServiceImpl(snapshotFile);
+        assertThat(snapshotConfigurationService.getPlatformEngineConf()).isEqualTo(configurationService.getPlatformEngineConf());
+        assertThat(snapshotConfigurationService.getTenantSecurityScripts(TENANT_ID_5)).isEqualTo(configurationService.getTenantSecurityScripts(TENANT_ID_5));
+    }
+
+    @Test
+    public void should_share_unchanged_content_between_generations() throws Exception {
+        //given
+        storeTenantConfiguration(TENANT_ID_5);
+        configurationService.recordConfigurationGeneration();
+        configurationService.storePlatformEngineConf(Collections.singletonList(
+                new BonitaConfiguration("resourceOfPlatform.xml", "platform resource content".getBytes())));
+
+        //when
+        final long generation = configurationService.recordConfigurationGeneration();
+
+        //then
+        assertThat(generation).isEqualTo(2L);
+        assertThat(JdbcTestUtils.countRowsInTable(jdbcTemplate, "configuration_history")).isEqualTo(3 + 4);
+        assertThat(JdbcTestUtils.countRowsInTable(jdbcTemplate, "configuration_content")).as("tenant files share the same content").isEqualTo(2);
+        assertThat(configurationService.getConfigurationHistory()).extracting("fileCount").containsExactly(3, 4);
+        assertThat(configurationService.getConfigurationHistory()).extracting("active").containsExactly(false, true);
+    }
+
+    @Test
+    public void should_record_actual_content_of_rows_written_by_another_process() throws Exception {
+        //given
+        configurationService.storePlatformEngineConf(Collections.singletonList(
+                new BonitaConfiguration("resourceOfPlatform.xml", "first content".getBytes())));
+        configurationService.recordConfigurationGeneration();
+        // not written through the service, as the engine does:
+        jdbcTemplate.update("UPDATE configuration SET resource_content = ? WHERE resource_name = 'resourceOfPlatform.xml'", "changed".getBytes());
+        configurationService.storeTenantEngineConf(Collections.singletonList(
+                new BonitaConfiguration("resourceOfTenant.xml", "tenant content".getBytes())), TENANT_ID_1);
+
+        //when
+        final long generation = configurationService.recordConfigurationGeneration();
+
+        //then
+        assertThat(jdbcTemplate.queryForList("SELECT content_hash FROM configuration_history WHERE generation = ? ORDER BY tenant_id", String.class,
+                generation)).containsExactly(ContentDigest.sha256("changed".getBytes()), ContentDigest.sha256("tenant content".getBytes()));
+        assertThat(JdbcTestUtils.countRowsInTable(jdbcTemplate, "configuration_content")).isEqualTo(3);
+    }
+
+    @Test
+    public void should_rollback_to_previous_generation() throws Exception {
+        //given
+        configurationService.storePlatformEngineConf(Collections.singletonList(
+                new BonitaConfiguration("resourceOfPlatform.xml", "first content".getBytes())));
+        configurationService.recordConfigurationGeneration();
+        configurationService.deleteAllConfiguration();
+        configurationService.storePlatformEngineConf(Collections.singletonList(
+                new BonitaConfiguration("otherResourceOfPlatform.xml", "second content".getBytes())));
+        configurationService.recordConfigurationGeneration();
+
+        //when
+        configurationService.rollbackToConfigurationGeneration(1L);
+
+        //then
+        assertThat(configurationService.getPlatformEngineConf()).containsExactly(
+                new BonitaConfiguration("resourceOfPlatform.xml", "first content".getBytes()));
+        assertThat(configurationService.getConfigurationHistory()).extracting("active").containsExactly(true, false);
+    }
+
+    @Test
+    public void should_recompute_effective_tenant_configuration_when_template_is_stored() throws Exception {
+        //given
+        configurationService.storeTenantTemplateEngineConf(Collections.singletonList(
+                new BonitaConfiguration("bonita-tenant.properties", "a=template\nb=template".getBytes())));
+        configurationService.storeTenantEngineConf(Collections.singletonList(
+                new BonitaConfiguration("bonita-tenant.properties", "b=tenant".getBytes())), TENANT_ID_1);
+        final List<BonitaConfiguration> first = configurationService.getEffectiveTenantConfiguration(ConfigurationType.TENANT_ENGINE, TENANT_ID_1);
+        assertThat(first).containsExactly(new BonitaConfiguration("bonita-tenant.properties", "a=template\nb=tenant\n".getBytes()));
+        assertThat(configurationService.getEffectiveTenantConfiguration(ConfigurationType.TENANT_ENGINE, TENANT_ID_1)).isSameAs(first);
+
+        //when
+        configurationService.storeTenantTemplateEngineConf(Collections.singletonList(
+                new BonitaConfiguration("bonita-tenant.properties", "a=new template\nb=template".getBytes())));
+
+        //then
+        assertThat(configurationService.getEffectiveTenantConfiguration(ConfigurationType.TENANT_ENGINE, TENANT_ID_1)).containsExactly(
+                new BonitaConfiguration("bonita-tenant.properties", "a=new template\nb=tenant\n".getBytes()));
+    }
+
+    @Test
+    public void should_recompute_effective_tenant_configuration_when_another_node_writes_configuration() throws Exception {
+        //given
+        ReflectionTestUtils.setField(configurationService, "changeCheckInterval", 0L);
+        try {
+            configurationService.storeTenantTemplateEngineConf(Collections.singletonList(
+                    new BonitaConfiguration("bonita-tenant.properties", "a=template\nb=template".getBytes())));
+            configurationService.storeTenantEngineConf(Collections.singletonList(
+                    new BonitaConfiguration("bonita-tenant.properties", "b=tenant".getBytes())), TENANT_ID_1);
+            final long version = configurationService.getConfigurationVersion();
+            assertThat(configurationService.getEffectiveTenantConfiguration(ConfigurationType.TENANT_ENGINE, TENANT_ID_1)).containsExactly(
+                    new BonitaConfiguration("bonita-tenant.properties", "a=template\nb=tenant\n".getBytes()));
+
+            //when
+            jdbcTemplate.update("UPDATE configuration SET resource_content = ? WHERE tenant_id = ? AND content_type = ?",
+                    "b=other process".getBytes(), TENANT_ID_1, ConfigurationType.TENANT_ENGINE.name());
+            jdbcTemplate.update(MarkConfigurationChangeInTransaction.INCREMENT_CHANGE_MARK);
+
+            //then
+            assertThat(configurationService.getEffectiveTenantConfiguration(ConfigurationType.TENANT_ENGINE, TENANT_ID_1)).containsExactly(
+                    new BonitaConfiguration("bonita-tenant.properties", "a=template\nb=other process\n".getBytes()));
+            assertThat(configurationService.getConfigurationVersion()).isGreaterThan(version);
+        } finally {
+            ReflectionTestUtils.setField(configurationService, "changeCheckInterval", ConfigurationServiceImpl.DEFAULT_CHANGE_CHECK_INTERVAL);
+        }
+    }
+
+    @Test
+    public void should_find_properties_across_tenants() throws Exception {
+        //given
+        configurationService.storeTenantTemplateEngineConf(Collections.singletonList(
+                new BonitaConfiguration("bonita-tenant.properties", "cache=on\nlimit=10".getBytes())));
+        configurationService.storeTenantEngineConf(Collections.singletonList(
+                new BonitaConfiguration("bonita-tenant.properties", "cache=on\nlimit=20".getBytes())), TENANT_ID_1);
+        configurationService.storeTenantEngineConf(Collections.singletonList(
+                new BonitaConfiguration("bonita-tenant.properties", "cache=off\nlimit=10\nextra=yes".getBytes())), TENANT_ID_12);
+
+        //then
+        assertThat(configurationService.findConfigurationProperties("cache")).extracting("tenantId").containsExactly(0L, TENANT_ID_1, TENANT_ID_12);
+        assertThat(configurationService.findConfigurationProperties("cache", "off")).containsExactly(
+                new ConfigurationProperty(TENANT_ID_12, "TENANT_ENGINE", "bonita-tenant.properties", "cache", "off"));
+        assertThat(configurationService.findTenantPropertyOverrides(ConfigurationType.TENANT_ENGINE, "bonita-tenant.properties")).containsExactly(
+                new ConfigurationProperty(TENANT_ID_1, "TENANT_ENGINE", "bonita-tenant.properties", "limit", "20"),
+                new ConfigurationProperty(TENANT_ID_12, "TENANT_ENGINE", "bonita-tenant.properties", "cache", "off"),
+                new ConfigurationProperty(TENANT_ID_12, "TENANT_ENGINE", "bonita-tenant.properties", "extra", "yes"));
+    }
+
+    @Test
+    public void should_index_only_inserted_files_in_bounded_batches() throws Exception {
+        //given
+        configurationService.storeTenantEngineConf(Collections.singletonList(
+                new BonitaConfiguration("bonita-tenant.properties", "cache=on".getBytes())), TENANT_ID_1);
+        final StringBuilder content = new StringBuilder();
+        for (int i = 0; i < ConfigurationPropertyIndexer.BATCH_SIZE + 10; i++) {
+            content.append("key").append(i).append("=value\n");
+        }
+        final List<FullBonitaConfiguration> insertedConfigurations = new ArrayList<>();
+        insertedConfigurations.add(new FullBonitaConfiguration("bonita-tenant.properties", ("cache=off\n" + content).getBytes(), "TENANT_ENGINE",
+                TENANT_ID_5));
+        insertedConfigurations.add(new FullBonitaConfiguration("bonita-tenant-custom.xml", "<cache/>".getBytes(), "TENANT_ENGINE", TENANT_ID_5));
+
+        //when
+        configurationService.insertNewConfigurations(insertedConfigurations);
+
+        //then
+        assertThat(configurationService.findConfigurationProperties("cache")).containsExactly(
+                new ConfigurationProperty(TENANT_ID_1, "TENANT_ENGINE", "bonita-tenant.properties", "cache", "on"),
+                new ConfigurationProperty(TENANT_ID_5, "TENANT_ENGINE", "bonita-tenant.properties", "cache", "off"));
+        assertThat(JdbcTestUtils.countRowsInTable(jdbcTemplate, "configuration_property")).isEqualTo(ConfigurationPropertyIndexer.BATCH_SIZE + 12);
+    }
+
+    @Test
+    public void should_remove_properties_of_deleted_tenant_from_index() throws Exception {
+        //given
+        configurationService.storeTenantEngineConf(Collections.singletonList(
+                new BonitaConfiguration("bonita-tenant.properties", "cache=on".getBytes())), TENANT_ID_1);
+        configurationService.storeTenantEngineConf(Collections.singletonList(
+                new BonitaConfiguration("bonita-tenant.properties", "cache=on".getBytes())), TENANT_ID_12);
+
+        //when
+        configurationService.deleteTenantConfiguration(TENANT_ID_1);
+
+        //then
+        assertThat(configurationService.findConfigurationProperties("cache")).extracting("tenantId").containsExactly(TENANT_ID_12);
+    }
+
+    @Test
+    public void should_set_property_in_all_tenants_having_the_file() throws Exception {
+        //given
+        configurationService.storeTenantPortalConf(Collections.singletonList(
+                new BonitaConfiguration("security-config.properties", "# security\ncheck=false\nother=1\n".getBytes())), TENANT_ID_1);
+        configurationService.storeTenantPortalConf(Collections.singletonList(
+                new BonitaConfiguration("security-config.properties", "other=2".getBytes())), TENANT_ID_12);
+
+        //when
+        final int changed = configurationService.setProperty(ConfigurationType.TENANT_PORTAL, "security-config.properties", "check", "true");
+
+        //then
+        assertThat(changed).isEqualTo(2);
+        assertThat(configurationService.getTenantPortalConf(TENANT_ID_1)).containsExactly(
+                new BonitaConfiguration("security-config.properties", "# security\ncheck=true\nother=1\n".getBytes()));
+        assertThat(configurationService.getTenantPortalConf(TENANT_ID_12)).containsExactly(
+                new BonitaConfiguration("security-config.properties", "other=2\ncheck=true\n".getBytes()));
+        assertThat(configurationService.findConfigurationProperties("check", "true")).extracting("tenantId").containsExactly(TENANT_ID_1, TENANT_ID_12);
+        assertThat(configurationService.setProperty(ConfigurationType.TENANT_PORTAL, "security-config.properties", "check", "true")).isEqualTo(0);
+    }
+
+    @Test
+    public void should_iterate_over_all_configuration_by_pages() throws Exception {
+        //given
+        configurationService.storeTenantTemplateEngineConf(Collections.singletonList(new BonitaConfiguration("template.xml", "t".getBytes())));
+        configurationService.storeTenantEngineConf(Arrays.asList(new BonitaConfiguration("a.xml", "a".getBytes()),
+                new BonitaConfiguration("b.xml", "b".getBytes())), TENANT_ID_1);
+        configurationService.storeTenantPortalConf(Collections.singletonList(new BonitaConfiguration("c.xml", "c".getBytes())), TENANT_ID_1);
+        configurationService.storeTenantEngineConf(Collections.singletonList(new BonitaConfiguration("a.xml", "a".getBytes())), TENANT_ID_12);
+
+        //when
+        final List<FullBonitaConfiguration> configurations = new ArrayList<>();
+        final Iterator<FullBonitaConfiguration> iterator = configurationService.iterateAllConfiguration(2);
+        while (iterator.hasNext()) {
+            configurations.add(iterator.next());
+        }
+
+        //then
+        assertThat(configurations).hasSize(5).isEqualTo(configurationService.getAllConfiguration());
+    }
+
+    @Test
+    public void should_get_only_configuration_matching_filter() throws Exception {
+        //given
+        configurationService.storeTenantPortalConf(Arrays.asList(new BonitaConfiguration("a.properties", "a".getBytes()),
+                new BonitaConfiguration("b.xml", "b".getBytes())), TENANT_ID_1);
+        configurationService.storeTenantPortalConf(Collections.singletonList(new BonitaConfiguration("a.properties", "a".getBytes())), TENANT_ID_12);
+        configurationService.storeTenantEngineConf(Collections.singletonList(new BonitaConfiguration("c.properties", "c".getBytes())), TENANT_ID_1);
+
+        //when
+        final List<FullBonitaConfiguration> configurations = configurationService.getConfiguration(new ConfigurationFilter(
+                Collections.singletonList(TENANT_ID_1), Collections.singletonList(ConfigurationType.TENANT_PORTAL), Collections.singletonList("*.properties")));
+
+        //then
+        assertThat(configurations).containsExactly(new FullBonitaConfiguration("a.properties", "a".getBytes(), "TENANT_PORTAL", TENANT_ID_1));
+    }
+
+    @Test
+    public void should_replace_only_configuration_matching_filter() throws Exception {
+        //given
+        configurationService.storeTenantPortalConf(Arrays.asList(new BonitaConfiguration("a.properties", "a".getBytes()),
+                new BonitaConfiguration("removed.properties", "removed".getBytes())), TENANT_ID_1);
+        configurationService.storeTenantPortalConf(Collections.singletonList(new BonitaConfiguration("a.properties", "a".getBytes())), TENANT_ID_12);
+        final File folder = temporaryFolder.newFolder();
+        final File tenant1Folder = new File(folder, "tenants/1/tenant_portal");
+        final File tenant12Folder = new File(folder, "tenants/12/tenant_portal");
+        tenant1Folder.mkdirs();
+        tenant12Folder.mkdirs();
+        FileUtils.writeByteArrayToFile(new File(tenant1Folder, "a.properties"), "new a".getBytes());
+        FileUtils.writeByteArrayToFile(new File(tenant12Folder, "a.properties"), "not pushed".getBytes());
+
+        //when
+        final int stored = configurationService.replaceConfiguration(folder, new ConfigurationFilter(Collections.singletonList(TENANT_ID_1),
+                Collections.<ConfigurationType> emptyList(), Collections.<String> emptyList()));
+
+        //then
+        assertThat(stored).isEqualTo(1);
+        assertThat(configurationService.getTenantPortalConf(TENANT_ID_1)).containsExactly(new BonitaConfiguration("a.properties", "new a".getBytes()));
+        assertThat(configurationService.getTenantPortalConf(TENANT_ID_12)).containsExactly(new BonitaConfiguration("a.properties", "a".getBytes()));
+    }
+
+    @Test
+    public void should_replace_only_files_whose_name_matches_filter_with_same_case() throws Exception {
+        //given
+        configurationService.storeTenantPortalConf(Arrays.asList(new BonitaConfiguration("a.properties", "a=1".getBytes()),
+                new BonitaConfiguration("B.PROPERTIES", "b=1".getBytes())), TENANT_ID_1);
+        final File folder = temporaryFolder.newFolder();
+        final File tenant1Folder = new File(folder, "tenants/1/tenant_portal");
+        tenant1Folder.mkdirs();
+        FileUtils.writeByteArrayToFile(new File(tenant1Folder, "c.properties"), "c=1".getBytes());
+
+        //when
+        final int stored = configurationService.replaceConfiguration(folder, new ConfigurationFilter(Collections.singletonList(TENANT_ID_1),
+                Collections.<ConfigurationType> emptyList(), Collections.singletonList("*.properties")));
+
+        //then
+        assertThat(stored).isEqualTo(1);
+        assertThat(configurationService.getTenantPortalConf(TENANT_ID_1)).containsOnly(new BonitaConfiguration("B.PROPERTIES", "b=1".getBytes()),
+                new BonitaConfiguration("c.properties", "c=1".getBytes()));
+        assertThat(configurationService.findConfigurationProperties("a")).isEmpty();
+        assertThat(configurationService.findConfigurationProperties("c")).extracting("resourceName").containsExactly("c.properties");
+    }
+
+    @Test
+    public void should_propagate_template_to_tenants_not_having_modified_their_copy() throws Exception {
+        //given
+        configurationService.storeTenantTemplatePortalConf(Collections.singletonList(new BonitaConfiguration("authz.xml", "<v1/>".getBytes())));
+        configurationService.storeTenantPortalConf(Collections.singletonList(new BonitaConfiguration("authz.xml", "<v1/>".getBytes())), TENANT_ID_1);
+        configurationService.storeTenantPortalConf(Collections.singletonList(new BonitaConfiguration("authz.xml", "<custom/>".getBytes())), TENANT_ID_5);
+        configurationService.storeTenantPortalConf(Collections.singletonList(new BonitaConfiguration("authz.xml", "<v1/>".getBytes())), TENANT_ID_12);
+
+        //when
+        final List<TemplatePropagation> propagations = configurationService.propagateTenantTemplate(ConfigurationType.TENANT_TEMPLATE_PORTAL,
+                Arrays.asList(new BonitaConfiguration("authz.xml", "<v2/>".getBytes()), new BonitaConfiguration("new.xml", "<new/>".getBytes())));
+
+        //then
+        assertThat(propagations).hasSize(1);
+        assertThat(propagations.get(0).getResourceName()).isEqualTo("authz.xml");
+        assertThat(propagations.get(0).getPropagatedTenantIds()).containsExactly(TENANT_ID_1, TENANT_ID_12);
+        assertThat(propagations.get(0).getOverriddenTenantIds()).containsExactly(TENANT_ID_5);
+        assertThat(configurationService.getTenantTemplatePortalConf()).containsExactly(new BonitaConfiguration("authz.xml", "<v2/>".getBytes()),
+                new BonitaConfiguration("new.xml", "<new/>".getBytes()));
+        assertThat(configurationService.getTenantPortalConf(TENANT_ID_1)).containsExactly(new BonitaConfiguration("authz.xml", "<v2/>".getBytes()));
+        assertThat(configurationService.getTenantPortalConf(TENANT_ID_5)).containsExactly(new BonitaConfiguration("authz.xml", "<custom/>".getBytes()));
+        assertThat(configurationService.getTenantPortalConf(TENANT_ID_12)).containsExactly(new BonitaConfiguration("authz.xml", "<v2/>".getBytes()));
+    }
+
+    @Test(expected = PlatformException.class)
+    public void should_not_rollback_to_unknown_generation() throws Exception {
+        configurationService.rollbackToConfigurationGeneration(42L);
+    }
+
+    @Test
+    public void should_prune_old_generations_but_active_one() throws Exception {
+        //given
+        for (int i = 1; i <= 4; i++) {
+            configurationService.storePlatformEngineConf(Collections.singletonList(
+                    new BonitaConfiguration("resourceOfPlatform.xml", ("content " + i).getBytes())));
+            configurationService.recordConfigurationGeneration();
+        }
+        configurationService.rollbackToConfigurationGeneration(1L);
+
+        //when
+        final int pruned = configurationService.pruneConfigurationGenerations(2);
+
+        //then
+        assertThat(pruned).isEqualTo(1);
+        assertThat(configurationService.getConfigurationHistory()).extracting("generation").containsExactly(1L, 3L, 4L);
+        assertThat(JdbcTestUtils.countRowsInTable(jdbcTemplate, "configuration_content")).as("content of generation 2 is deleted").isEqualTo(3);
+    }
+
     private void storeTenantConfiguration(long tenantId) {
         configurationService.storeTenantEngineConf(getBonitaConfigurationsSample(tenantId), tenantId);
         configurationService.storeTenantPortalConf(getBonitaConfigurationsSample(tenantId), tenantId);
@@ -15,6 +15,7 @@ package org.bonitasoft.platform.configuration.impl;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
 import static org.mockito.Mockito.*;
 
 import java.io.File;
@@ -103,7 +104,7 @@ public class ConfigurationServiceImplTest {
         confs.add(new FullBonitaConfiguration("conf1.properties", "content 1".getBytes(), "PLATFORM_TYPE", 0L));
         confs.add(new FullBonitaConfiguration("conf2.properties", "content 2".getBytes(), "TENANT_TYPE", 5L));
 
-        doReturn(confs).when(configurationService).getAllConfiguration();
+        doReturn(confs.iterator()).when(configurationService).iterateAllConfiguration(anyInt());
         doCallRealMethod().when(configurationService).writeAllConfigurationToFolder(configFolder, licFolder);
 
         //when
@@ -0,0 +1,151 @@
+package org.bonitasoft.platform.configuration.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static org.bonitasoft.platform.configuration.type.ConfigurationType.PLATFORM_ENGINE;
+import static org.bonitasoft.platform.configuration.type.ConfigurationType.TENANT_PORTAL;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.Map;
+
+import org.bonitasoft.platform.configuration.ConfigurationService;
+import org.bonitasoft.platform.configuration.model.BonitaConfiguration;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.w3c.dom.DOMException;
+import org.w3c.dom.Document;
+
+/**
+ * @author Laurent Leseigneur
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class ParsedConfigurationServiceImplTest {
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    @Mock
+    ConfigurationService configurationService;
+
+    ParsedConfigurationServiceImpl parsedConfigurationService;
+
+    @Before
+    public void before() throws Exception {
+        parsedConfigurationService = new ParsedConfigurationServiceImpl(configurationService);
+    }
+
+    @Test
+    public void getProperties_should_return_same_parsed_instance_while_content_is_unchanged() throws Exception {
+        //given
+        doReturn(new BonitaConfiguration("security-config.properties", "key1=value1\nkey2=value2".getBytes())).when(configurationService)
+                .getConfiguration(TENANT_PORTAL, 5L, "security-config.properties");
+
+        //when
+        final Map<String, String> first = parsedConfigurationService.getProperties(TENANT_PORTAL, 5L, "security-config.properties");
+        final Map<String, String> second = parsedConfigurationService.getProperties(TENANT_PORTAL, 5L, "security-config.properties");
+
+        //then
+        assertThat(first).containsEntry("key1", "value1").containsEntry("key2", "value2").hasSize(2);
+        assertThat(second).isSameAs(first);
+    }
+
+    @Test
+    public void getProperties_should_parse_again_when_content_changes() throws Exception {
+        //given
+        doReturn(new BonitaConfiguration("security-config.properties", "key1=value1".getBytes())).when(configurationService)
+                .getConfiguration(TENANT_PORTAL, 5L, "security-config.properties");
+        final Map<String, String> first = parsedConfigurationService.getProperties(TENANT_PORTAL, 5L, "security-config.properties");
+        doReturn(new BonitaConfiguration("security-config.properties", "key1=modified".getBytes())).when(configurationService)
+                .getConfiguration(TENANT_PORTAL, 5L, "security-config.properties");
+        doReturn(1L).when(configurationService).getConfigurationVersion();
+
+        //when
+        final Map<String, String> second = parsedConfigurationService.getProperties(TENANT_PORTAL, 5L, "security-config.properties");
+
+        //then
+        assertThat(first).containsEntry("key1", "value1");
+        assertThat(second).containsEntry("key1", "modified");
+    }
+
+    @Test
+    public void getProperties_should_not_read_configuration_while_version_is_unchanged() throws Exception {
+        //given
+        doReturn(new BonitaConfiguration("security-config.properties", "key1=value1".getBytes())).when(configurationService)
+                .getConfiguration(TENANT_PORTAL, 5L, "security-config.properties");
+        final Map<String, String> first = parsedConfigurationService.getProperties(TENANT_PORTAL, 5L, "security-config.properties");
+        doReturn(1L).when(configurationService).getConfigurationVersion();
+        final Map<String, String> second = parsedConfigurationService.getProperties(TENANT_PORTAL, 5L, "security-config.properties");
+
+        //when
+        final Map<String, String> third = parsedConfigurationService.getProperties(TENANT_PORTAL, 5L, "security-config.properties");
+
+        //then
+        assertThat(second).as("content did not change").isSameAs(first);
+        assertThat(third).isSameAs(first);
+        verify(configurationService, times(2)).getConfiguration(TENANT_PORTAL, 5L, "security-config.properties");
+    }
+
+    @Test
+    public void getProperties_should_return_null_when_file_does_not_exist() throws Exception {
+        assertThat(parsedConfigurationService.getProperties(TENANT_PORTAL, 5L, "unknown.properties")).isNull();
+    }
+
+    @Test
+    public void getProperties_should_return_immutable_map() throws Exception {
+        //given
+        doReturn(new BonitaConfiguration("security-config.properties", "key1=value1".getBytes())).when(configurationService)
+                .getConfiguration(TENANT_PORTAL, 5L, "security-config.properties");
+        final Map<String, String> properties = parsedConfigurationService.getProperties(TENANT_PORTAL, 5L, "security-config.properties");
+
+        //expect
+        expectedException.expect(UnsupportedOperationException.class);
+
+        //when
+        properties.put("key2", "value2");
+    }
+
+    @Test
+    public void getXmlDocument_should_return_shared_read_only_document() throws Exception {
+        //given
+        doReturn(new BonitaConfiguration("bonita-platform-custom.xml", "<beans><bean id=\"first\"/></beans>".getBytes())).when(configurationService)
+                .getConfiguration(PLATFORM_ENGINE, 0L, "bonita-platform-custom.xml");
+        final Document first = parsedConfigurationService.getXmlDocument(PLATFORM_ENGINE, 0L, "bonita-platform-custom.xml");
+
+        //when
+        final Document second = parsedConfigurationService.getXmlDocument(PLATFORM_ENGINE, 0L, "bonita-platform-custom.xml");
+
+        //then
+        assertThat(second).isSameAs(first);
+        assertThat(second.getElementsByTagName("bean").item(0).getAttributes().getNamedItem("id").getNodeValue()).isEqualTo("first");
+        try {
+            first.getDocumentElement().removeChild(first.getDocumentElement().getFirstChild());
+            fail("cached document should not be modified by callers");
+        } catch (DOMException e) {
+            assertThat(e.code).isEqualTo(DOMException.NO_MODIFICATION_ALLOWED_ERR);
+        }
+    }
+
+    @Test
+    public void getXmlDocument_should_give_modifiable_copy_when_cloned() throws Exception {
+        //given
+        doReturn(new BonitaConfiguration("bonita-platform-custom.xml", "<beans><bean id=\"first\"/></beans>".getBytes())).when(configurationService)
+                .getConfiguration(PLATFORM_ENGINE, 0L, "bonita-platform-custom.xml");
+        final Document copy = (Document) parsedConfigurationService.getXmlDocument(PLATFORM_ENGINE, 0L, "bonita-platform-custom.xml").cloneNode(true);
+
+        //when
+        copy.getDocumentElement().removeChild(copy.getDocumentElement().getFirstChild());
+
+        //then
+        assertThat(copy.getElementsByTagName("bean").getLength()).isEqualTo(0);
+        assertThat(parsedConfigurationService.getXmlDocument(PLATFORM_ENGINE, 0L, "bonita-platform-custom.xml").getElementsByTagName("bean").getLength())
+                .isEqualTo(1);
+    }
+
+}
@@ -0,0 +1,83 @@
+package org.bonitasoft.platform.configuration.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+/**
+ * @author Laurent Leseigneur
+ */
+public class PropertiesFilePatcherTest {
+
+    private PropertiesFilePatcher propertiesFilePatcher = new PropertiesFilePatcher();
+
+    @Test
+    public void setProperty_should_replace_value_and_keep_rest_of_file() throws Exception {
+        //when
+        final String patched = setProperty("# comment\r\na = old\r\nb:other\r\n", "a", "new");
+
+        //then
+        assertThat(patched).isEqualTo("# comment\r\na = new\r\nb:other\r\n");
+    }
+
+    @Test
+    public void setProperty_should_append_missing_property_with_file_line_separator() throws Exception {
+        //when
+        final String patched = setProperty("b=other\r\nc=last", "a", "new value");
+
+        //then
+        assertThat(patched).isEqualTo("b=other\r\nc=last\r\na=new value\r\n");
+    }
+
+    @Test
+    public void setProperty_should_replace_last_occurrence_only() throws Exception {
+        //when
+        final String patched = setProperty("a=first\na=second\n", "a", "new");
+
+        //then
+        assertThat(patched).isEqualTo("a=first\na=new\n");
+    }
+
+    @Test
+    public void setProperty_should_replace_whole_continued_value() throws Exception {
+        //when
+        final String patched = setProperty("a=one,\\\n  two\nb=other\n", "a", "new");
+
+        //then
+        assertThat(patched).isEqualTo("a=new\nb=other\n");
+    }
+
+    @Test
+    public void setProperty_should_add_separator_when_key_has_no_value() throws Exception {
+        //when
+        final String patched = setProperty("a\nb=other\n", "a", "new");
+
+        //then
+        assertThat(patched).isEqualTo("a=new\nb=other\n");
+    }
+
+    @Test
+    public void setProperty_should_ignore_commented_key() throws Exception {
+        //when
+        final String patched = setProperty("#a=commented\n", "a", "new");
+
+        //then
+        assertThat(patched).isEqualTo("#a=commented\na=new\n");
+    }
+
+    @Test
+    public void setProperty_should_escape_value() throws Exception {
+        //when
+        final String patched = setProperty("a=old\n", "a", " C:\\temp");
+
+        //then
+        assertThat(ParsedConfigurationServiceImpl.parseProperties(patched.getBytes(StandardCharsets.ISO_8859_1)).get("a")).isEqualTo(" C:\\temp");
+    }
+
+    private String setProperty(String content, String key, String value) {
+        return new String(propertiesFilePatcher.setProperty(content.getBytes(StandardCharsets.ISO_8859_1), key, value), StandardCharsets.ISO_8859_1);
+    }
+
+}
@@ -0,0 +1,113 @@
+package org.bonitasoft.platform.configuration.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+
+import org.bonitasoft.platform.configuration.model.BonitaConfiguration;
+import org.bonitasoft.platform.configuration.type.ConfigurationType;
+import org.bonitasoft.platform.exception.PlatformException;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * @author Laurent Leseigneur
+ */
+public class SnapshotConfigurationServiceImplTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    private File snapshotFile;
+
+    @Before
+    public void writeSnapshot() throws Exception {
+        snapshotFile = temporaryFolder.newFile("configuration.snapshot");
+        try (FileChannel channel = FileChannel.open(snapshotFile.toPath(), StandardOpenOption.WRITE)) {
+            final ConfigurationSnapshotWriter snapshotWriter = new ConfigurationSnapshotWriter(channel);
+            write(snapshotWriter, ConfigurationType.LICENSES, 0L, "license.lic", "license content");
+            write(snapshotWriter, ConfigurationType.PLATFORM_ENGINE, 0L, "bonita-platform-community.properties", "key=value");
+            write(snapshotWriter, ConfigurationType.PLATFORM_ENGINE, 0L, "empty.xml", "");
+            write(snapshotWriter, ConfigurationType.TENANT_PORTAL, 1L, "security-config.properties", "tenant 1 content");
+            write(snapshotWriter, ConfigurationType.TENANT_PORTAL, 12L, "security-config.properties", "tenant 12 content");
+            snapshotWriter.finish();
+        }
+    }
+
+    private void write(ConfigurationSnapshotWriter snapshotWriter, ConfigurationType type, long tenantId, String resourceName, String content)
+            throws Exception {
+        snapshotWriter.writeEntry(type.name(), tenantId, resourceName, new ByteArrayInputStream(content.getBytes()));
+    }
+
+    @Test
+    public void should_serve_configuration_from_snapshot() throws Exception {
+        //when
+        final SnapshotConfigurationServiceImpl configurationService = new SnapshotConfigurationServiceImpl(snapshotFile);
+
+        //then
+        assertThat(configurationService.getPlatformEngineConf()).containsExactly(
+                new BonitaConfiguration("bonita-platform-community.properties", "key=value".getBytes()),
+                new BonitaConfiguration("empty.xml", new byte[0]));
+        assertThat(configurationService.getLicenses()).containsExactly(new BonitaConfiguration("license.lic", "license content".getBytes()));
+        assertThat(configurationService.getTenantPortalConf(12L)).containsExactly(
+                new BonitaConfiguration("security-config.properties", "tenant 12 content".getBytes()));
+        assertThat(configurationService.getTenantPortalConfiguration(1L, "security-config.properties").getResourceContent())
+                .isEqualTo("tenant 1 content".getBytes());
+        assertThat(configurationService.getTenantPortalConfiguration(1L, "unknown.properties")).isNull();
+        assertThat(configurationService.getTenantEngineConf(1L)).isEmpty();
+    }
+
+    @Test
+    public void should_write_snapshot_content_to_folder() throws Exception {
+        //given
+        final SnapshotConfigurationServiceImpl configurationService = new SnapshotConfigurationServiceImpl(snapshotFile);
+        final File configurationFolder = temporaryFolder.newFolder("configuration");
+        final File licenseFolder = temporaryFolder.newFolder("licenses");
+
+        //when
+        configurationService.writeAllConfigurationToFolder(configurationFolder, licenseFolder);
+
+        //then
+        assertThat(new File(licenseFolder, "license.lic")).hasContent("license content");
+        assertThat(new File(configurationFolder, "platform_engine/bonita-platform-community.properties")).hasContent("key=value");
+        assertThat(new File(configurationFolder, "tenants/12/tenant_portal/security-config.properties")).hasContent("tenant 12 content");
+    }
+
+    @Test
+    public void should_be_read_only() throws Exception {
+        //given
+        final SnapshotConfigurationServiceImpl configurationService = new SnapshotConfigurationServiceImpl(snapshotFile);
+
+        //expect
+        expectedException.expect(UnsupportedOperationException.class);
+
+        //when
+        configurationService.storePlatformEngineConf(Collections.singletonList(new BonitaConfiguration("new.xml", "content".getBytes())));
+    }
+
+    @Test
+    public void should_reject_file_that_is_not_a_snapshot() throws Exception {
+        //given
+        final File notASnapshot = temporaryFolder.newFile("not-a-snapshot");
+        Files.write(notASnapshot.toPath(), "some text content that is not a snapshot".getBytes());
+
+        //expect
+        expectedException.expect(PlatformException.class);
+        expectedException.expectMessage("File is not a configuration snapshot");
+
+        //when
+        new SnapshotConfigurationServiceImpl(notASnapshot);
+    }
+
+}
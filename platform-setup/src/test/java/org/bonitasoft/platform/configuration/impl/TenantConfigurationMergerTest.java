@@ -0,0 +1,125 @@
+package org.bonitasoft.platform.configuration.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bonitasoft.platform.configuration.model.BonitaConfiguration;
+import org.bonitasoft.platform.configuration.type.ConfigurationType;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+/**
+ * @author Laurent Leseigneur
+ */
+public class TenantConfigurationMergerTest {
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    private TenantConfigurationMerger tenantConfigurationMerger = new TenantConfigurationMerger();
+
+    @Test
+    public void merge_should_keep_files_present_on_one_side_only() throws Exception {
+        //given
+        final BonitaConfiguration templateOnly = new BonitaConfiguration("template.xml", "template".getBytes());
+        final BonitaConfiguration tenantOnly = new BonitaConfiguration("tenant.xml", "tenant".getBytes());
+
+        //when
+        final List<BonitaConfiguration> effective = tenantConfigurationMerger.merge(Collections.singletonList(templateOnly),
+                Collections.singletonList(tenantOnly));
+
+        //then
+        assertThat(effective).containsExactly(templateOnly, tenantOnly);
+    }
+
+    @Test
+    public void merge_should_take_tenant_file_when_not_properties() throws Exception {
+        //given
+        final BonitaConfiguration tenantFile = new BonitaConfiguration("cfg.xml", "<tenant/>".getBytes());
+
+        //when
+        final List<BonitaConfiguration> effective = tenantConfigurationMerger.merge(
+                Collections.singletonList(new BonitaConfiguration("cfg.xml", "<template/>".getBytes())), Collections.singletonList(tenantFile));
+
+        //then
+        assertThat(effective).containsExactly(tenantFile);
+    }
+
+    @Test
+    public void merge_should_override_template_properties_with_tenant_ones() throws Exception {
+        //when
+        final List<BonitaConfiguration> effective = tenantConfigurationMerger.merge(
+                Collections.singletonList(new BonitaConfiguration("engine.properties", "# template\nb=template b\na=template a".getBytes())),
+                Collections.singletonList(new BonitaConfiguration("engine.properties", "b=tenant b\nc=tenant c".getBytes())));
+
+        //then
+        assertThat(effective).containsExactly(
+                new BonitaConfiguration("engine.properties", "a=template a\nb=tenant b\nc=tenant c\n".getBytes(StandardCharsets.ISO_8859_1)));
+    }
+
+    @Test
+    public void merge_should_return_unmodifiable_list() throws Exception {
+        //given
+        final List<BonitaConfiguration> effective = tenantConfigurationMerger.merge(Collections.<BonitaConfiguration> emptyList(),
+                Collections.<BonitaConfiguration> emptyList());
+
+        //then
+        expectedException.expect(UnsupportedOperationException.class);
+
+        //when
+        effective.add(new BonitaConfiguration("any", new byte[0]));
+    }
+
+    @Test
+    public void toPropertiesContent_should_escape_content_that_reads_back_identically() throws Exception {
+        //given
+        final Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("key with=special:chars", " leading space\tand\\backslash");
+        properties.put("#comment-like", "!value\nwith new line");
+        properties.put("unicode", "\u00e9t\u00e9 \u20ac");
+
+        //when
+        final byte[] content = TenantConfigurationMerger.toPropertiesContent(properties);
+
+        //then
+        assertThat(ParsedConfigurationServiceImpl.parseProperties(content)).isEqualTo(properties);
+    }
+
+    @Test
+    public void getTemplateType_should_map_tenant_types_to_their_template() throws Exception {
+        assertThat(Arrays.asList(TenantConfigurationMerger.getTemplateType(ConfigurationType.TENANT_ENGINE),
+                TenantConfigurationMerger.getTemplateType(ConfigurationType.TENANT_PORTAL),
+                TenantConfigurationMerger.getTemplateType(ConfigurationType.TENANT_SECURITY_SCRIPTS))).containsExactly(
+                        ConfigurationType.TENANT_TEMPLATE_ENGINE, ConfigurationType.TENANT_TEMPLATE_PORTAL,
+                        ConfigurationType.TENANT_TEMPLATE_SECURITY_SCRIPTS);
+    }
+
+    @Test
+    public void getTemplateType_should_reject_non_tenant_type() throws Exception {
+        expectedException.expect(IllegalArgumentException.class);
+
+        TenantConfigurationMerger.getTemplateType(ConfigurationType.PLATFORM_ENGINE);
+    }
+    @Test
+    public void getTenantType_should_be_the_reverse_of_getTemplateType() throws Exception {
+        for (ConfigurationType tenantType : Arrays.asList(ConfigurationType.TENANT_ENGINE, ConfigurationType.TENANT_PORTAL,
+                ConfigurationType.TENANT_SECURITY_SCRIPTS)) {
+            assertThat(TenantConfigurationMerger.getTenantType(TenantConfigurationMerger.getTemplateType(tenantType))).isEqualTo(tenantType);
+        }
+    }
+
+    @Test
+    public void getTenantType_should_reject_non_template_type() throws Exception {
+        expectedException.expect(IllegalArgumentException.class);
+
+        TenantConfigurationMerger.getTenantType(ConfigurationType.TENANT_PORTAL);
+    }
+
+}
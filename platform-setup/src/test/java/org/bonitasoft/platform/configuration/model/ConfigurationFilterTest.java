@@ -0,0 +1,59 @@
+package org.bonitasoft.platform.configuration.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.bonitasoft.platform.configuration.type.ConfigurationType;
+import org.junit.Test;
+
+/**
+ * @author Laurent Leseigneur
+ */
+public class ConfigurationFilterTest {
+
+    @Test
+    public void all_should_match_any_file() throws Exception {
+        assertThat(ConfigurationFilter.ALL.isAll()).isTrue();
+        assertThat(ConfigurationFilter.ALL.matches(12L, "TENANT_PORTAL", "any.xml")).isTrue();
+    }
+
+    @Test
+    public void should_match_all_criteria() throws Exception {
+        //given
+        final ConfigurationFilter filter = new ConfigurationFilter(Arrays.asList(1L, 2L), Collections.singletonList(ConfigurationType.TENANT_PORTAL),
+                Collections.singletonList("*.properties"));
+
+        //then
+        assertThat(filter.isAll()).isFalse();
+        assertThat(filter.matches(2L, "TENANT_PORTAL", "security-config.properties")).isTrue();
+        assertThat(filter.matches(3L, "TENANT_PORTAL", "security-config.properties")).isFalse();
+        assertThat(filter.matches(2L, "TENANT_ENGINE", "security-config.properties")).isFalse();
+        assertThat(filter.matches(2L, "TENANT_PORTAL", "security-config.xml")).isFalse();
+    }
+
+    @Test
+    public void should_match_any_resource_name_pattern() throws Exception {
+        //given
+        final ConfigurationFilter filter = new ConfigurationFilter(Collections.<Long> emptyList(), Collections.<ConfigurationType> emptyList(),
+                Arrays.asList("bonita-?.xml", "*.groovy"));
+
+        //then
+        assertThat(filter.matches(0L, "TENANT_TEMPLATE_SECURITY_SCRIPTS", "SamplePermissionRule.groovy")).isTrue();
+        assertThat(filter.matches(0L, "PLATFORM_ENGINE", "bonita-a.xml")).isTrue();
+        assertThat(filter.matches(0L, "PLATFORM_ENGINE", "bonita-ab.xml")).isFalse();
+    }
+
+    @Test
+    public void should_match_regexp_chars_literally() throws Exception {
+        //given
+        final ConfigurationFilter filter = new ConfigurationFilter(Collections.<Long> emptyList(), Collections.<ConfigurationType> emptyList(),
+                Collections.singletonList("a.b+(c)"));
+
+        //then
+        assertThat(filter.matches(0L, "PLATFORM_ENGINE", "a.b+(c)")).isTrue();
+        assertThat(filter.matches(0L, "PLATFORM_ENGINE", "aXb+(c)")).isFalse();
+    }
+
+}
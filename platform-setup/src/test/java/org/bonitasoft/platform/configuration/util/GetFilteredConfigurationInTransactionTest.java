@@ -0,0 +1,59 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.configuration.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doReturn;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.bonitasoft.platform.configuration.impl.FullBonitaConfigurationRowMapper;
+import org.bonitasoft.platform.configuration.model.ConfigurationFilter;
+import org.bonitasoft.platform.configuration.model.FullBonitaConfiguration;
+import org.bonitasoft.platform.configuration.type.ConfigurationType;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * @author Laurent Leseigneur
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class GetFilteredConfigurationInTransactionTest {
+
+    @Mock
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void should_drop_rows_selected_by_a_case_insensitive_like() throws Exception {
+        //given
+        final FullBonitaConfiguration matching = new FullBonitaConfiguration("a.properties", "a".getBytes(), "TENANT_PORTAL", 1L);
+        final FullBonitaConfiguration upperCase = new FullBonitaConfiguration("A.PROPERTIES", "a".getBytes(), "TENANT_PORTAL", 1L);
+        doReturn(Arrays.asList(matching, upperCase)).when(jdbcTemplate).query(anyString(), any(Object[].class), any(FullBonitaConfigurationRowMapper.class));
+        final ConfigurationFilter filter = new ConfigurationFilter(Collections.singletonList(1L), Collections.singletonList(ConfigurationType.TENANT_PORTAL),
+                Collections.singletonList("*.properties"));
+
+        //when
+        final List<FullBonitaConfiguration> configurations = new GetFilteredConfigurationInTransaction(jdbcTemplate, filter).doInTransaction(null);
+
+        //then
+        assertThat(configurations).containsExactly(matching);
+    }
+}
@@ -0,0 +1,143 @@
+package org.bonitasoft.platform.configuration.validation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.bonitasoft.platform.configuration.model.FullBonitaConfiguration;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ConfigurationValidatorTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private ConfigurationValidator configurationValidator = new ConfigurationValidator();
+
+    @Test
+    public void should_accept_valid_files() throws Exception {
+        //when
+        final List<ConfigurationValidationError> errors = configurationValidator.validate(Arrays.asList(
+                configuration("bonita.xml", "<beans>\n<bean id=\"a\"/>\n</beans>"),
+                configuration("bonita.properties", "key=value\nunicode=\\u00e9"),
+                configuration("autologin-v6.json", "[{\"processname\": \"p\", \"processversion\": \"1.0\", \"credentials\": {}}]"),
+                configuration("Rule.groovy", "class Rule {\n    def check() {\n        return \"a}\" =~ /b\\/c{/\n    }\n}"),
+                configuration("readme.txt", "not validated {")));
+
+        //then
+        assertThat(errors).isEmpty();
+    }
+
+    @Test
+    public void should_report_file_and_line_of_malformed_xml() throws Exception {
+        //when
+        final List<ConfigurationValidationError> errors = configurationValidator.validate(Collections.singletonList(
+                configuration("bonita.xml", "<beans>\n<bean>\n</beans>")));
+
+        //then
+        assertThat(errors).hasSize(1);
+        assertThat(errors.get(0).getLine()).isEqualTo(3);
+        assertThat(errors.get(0).toString()).startsWith("tenants/5/tenant_engine/bonita.xml:3: ");
+    }
+
+    @Test
+    public void should_report_line_of_malformed_unicode_escape_in_properties() throws Exception {
+        //when
+        final List<ConfigurationValidationError> errors = configurationValidator.validate(Collections.singletonList(
+                configuration("bonita.properties", "a=b\n# comment\nc=\\u00g9")));
+
+        //then
+        assertThat(errors).extracting("line").containsExactly(3);
+    }
+
+    @Test
+    public void should_report_line_of_malformed_json() throws Exception {
+        //when
+        final List<ConfigurationValidationError> errors = configurationValidator.validate(Collections.singletonList(
+                configuration("autologin-v6.json", "[\n  {\"processname\": \"p\",}\n]")));
+
+        //then
+        assertThat(errors).extracting("line").containsExactly(2);
+    }
+
+    @Test
+    public void should_accept_valid_groovy_scripts() throws Exception {
+        //when
+        final List<ConfigurationValidationError> errors = configurationValidator.validate(Arrays.asList(
+                configuration("SlashyBracket.groovy", "def f(s) {\n return /[(]/\n}"),
+                configuration("DollarSlashy.groovy", "def x = $/it's/$")));
+
+        //then
+        assertThat(errors).isEmpty();
+    }
+
+    @Test
+    public void should_not_validate_groovy_scripts_when_groovy_is_not_on_classpath() throws Exception {
+        //given
+        final GroovyConfigurationFileValidator groovyValidator = new GroovyConfigurationFileValidator(new ClassLoader(null) {
+
+            @Override
+            protected Class<?> findClass(String name) throws ClassNotFoundException {
+                throw new ClassNotFoundException(name);
+            }
+        });
+
+        //then
+        assertThat(groovyValidator.isGroovyAvailable()).isFalse();
+        assertThat(groovyValidator.accepts("Rule.groovy")).isFalse();
+    }
+
+    @Test
+    public void should_not_validate_again_unchanged_files() throws Exception {
+        //given
+        final CountingValidator countingValidator = new CountingValidator();
+        configurationValidator = new ConfigurationValidator(Collections.<ConfigurationFileValidator> singletonList(countingValidator), 2);
+        final List<FullBonitaConfiguration> configurations = Arrays.asList(configuration("a.properties", "a=1"), configuration("b.properties", "b=2"));
+        configurationValidator.validate(configurations);
+
+        //when
+        configurationValidator.validate(configurations);
+
+        //then
+        assertThat(countingValidator.validations.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void should_reuse_saved_verdicts() throws Exception {
+        //given
+        final Path verdictsFile = temporaryFolder.getRoot().toPath().resolve("validation.cache");
+        final List<FullBonitaConfiguration> configurations = Arrays.asList(configuration("a.properties", "a=1"), configuration("b.properties", "b=2"));
+        configurationValidator.validate(configurations);
+        configurationValidator.saveVerdicts(verdictsFile);
+        final CountingValidator countingValidator = new CountingValidator();
+        final ConfigurationValidator newValidator = new ConfigurationValidator(Collections.<ConfigurationFileValidator> singletonList(countingValidator), 2);
+
+        //when
+        newValidator.loadVerdicts(verdictsFile);
+        newValidator.validate(Arrays.asList(configuration("a.properties", "a=1"), configuration("b.properties", "b=changed")));
+
+        //then
+        assertThat(countingValidator.validations.get()).isEqualTo(1);
+    }
+
+    private FullBonitaConfiguration configuration(String resourceName, String content) {
+        return new FullBonitaConfiguration(resourceName, content.getBytes(), "TENANT_ENGINE", 5L);
+    }
+
+    private static class CountingValidator extends PropertiesConfigurationFileValidator {
+
+        private final AtomicInteger validations = new AtomicInteger();
+
+        @Override
+        public void validate(byte[] content) throws InvalidConfigurationFileException {
+            validations.incrementAndGet();
+            super.validate(content);
+        }
+    }
+}
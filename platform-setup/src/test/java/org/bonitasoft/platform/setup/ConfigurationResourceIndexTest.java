@@ -0,0 +1,119 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.setup;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+import org.bonitasoft.platform.configuration.model.FullBonitaConfiguration;
+import org.bonitasoft.platform.configuration.util.ContentDigest;
+import org.bonitasoft.platform.exception.PlatformException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * @author Laurent Leseigneur
+ */
+public class ConfigurationResourceIndexTest {
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void should_load_indexed_resources_only() throws Exception {
+        //given
+        final ConfigurationResourceIndex index = new ConfigurationResourceIndex("/allConfiguration", "/configurationIndex/valid.index");
+
+        //when
+        final List<FullBonitaConfiguration> configurations = index.load();
+
+        //then
+        assertThat(configurations).hasSize(2);
+        assertThat(configurations).extracting("resourceName").containsExactly("bonita-platform-community.properties", "cache-config.xml");
+        assertThat(configurations).extracting("configurationType").containsExactly("PLATFORM_ENGINE", "PLATFORM_PORTAL");
+        assertThat(configurations.get(0).getResourceContent()).isEqualTo("#content not used for testing".getBytes());
+        assertThat(configurations.get(1).getResourceContent()).hasSize(59);
+    }
+
+    @Test
+    public void should_fail_when_resource_does_not_match_index() throws Exception {
+        //given
+        final ConfigurationResourceIndex index = new ConfigurationResourceIndex("/allConfiguration", "/configurationIndex/corrupted.index");
+
+        //expect
+        expectedException.expect(PlatformException.class);
+        expectedException.expectMessage("Resource /allConfiguration/platform_portal/cache-config.xml does not match size or hash declared in configuration index");
+
+        //when
+        index.load();
+    }
+
+    @Test
+    public void exists_should_return_false_when_index_is_not_in_classpath() throws Exception {
+        assertThat(new ConfigurationResourceIndex("/allConfiguration", "/configurationIndex/unknown.index").exists()).isFalse();
+        assertThat(new ConfigurationResourceIndex("/allConfiguration", "/configurationIndex/valid.index").exists()).isTrue();
+    }
+
+    @Test
+    public void should_merge_indexes_of_all_classpath_entries() throws Exception {
+        //given
+        final File firstEntry = temporaryFolder.newFolder("first");
+        final File secondEntry = temporaryFolder.newFolder("second");
+        writeIndexedResource(firstEntry, "platform_engine", "bonita-platform-community-custom.properties", "#from first");
+        writeIndexedResource(secondEntry, "platform_engine", "bonita-platform-community-custom.properties", "#from second");
+        writeIndexedResource(secondEntry, "tenant_template_portal", "security-config.properties", "#from second");
+        final URLClassLoader classLoader = new URLClassLoader(new URL[] { firstEntry.toURI().toURL(), secondEntry.toURI().toURL() }, null);
+
+        //when
+        final List<FullBonitaConfiguration> configurations = new ConfigurationResourceIndex("", ConfigurationResourceIndex.DEFAULT_INDEX, classLoader)
+                .load();
+
+        //then
+        assertThat(configurations).extracting("resourceName").containsExactly("bonita-platform-community-custom.properties", "security-config.properties");
+        assertThat(new String(configurations.get(0).getResourceContent(), StandardCharsets.UTF_8)).as("first index in classpath should win")
+                .isEqualTo("#from first");
+        assertThat(new String(configurations.get(1).getResourceContent(), StandardCharsets.UTF_8)).isEqualTo("#from second");
+    }
+
+    private void writeIndexedResource(File classpathEntry, String typeFolder, String resourceName, String content) throws Exception {
+        final byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        final Path resource = classpathEntry.toPath().resolve(typeFolder).resolve(resourceName);
+        Files.createDirectories(resource.getParent());
+        Files.write(resource, bytes);
+        final Path index = classpathEntry.toPath().resolve("META-INF").resolve("bonita-configuration.index");
+        Files.createDirectories(index.getParent());
+        final String line = typeFolder.toUpperCase() + "\t" + resourceName + "\t" + bytes.length + "\t" + ContentDigest.sha256(bytes);
+        if (Files.exists(index)) {
+            final List<String> lines = Files.readAllLines(index, StandardCharsets.UTF_8);
+            lines.add(line);
+            Files.write(index, lines, StandardCharsets.UTF_8);
+        } else {
+            Files.write(index, Collections.singletonList(line), StandardCharsets.UTF_8);
+        }
+    }
+
+}
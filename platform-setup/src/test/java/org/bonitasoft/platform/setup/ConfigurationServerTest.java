@@ -0,0 +1,205 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.platform.setup;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.bonitasoft.platform.configuration.ConfigurationService;
+import org.bonitasoft.platform.configuration.model.FullBonitaConfiguration;
+import org.bonitasoft.platform.configuration.util.ContentDigest;
+import org.bonitasoft.platform.exception.PlatformException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+/**
+ * @author Laurent Leseigneur
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class ConfigurationServerTest {
+
+    private static final byte[] TENANT_CONTENT = new String(new char[200]).replace('\0', 'a').getBytes(StandardCharsets.UTF_8);
+
+    @Mock
+    ConfigurationService configurationService;
+
+    ConfigurationServer configurationServer;
+
+    @Before
+    public void before() throws Exception {
+        doReturn(Arrays.asList(
+                new FullBonitaConfiguration("platform.xml", "<platform/>".getBytes(), "PLATFORM_ENGINE", 0L),
+                new FullBonitaConfiguration("tenant.properties", TENANT_CONTENT, "TENANT_ENGINE", 3L),
+                new FullBonitaConfiguration("license.lic", "license".getBytes(), "LICENSES", 0L))).when(configurationService).getAllConfiguration();
+        configurationServer = new ConfigurationServer(configurationService, new InetSocketAddress("localhost", 0), 3600, null);
+        configurationServer.start();
+    }
+
+    @After
+    public void after() throws Exception {
+        configurationServer.stop();
+    }
+
+    @Test
+    public void should_serve_file_with_etag() throws Exception {
+        //when
+        final HttpURLConnection connection = open("platform_engine/platform.xml");
+
+        //then
+        assertThat(connection.getResponseCode()).isEqualTo(200);
+        assertThat(connection.getHeaderField("ETag")).isEqualTo("\"" + ContentDigest.sha256("<platform/>".getBytes()) + "\"");
+        assertThat(read(connection.getInputStream())).isEqualTo("<platform/>".getBytes());
+    }
+
+    @Test
+    public void should_answer_not_modified_when_etag_matches() throws Exception {
+        //given
+        final String etag = open("tenants/3/tenant_engine/tenant.properties").getHeaderField("ETag");
+
+        //when
+        final HttpURLConnection connection = open("tenants/3/tenant_engine/tenant.properties");
+        connection.setRequestProperty("If-None-Match", etag);
+
+        //then
+        assertThat(connection.getResponseCode()).isEqualTo(304);
+    }
+
+    @Test
+    public void should_serve_gzipped_content_when_accepted() throws Exception {
+        //when
+        final HttpURLConnection connection = open("tenants/3/tenant_engine/tenant.properties");
+        connection.setRequestProperty("Accept-Encoding", "gzip");
+
+        //then
+        assertThat(connection.getResponseCode()).isEqualTo(200);
+        assertThat(connection.getHeaderField("Content-Encoding")).isEqualTo("gzip");
+        assertThat(connection.getHeaderField("ETag")).isEqualTo("\"" + ContentDigest.sha256(TENANT_CONTENT) + "-gzip\"");
+        assertThat(read(new GZIPInputStream(connection.getInputStream()))).isEqualTo(TENANT_CONTENT);
+    }
+
+    @Test
+    public void should_not_answer_not_modified_to_gzip_client_sending_identity_etag() throws Exception {
+        //given
+        final String etag = open("tenants/3/tenant_engine/tenant.properties").getHeaderField("ETag");
+
+        //when
+        final HttpURLConnection connection = open("tenants/3/tenant_engine/tenant.properties");
+        connection.setRequestProperty("Accept-Encoding", "gzip");
+        connection.setRequestProperty("If-None-Match", etag);
+
+        //then
+        assertThat(connection.getResponseCode()).isEqualTo(200);
+    }
+
+    @Test
+    public void should_not_serve_licenses() throws Exception {
+        assertThat(open("licenses/license.lic").getResponseCode()).isEqualTo(404);
+    }
+
+    @Test
+    public void should_answer_not_found_for_unknown_file() throws Exception {
+        assertThat(open("tenants/4/tenant_engine/tenant.properties").getResponseCode()).isEqualTo(404);
+    }
+
+    @Test
+    public void should_serve_manifest_of_all_files() throws Exception {
+        //when
+        final HttpURLConnection connection = open("SHA256SUMS");
+
+        //then
+        assertThat(new String(read(connection.getInputStream()), StandardCharsets.UTF_8)).isEqualTo(
+                ContentDigest.sha256("<platform/>".getBytes()) + "  platform_engine/platform.xml\n"
+                        + ContentDigest.sha256(TENANT_CONTENT) + "  tenants/3/tenant_engine/tenant.properties\n");
+    }
+
+    @Test
+    public void refresh_should_serve_new_content_with_new_etag() throws Exception {
+        //given
+        final String etag = open("platform_engine/platform.xml").getHeaderField("ETag");
+        doReturn(Collections.singletonList(new FullBonitaConfiguration("platform.xml", "<modified/>".getBytes(), "PLATFORM_ENGINE", 0L)))
+                .when(configurationService).getAllConfiguration();
+        doReturn(1L).when(configurationService).getConfigurationVersion();
+
+        //when
+        configurationServer.refresh();
+
+        //then
+        final HttpURLConnection connection = open("platform_engine/platform.xml");
+        connection.setRequestProperty("If-None-Match", etag);
+        assertThat(connection.getResponseCode()).isEqualTo(200);
+        assertThat(read(connection.getInputStream())).isEqualTo("<modified/>".getBytes());
+    }
+
+    @Test
+    public void refresh_should_not_read_configuration_when_version_did_not_change() throws Exception {
+        //when
+        configurationServer.refresh();
+
+        //then
+        verify(configurationService, times(1)).getAllConfiguration();
+    }
+
+    @Test
+    public void should_refuse_request_without_token_when_token_is_set() throws Exception {
+        //given
+        configurationServer.stop();
+        configurationServer = new ConfigurationServer(configurationService, new InetSocketAddress("localhost", 0), 3600, "secret");
+        configurationServer.start();
+
+        //when
+        final HttpURLConnection withoutToken = open("platform_engine/platform.xml");
+        final HttpURLConnection withToken = open("platform_engine/platform.xml");
+        withToken.setRequestProperty(ConfigurationServer.TOKEN_HEADER, "secret");
+
+        //then
+        assertThat(withoutToken.getResponseCode()).isEqualTo(403);
+        assertThat(withToken.getResponseCode()).isEqualTo(200);
+    }
+
+    @Test(expected = PlatformException.class)
+    public void should_refuse_to_listen_on_non_loopback_address_without_token() throws Exception {
+        new ConfigurationServer(configurationService, new InetSocketAddress("0.0.0.0", 0), 3600, null).start();
+    }
+
+    private HttpURLConnection open(String entryName) throws IOException {
+        return (HttpURLConnection) new URL("http://localhost:" + configurationServer.getPort() + ConfigurationServer.CONTEXT_PATH + entryName)
+                .openConnection();
+    }
+
+    private byte[] read(InputStream inputStream) throws IOException {
+        try (InputStream content = inputStream) {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            IOUtils.copy(content, bytes);
+            return bytes.toByteArray();
+        }
+    }
+}
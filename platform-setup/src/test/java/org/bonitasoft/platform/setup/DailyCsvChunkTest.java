@@ -0,0 +1,50 @@
+package org.bonitasoft.platform.setup;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+import org.junit.Test;
+
+public class DailyCsvChunkTest {
+
+    @Test
+    public void should_write_plain_values_as_is() throws Exception {
+        //then
+        assertThat(DailyCsvChunk.toCsvField(1456790400000L)).isEqualTo("1456790400000");
+        assertThat(DailyCsvChunk.toCsvField("myProcess")).isEqualTo("myProcess");
+        assertThat(DailyCsvChunk.toCsvField(true)).isEqualTo("true");
+    }
+
+    @Test
+    public void should_distinguish_null_from_empty_string() throws Exception {
+        //then
+        assertThat(DailyCsvChunk.toCsvField(null)).isEqualTo("");
+        assertThat(DailyCsvChunk.toCsvField("")).isEqualTo("\"\"");
+    }
+
+    @Test
+    public void should_quote_values_containing_separators_quotes_or_line_breaks() throws Exception {
+        //then
+        assertThat(DailyCsvChunk.toCsvField("a,b")).isEqualTo("\"a,b\"");
+        assertThat(DailyCsvChunk.toCsvField("say \"hello\"")).isEqualTo("\"say \"\"hello\"\"\"");
+        assertThat(DailyCsvChunk.toCsvField("line1\nline2")).isEqualTo("\"line1\nline2\"");
+    }
+
+    @Test
+    public void should_write_binary_values_in_hexadecimal() throws Exception {
+        //then
+        assertThat(DailyCsvChunk.toCsvField(new byte[] { 0x00, 0x0f, (byte) 0xff })).isEqualTo("000fff");
+    }
+
+    @Test
+    public void should_group_rows_by_utc_day() throws Exception {
+        //when
+        final SimpleDateFormat dayFormat = DailyCsvChunk.newDayFormat();
+
+        //then
+        assertThat(dayFormat.format(new Date(1456790400000L))).isEqualTo("2016-03-01");
+        assertThat(dayFormat.format(new Date(1456790400000L - 1))).isEqualTo("2016-02-29");
+    }
+}
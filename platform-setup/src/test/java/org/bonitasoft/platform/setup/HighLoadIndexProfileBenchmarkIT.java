@@ -0,0 +1,288 @@
+/*
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ */
+package org.bonitasoft.platform.setup;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.bonitasoft.platform.setup.ScriptExecutor.DEFAULT_SCHEMA_PROFILE;
+import static org.bonitasoft.platform.setup.ScriptExecutor.FAIL_ON_ERROR;
+import static org.bonitasoft.platform.setup.ScriptExecutor.HIGH_LOAD_INDEX_PROFILE;
+import static org.junit.Assume.assumeTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bonitasoft.platform.setup.jndi.MemoryJNDISetup;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.SpringApplicationConfiguration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+/**
+ * loads synthetic rows into h2, then times the task-list, event matching and timer query shapes of the engine
+ * with the default indexes, and again once createHighLoadIndexes.sql has been run on the same rows.
+ * Timings are only logged: they depend on the machine. Rows returned by both runs must be the same.
+ * Volume can be raised with -Dhighload.benchmark.rows and -Dhighload.benchmark.iterations.
+ *
+ * @author Laurent Leseigneur
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringApplicationConfiguration(classes = {
+        PlatformSetupApplication.class
+})
+public class HighLoadIndexProfileBenchmarkIT {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(HighLoadIndexProfileBenchmarkIT.class);
+
+    private static final int TENANTS = 4;
+
+    private static final int USERS = 100;
+
+    private static final int ROWS = Integer.getInteger("highload.benchmark.rows", 20000);
+
+    private static final int PROCESS_INSTANCES = ROWS / 10;
+
+    private static final int ITERATIONS = Integer.getInteger("highload.benchmark.iterations", 200);
+
+    private static final int BATCH_SIZE = 1000;
+
+    private static final long FIRST_EXECUTION_DATE = 1456790400000L;
+
+    @Autowired
+    MemoryJNDISetup memoryJNDISetup;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Value("${db.vendor}")
+    String dbVendor;
+
+    private ScriptExecutor scriptExecutor;
+
+    @Before
+    public void before() throws Exception {
+        assumeTrue("h2".equals(dbVendor));
+        scriptExecutor = new ScriptExecutor(dbVendor, jdbcTemplate.getDataSource(), DEFAULT_SCHEMA_PROFILE, HIGH_LOAD_INDEX_PROFILE);
+    }
+
+    @After
+    public void after() throws Exception {
+        if (scriptExecutor != null) {
+            scriptExecutor.deleteTables();
+        }
+    }
+
+    @Test
+    public void high_load_indexes_should_return_same_rows_for_engine_query_shapes() throws Exception {
+        //given
+        new ScriptExecutor(dbVendor, jdbcTemplate.getDataSource()).createAndInitializePlatformIfNecessary();
+        for (long tenantId = 1; tenantId <= TENANTS; tenantId++) {
+            insertTenant(tenantId);
+            loadSyntheticRows(tenantId);
+        }
+        final List<QueryShape> queryShapes = getQueryShapes();
+        final Map<String, long[]> withDefaultIndexes = run(queryShapes);
+
+        //when
+        scriptExecutor.executeSQLResource("createHighLoadIndexes.sql", FAIL_ON_ERROR);
+        final Map<String, long[]> withHighLoadIndexes = run(queryShapes);
+
+        //then
+        LOGGER.info(String.format("%-32s %12s %12s", "query shape (" + ITERATIONS + " runs)", "default", "high-load"));
+        for (QueryShape queryShape : queryShapes) {
+            final long[] before = withDefaultIndexes.get(queryShape.name);
+            final long[] after = withHighLoadIndexes.get(queryShape.name);
+            LOGGER.info(String.format("%-32s %9d ms %9d ms", queryShape.name, before[1] / 1000000, after[1] / 1000000));
+            assertThat(after[0]).as(queryShape.name).isEqualTo(before[0]);
+        }
+        assertThat(scriptExecutor.verifySchema()).isEmpty();
+    }
+
+    /**
+     * @return for each query shape, a checksum of the ids it returned and the time spent, in nanoseconds
+     */
+    private Map<String, long[]> run(List<QueryShape> queryShapes) {
+        final Map<String, long[]> results = new LinkedHashMap<>();
+        for (QueryShape queryShape : queryShapes) {
+            // first run warms up the statement cache and the pages read by the query
+            queryShape.run(jdbcTemplate, 0);
+            long checksum = 0;
+            final long start = System.nanoTime();
+            for (int iteration = 0; iteration < ITERATIONS; iteration++) {
+                checksum = 31 * checksum + queryShape.run(jdbcTemplate, iteration);
+            }
+            results.put(queryShape.name, new long[] { checksum, System.nanoTime() - start });
+        }
+        return results;
+    }
+
+    private List<QueryShape> getQueryShapes() {
+        return Arrays.asList(
+                new QueryShape("pending tasks of user", "SELECT f.id FROM flownode_instance f JOIN pending_mapping p "
+                        + "ON p.tenantid = f.tenantid AND p.activityId = f.id WHERE f.tenantid = ? AND p.userId = ? AND f.assigneeId = 0 "
+                        + "AND f.stateName = 'ready' AND f.stable = ? AND f.terminal = ? ORDER BY f.id") {
+
+                    @Override
+                    Object[] getParameters(int iteration) {
+                        return new Object[] { tenantOf(iteration), 1L + iteration % USERS, true, false };
+                    }
+                },
+                new QueryShape("assigned tasks of user", "SELECT id FROM flownode_instance WHERE tenantid = ? AND assigneeId = ? "
+                        + "AND stateName = 'ready' AND kind = 'user' AND stable = ? AND terminal = ? ORDER BY id") {
+
+                    @Override
+                    Object[] getParameters(int iteration) {
+                        return new Object[] { tenantOf(iteration), 1L + iteration % USERS, true, false };
+                    }
+                },
+                new QueryShape("flow nodes of process instance", "SELECT id FROM flownode_instance WHERE tenantid = ? AND rootContainerId = ? "
+                        + "ORDER BY id") {
+
+                    @Override
+                    Object[] getParameters(int iteration) {
+                        return new Object[] { tenantOf(iteration), 1L + iteration % PROCESS_INSTANCES };
+                    }
+                },
+                new QueryShape("called process instances", "SELECT id FROM process_instance WHERE tenantid = ? AND callerId = ? ORDER BY id") {
+
+                    @Override
+                    Object[] getParameters(int iteration) {
+                        return new Object[] { tenantOf(iteration), 1L + iteration % (PROCESS_INSTANCES / 2) };
+                    }
+                },
+                new QueryShape("waiting messages", "SELECT id FROM waiting_event WHERE tenantid = ? AND kind = 'message' AND messageName = ? "
+                        + "AND processName = ? AND progress = 0 AND active = ? ORDER BY id") {
+
+                    @Override
+                    Object[] getParameters(int iteration) {
+                        return new Object[] { tenantOf(iteration), "message" + iteration % 50, "process" + iteration % 20, true };
+                    }
+                },
+                new QueryShape("timers to fire", "SELECT id FROM event_trigger_instance WHERE tenantid = ? AND kind = 'timer' "
+                        + "AND executionDate BETWEEN ? AND ? ORDER BY id") {
+
+                    @Override
+                    Object[] getParameters(int iteration) {
+                        final long from = FIRST_EXECUTION_DATE + (iteration % 100) * 10000L;
+                        return new Object[] { tenantOf(iteration), from, from + 60000L };
+                    }
+                },
+                new QueryShape("data of process instance", "SELECT id FROM data_instance WHERE tenantid = ? AND containerId = ? "
+                        + "AND containerType = 'PROCESS_INSTANCE' AND name = ? ORDER BY id") {
+
+                    @Override
+                    Object[] getParameters(int iteration) {
+                        return new Object[] { tenantOf(iteration), 1L + iteration % PROCESS_INSTANCES, "data" + iteration % 10 };
+                    }
+                });
+    }
+
+    private static long tenantOf(int iteration) {
+        return 1L + iteration % TENANTS;
+    }
+
+    private void loadSyntheticRows(long tenantId) {
+        final List<Object[]> processInstances = new ArrayList<>();
+        for (long id = 1; id <= PROCESS_INSTANCES; id++) {
+            final Long callerId = id <= PROCESS_INSTANCES / 2 ? null : id - PROCESS_INSTANCES / 2;
+            processInstances.add(new Object[] { tenantId, id, "process", id % 20, FIRST_EXECUTION_DATE, 1L, 0L, 0L, id % 3 == 0 ? 6 : 1,
+                    "NORMAL", FIRST_EXECUTION_DATE, callerId == null ? id : callerId, callerId });
+        }
+        insert("INSERT INTO process_instance (tenantid, id, name, processDefinitionId, startDate, startedBy, startedBySubstitute, endDate, stateId, "
+                + "stateCategory, lastUpdate, rootProcessInstanceId, callerId) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", processInstances);
+
+        final List<Object[]> flowNodes = new ArrayList<>();
+        final List<Object[]> pendingMappings = new ArrayList<>();
+        for (long id = 1; id <= ROWS; id++) {
+            final long processInstanceId = 1 + id % PROCESS_INSTANCES;
+            final boolean completed = id % 5 == 0;
+            final boolean humanTask = id % 4 != 0;
+            final long assigneeId = humanTask && id % 3 != 0 ? 1 + id % USERS : 0;
+            flowNodes.add(new Object[] { tenantId, id, id % 50, humanTask ? "user" : "gate", processInstanceId, processInstanceId, "step" + id % 50,
+                    completed ? 2 : 4, completed ? "completed" : "ready", 0, completed, true, assigneeId, "NORMAL", id % 50, processInstanceId,
+                    processInstanceId, 0 });
+            if (humanTask && assigneeId == 0) {
+                pendingMappings.add(new Object[] { tenantId, id, id, id % 2 == 0 ? 1 + id % USERS : null, id % 2 == 0 ? null : 1 + id % 10 });
+            }
+        }
+        insert("INSERT INTO flownode_instance (tenantid, id, flownodeDefinitionId, kind, rootContainerId, parentContainerId, name, stateId, "
+                + "stateName, prev_state_id, terminal, stable, assigneeId, stateCategory, logicalGroup1, logicalGroup2, logicalGroup4, tokenCount) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", flowNodes);
+        insert("INSERT INTO pending_mapping (tenantid, id, activityId, userId, actorId) VALUES (?, ?, ?, ?, ?)", pendingMappings);
+
+        final List<Object[]> waitingEvents = new ArrayList<>();
+        final List<Object[]> eventTriggers = new ArrayList<>();
+        for (long id = 1; id <= ROWS / 4; id++) {
+            waitingEvents.add(new Object[] { tenantId, id, id % 2 == 0 ? "message" : "signal", "message" + id % 50, "signal" + id % 50,
+                    "process" + id % 20, id * 4, 1 + id % PROCESS_INSTANCES, false, true, id % 7 == 0 ? 1 : 0 });
+            eventTriggers.add(new Object[] { tenantId, id, id % 2 == 0 ? "timer" : "message", id * 4, FIRST_EXECUTION_DATE + id * 1000 });
+        }
+        insert("INSERT INTO waiting_event (tenantid, id, kind, messageName, signalName, processName, flowNodeInstanceId, rootProcessInstanceId, "
+                + "locked, active, progress) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", waitingEvents);
+        insert("INSERT INTO event_trigger_instance (tenantid, id, kind, eventInstanceId, executionDate) VALUES (?, ?, ?, ?, ?)", eventTriggers);
+
+        final List<Object[]> dataInstances = new ArrayList<>();
+        for (long id = 1; id <= ROWS; id++) {
+            dataInstances.add(new Object[] { tenantId, id, "data" + (id / PROCESS_INSTANCES) % 10, 1 + id % PROCESS_INSTANCES,
+                    id % 2 == 0 ? "PROCESS_INSTANCE" : "ACTIVITY_INSTANCE", id, "SLongDataInstanceImpl" });
+        }
+        insert("INSERT INTO data_instance (tenantid, id, name, containerId, containerType, longValue, discriminant) VALUES (?, ?, ?, ?, ?, ?, ?)",
+                dataInstances);
+    }
+
+    private void insert(String sql, List<Object[]> rows) {
+        for (int from = 0; from < rows.size(); from += BATCH_SIZE) {
+            jdbcTemplate.batchUpdate(sql, rows.subList(from, Math.min(from + BATCH_SIZE, rows.size())));
+        }
+    }
+
+    private void insertTenant(long tenantId) {
+        jdbcTemplate.update("INSERT INTO tenant (id, created, createdBy, defaultTenant, name, status) VALUES (?, ?, ?, ?, ?, ?)", tenantId,
+                System.currentTimeMillis(), "install", false, "tenant" + tenantId, "ACTIVATED");
+    }
+
+    private static abstract class QueryShape {
+
+        private final String name;
+
+        private final String sql;
+
+        QueryShape(String name, String sql) {
+            this.name = name;
+            this.sql = sql;
+        }
+
+        abstract Object[] getParameters(int iteration);
+
+        /**
+         * @return a checksum of the ids returned
+         */
+        long run(JdbcTemplate jdbcTemplate, int iteration) {
+            long checksum = 0;
+            for (Long id : jdbcTemplate.queryForList(sql, Long.class, getParameters(iteration))) {
+                checksum = 31 * checksum + id;
+            }
+            return checksum;
+        }
+    }
+}
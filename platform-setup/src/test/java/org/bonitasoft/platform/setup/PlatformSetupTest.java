@@ -30,6 +30,7 @@ import java.util.List;
 import java.util.Map;
 
 import org.apache.commons.io.FileUtils;
+import org.bonitasoft.platform.configuration.model.ConfigurationGeneration;
 import org.bonitasoft.platform.configuration.model.FullBonitaConfiguration;
 import org.bonitasoft.platform.configuration.type.ConfigurationType;
 import org.bonitasoft.platform.configuration.util.AllConfigurationResourceVisitor;
@@ -90,6 +91,7 @@ public class PlatformSetupTest {
     @After
     public void after() throws Exception {
         System.clearProperty(BONITA_SETUP_FOLDER);
+        System.clearProperty(PlatformSetup.BONITA_SETUP_SKIP_VALIDATION);
         platformSetup.destroy();
     }
 
@@ -317,6 +319,32 @@ public class PlatformSetupTest {
                 .endsWith("Configuration files successfully pushed to database. You can now restart Bonita BPM to reflect your changes.");
     }
 
+    @Test
+    public void push_should_record_generation_and_rollback_should_restore_previous_one() throws Exception {
+        // given
+        final Path pushPath = temporaryFolder.newFolder("push").toPath();
+        final Path checkPath = temporaryFolder.newFolder("check").toPath();
+        final Path licensesPath = temporaryFolder.newFolder("lic").toPath();
+        final File pushedFile = pushPath.resolve(PLATFORM_CONF_FOLDER_NAME).resolve("current").resolve(PLATFORM_ENGINE.name().toLowerCase())
+                .resolve("pushed.properties").toFile();
+        platformSetup.init();
+        System.setProperty(BONITA_SETUP_FOLDER, pushPath.toString());
+        FileUtils.writeByteArrayToFile(pushedFile, "key=first".getBytes());
+        platformSetup.push();
+        FileUtils.writeByteArrayToFile(pushedFile, "key=second".getBytes());
+        platformSetup.push();
+
+        // when
+        platformSetup.rollback(2L);
+
+        // then
+        final List<ConfigurationGeneration> history = platformSetup.history();
+        assertThat(history).extracting("generation").containsExactly(1L, 2L, 3L);
+        assertThat(history).extracting("active").containsExactly(false, true, false);
+        platformSetup.pull(checkPath, licensesPath);
+        assertThat(checkPath.resolve(PLATFORM_ENGINE.name().toLowerCase()).resolve("pushed.properties").toFile()).hasContent("key=first");
+    }
+
     @Test
     public void push_should_throw_exception_when_platform_is_not_created() throws Exception {
         //given
@@ -391,6 +419,49 @@ public class PlatformSetupTest {
                 .extracting("resourceName").containsOnly("current.properties");
     }
 
+    @Test
+    public void push_method_should_not_change_database_when_a_file_is_invalid() throws Exception {
+        //given
+        platformSetup.init();
+        final int rowsBeforePush = JdbcTestUtils.countRowsInTable(jdbcTemplate, "configuration");
+        final Path pushPath = temporaryFolder.newFolder("push").toPath();
+        final Path currentPath = pushPath.resolve(PLATFORM_CONF_FOLDER_NAME).resolve("current");
+        FileUtils.writeByteArrayToFile(currentPath.resolve(PLATFORM_ENGINE.name().toLowerCase()).resolve("valid.properties").toFile(),
+                "key=value".getBytes());
+        FileUtils.writeByteArrayToFile(currentPath.resolve(PLATFORM_ENGINE.name().toLowerCase()).resolve("invalid.xml").toFile(),
+                "<beans>\n<bean>\n</beans>".getBytes());
+        System.setProperty(BONITA_SETUP_FOLDER, pushPath.toString());
+
+        //when
+        try {
+            platformSetup.push();
+            fail();
+        } catch (PlatformException e) {
+            //then
+            assertThat(e.getMessage()).contains("platform_engine/invalid.xml:3: ");
+        }
+        assertThat(JdbcTestUtils.countRowsInTable(jdbcTemplate, "configuration")).isEqualTo(rowsBeforePush);
+        assertThat(pushPath.resolve(PLATFORM_CONF_FOLDER_NAME).resolve("validation.cache").toFile()).exists();
+    }
+
+    @Test
+    public void push_method_should_push_invalid_file_when_validation_is_skipped() throws Exception {
+        //given
+        platformSetup.init();
+        final Path pushPath = temporaryFolder.newFolder("push").toPath();
+        final Path currentPath = pushPath.resolve(PLATFORM_CONF_FOLDER_NAME).resolve("current");
+        FileUtils.writeByteArrayToFile(currentPath.resolve(PLATFORM_ENGINE.name().toLowerCase()).resolve("invalid.xml").toFile(),
+                "<beans>\n<bean>\n</beans>".getBytes());
+        System.setProperty(BONITA_SETUP_FOLDER, pushPath.toString());
+        System.setProperty(PlatformSetup.BONITA_SETUP_SKIP_VALIDATION, "true");
+
+        //when
+        platformSetup.push();
+
+        //then
+        assertThat(JdbcTestUtils.countRowsInTableWhere(jdbcTemplate, "configuration", "resource_name = 'invalid.xml'")).isEqualTo(1);
+    }
+
     @Test
     public void push_method_should_throw_exception_if_no_current_folder() throws Exception {
         //given
@@ -16,14 +16,31 @@ package org.bonitasoft.platform.setup;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.bonitasoft.platform.setup.PlatformSetup.BONITA_SETUP_FOLDER;
 import static org.bonitasoft.platform.setup.PlatformSetup.PLATFORM_CONF_FOLDER_NAME;
+import static org.bonitasoft.platform.setup.ScriptExecutor.DEFAULT_SCHEMA_PROFILE;
 import static org.bonitasoft.platform.setup.ScriptExecutor.FAIL_ON_ERROR;
+import static org.bonitasoft.platform.setup.ScriptExecutor.HIGH_LOAD_INDEX_PROFILE;
+import static org.bonitasoft.platform.setup.ScriptExecutor.PARTITIONED_SCHEMA_PROFILE;
 
 import java.io.File;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
 
+import org.apache.commons.io.IOUtils;
+import org.bonitasoft.platform.exception.PlatformException;
+import org.bonitasoft.platform.setup.generator.GenerationPlan;
 import org.bonitasoft.platform.setup.jndi.MemoryJNDISetup;
+import org.bonitasoft.platform.setup.schema.SchemaDifference;
+import org.bonitasoft.platform.setup.stats.TableStatistics;
+import org.bonitasoft.platform.setup.stats.TenantStatistics;
+import org.bonitasoft.platform.util.ConfigurationFolderUtil;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Rule;
@@ -38,6 +55,7 @@ import org.springframework.boot.test.SpringApplicationConfiguration;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 import org.springframework.test.jdbc.JdbcTestUtils;
+import org.springframework.util.StringUtils;
 
 /**
  * author Laurent Leseigneur
@@ -140,4 +158,344 @@ public class ScriptExecutorIT {
         //when
         scriptExecutor.executeSQLResource("missingScript.sql", FAIL_ON_ERROR);
     }
+
+    @Test
+    public void purgeTenant_should_delete_tenant_rows_by_chunks_and_keep_other_tenants() throws Exception {
+        //given
+        scriptExecutor.createAndInitializePlatformIfNecessary();
+        final Path confFolder = temporaryFolder.newFolder().toPath();
+        new ConfigurationFolderUtil().buildSqlFolder(confFolder, dbVendor);
+        System.setProperty(BONITA_SETUP_FOLDER, confFolder.toString());
+        insertSequences(42L, 25);
+        insertSequences(43L, 3);
+
+        //when
+        final long deletedRows = scriptExecutor.purgeTenant(42L, 10);
+
+        //then
+        assertThat(deletedRows).isEqualTo(25);
+        assertThat(JdbcTestUtils.countRowsInTableWhere(jdbcTemplate, "sequence", "tenantid = 42")).isEqualTo(0);
+        assertThat(JdbcTestUtils.countRowsInTableWhere(jdbcTemplate, "sequence", "tenantid = 43")).isEqualTo(3);
+        assertThat(confFolder.resolve(PLATFORM_CONF_FOLDER_NAME).resolve("purge-tenant-42.checkpoint").toFile()).doesNotExist();
+    }
+
+    @Test
+    public void purgeTenant_should_resume_from_checkpoint() throws Exception {
+        //given
+        scriptExecutor.createAndInitializePlatformIfNecessary();
+        final Path confFolder = temporaryFolder.newFolder().toPath();
+        new ConfigurationFolderUtil().buildSqlFolder(confFolder, dbVendor);
+        System.setProperty(BONITA_SETUP_FOLDER, confFolder.toString());
+        insertSequences(42L, 25);
+        // as left by a purge that committed ids up to 10 of table sequence before crashing:
+        Files.write(confFolder.resolve(PLATFORM_CONF_FOLDER_NAME).resolve("purge-tenant-42.checkpoint"),
+                "table=sequence\nkey=10\ndeletedRows=10\n".getBytes());
+
+        //when
+        final long deletedRows = scriptExecutor.purgeTenant(42L, 10);
+
+        //then
+        assertThat(deletedRows).isEqualTo(25);
+        assertThat(jdbcTemplate.queryForObject("SELECT MAX(id) FROM sequence WHERE tenantid = 42", Long.class)).isEqualTo(10L);
+    }
+
+    @Test
+    public void initializeTenants_should_insert_initial_rows_of_all_tenants() throws Exception {
+        //given
+        scriptExecutor.createAndInitializePlatformIfNecessary();
+        final String initTenantTables = IOUtils.toString(this.getClass().getResourceAsStream("/sql/" + dbVendor + "/initTenantTables.sql"), "UTF-8");
+        final int sequencesPerTenant = StringUtils.countOccurrencesOf(initTenantTables, "INSERT INTO sequence");
+
+        //when
+        scriptExecutor.initializeTenants(Arrays.asList(101L, 102L, 103L));
+
+        //then
+        assertThat(JdbcTestUtils.countRowsInTableWhere(jdbcTemplate, "sequence", "tenantid = 101")).isEqualTo(sequencesPerTenant);
+        assertThat(JdbcTestUtils.countRowsInTableWhere(jdbcTemplate, "sequence", "tenantid IN (101, 102, 103)")).isEqualTo(3 * sequencesPerTenant);
+    }
+
+    @Test
+    public void offloadArchives_should_move_old_archived_rows_to_daily_files() throws Exception {
+        //given
+        scriptExecutor.createAndInitializePlatformIfNecessary();
+        final Path archivesFolder = temporaryFolder.newFolder().toPath();
+        insertTenant(42L);
+        insertTenant(43L);
+        final long march1st = 1456790400000L;
+        for (int id = 1; id <= 25; id++) {
+            insertArchivedProcessInstance(42L, id, march1st + id % 2 * TimeUnit.DAYS.toMillis(1));
+        }
+        insertArchivedProcessInstance(42L, 26, march1st + TimeUnit.DAYS.toMillis(30));
+        insertArchivedProcessInstance(43L, 1, march1st);
+
+        //when
+        final long offloadedRows = scriptExecutor.offloadArchives(march1st + TimeUnit.DAYS.toMillis(10), archivesFolder, 10);
+
+        //then
+        assertThat(offloadedRows).isEqualTo(26);
+        assertThat(jdbcTemplate.queryForList("SELECT id FROM arch_process_instance", Long.class)).containsExactly(26L);
+        final Path tenantFolder = archivesFolder.resolve("tenant-42").resolve("arch_process_instance");
+        final List<String> march1stLines = readGzippedLines(tenantFolder.resolve("2016-03-01.csv.gz"));
+        assertThat(march1stLines.get(0)).startsWith("tenantid,id,name,");
+        assertThat(march1stLines).hasSize(1 + 12);
+        assertThat(readGzippedLines(tenantFolder.resolve("2016-03-02.csv.gz"))).hasSize(1 + 13);
+        assertThat(readGzippedLines(archivesFolder.resolve("tenant-43").resolve("arch_process_instance").resolve("2016-03-01.csv.gz"))).hasSize(2);
+    }
+
+    @Test
+    public void rollupQueriableLogs_should_replace_old_logs_by_daily_counts() throws Exception {
+        //given
+        scriptExecutor.createAndInitializePlatformIfNecessary();
+        insertTenant(42L);
+        final Path archivesFolder = temporaryFolder.newFolder().toPath();
+        final long march1st = 1456790400000L;
+        for (int id = 1; id <= 25; id++) {
+            insertQueriableLog(42L, id, march1st, id % 5 == 0 ? "ERROR" : "INFO");
+        }
+        insertQueriableLog(42L, 26, march1st + TimeUnit.DAYS.toMillis(30), "INFO");
+        // as left by a previous run:
+        jdbcTemplate.update("INSERT INTO queriable_log_day (tenantid, whatYear, dayOfYear, severity, actionType, actionStatus, logCount)"
+                + " VALUES (42, 2016, 61, 'INFO', 'PROCESSINSTANCE_CREATED', 1, 100)");
+
+        //when
+        final long rolledUpRows = scriptExecutor.rollupQueriableLogs(march1st + TimeUnit.DAYS.toMillis(10), archivesFolder, 10);
+
+        //then
+        assertThat(rolledUpRows).isEqualTo(25);
+        assertThat(jdbcTemplate.queryForList("SELECT id FROM queriable_log", Long.class)).containsExactly(26L);
+        assertThat(jdbcTemplate.queryForObject("SELECT logCount FROM queriable_log_day WHERE tenantid = 42 AND severity = 'INFO'", Long.class))
+                .isEqualTo(120L);
+        assertThat(jdbcTemplate.queryForObject("SELECT logCount FROM queriable_log_day WHERE tenantid = 42 AND severity = 'ERROR'", Long.class))
+                .isEqualTo(5L);
+        assertThat(readGzippedLines(archivesFolder.resolve("tenant-42").resolve("queriable_log").resolve("2016-03-01.csv.gz"))).hasSize(1 + 25);
+    }
+
+    private void insertQueriableLog(long tenantId, long id, long timestamp, String severity) {
+        jdbcTemplate.update("INSERT INTO queriable_log (tenantid, id, log_timestamp, whatYear, whatMonth, dayOfYear, weekOfYear, userId, threadNumber, "
+                + "productVersion, severity, actionType, actionStatus, rawMessage) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", tenantId, id,
+                timestamp, 2016, 3, 61 + (int) TimeUnit.MILLISECONDS.toDays(timestamp - 1456790400000L), 9, "walter.bates", 1L, "7.2.0", severity,
+                "PROCESSINSTANCE_CREATED", 1, "process instance created");
+    }
+
+    @Test
+    public void partitioned_schema_profile_should_drop_partitions_of_purged_tenant() throws Exception {
+        //given
+        final ScriptExecutor partitionedScriptExecutor = new ScriptExecutor(dbVendor, jdbcTemplate.getDataSource(), PARTITIONED_SCHEMA_PROFILE);
+        partitionedScriptExecutor.createAndInitializePlatformIfNecessary();
+        insertTenant(42L);
+        insertTenant(43L);
+        partitionedScriptExecutor.initializeTenants(Arrays.asList(42L, 43L));
+        insertArchivedProcessInstance(42L, 1, System.currentTimeMillis());
+        insertArchivedProcessInstance(43L, 1, System.currentTimeMillis());
+        insertQueriableLog(42L, 1, System.currentTimeMillis(), "INFO");
+
+        //when
+        partitionedScriptExecutor.purgeTenant(42L, 10);
+
+        //then
+        assertThat(JdbcTestUtils.countRowsInTableWhere(jdbcTemplate, "arch_process_instance", "tenantid = 42")).isEqualTo(0);
+        assertThat(JdbcTestUtils.countRowsInTableWhere(jdbcTemplate, "queriable_log", "tenantid = 42")).isEqualTo(0);
+        assertThat(JdbcTestUtils.countRowsInTableWhere(jdbcTemplate, "arch_process_instance", "tenantid = 43")).isEqualTo(1);
+        if ("postgres".equals(dbVendor)) {
+            // default partition and partition of tenant 43:
+            assertThat(jdbcTemplate.queryForList("SELECT inhrelid::regclass::text FROM pg_inherits WHERE inhparent = 'arch_process_instance'::regclass",
+                    String.class)).containsOnly("arch_process_instance_default", "arch_process_instance_t43");
+        }
+    }
+
+    @Test
+    public void verifySchema_should_report_missing_and_extra_indexes() throws Exception {
+        //given
+        scriptExecutor.createAndInitializePlatformIfNecessary();
+        assertThat(scriptExecutor.verifySchema()).isEmpty();
+        if ("mysql".equals(dbVendor) || "sqlserver".equals(dbVendor)) {
+            jdbcTemplate.execute("DROP INDEX idx_fni_rootcontid ON flownode_instance");
+        } else {
+            jdbcTemplate.execute("DROP INDEX idx_fni_rootcontid");
+        }
+        jdbcTemplate.execute("CREATE INDEX idx_extra ON waiting_event (signalName)");
+
+        //when
+        final List<SchemaDifference> differences = scriptExecutor.verifySchema();
+
+        //then
+        assertThat(differences).extracting("table").containsOnly("flownode_instance", "waiting_event");
+        assertThat(differences.toString()).contains("flownode_instance: missing index idx_fni_rootcontid on [rootcontainerid]",
+                "waiting_event: extra index idx_extra on [signalname]");
+    }
+
+    @Test
+    public void high_load_index_profile_should_create_tenant_leading_indexes_expected_by_verifySchema() throws Exception {
+        //given
+        final ScriptExecutor highLoadScriptExecutor = new ScriptExecutor(dbVendor, jdbcTemplate.getDataSource(), DEFAULT_SCHEMA_PROFILE,
+                HIGH_LOAD_INDEX_PROFILE);
+
+        //when
+        highLoadScriptExecutor.createAndInitializePlatformIfNecessary();
+
+        //then
+        assertThat(highLoadScriptExecutor.verifySchema()).isEmpty();
+        assertThat(scriptExecutor.verifySchema().toString()).contains("flownode_instance: extra index idx_hl_fni_task_list",
+                "waiting_event: extra index idx_hl_we_message", "event_trigger_instance: extra index idx_hl_eti_timer");
+    }
+
+    @Test
+    public void generateData_should_add_tenants_filled_with_synthetic_rows() throws Exception {
+        //given
+        scriptExecutor.createAndInitializePlatformIfNecessary();
+        insertTenant(1L);
+        final GenerationPlan plan = new GenerationPlan(2, 600, 5, 3, 50, 42L);
+
+        //when
+        final List<Long> tenantIds = scriptExecutor.generateData(plan, 2);
+
+        //then
+        assertThat(tenantIds).containsExactly(2L, 3L);
+        for (Long tenantId : tenantIds) {
+            final int running = JdbcTestUtils.countRowsInTableWhere(jdbcTemplate, "process_instance", "tenantid = " + tenantId);
+            final int archived = JdbcTestUtils.countRowsInTableWhere(jdbcTemplate, "arch_process_instance", "tenantid = " + tenantId);
+            assertThat(running + archived).isEqualTo(600);
+            assertThat(JdbcTestUtils.countRowsInTableWhere(jdbcTemplate, "flownode_instance", "tenantid = " + tenantId)).isEqualTo(running);
+            assertThat(JdbcTestUtils.countRowsInTableWhere(jdbcTemplate, "data_instance", "tenantid = " + tenantId)).isEqualTo(3 * running);
+            assertThat(JdbcTestUtils.countRowsInTableWhere(jdbcTemplate, "arch_data_instance", "tenantid = " + tenantId)).isEqualTo(3 * archived);
+            assertThat(JdbcTestUtils.countRowsInTableWhere(jdbcTemplate, "queriable_log", "tenantid = " + tenantId)).isEqualTo(running + 2 * archived);
+            assertThat(jdbcTemplate.queryForObject("SELECT MIN(nextid) FROM sequence WHERE tenantid = ?", Long.class, tenantId))
+                    .isEqualTo(plan.getMaxId() + 1);
+        }
+        assertThat(JdbcTestUtils.countRowsInTableWhere(jdbcTemplate, "arch_flownode_instance", "tenantid = 2")).isGreaterThan(600);
+    }
+
+    @Test
+    public void exportTenant_then_importTenant_should_copy_all_rows_of_tenant_under_new_id() throws Exception {
+        //given
+        scriptExecutor.createAndInitializePlatformIfNecessary();
+        insertTenant(42L);
+        scriptExecutor.initializeTenants(Collections.singletonList(42L));
+        insertArchivedProcessInstance(42L, 1, System.currentTimeMillis());
+        insertArchivedProcessInstance(42L, 2, System.currentTimeMillis());
+        insertArchivedProcessInstance(42L, 5, System.currentTimeMillis());
+        insertQueriableLog(42L, 1, System.currentTimeMillis(), "INFO");
+        jdbcTemplate.update("INSERT INTO configuration (tenant_id, content_type, resource_name, resource_content) VALUES (?, ?, ?, ?)", 42L,
+                "TENANT_ENGINE", "bonita-tenant-custom.xml", "<beans/>".getBytes());
+        final Path file = temporaryFolder.getRoot().toPath().resolve("tenant-42.gz");
+
+        //when
+        final long exportedRows = scriptExecutor.exportTenant(42L, file, 2);
+        final long importedRows = scriptExecutor.importTenant(file, 43L, "tenant43", 2);
+
+        //then
+        assertThat(importedRows).isEqualTo(exportedRows);
+        assertThat(JdbcTestUtils.countRowsInTableWhere(jdbcTemplate, "tenant", "id = 43")).isEqualTo(1);
+        assertThat(JdbcTestUtils.countRowsInTableWhere(jdbcTemplate, "arch_process_instance", "tenantid = 43")).isEqualTo(3);
+        assertThat(JdbcTestUtils.countRowsInTableWhere(jdbcTemplate, "queriable_log", "tenantid = 43")).isEqualTo(1);
+        assertThat(JdbcTestUtils.countRowsInTableWhere(jdbcTemplate, "sequence", "tenantid = 43"))
+                .isEqualTo(JdbcTestUtils.countRowsInTableWhere(jdbcTemplate, "sequence", "tenantid = 42"));
+        assertThat(jdbcTemplate.queryForObject("SELECT resource_content FROM configuration WHERE tenant_id = 43", byte[].class))
+                .isEqualTo("<beans/>".getBytes());
+    }
+
+    @Test
+    public void importTenant_should_fail_when_tenant_already_exists() throws Exception {
+        //given
+        scriptExecutor.createAndInitializePlatformIfNecessary();
+        insertTenant(42L);
+        final Path file = temporaryFolder.getRoot().toPath().resolve("tenant-42.gz");
+        scriptExecutor.exportTenant(42L, file, 10);
+
+        //then
+        expectedException.expect(PlatformException.class);
+        expectedException.expectMessage("Tenant 42 already exists");
+
+        //when
+        scriptExecutor.importTenant(file, null, null, 10);
+    }
+
+    @Test
+    public void importTenant_should_fail_when_tenant_name_already_exists() throws Exception {
+        //given
+        scriptExecutor.createAndInitializePlatformIfNecessary();
+        insertTenant(42L);
+        final Path file = temporaryFolder.getRoot().toPath().resolve("tenant-42.gz");
+        scriptExecutor.exportTenant(42L, file, 10);
+
+        //then
+        expectedException.expect(PlatformException.class);
+        expectedException.expectMessage("A tenant named tenant42 already exists");
+
+        //when
+        scriptExecutor.importTenant(file, 43L, null, 10);
+    }
+
+    @Test
+    public void importTenant_should_not_make_imported_tenant_default_when_platform_already_has_one() throws Exception {
+        //given
+        scriptExecutor.createAndInitializePlatformIfNecessary();
+        insertTenant(42L, true);
+        final Path file = temporaryFolder.getRoot().toPath().resolve("tenant-42.gz");
+        scriptExecutor.exportTenant(42L, file, 10);
+
+        //when
+        scriptExecutor.importTenant(file, 43L, "copy", 10);
+
+        //then
+        assertThat(jdbcTemplate.queryForObject("SELECT name FROM tenant WHERE id = 43", String.class)).isEqualTo("copy");
+        assertThat(jdbcTemplate.queryForObject("SELECT defaultTenant FROM tenant WHERE id = 43", Boolean.class)).isFalse();
+        assertThat(JdbcTestUtils.countRowsInTableWhere(jdbcTemplate, "tenant", "defaultTenant = true")).isEqualTo(1);
+    }
+
+    @Test
+    public void collectStatistics_should_count_rows_and_binary_sizes_per_tenant() throws Exception {
+        //given
+        scriptExecutor.createAndInitializePlatformIfNecessary();
+        insertTenant(42L);
+        insertTenant(43L);
+        insertArchivedProcessInstance(42L, 1, System.currentTimeMillis());
+        insertArchivedProcessInstance(42L, 2, System.currentTimeMillis());
+        insertArchivedProcessInstance(43L, 1, System.currentTimeMillis());
+        jdbcTemplate.update("INSERT INTO configuration (tenant_id, content_type, resource_name, resource_content) VALUES (?, ?, ?, ?)", 43L,
+                "TENANT_ENGINE", "bonita-tenant-custom.xml", new byte[1000]);
+
+        //when
+        final List<TableStatistics> statistics = scriptExecutor.collectStatistics(2);
+
+        //then
+        final Map<String, TableStatistics> byTable = new HashMap<>();
+        for (TableStatistics table : statistics) {
+            byTable.put(table.getTable(), table);
+        }
+        assertThat(byTable).containsKeys("arch_flownode_instance", "queriable_log", "platform");
+        final List<TenantStatistics> archProcessInstances = byTable.get("arch_process_instance").getTenants();
+        assertThat(archProcessInstances).extracting("tenantId").containsExactly(42L, 43L);
+        assertThat(archProcessInstances).extracting("rows").containsExactly(2L, 1L);
+        assertThat(byTable.get("configuration").getTenants()).extracting("lobBytes").contains(1000L);
+        assertThat(byTable.get("platform").getRows()).isEqualTo(1L);
+        assertThat(byTable.get("platform").getTenants().get(0).getTenantId()).isNull();
+    }
+
+    private void insertTenant(long tenantId) {
+        insertTenant(tenantId, false);
+    }
+
+    private void insertTenant(long tenantId, boolean defaultTenant) {
+        jdbcTemplate.update("INSERT INTO tenant (id, created, createdBy, defaultTenant, name, status) VALUES (?, ?, ?, ?, ?, ?)", tenantId,
+                System.currentTimeMillis(), "install", defaultTenant, "tenant" + tenantId, "ACTIVATED");
+    }
+
+    private void insertArchivedProcessInstance(long tenantId, long id, long archiveDate) {
+        jdbcTemplate.update("INSERT INTO arch_process_instance (tenantid, id, name, processDefinitionId, startDate, startedBy, startedBySubstitute, endDate, "
+                + "archiveDate, stateId, lastUpdate, sourceObjectId) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", tenantId, id, "process, v1", 1L,
+                archiveDate, 1L, 1L, archiveDate, archiveDate, 6, archiveDate, id);
+    }
+
+    private List<String> readGzippedLines(Path file) throws Exception {
+        try (InputStream inputStream = new GZIPInputStream(Files.newInputStream(file))) {
+            return IOUtils.readLines(inputStream, "UTF-8");
+        }
+    }
+
+    private void insertSequences(long tenantId, int count) {
+        for (int id = 1; id <= count; id++) {
+            jdbcTemplate.update("INSERT INTO sequence (tenantid, id, nextid) VALUES (?, ?, ?)", tenantId, id, 1);
+        }
+    }
 }
@@ -13,11 +13,16 @@
  */
 package org.bonitasoft.platform.setup;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.anyBoolean;
 import static org.mockito.Mockito.*;
 
+import java.util.List;
+
 import org.bonitasoft.platform.setup.jndi.MemoryJNDISetup;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.SpringApplicationConfiguration;
 import org.springframework.jdbc.core.JdbcTemplate;
@@ -73,4 +78,22 @@ public class ScriptExecutorTest {
         scriptExecutor.deleteTables();
     }
 
+    @Test
+    public void createTables_should_not_run_partition_scripts_when_db_vendor_does_not_support_partitioning() throws Exception {
+        //given
+        ScriptExecutor spy = spy(new ScriptExecutor("h2", jdbcTemplate.getDataSource(), ScriptExecutor.PARTITIONED_SCHEMA_PROFILE));
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<String>> sqlFiles = ArgumentCaptor.forClass((Class) List.class);
+
+        //when
+        spy.createTables();
+
+        //then
+        verify(spy).executeSQLResources(sqlFiles.capture(), anyBoolean());
+        assertThat(sqlFiles.getValue()).contains("createTables.sql").doesNotContain("createPartitionedTables.sql");
+
+        //cleanup
+        spy.deleteTables();
+    }
+
 }
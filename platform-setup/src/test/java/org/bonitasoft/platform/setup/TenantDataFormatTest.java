@@ -0,0 +1,55 @@
+package org.bonitasoft.platform.setup;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.math.BigDecimal;
+
+import org.junit.Test;
+
+public class TenantDataFormatTest {
+
+    @Test
+    public void should_read_values_as_written() throws Exception {
+        //then
+        assertThat(writeAndRead(null)).isNull();
+        assertThat(writeAndRead(1456790400000L)).isEqualTo(1456790400000L);
+        assertThat(writeAndRead(true)).isEqualTo(true);
+        assertThat(writeAndRead(0.5d)).isEqualTo(0.5d);
+        assertThat(writeAndRead(new BigDecimal("12.50"))).isEqualTo(new BigDecimal("12.50"));
+        assertThat(writeAndRead("myProcess \u00e9")).isEqualTo("myProcess \u00e9");
+        assertThat(writeAndRead(new byte[] { 0x00, 0x0f, (byte) 0xff })).isEqualTo(new byte[] { 0x00, 0x0f, (byte) 0xff });
+    }
+
+    @Test
+    public void should_read_all_integer_types_as_long() throws Exception {
+        //then
+        assertThat(writeAndRead(42)).isEqualTo(42L);
+        assertThat(writeAndRead((short) 3)).isEqualTo(3L);
+        assertThat(writeAndRead(new BigDecimal("19"))).isEqualTo(19L);
+        assertThat(writeAndRead(new BigDecimal("1.0E+2"))).isEqualTo(100L);
+    }
+
+    @Test
+    public void should_write_strings_longer_than_64k() throws Exception {
+        //given
+        final StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 70000; i++) {
+            content.append('x');
+        }
+
+        //then
+        assertThat(writeAndRead(content.toString())).isEqualTo(content.toString());
+    }
+
+    private Object writeAndRead(Object value) throws Exception {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+            TenantDataFormat.writeValue(output, value);
+        }
+        return TenantDataFormat.readValue(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+    }
+}
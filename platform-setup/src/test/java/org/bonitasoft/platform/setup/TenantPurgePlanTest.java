@@ -0,0 +1,64 @@
+package org.bonitasoft.platform.setup;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+public class TenantPurgePlanTest {
+
+    @Test
+    public void should_keep_script_order_when_no_foreign_key_between_tables() throws Exception {
+        //when
+        final TenantPurgePlan plan = TenantPurgePlan.parse("DELETE FROM b WHERE tenantid = ${tenantid};\nDELETE FROM a WHERE tenantid = ${tenantid};",
+                "ALTER TABLE a ADD CONSTRAINT fk_a_tenantId FOREIGN KEY (tenantid) REFERENCES tenant(id);");
+
+        //then
+        assertThat(plan.getTables()).containsExactly("b", "a");
+    }
+
+    @Test
+    public void should_purge_referencing_tables_before_referenced_ones() throws Exception {
+        //when
+        final TenantPurgePlan plan = TenantPurgePlan.parse(
+                "DELETE FROM parent WHERE tenantid = ${tenantid};\nDELETE FROM other WHERE tenantid = ${tenantid};\nDELETE FROM child WHERE tenantid = ${tenantid};",
+                "ALTER TABLE child ADD CONSTRAINT fk_child_parentId FOREIGN KEY (tenantid, parentId) REFERENCES parent(tenantid, id);");
+
+        //then
+        assertThat(plan.getTables()).containsExactly("other", "child", "parent");
+    }
+
+    @Test
+    public void should_ignore_commented_foreign_keys_and_detect_self_references() throws Exception {
+        //when
+        final TenantPurgePlan plan = TenantPurgePlan.parse(
+                "DELETE FROM parent WHERE tenantid = ${tenantid};\nDELETE FROM child WHERE tenantid = ${tenantid};",
+                "-- ALTER TABLE child ADD CONSTRAINT fk_child_parentId FOREIGN KEY (tenantid, parentId) REFERENCES parent(tenantid, id);\n"
+                        + "ALTER TABLE child ADD CONSTRAINT fk_child_childId FOREIGN KEY (tenantid, childId) REFERENCES child (tenantid, id);");
+
+        //then
+        assertThat(plan.getTables()).containsExactly("parent", "child");
+        assertThat(plan.isSelfReferencing("child")).isTrue();
+        assertThat(plan.isSelfReferencing("parent")).isFalse();
+    }
+
+    @Test
+    public void should_order_all_tables_of_delete_tenant_objects_script() throws Exception {
+        //when
+        final TenantPurgePlan plan = TenantPurgePlan.parse(read("/sql/postgres/deleteTenantObjects.sql"), read("/sql/postgres/postCreateStructure.sql"));
+
+        //then
+        final List<String> tables = plan.getTables();
+        assertThat(tables).hasSize(61).contains("arch_flownode_instance", "arch_data_instance", "queriable_log", "queriable_log_day");
+        assertThat(tables.indexOf("document_mapping")).isLessThan(tables.indexOf("document"));
+        assertThat(tables.indexOf("business_app_menu")).isLessThan(tables.indexOf("business_app_page"));
+        assertThat(tables.indexOf("business_app")).isLessThan(tables.indexOf("page"));
+        assertThat(tables.indexOf("process_definition")).isLessThan(tables.indexOf("process_content"));
+    }
+
+    private String read(String resource) throws Exception {
+        return IOUtils.toString(this.getClass().getResourceAsStream(resource), "UTF-8");
+    }
+}
@@ -0,0 +1,108 @@
+package org.bonitasoft.platform.setup.generator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class RowGeneratorTest {
+
+    private static final long NOW = 1456790400000L;
+
+    private final GenerationPlan plan = new GenerationPlan(1, 1000, 10, 5, 80, 42L);
+
+    @Test
+    public void should_generate_same_rows_for_same_plan_tenant_and_range() throws Exception {
+        //when
+        final Map<SyntheticTable, List<Object[]>> first = new RowGenerator(plan, 1L, NOW).generate(1, 100);
+        final Map<SyntheticTable, List<Object[]>> second = new RowGenerator(plan, 1L, NOW).generate(1, 100);
+
+        //then
+        for (SyntheticTable table : SyntheticTable.values()) {
+            assertThat(second.get(table)).as(table.getTableName()).hasSize(first.get(table).size());
+            for (int i = 0; i < first.get(table).size(); i++) {
+                assertThat(second.get(table).get(i)).isEqualTo(first.get(table).get(i));
+            }
+        }
+    }
+
+    @Test
+    public void should_put_each_process_instance_either_in_process_instance_or_in_archives() throws Exception {
+        //when
+        final Map<SyntheticTable, List<Object[]>> rows = new RowGenerator(plan, 1L, NOW).generate(1, 1000);
+
+        //then
+        final int running = rows.get(SyntheticTable.PROCESS_INSTANCE).size();
+        final int archived = rows.get(SyntheticTable.ARCH_PROCESS_INSTANCE).size();
+        assertThat(running + archived).isEqualTo(1000);
+        assertThat(archived).isGreaterThan(700).isLessThan(900);
+        // one current flow node per running process instance:
+        assertThat(rows.get(SyntheticTable.FLOWNODE_INSTANCE)).hasSize(running);
+        assertThat(rows.get(SyntheticTable.DATA_INSTANCE)).hasSize(running * 5);
+        assertThat(rows.get(SyntheticTable.ARCH_DATA_INSTANCE)).hasSize(archived * 5);
+        assertThat(rows.get(SyntheticTable.QUERIABLE_LOG)).hasSize(running + 2 * archived);
+        assertThat(rows.get(SyntheticTable.PENDING_MAPPING).size()).isLessThan(running);
+    }
+
+    @Test
+    public void should_generate_unique_ids_not_greater_than_max_id_and_dates_not_after_now() throws Exception {
+        //when
+        final Map<SyntheticTable, List<Object[]>> rows = new RowGenerator(plan, 1L, NOW).generate(1, 1000);
+
+        //then
+        for (SyntheticTable table : SyntheticTable.values()) {
+            final Set<Long> ids = new HashSet<>();
+            for (Object[] row : rows.get(table)) {
+                assertThat(row[0]).isEqualTo(1L);
+                assertThat((Long) row[1]).isGreaterThan(0L).isLessThanOrEqualTo(plan.getMaxId());
+                assertThat(ids.add((Long) row[1])).as("duplicate id " + row[1] + " in " + table.getTableName()).isTrue();
+            }
+        }
+        for (Object[] log : rows.get(SyntheticTable.QUERIABLE_LOG)) {
+            assertThat((Long) log[2]).isLessThanOrEqualTo(NOW).isGreaterThan(NOW - 366L * 24 * 3600 * 1000);
+        }
+    }
+
+    @Test
+    public void should_average_flow_nodes_per_process_of_plan() throws Exception {
+        //given
+        final RowGenerator rowGenerator = new RowGenerator(plan, 1L, NOW);
+        final Random random = new Random(42L);
+
+        //when
+        long flowNodes = 0;
+        for (int i = 0; i < 10000; i++) {
+            final int count = rowGenerator.getFlowNodeCount(random);
+            assertThat(count).isGreaterThan(0).isLessThanOrEqualTo(plan.getMaxFlowNodesPerProcess());
+            flowNodes += count;
+        }
+
+        //then
+        assertThat(flowNodes / 10000.0).isGreaterThan(8.5).isLessThan(10.5);
+    }
+
+    @Test
+    public void skewed_should_favor_low_values() throws Exception {
+        //given
+        final Random random = new Random(42L);
+        final int[] counts = new int[RowGenerator.PROCESS_DEFINITIONS];
+
+        //when
+        for (int i = 0; i < 10000; i++) {
+            counts[RowGenerator.skewed(random, RowGenerator.PROCESS_DEFINITIONS)]++;
+        }
+
+        //then
+        assertThat(counts[0]).isGreaterThan(3 * counts[RowGenerator.PROCESS_DEFINITIONS - 1]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void plan_should_reject_archived_percent_greater_than_100() throws Exception {
+        new GenerationPlan(1, 1000, 10, 5, 101, 42L);
+    }
+}
@@ -0,0 +1,111 @@
+package org.bonitasoft.platform.setup.schema;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+
+public class ExpectedSchemaTest {
+
+    @Test
+    public void should_parse_columns_and_inline_constraints_of_create_table() throws Exception {
+        //when
+        final ExpectedSchema schema = ExpectedSchema.parse(asList("CREATE TABLE Document (\n"
+                + "  tenantid BIGINT NOT NULL,\n"
+                + "  id BIGINT NOT NULL,\n"
+                + "  amount NUMERIC(19, 0),\n"
+                + "  index_ INT NOT NULL,\n"
+                + "  key_ VARCHAR(50) NOT NULL,\n"
+                + "  CONSTRAINT UK_Document UNIQUE (tenantid, key_),\n"
+                + "  PRIMARY KEY (tenantid, id)\n"
+                + ") ENGINE = INNODB"));
+
+        //then
+        final TableDefinition table = schema.getTable("document");
+        assertThat(table.getColumns()).containsExactly("tenantid", "id", "amount", "index_", "key_");
+        assertThat(table.getPrimaryKey()).containsExactly("tenantid", "id");
+        assertThat(table.getUniqueConstraints()).containsExactly(asList("tenantid", "key_"));
+        assertThat(table.getConstraintNames()).containsExactly("uk_document");
+    }
+
+    @Test
+    public void should_parse_column_level_primary_key() throws Exception {
+        //when
+        final ExpectedSchema schema = ExpectedSchema.parse(asList("CREATE TABLE tenant (id BIGINT PRIMARY KEY, name VARCHAR(50) NOT NULL UNIQUE)"));
+
+        //then
+        assertThat(schema.getTable("tenant").getPrimaryKey()).containsExactly("id");
+        assertThat(schema.getTable("tenant").getUniqueConstraints()).containsExactly(asList("name"));
+    }
+
+    @Test
+    public void should_add_indexes_and_foreign_keys_to_their_table() throws Exception {
+        //when
+        final ExpectedSchema schema = ExpectedSchema.parse(asList("CREATE TABLE waiting_event (tenantid BIGINT NOT NULL, id BIGINT NOT NULL, kind VARCHAR(15))",
+                "CREATE INDEX idx_waiting_event ON waiting_event (kind ASC, tenantid)",
+                "CREATE UNIQUE INDEX idx_uq_kind ON waiting_event (kind)",
+                "ALTER TABLE waiting_event ADD CONSTRAINT fk_waiting_event_tenantId FOREIGN KEY (tenantid) REFERENCES tenant(id) ON DELETE CASCADE",
+                "CREATE INDEX idx_unknown ON unknown_table (id)"));
+
+        //then
+        final TableDefinition table = schema.getTable("waiting_event");
+        assertThat(table.getIndexes()).hasSize(2).containsEntry("idx_waiting_event", asList("kind", "tenantid")).containsEntry("idx_uq_kind", asList("kind"));
+        assertThat(table.getUniqueConstraints()).containsExactly(asList("kind"));
+        assertThat(table.getForeignKeys()).hasSize(1).containsEntry("fk_waiting_event_tenantid", asList("tenantid"));
+        assertThat(schema.getTables()).hasSize(1);
+    }
+
+    @Test
+    public void should_forget_dropped_tables_and_keep_recreated_ones() throws Exception {
+        //when
+        final ExpectedSchema schema = ExpectedSchema.parse(asList("CREATE TABLE a (id BIGINT, old_column BIGINT)", "CREATE TABLE b (id BIGINT)",
+                "DROP TABLE IF EXISTS a", "DROP TABLE b", "CREATE TABLE a (id BIGINT) PARTITION BY LIST (id)",
+                "CREATE TABLE a_default PARTITION OF a DEFAULT"));
+
+        //then
+        assertThat(schema.getTables()).hasSize(1);
+        assertThat(schema.getTable("a").getColumns()).containsExactly("id");
+    }
+
+    @Test
+    public void should_parse_all_tables_of_create_tables_script() throws Exception {
+        //when
+        final List<String> statements = new ArrayList<>();
+        ScriptUtils.splitSqlScript(read("/sql/postgres/createTables.sql") + "\n" + read("/sql/postgres/postCreateStructure.sql"), ";", statements);
+        final ExpectedSchema schema = ExpectedSchema.parse(statements);
+
+        //then
+        assertThat(schema.getTables()).hasSize(76);
+        assertThat(schema.getTable("flownode_instance").getIndexes()).containsEntry("idx_fni_rootcontid", asList("rootcontainerid"));
+        assertThat(schema.getTable("waiting_event").getIndexes()).containsKey("idx_waiting_event");
+        assertThat(schema.getTable("actormember").getForeignKeys()).containsEntry("fk_actormember_actorid", asList("tenantid", "actorid"));
+    }
+
+    @Test
+    public void should_create_partitioned_tables_with_the_columns_of_create_tables_script() throws Exception {
+        //given
+        final List<String> statements = new ArrayList<>();
+        ScriptUtils.splitSqlScript(read("/sql/postgres/createTables.sql"), ";", statements);
+        final ExpectedSchema plainSchema = ExpectedSchema.parse(statements);
+
+        //when
+        ScriptUtils.splitSqlScript(read("/sql/postgres/createPartitionedTables.sql"), ";", statements);
+        final ExpectedSchema partitionedSchema = ExpectedSchema.parse(statements);
+
+        //then
+        for (String table : asList("arch_process_instance", "arch_flownode_instance", "arch_data_instance", "arch_connector_instance",
+                "arch_document_mapping", "arch_contract_data", "queriable_log", "queriablelog_p")) {
+            assertThat(partitionedSchema.getTable(table).getColumns()).as(table).containsExactly(
+                    plainSchema.getTable(table).getColumns().toArray(new String[0]));
+        }
+    }
+
+    private String read(String resource) throws Exception {
+        return IOUtils.toString(this.getClass().getResourceAsStream(resource), "UTF-8");
+    }
+}
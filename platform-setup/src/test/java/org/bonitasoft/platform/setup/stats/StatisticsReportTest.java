@@ -0,0 +1,86 @@
+package org.bonitasoft.platform.setup.stats;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class StatisticsReportTest {
+
+    private final TableStatistics archFlownodeInstance = new TableStatistics("arch_flownode_instance", 8192L, asList(new TenantStatistics(1L, 100, 0),
+            new TenantStatistics(2L, 50, 0)));
+
+    private final TableStatistics document = new TableStatistics("document", 16384L, asList(new TenantStatistics(1L, 2, 3000)));
+
+    private final TableStatistics platform = new TableStatistics("platform", null, asList(new TenantStatistics(null, 1, 0)));
+
+    @Test
+    public void should_list_biggest_tables_first() throws Exception {
+        //given
+        final StatisticsReport report = new StatisticsReport("postgres", 0L, asList(platform, archFlownodeInstance, document));
+
+        //when
+        final List<String> lines = report.toLines();
+
+        //then
+        assertThat(lines.get(1)).startsWith("document ").endsWith("16.0 KB");
+        assertThat(lines.get(2)).startsWith("arch_flownode_instance ").endsWith("8.0 KB");
+        assertThat(lines.get(3)).startsWith(" ").doesNotContain("KB");
+        assertThat(lines.get(4)).startsWith("platform ").endsWith("-");
+    }
+
+    @Test
+    public void should_sum_rows_and_lob_sizes_per_tenant() throws Exception {
+        //when
+        final Map<Long, TenantStatistics> totals = new StatisticsReport("postgres", 0L, asList(platform, archFlownodeInstance, document)).getTenantTotals();
+
+        //then
+        assertThat(totals).hasSize(2);
+        assertThat(totals.get(1L).getRows()).isEqualTo(102);
+        assertThat(totals.get(1L).getLobBytes()).isEqualTo(3000);
+        assertThat(totals.get(2L).getRows()).isEqualTo(50);
+    }
+
+    @Test
+    public void should_write_json() throws Exception {
+        //when
+        final String json = new StatisticsReport("h2", 1456790400000L, asList(document, platform)).toJson();
+
+        //then
+        assertThat(json).isEqualTo("{\n"
+                + "  \"dbVendor\": \"h2\",\n"
+                + "  \"date\": \"2016-03-01T00:00:00Z\",\n"
+                + "  \"tables\": [\n"
+                + "    {\"name\": \"document\", \"storageBytes\": 16384, \"rows\": 2, \"lobBytes\": 3000, \"tenants\": [{\"tenantId\": 1, \"rows\": 2, \"lobBytes\": 3000}]},\n"
+                + "    {\"name\": \"platform\", \"storageBytes\": null, \"rows\": 1, \"lobBytes\": 0, \"tenants\": [{\"tenantId\": null, \"rows\": 1, \"lobBytes\": 0}]}\n"
+                + "  ],\n"
+                + "  \"tenants\": [\n"
+                + "    {\"tenantId\": 1, \"rows\": 2, \"lobBytes\": 3000}\n"
+                + "  ]\n"
+                + "}\n");
+    }
+
+    @Test
+    public void should_format_sizes_with_binary_units() throws Exception {
+        //then
+        assertThat(StatisticsReport.formatBytes(0)).isEqualTo("0 B");
+        assertThat(StatisticsReport.formatBytes(1023)).isEqualTo("1023 B");
+        assertThat(StatisticsReport.formatBytes(1536)).isEqualTo("1.5 KB");
+        assertThat(StatisticsReport.formatBytes(5L * 1024 * 1024 * 1024)).isEqualTo("5.0 GB");
+    }
+
+    @Test
+    public void should_list_empty_tables() throws Exception {
+        //when
+        final List<String> lines = new StatisticsReport("h2", 0L, asList(new TableStatistics("blob_", null, Collections.<TenantStatistics> emptyList())))
+                .toLines();
+
+        //then
+        assertThat(lines).hasSize(2);
+        assertThat(lines.get(1)).startsWith("blob_ ");
+    }
+}
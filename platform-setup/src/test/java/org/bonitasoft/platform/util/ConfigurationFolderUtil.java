@@ -13,9 +13,8 @@
  **/
 package org.bonitasoft.platform.util;
 
-import static java.util.Arrays.asList;
 import static org.bonitasoft.platform.setup.PlatformSetup.PLATFORM_CONF_FOLDER_NAME;
-import static org.bonitasoft.platform.setup.ScriptExecutor.ALL_SQL_FILES;
+import static org.bonitasoft.platform.setup.ScriptExecutor.getSqlFiles;
 
 import java.io.IOException;
 import java.nio.file.Files;
@@ -47,7 +46,7 @@ public class ConfigurationFolderUtil {
     public void buildSqlFolder(Path rootFolder, String dbVendor) throws IOException {
         Path sqlPath = rootFolder.resolve(PLATFORM_CONF_FOLDER_NAME).resolve("sql").resolve(dbVendor);
         Files.createDirectories(sqlPath);
-        for (String sqlFile : asList(ALL_SQL_FILES)) {
+        for (String sqlFile : getSqlFiles(dbVendor)) {
             Files.copy(ConfigurationFolderUtil.class.getResourceAsStream("/sql/" + dbVendor + "/" + sqlFile), sqlPath.resolve(sqlFile));
         }
     }
@@ -3,6 +3,7 @@ package org.bonitasoft.platform.util;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.bonitasoft.platform.setup.PlatformSetup.PLATFORM_CONF_FOLDER_NAME;
 import static org.bonitasoft.platform.setup.ScriptExecutor.ALL_SQL_FILES;
+import static org.bonitasoft.platform.setup.ScriptExecutor.PARTITION_SQL_FILES;
 
 import java.io.File;
 import java.nio.file.Path;
@@ -31,7 +32,21 @@ public class ConfigurationFolderUtilTest {
         //then
         final File expectedFolder = setupFolder.resolve(PLATFORM_CONF_FOLDER_NAME).resolve("sql").resolve("h2").toFile();
         assertThat(expectedFolder).exists().isDirectory();
-        assertThat(expectedFolder.listFiles()).extracting("name").hasSize(10).containsOnly(ALL_SQL_FILES);
+        assertThat(expectedFolder.listFiles()).extracting("name").hasSize(11).containsOnly(ALL_SQL_FILES);
+    }
+
+    @Test
+    public void should_copy_partition_sql_files_of_partitioning_db_vendor() throws Exception {
+        //given
+        ConfigurationFolderUtil configurationFolderUtil = new ConfigurationFolderUtil();
+        Path setupFolder = temporaryFolder.newFolder().toPath();
+
+        //when
+        configurationFolderUtil.buildSqlFolder(setupFolder, "postgres");
+
+        //then
+        final File expectedFolder = setupFolder.resolve(PLATFORM_CONF_FOLDER_NAME).resolve("sql").resolve("postgres").toFile();
+        assertThat(expectedFolder.listFiles()).extracting("name").hasSize(14).contains(ALL_SQL_FILES).contains(PARTITION_SQL_FILES);
     }
 
     @Test